@@ -1,26 +1,83 @@
 package com.example.d_trade.aspect;
 
 import com.example.d_trade.utils.PerformanceMonitor;
+import com.example.d_trade.utils.RequestTrace;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
 /**
  * 性能监控切面
  * 用于自动记录方法执行时间
+ * 每个方法的统计键和指标对象按 Method 缓存，调用时不拼接字符串；
+ * 可以按controller/service/repository分别开关，并支持每N次抽样或按概率抽样，抽样记录按权重还原调用次数
  */
 @Aspect
 @Component
 @Slf4j
+@ConditionalOnProperty(name = "app.performance.monitor.enabled", havingValue = "true", matchIfMissing = true)
 public class PerformanceAspect {
 
+    /** 执行时间超过500ms的方法记录警告日志 */
+    private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /**
+     * 抽样方式
+     */
+    public enum SamplingMode {
+        /** 记录每一次调用 */
+        ALL,
+        /** 每个方法每N次调用记录一次 */
+        EVERY_N,
+        /** 每次调用按概率决定是否记录 */
+        PROBABILITY
+    }
+
     private final PerformanceMonitor performanceMonitor;
+    private final boolean controllersEnabled;
+    private final boolean servicesEnabled;
+    private final boolean repositoriesEnabled;
+    private final SamplingMode samplingMode;
+    private final int everyN;
+    private final double probability;
+    private final long weight;
 
-    public PerformanceAspect(PerformanceMonitor performanceMonitor) {
+    private final Map<Method, MethodProbe> probes = new ConcurrentHashMap<>();
+
+    public PerformanceAspect(PerformanceMonitor performanceMonitor,
+                             @Value("${app.performance.monitor.controllers:true}") boolean controllersEnabled,
+                             @Value("${app.performance.monitor.services:true}") boolean servicesEnabled,
+                             @Value("${app.performance.monitor.repositories:true}") boolean repositoriesEnabled,
+                             @Value("${app.performance.monitor.sampling:all}") String samplingMode,
+                             @Value("${app.performance.monitor.every-n:10}") int everyN,
+                             @Value("${app.performance.monitor.probability:0.1}") double probability) {
         this.performanceMonitor = performanceMonitor;
+        this.controllersEnabled = controllersEnabled;
+        this.servicesEnabled = servicesEnabled;
+        this.repositoriesEnabled = repositoriesEnabled;
+        this.samplingMode = SamplingMode.valueOf(samplingMode.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        this.everyN = Math.max(1, everyN);
+        this.probability = Math.max(0.0001, Math.min(1, probability));
+        this.weight = switch (this.samplingMode) {
+            case ALL -> 1;
+            case EVERY_N -> this.everyN;
+            case PROBABILITY -> Math.round(1 / this.probability);
+        };
+        log.info("性能监控: controller={}, service={}, repository={}, 抽样方式={}, 权重={}",
+                controllersEnabled, servicesEnabled, repositoriesEnabled, this.samplingMode, weight);
     }
 
     /**
@@ -41,24 +98,98 @@ public class PerformanceAspect {
     @Pointcut("execution(* com.example.d_trade.repository..*.*(..))")
     public void repositoryMethods() {}
 
+    @Around("controllerMethods()")
+    public Object monitorController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return controllersEnabled ? logExecutionTime(joinPoint, RequestTrace.Layer.CONTROLLER) : joinPoint.proceed();
+    }
+
+    @Around("serviceMethods()")
+    public Object monitorService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return servicesEnabled ? logExecutionTime(joinPoint, RequestTrace.Layer.SERVICE) : joinPoint.proceed();
+    }
+
+    @Around("repositoryMethods()")
+    public Object monitorRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return repositoriesEnabled ? logExecutionTime(joinPoint, RequestTrace.Layer.REPOSITORY) : joinPoint.proceed();
+    }
+
     /**
-     * 环绕通知：记录方法执行时间
+     * 记录方法执行时间；在请求中时同时加入请求的调用链，调用链不受抽样影响
      * @param joinPoint 连接点
+     * @param layer 所在的层
      * @return 方法执行结果
      * @throws Throwable 异常
      */
-    @Around("controllerMethods() || serviceMethods() || repositoryMethods()")
-    public Object logExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
-        String methodName = joinPoint.getSignature().getDeclaringTypeName() + "." + joinPoint.getSignature().getName();
-        long startTime = performanceMonitor.start(methodName);
-        
-        try {
+    private Object logExecutionTime(ProceedingJoinPoint joinPoint, RequestTrace.Layer layer) throws Throwable {
+        MethodProbe probe = probeFor(joinPoint);
+        boolean sampled = probe.sample();
+        RequestTrace trace = RequestTrace.current();
+        if (!sampled && trace == null) {
             return joinPoint.proceed();
+        }
+
+        RequestTrace.Span span = trace != null ? trace.enter(probe.key, layer) : null;
+        long startTime = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = joinPoint.proceed();
+            failed = false;
+            return result;
         } finally {
-            long executionTime = performanceMonitor.end(methodName, startTime);
-            if (executionTime > 500) { // 执行时间超过500ms的方法记录警告日志
-                log.warn("Long execution time for method {}: {} ms", methodName, executionTime);
+            long executionNanos = System.nanoTime() - startTime;
+            if (span != null) {
+                trace.exit(span, executionNanos, failed);
+            }
+            if (sampled) {
+                probe.metrics().record(executionNanos, failed, weight);
+                if (executionNanos > SLOW_NANOS) {
+                    log.warn("Long execution time for method {}: {} ms", probe.key,
+                            TimeUnit.NANOSECONDS.toMillis(executionNanos));
+                }
+            }
+        }
+    }
+
+    private MethodProbe probeFor(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodProbe probe = probes.get(method);
+        if (probe == null) {
+            probe = probes.computeIfAbsent(method,
+                    m -> new MethodProbe(m.getDeclaringClass().getName() + "." + m.getName()));
+        }
+        return probe;
+    }
+
+    /**
+     * 每个方法预先计算好的统计键、指标对象和抽样计数
+     */
+    private final class MethodProbe {
+        private final String key;
+        private volatile PerformanceMonitor.MethodMetrics metrics;
+        /** 不做同步：并发下偶尔丢失一次自增只会让抽样间隔略有偏差，换来无竞争的计数 */
+        private int counter;
+
+        MethodProbe(String key) {
+            this.key = key;
+            this.metrics = performanceMonitor.getMetrics(key);
+        }
+
+        boolean sample() {
+            return switch (samplingMode) {
+                case ALL -> true;
+                case EVERY_N -> ++counter % everyN == 0;
+                case PROBABILITY -> ThreadLocalRandom.current().nextDouble() < probability;
+            };
+        }
+
+        PerformanceMonitor.MethodMetrics metrics() {
+            PerformanceMonitor.MethodMetrics current = metrics;
+            if (!performanceMonitor.isCurrent(current)) {
+                // 统计被重置过，重新获取
+                current = performanceMonitor.getMetrics(key);
+                metrics = current;
             }
+            return current;
         }
     }
-} 
\ No newline at end of file
+}
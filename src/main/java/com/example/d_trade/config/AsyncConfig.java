@@ -1,38 +1,32 @@
 package com.example.d_trade.config;
 
+import com.example.d_trade.utils.ExecutorRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-
-import java.util.concurrent.Executor;
 
 /**
  * 异步执行配置类
+ * 异步任务按类别提交到 ExecutorRegistry 中的有界执行器，不使用 @Async，
+ * 因为它只对通过代理调用的 public 方法生效，标在 private 方法或同类内部调用上时会静默地同步执行。
+ * 开启 spring.threads.virtual.enabled（virtual profile）时执行器和请求处理一样使用虚拟线程
  */
 @Configuration
-@EnableAsync
+@EnableConfigurationProperties(ExecutorProperties.class)
 public class AsyncConfig {
 
     /**
-     * 配置异步任务执行器
-     * @return 异步任务执行器
+     * 配置具名执行器
+     * @param executorProperties 执行器配置
+     * @param virtualThreads 是否使用虚拟线程
+     * @return 执行器注册表
      */
-    @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        // 核心线程数
-        executor.setCorePoolSize(5);
-        // 最大线程数
-        executor.setMaxPoolSize(10);
-        // 队列大小
-        executor.setQueueCapacity(25);
-        // 线程名前缀
-        executor.setThreadNamePrefix("DTrade-Async-");
-        // 等待所有任务结束后再关闭线程池
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        // 初始化
-        executor.initialize();
-        return executor;
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorRegistry executorRegistry(ExecutorProperties executorProperties,
+                                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        return new ExecutorRegistry(ExecutorRegistry.NAMES.stream()
+                .map(name -> executorProperties.specFor(name).build(name, virtualThreads))
+                .toList());
     }
-} 
\ No newline at end of file
+}
@@ -1,35 +1,179 @@
 package com.example.d_trade.config;
 
+import com.example.d_trade.utils.CacheDependencyTracker;
+import com.example.d_trade.utils.CacheReloadRegistry;
+import com.example.d_trade.utils.L2CacheStore;
+import com.example.d_trade.utils.ObjectSizeEstimator;
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.Nullable;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * 缓存配置类
+ * 每个缓存按 app.cache.specs 使用各自的容量、过期和提前刷新策略，并记录命中率、淘汰和加载耗时统计；
+ * value-format 为 json 的缓存以紧凑的字节形式保存条目；
+ * 开启 app.cache.cluster 后，配置了 l2 的缓存在本地缓存之外再使用多个实例共享的二级缓存；
+ * 写入前按 CacheDependencyTracker 检查依赖，加载期间依赖已失效的结果不写入
  */
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
 public class CacheConfig {
 
     /**
      * 配置缓存管理器
+     * @param cacheProperties 缓存策略
+     * @param cacheReloadRegistry 提前刷新时使用的重新加载方法
+     * @param l2CacheStore 二级缓存存储，未开启集群缓存时为null
+     * @param dependencyTracker 缓存依赖跟踪器，依赖缓存管理器，使用时再获取；为null时写入前不检查依赖
      * @return 缓存管理器
      */
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                // 设置最后一次写入或访问后经过固定时间过期
-                .expireAfterAccess(30, TimeUnit.MINUTES)
-                // 初始的缓存空间大小
-                .initialCapacity(100)
-                // 缓存的最大条数
-                .maximumSize(1000));
+    public CacheManager cacheManager(CacheProperties cacheProperties, CacheReloadRegistry cacheReloadRegistry,
+                                     @Nullable L2CacheStore l2CacheStore,
+                                     @Nullable ObjectProvider<CacheDependencyTracker> dependencyTracker) {
+        PolicyCaffeineCacheManager cacheManager = new PolicyCaffeineCacheManager(cacheProperties, cacheReloadRegistry,
+                l2CacheStore, dependencyTracker != null ? dependencyTracker::getIfAvailable : null);
+        // 提前创建配置过的缓存，统计接口从启动起就能看到
+        cacheProperties.getSpecs().keySet().forEach(cacheManager::getCache);
         return cacheManager;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 按估算的字节数计算条目权重，用于配置了 maximumWeight 的缓存
+     * @param key 缓存键
+     * @param value 缓存值
+     * @return 权重（字节）
+     */
+    static int weigh(Object key, Object value) {
+        long bytes = ObjectSizeEstimator.estimate(key) + ObjectSizeEstimator.estimate(value);
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, bytes));
+    }
+
+    /**
+     * 按缓存名使用不同策略的缓存管理器
+     */
+    static class PolicyCaffeineCacheManager extends CaffeineCacheManager {
+
+        private final CacheProperties cacheProperties;
+        private final CacheReloadRegistry cacheReloadRegistry;
+        private final L2CacheStore l2CacheStore;
+        private final Supplier<CacheDependencyTracker> dependencyTracker;
+        private final Map<String, StatsCounter> statsCounters = new ConcurrentHashMap<>();
+
+        PolicyCaffeineCacheManager(CacheProperties cacheProperties, CacheReloadRegistry cacheReloadRegistry,
+                                   @Nullable L2CacheStore l2CacheStore,
+                                   @Nullable Supplier<CacheDependencyTracker> dependencyTracker) {
+            this.cacheProperties = cacheProperties;
+            this.cacheReloadRegistry = cacheReloadRegistry;
+            this.l2CacheStore = l2CacheStore;
+            this.dependencyTracker = dependencyTracker;
+        }
+
+        @Override
+        protected Cache<Object, Object> createNativeCaffeineCache(String name) {
+            StatsCounter statsCounter = new ConcurrentStatsCounter();
+            statsCounters.put(name, statsCounter);
+            CacheProperties.Spec spec = cacheProperties.specFor(name);
+            Caffeine<Object, Object> builder = spec.toBuilder().recordStats(() -> statsCounter);
+            if (spec.getRefreshAfterWrite() == null) {
+                return builder.build();
+            }
+
+            // 刷新需要LoadingCache；读取仍走getIfPresent（见 LoadTimingCaffeineCache.lookup），加载方法只在后台刷新时调用
+            AtomicReference<Cache<Object, Object>> cache = new AtomicReference<>();
+            cache.set(builder
+                    .removalListener((key, value, cause) -> {
+                        // 监听器异步执行，期间同一个键可能已重新计算并登记，仍在缓存中时保留
+                        if (cause != RemovalCause.REPLACED && key != null && !cache.get().asMap().containsKey(key)) {
+                            cacheReloadRegistry.removed(name, key);
+                        }
+                    })
+                    .build(key -> {
+                        Object value = cacheReloadRegistry.reload(name, key);
+                        return spec.isCompact() ? CompactValueCache.toStoreValue(name, value) : value;
+                    }));
+            return cache.get();
+        }
+
+        @Override
+        protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+            StatsCounter statsCounter = statsCounters.get(name);
+            if (statsCounter == null) {
+                return super.adaptCaffeineCache(name, cache);
+            }
+            org.springframework.cache.Cache local =
+                    new LoadTimingCaffeineCache(name, cache, isAllowNullValues(), statsCounter);
+            CacheProperties.Spec spec = cacheProperties.specFor(name);
+            if (spec.isCompact()) {
+                local = new CompactValueCache(local);
+            }
+            if (l2CacheStore != null && spec.isL2Enabled()) {
+                local = new TwoLevelCache(local, l2CacheStore, spec.l2Ttl(),
+                        dependencyTracker != null ? dependencyTracker : () -> null);
+            }
+            // 最外层检查依赖，依赖已失效时两级缓存都不写入
+            return dependencyTracker != null ? new DependencyCheckedCache(local, dependencyTracker) : local;
+        }
+    }
+
+    /**
+     * 记录 @Cacheable 加载耗时的缓存
+     * @Cacheable 默认先查缓存、未命中时执行方法再写入，不经过Caffeine的加载方法，加载耗时需要自己记录：
+     * 查询未命中时记下开始时间，同一线程随后写入同一个键时把间隔计入加载耗时；
+     * @Cacheable(sync = true) 经过Caffeine的 get(key, mappingFunction)，同一个键的并发未命中只计算一次，耗时由Caffeine记录
+     */
+    static class LoadTimingCaffeineCache extends CaffeineCache {
+
+        private final StatsCounter statsCounter;
+        private final ThreadLocal<PendingLoad> pendingLoad = new ThreadLocal<>();
+
+        LoadTimingCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues,
+                                StatsCounter statsCounter) {
+            super(name, cache, allowNullValues);
+            this.statsCounter = statsCounter;
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            // 不使用LoadingCache.get，未命中时交给 @Cacheable 执行方法
+            Object value = getNativeCache().getIfPresent(key);
+            if (value == null) {
+                pendingLoad.set(new PendingLoad(key, System.nanoTime()));
+            }
+            return value;
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            PendingLoad pending = pendingLoad.get();
+            if (pending != null) {
+                pendingLoad.remove();
+                if (Objects.equals(pending.key(), key)) {
+                    statsCounter.recordLoadSuccess(System.nanoTime() - pending.startNanos());
+                }
+            }
+            super.put(key, value);
+        }
+
+        private record PendingLoad(Object key, long startNanos) {
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.d_trade.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 缓存策略配置（app.cache）
+ * 每个缓存可以单独配置容量和过期时间，未配置的项使用 defaults
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class CacheProperties {
+
+    /**
+     * 默认策略
+     */
+    private Spec defaults = Spec.defaults();
+
+    /**
+     * 缓存名 -> 策略
+     */
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
+    /**
+     * 获取缓存的策略，未配置的项取默认值
+     * @param cacheName 缓存名
+     * @return 合并后的策略
+     */
+    public Spec specFor(String cacheName) {
+        Spec spec = specs.get(cacheName);
+        return spec != null ? spec.withDefaults(defaults) : defaults;
+    }
+
+    /**
+     * 单个缓存的策略
+     * maximumWeight 和 maximumSize 只能生效一个，配置了 maximumWeight 时按估算的字节数限制容量，适合列表页这类大小差异大的条目；
+     * expireAfterWrite 和 expireAfterAccess 可以同时配置；
+     * refreshAfterWrite 需要缓存值在首次计算时向 CacheReloadRegistry 登记重新加载方法，应小于过期时间；
+     * valueFormat 为 JSON 时条目以紧凑的字节形式保存，命中时还原，适合对象图大的分页结果；
+     * l2 只在开启 app.cache.cluster 时生效，列表页等条目的依赖随值一起保存，其他实例从二级缓存读取后同样按变更事件失效（见 CacheDependencyTracker）
+     */
+    @Data
+    public static class Spec {
+
+        private Integer initialCapacity;
+        private Long maximumSize;
+        private DataSize maximumWeight;
+        private Duration expireAfterWrite;
+        private Duration expireAfterAccess;
+        private Duration refreshAfterWrite;
+        private Boolean l2;
+        private ValueFormat valueFormat;
+
+        static Spec defaults() {
+            Spec spec = new Spec();
+            spec.setInitialCapacity(100);
+            spec.setMaximumSize(1000L);
+            spec.setExpireAfterAccess(Duration.ofMinutes(30));
+            return spec;
+        }
+
+        Spec withDefaults(Spec defaults) {
+            Spec merged = new Spec();
+            merged.setInitialCapacity(initialCapacity != null ? initialCapacity : defaults.initialCapacity);
+            if (maximumWeight != null) {
+                merged.setMaximumWeight(maximumWeight);
+            } else {
+                merged.setMaximumSize(maximumSize != null ? maximumSize : defaults.maximumSize);
+            }
+            // 过期时间只要单独配置了任意一项就不再继承默认值，避免写入过期和访问过期意外叠加
+            if (expireAfterWrite != null || expireAfterAccess != null) {
+                merged.setExpireAfterWrite(expireAfterWrite);
+                merged.setExpireAfterAccess(expireAfterAccess);
+            } else {
+                merged.setExpireAfterWrite(defaults.expireAfterWrite);
+                merged.setExpireAfterAccess(defaults.expireAfterAccess);
+            }
+            merged.setRefreshAfterWrite(refreshAfterWrite != null ? refreshAfterWrite : defaults.refreshAfterWrite);
+            merged.setL2(l2 != null ? l2 : defaults.l2);
+            merged.setValueFormat(valueFormat != null ? valueFormat : defaults.valueFormat);
+            return merged;
+        }
+
+        /**
+         * 是否以紧凑形式保存缓存值
+         * @return 配置了 value-format: json 时为true
+         */
+        boolean isCompact() {
+            return valueFormat == ValueFormat.JSON;
+        }
+
+        /**
+         * 是否同时使用二级缓存
+         * @return 配置了 l2: true 时为true
+         */
+        boolean isL2Enabled() {
+            return Boolean.TRUE.equals(l2);
+        }
+
+        /**
+         * 二级缓存的存活时间，与一级缓存的过期时间一致，未配置过期时间时为30分钟
+         * @return 存活时间
+         */
+        Duration l2Ttl() {
+            if (expireAfterWrite != null) {
+                return expireAfterWrite;
+            }
+            return expireAfterAccess != null ? expireAfterAccess : Duration.ofMinutes(30);
+        }
+
+        /**
+         * 转换为Caffeine构建器
+         * @return 构建器，尚未开启统计，refreshAfterWrite 需要在构建时提供加载方法
+         */
+        Caffeine<Object, Object> toBuilder() {
+            Caffeine<Object, Object> builder = Caffeine.newBuilder();
+            if (initialCapacity != null) {
+                builder.initialCapacity(initialCapacity);
+            }
+            if (maximumWeight != null) {
+                builder.maximumWeight(maximumWeight.toBytes())
+                        .weigher(CacheConfig::weigh);
+            } else if (maximumSize != null) {
+                builder.maximumSize(maximumSize);
+            }
+            if (expireAfterWrite != null) {
+                builder.expireAfterWrite(expireAfterWrite);
+            }
+            if (expireAfterAccess != null) {
+                builder.expireAfterAccess(expireAfterAccess);
+            }
+            if (refreshAfterWrite != null) {
+                builder.refreshAfterWrite(refreshAfterWrite);
+            }
+            return builder;
+        }
+    }
+
+    /**
+     * 缓存值的保存形式
+     */
+    public enum ValueFormat {
+        /** 直接保存对象，命中时返回同一个实例 */
+        OBJECT,
+        /** 保存为JSON字节，命中时还原为新对象 */
+        JSON
+    }
+}
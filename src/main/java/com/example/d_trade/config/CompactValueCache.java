@@ -0,0 +1,115 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.utils.JsonCacheValueCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+/**
+ * 以紧凑表示保存值的缓存（value-format: json）
+ * 写入时把值压成 JsonCacheValueCodec.Encoded，命中时还原，调用方拿到的仍是原来的类型；
+ * 每次命中都会还原出新的对象，用反序列化的CPU换取更少的常驻堆内存。
+ * 不能压缩的值按原对象保存，无法还原的条目当作未命中并删除
+ */
+@Slf4j
+class CompactValueCache implements Cache {
+
+    private final Cache local;
+
+    CompactValueCache(Cache local) {
+        this.local = local;
+    }
+
+    @Override
+    public String getName() {
+        return local.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = local.get(key);
+        if (wrapper == null || !(wrapper.get() instanceof JsonCacheValueCodec.Encoded encoded)) {
+            return wrapper;
+        }
+        try {
+            return new SimpleValueWrapper(encoded.decode());
+        } catch (IOException e) {
+            log.warn("缓存值无法还原，按未命中处理: cache={}, key={}, error={}", getName(), key, e.getMessage());
+            local.evict(key);
+            return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存值类型不匹配: " + type.getName() + ", 实际为 " + value.getClass().getName());
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object stored = local.get(key, () -> toStoreValue(getName(), valueLoader.call()));
+        if (!(stored instanceof JsonCacheValueCodec.Encoded encoded)) {
+            return (T) stored;
+        }
+        try {
+            return (T) encoded.decode();
+        } catch (IOException e) {
+            log.warn("缓存值无法还原，重新加载: cache={}, key={}, error={}", getName(), key, e.getMessage());
+            local.evict(key);
+            try {
+                return valueLoader.call();
+            } catch (Exception ex) {
+                throw new ValueRetrievalException(key, valueLoader, ex);
+            }
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        local.put(key, toStoreValue(getName(), value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        local.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+    }
+
+    /**
+     * 转换为保存在缓存中的值，提前刷新的加载结果也经过这里
+     * @param cacheName 缓存名
+     * @param value 原始值
+     * @return 紧凑表示，null或不能压缩时返回原值
+     */
+    static Object toStoreValue(String cacheName, Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return JsonCacheValueCodec.encode(value);
+        } catch (IOException e) {
+            log.warn("缓存值不能压缩，按对象保存: cache={}, type={}, error={}",
+                    cacheName, value.getClass().getName(), e.getMessage());
+            return value;
+        }
+    }
+}
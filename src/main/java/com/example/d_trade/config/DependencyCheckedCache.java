@@ -0,0 +1,85 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.utils.CacheDependencyTracker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 写入前检查依赖的缓存
+ * 列表页在查询后登记依赖，方法返回后才写入缓存；两者之间提交的商品变更已经删除了依赖，
+ * 直接写入会留下不再被失效的旧页面。写入前由 CacheDependencyTracker.isCurrent 判断，依赖已失效时不写入；
+ * @Cacheable(sync = true) 在缓存内部计算并写入，计算完成后检查，依赖已失效时删除刚写入的条目
+ */
+@Slf4j
+class DependencyCheckedCache implements Cache {
+
+    private final Cache local;
+    private final Supplier<CacheDependencyTracker> dependencyTracker;
+
+    DependencyCheckedCache(Cache local, Supplier<CacheDependencyTracker> dependencyTracker) {
+        this.local = local;
+        this.dependencyTracker = dependencyTracker;
+    }
+
+    @Override
+    public String getName() {
+        return local.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return local.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return local.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        AtomicBoolean loaded = new AtomicBoolean();
+        T value = local.get(key, () -> {
+            loaded.set(true);
+            return valueLoader.call();
+        });
+        if (loaded.get() && !isCurrent(key)) {
+            log.debug("加载期间依赖已失效，删除刚写入的条目: cache={}, key={}", getName(), key);
+            local.evict(key);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (isCurrent(key)) {
+            local.put(key, value);
+        } else {
+            log.debug("加载期间依赖已失效，不写入缓存: cache={}, key={}", getName(), key);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        local.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+    }
+
+    private boolean isCurrent(Object key) {
+        CacheDependencyTracker tracker = dependencyTracker.get();
+        return tracker == null || tracker.isCurrent(getName(), key);
+    }
+}
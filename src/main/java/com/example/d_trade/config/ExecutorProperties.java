@@ -0,0 +1,83 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.utils.MonitoredExecutor;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 异步执行器配置（app.executors）
+ * 每个执行器可以单独配置线程数、队列容量和拒绝策略，未配置的项使用 defaults
+ */
+@Data
+@ConfigurationProperties(prefix = "app.executors")
+public class ExecutorProperties {
+
+    /**
+     * 默认配置
+     */
+    private Spec defaults = Spec.defaults();
+
+    /**
+     * 执行器名 -> 配置
+     */
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
+    /**
+     * 获取执行器的配置，未配置的项取默认值
+     * @param name 执行器名
+     * @return 合并后的配置
+     */
+    public Spec specFor(String name) {
+        Spec spec = specs.get(name);
+        return spec != null ? spec.withDefaults(defaults) : defaults;
+    }
+
+    /**
+     * 单个执行器的配置
+     * 线程池先用满核心线程，再排队，队列满后才增加到 maxSize，仍然处理不了时按 rejection 处理
+     */
+    @Data
+    public static class Spec {
+
+        private Integer coreSize;
+        private Integer maxSize;
+        private Integer queueCapacity;
+        private Duration keepAlive;
+        private MonitoredExecutor.Rejection rejection;
+
+        static Spec defaults() {
+            Spec spec = new Spec();
+            spec.setCoreSize(2);
+            spec.setMaxSize(4);
+            spec.setQueueCapacity(100);
+            spec.setKeepAlive(Duration.ofSeconds(60));
+            spec.setRejection(MonitoredExecutor.Rejection.CALLER_RUNS);
+            return spec;
+        }
+
+        Spec withDefaults(Spec defaults) {
+            Spec merged = new Spec();
+            merged.setCoreSize(coreSize != null ? coreSize : defaults.coreSize);
+            // 只配置了核心线程数时最大线程数不小于核心线程数
+            merged.setMaxSize(maxSize != null ? maxSize : Math.max(merged.coreSize, defaults.maxSize));
+            merged.setQueueCapacity(queueCapacity != null ? queueCapacity : defaults.queueCapacity);
+            merged.setKeepAlive(keepAlive != null ? keepAlive : defaults.keepAlive);
+            merged.setRejection(rejection != null ? rejection : defaults.rejection);
+            return merged;
+        }
+
+        /**
+         * 按配置创建执行器
+         * @param name 执行器名
+         * @param virtualThreads 是否使用虚拟线程
+         * @return 执行器
+         */
+        MonitoredExecutor build(String name, boolean virtualThreads) {
+            return new MonitoredExecutor(name, coreSize, maxSize, queueCapacity, keepAlive, rejection, virtualThreads);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.dto.UserDTO;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.repository.ProductRepository;
+import com.example.d_trade.utils.OffHeapProductCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 启动时加载堆外商品目录
+ * 按ID分批读取全部在售商品，加载完成前商品详情和列表页仍走本地缓存和数据库
+ * 在搜索索引重建之后、启动预热之前执行
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class ProductCatalogInitializer implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogInitializer.class);
+
+    private final ProductRepository productRepository;
+    private final OffHeapProductCatalog productCatalog;
+
+    @Value("${app.catalog.off-heap.batch-size:1000}")
+    private int batchSize = 1000;
+
+    public ProductCatalogInitializer(ProductRepository productRepository, OffHeapProductCatalog productCatalog) {
+        this.productRepository = productRepository;
+        this.productCatalog = productCatalog;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!productCatalog.isEnabled()) {
+            logger.info("未开启堆外商品目录");
+            return;
+        }
+        reload();
+    }
+
+    /**
+     * 重新加载堆外商品目录
+     */
+    public void reload() {
+        long start = System.currentTimeMillis();
+        productCatalog.clear();
+
+        long lastId = 0L;
+        List<Product> batch;
+        do {
+            batch = productRepository.findCatalogBatch(Product.Status.AVAILABLE, lastId, PageRequest.of(0, batchSize));
+            for (Product product : batch) {
+                productCatalog.put(product, UserDTO.fromEntity(product.getSeller()));
+                lastId = product.getId();
+            }
+        } while (batch.size() == batchSize);
+
+        productCatalog.markReady();
+        logger.info("堆外商品目录加载完成: 商品数={}, 耗时={}ms",
+                productCatalog.size(), System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.dto.projection.ProductFacetProjection;
+import com.example.d_trade.repository.ProductRepository;
+import com.example.d_trade.utils.ProductFacetCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 启动时全量构建商品分面计数
+ * 按ID分批读取状态、价格和交易地点，构建完成前分面接口返回 ready=false 的空计数
+ * 在堆外商品目录加载之后、启动预热之前执行
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+public class ProductFacetInitializer implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetInitializer.class);
+
+    private final ProductRepository productRepository;
+    private final ProductFacetCounter productFacetCounter;
+
+    @Value("${app.facets.batch-size:1000}")
+    private int batchSize = 1000;
+
+    public ProductFacetInitializer(ProductRepository productRepository, ProductFacetCounter productFacetCounter) {
+        this.productRepository = productRepository;
+        this.productFacetCounter = productFacetCounter;
+    }
+
+    @Override
+    public void run(String... args) {
+        rebuild();
+    }
+
+    /**
+     * 重建商品分面计数
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        productFacetCounter.clear();
+
+        long lastId = 0L;
+        List<ProductFacetProjection> batch;
+        do {
+            batch = productRepository.findFacetBatch(lastId, PageRequest.of(0, batchSize));
+            for (ProductFacetProjection row : batch) {
+                productFacetCounter.add(row);
+                lastId = row.getId();
+            }
+        } while (batch.size() == batchSize);
+
+        productFacetCounter.markReady();
+        logger.info("商品分面计数构建完成: 商品数={}, 耗时={}ms",
+                productFacetCounter.size(), System.currentTimeMillis() - start);
+    }
+}
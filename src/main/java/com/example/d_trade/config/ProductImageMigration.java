@@ -0,0 +1,120 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品图片迁移：把旧的 product_images 关联表中的图片路径写入 products.image_paths JSON列
+ * 迁移完成后旧表重命名为 product_images_migrated 保留备份，之后启动不会重复执行；
+ * 备份表已存在时（旧表被重新创建后再次迁移）备份表名加上时间戳，不覆盖也不因重名失败
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ProductImageMigration implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImageMigration.class);
+
+    private static final String LEGACY_TABLE = "product_images";
+    private static final String BACKUP_TABLE = "product_images_migrated";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.migration.product-images:true}")
+    private boolean enabled;
+
+    @Value("${app.migration.batch-size:500}")
+    private int batchSize;
+
+    public ProductImageMigration(DataSource dataSource, ProductRepository productRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled || !tableExists(LEGACY_TABLE)) {
+            return;
+        }
+        migrate();
+    }
+
+    /**
+     * 执行迁移
+     * @return 写入图片路径的商品数量
+     */
+    public int migrate() {
+        long start = System.currentTimeMillis();
+
+        // 旧表没有排序列，按读取顺序保留同一商品内的图片顺序
+        Map<Long, List<String>> imagesByProduct = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT product_id, image_path FROM " + LEGACY_TABLE, rs -> {
+            imagesByProduct.computeIfAbsent(rs.getLong(1), k -> new ArrayList<>()).add(rs.getString(2));
+        });
+
+        // 通过实体写入，JSON列的绑定方式交给Hibernate按方言处理
+        List<Long> productIds = new ArrayList<>(imagesByProduct.keySet());
+        int migrated = 0;
+        for (int from = 0; from < productIds.size(); from += batchSize) {
+            List<Long> batch = productIds.subList(from, Math.min(from + batchSize, productIds.size()));
+            Integer updated = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Product product : productRepository.findAllById(batch)) {
+                    // 已经写过JSON列的商品以新数据为准
+                    if (product.getImagePaths() == null || product.getImagePaths().isEmpty()) {
+                        product.setImagePaths(imagesByProduct.get(product.getId()));
+                        count++;
+                    }
+                }
+                return count;
+            });
+            migrated += updated != null ? updated : 0;
+        }
+
+        String backupTable = tableExists(BACKUP_TABLE) ? BACKUP_TABLE + "_" + System.currentTimeMillis() : BACKUP_TABLE;
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY_TABLE + " RENAME TO " + backupTable);
+        logger.info("商品图片迁移完成: 图片记录涉及商品数={}, 写入商品数={}, 耗时={}ms, 旧表已重命名为{}",
+                imagesByProduct.size(), migrated, System.currentTimeMillis() - start, backupTable);
+        return migrated;
+    }
+
+    /**
+     * 判断当前库中是否存在指定的表（MySQL表名小写，H2为大写）
+     */
+    private boolean tableExists(String table) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{table, table.toUpperCase()}) {
+                try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.utils.RequestTrace;
+import com.example.d_trade.utils.SlowTraceRecorder;
+import com.example.d_trade.utils.SqlStatementCollector;
+import com.example.d_trade.utils.SqlStatisticsRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 请求调用链过滤器
+ * 在最外层开始记录调用链（PerformanceAspect负责添加节点），响应开始输出前写入 Server-Timing 头，
+ * 请求结束后把调用链交给 SlowTraceRecorder 保留最慢的若干条，SQL统计按接口汇总到 SqlStatisticsRegistry
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTraceFilter extends OncePerRequestFilter {
+
+    static final String SERVER_TIMING = "Server-Timing";
+
+    private final SlowTraceRecorder slowTraceRecorder;
+    private final SqlStatisticsRegistry sqlStatisticsRegistry;
+    private final boolean enabled;
+    private final boolean sqlEnabled;
+
+    public RequestTraceFilter(SlowTraceRecorder slowTraceRecorder, SqlStatisticsRegistry sqlStatisticsRegistry,
+                              @Value("${app.performance.trace.enabled:true}") boolean enabled,
+                              @Value("${app.performance.sql.enabled:true}") boolean sqlEnabled) {
+        this.slowTraceRecorder = slowTraceRecorder;
+        this.sqlStatisticsRegistry = sqlStatisticsRegistry;
+        this.enabled = enabled;
+        this.sqlEnabled = sqlEnabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || path.startsWith("/uploads/") || path.startsWith("/h2-console");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTrace trace = RequestTrace.begin(request.getMethod(), request.getRequestURI());
+        SqlStatementCollector sql = sqlEnabled ? SqlStatementCollector.begin() : null;
+        ServerTimingResponse wrapped = new ServerTimingResponse(response, trace);
+        try {
+            filterChain.doFilter(request, wrapped);
+        } finally {
+            // 没有响应体的请求在这里补上
+            wrapped.writeServerTiming();
+            trace.finish(response.getStatus());
+            if (sql != null) {
+                sql.close();
+                recordSql(request, trace, sql);
+            }
+            slowTraceRecorder.offer(trace);
+        }
+    }
+
+    private void recordSql(HttpServletRequest request, RequestTrace trace, SqlStatementCollector sql) {
+        // 按路由模板汇总，/api/products/1 和 /api/products/2 算同一个接口
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + (pattern != null ? pattern : "UNMATCHED");
+        Map<String, Integer> repeated = sqlStatisticsRegistry.record(endpoint, sql);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("statements", sql.getStatementCount());
+        summary.put("rows", sql.getRowCount());
+        summary.put("jdbcMs", Math.round(sql.getJdbcNanos() / 1_000.0) / 1_000.0);
+        if (!repeated.isEmpty()) {
+            summary.put("repeatedStatements", repeated);
+        }
+        trace.setSql(summary);
+    }
+
+    /**
+     * 在响应提交之前写入 Server-Timing 头；第一次获取输出流时业务处理已经结束
+     */
+    private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestTrace trace;
+        private boolean written;
+
+        ServerTimingResponse(HttpServletResponse response, RequestTrace trace) {
+            super(response);
+            this.trace = trace;
+        }
+
+        void writeServerTiming() {
+            if (!written && !isCommitted()) {
+                written = true;
+                setHeader(SERVER_TIMING, trace.serverTiming());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+}
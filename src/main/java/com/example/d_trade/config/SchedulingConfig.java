@@ -0,0 +1,12 @@
+package com.example.d_trade.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时任务配置类
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,72 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.dto.projection.ProductIndexProjection;
+import com.example.d_trade.repository.ProductRepository;
+import com.example.d_trade.utils.ProductSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 启动时全量重建商品搜索索引
+ * 按ID分批读取投影行，重建完成前关键词查询回退到数据库LIKE查询
+ * 在图片迁移之后、启动预热之前执行
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class SearchIndexInitializer implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexInitializer.class);
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+
+    @Value("${app.search.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    @Value("${app.search.batch-size:1000}")
+    private int batchSize;
+
+    public SearchIndexInitializer(ProductRepository productRepository, ProductSearchIndex productSearchIndex) {
+        this.productRepository = productRepository;
+        this.productSearchIndex = productSearchIndex;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!rebuildOnStartup) {
+            logger.info("已关闭启动时重建商品搜索索引");
+            return;
+        }
+        rebuild();
+    }
+
+    /**
+     * 重建商品搜索索引
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        productSearchIndex.clear();
+
+        long lastId = 0L;
+        List<ProductIndexProjection> batch;
+        do {
+            batch = productRepository.findIndexBatch(lastId, PageRequest.of(0, batchSize));
+            for (ProductIndexProjection row : batch) {
+                productSearchIndex.index(row);
+                lastId = row.getId();
+            }
+        } while (batch.size() == batchSize);
+
+        productSearchIndex.markReady();
+        logger.info("商品搜索索引重建完成: 商品数={}, 耗时={}ms",
+                productSearchIndex.size(), System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.utils.SqlStatementCollector;
+import org.hibernate.SessionEventListener;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SQL语句统计配置
+ * 向Hibernate注册三个钩子，把数据写入当前线程的 SqlStatementCollector：
+ * StatementInspector 统计语句条数和重复语句，SessionEventListener 统计JDBC执行耗时，
+ * 统计回调统计返回行数（查询结果行数 + 按ID单独加载的实体数）
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.performance.sql.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatisticsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatisticsCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new CollectingStatementInspector());
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JdbcTimingListener.class.getName());
+            properties.put(AvailableSettings.STATS_BUILDER, new CollectingStatisticsFactory());
+            // 行数来自Hibernate统计回调，需要开启统计
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+        };
+    }
+
+    /**
+     * 记录每条即将执行的SQL，不修改SQL
+     */
+    static class CollectingStatementInspector implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            SqlStatementCollector.statementPrepared(sql);
+            return sql;
+        }
+    }
+
+    /**
+     * 记录JDBC执行耗时；每个Session一个实例，由Session所在线程使用
+     */
+    public static class JdbcTimingListener implements SessionEventListener {
+
+        private long executeStart;
+        private long batchStart;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            executeStart = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            SqlStatementCollector.jdbcExecuted(System.nanoTime() - executeStart);
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            batchStart = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            SqlStatementCollector.jdbcExecuted(System.nanoTime() - batchStart);
+        }
+    }
+
+    /**
+     * 在Hibernate默认统计的基础上把返回行数同时记入当前线程
+     */
+    static class CollectingStatisticsFactory implements StatisticsFactory {
+
+        @Override
+        public StatisticsImpl buildStatistics(SessionFactoryImplementor sessionFactory) {
+            return new StatisticsImpl(sessionFactory) {
+                @Override
+                public void queryExecuted(String hql, int rows, long time) {
+                    super.queryExecuted(hql, rows, time);
+                    SqlStatementCollector.rowsReturned(rows);
+                }
+
+                @Override
+                public void fetchEntity(String entityName) {
+                    super.fetchEntity(entityName);
+                    SqlStatementCollector.rowsReturned(1);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.dto.ProductSummaryDTO;
+import com.example.d_trade.dto.response.ApiResponse;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.security.JwtUtils;
+import com.example.d_trade.service.ProductService;
+import com.example.d_trade.utils.PerformanceMonitor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 启动预热
+ * 在应用报告就绪之前预先计算商品列表前几页、加载热点商品详情，并反复执行JWT解析和JSON序列化，
+ * 让缓存有数据、热点代码完成JIT编译，避免发布后最初几分钟的请求落在冷缓存和解释执行上。
+ * 所有 CommandLineRunner 执行完后Spring Boot才会发布 ReadinessState.ACCEPTING_TRAFFIC，
+ * 因此 /actuator/health/readiness 在预热完成前不会报告就绪；预热排在图片迁移和索引重建之后
+ */
+@Slf4j
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class StartupWarmup implements CommandLineRunner {
+
+    private static final List<String> SORTS = Arrays.asList(null, "newest", "price_asc", "price_desc");
+
+    private final ProductService productService;
+    private final JwtUtils jwtUtils;
+    private final ObjectMapper objectMapper;
+    private final PerformanceMonitor performanceMonitor;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.warmup.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.warmup.pages:3}")
+    private int pages = 3;
+
+    @Value("${app.warmup.page-size:10}")
+    private int pageSize = 10;
+
+    @Value("${app.warmup.statuses:AVAILABLE,SOLD}")
+    private List<Product.Status> statuses = List.of(Product.Status.AVAILABLE, Product.Status.SOLD);
+
+    @Value("${app.warmup.hot-products:50}")
+    private int hotProducts = 50;
+
+    @Value("${app.warmup.synthetic-iterations:2000}")
+    private int syntheticIterations = 2000;
+
+    @Value("${app.warmup.max-duration:30s}")
+    private Duration maxDuration = Duration.ofSeconds(30);
+
+    @Value("${app.warmup.reset-metrics:true}")
+    private boolean resetMetrics = true;
+
+    private volatile Map<String, Object> report = Map.of("enabled", false);
+
+    public StartupWarmup(ProductService productService, JwtUtils jwtUtils, ObjectMapper objectMapper,
+                         PerformanceMonitor performanceMonitor, ApplicationEventPublisher eventPublisher) {
+        this.productService = productService;
+        this.jwtUtils = jwtUtils;
+        this.objectMapper = objectMapper;
+        this.performanceMonitor = performanceMonitor;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled) {
+            log.info("已关闭启动预热");
+            return;
+        }
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        report = warmUp();
+        if (failures(report) > 0) {
+            log.warn("启动预热完成，部分步骤失败: {}", report);
+        } else {
+            log.info("启动预热完成: {}", report);
+        }
+    }
+
+    /**
+     * 执行预热，超过 max-duration 后跳过剩余的步骤
+     * @return 预热报告
+     */
+    public Map<String, Object> warmUp() {
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", true);
+        result.put("startTime", LocalDateTime.now());
+
+        // 商品列表：每个状态、每种排序的前几页，同时收集首页上的商品作为热点商品
+        long phaseStart = System.nanoTime();
+        List<Page<ProductSummaryDTO>> warmedPages = new ArrayList<>();
+        Set<Long> hotIds = new LinkedHashSet<>();
+        int pageFailures = 0;
+        listing:
+        for (Product.Status status : statuses) {
+            for (String sort : SORTS) {
+                for (int page = 0; page < pages; page++) {
+                    if (System.nanoTime() > deadline) {
+                        break listing;
+                    }
+                    try {
+                        Page<ProductSummaryDTO> products = productService.getProducts(null, status.name(), sort,
+                                PageRequest.of(page, pageSize));
+                        warmedPages.add(products);
+                        if (status == Product.Status.AVAILABLE) {
+                            products.forEach(product -> hotIds.add(product.getId()));
+                        }
+                        if (products.isLast()) {
+                            break;
+                        }
+                    } catch (RuntimeException e) {
+                        pageFailures++;
+                        log.warn("预热商品列表失败: status={}, sort={}, page={}", status, sort, page, e);
+                    }
+                }
+            }
+        }
+        result.put("listingPages", warmedPages.size());
+        result.put("listingFailures", pageFailures);
+        result.put("listingMs", elapsedMillis(phaseStart));
+
+        // 热点商品详情
+        phaseStart = System.nanoTime();
+        int productCount = 0;
+        for (Long id : hotIds) {
+            if (productCount >= hotProducts || System.nanoTime() > deadline) {
+                break;
+            }
+            try {
+                productService.getProductById(id);
+                productCount++;
+            } catch (RuntimeException e) {
+                log.warn("预热商品详情失败: id={}", id, e);
+            }
+        }
+        result.put("hotProducts", productCount);
+        result.put("hotProductsMs", elapsedMillis(phaseStart));
+
+        // JWT签发、解析、校验，与 JwtAuthenticationFilter 的调用路径一致
+        phaseStart = System.nanoTime();
+        UserDetails user = User.withUsername("warmup").password("").authorities(Collections.emptyList()).build();
+        String token = jwtUtils.generateToken(user);
+        int jwtIterations = 0;
+        while (jwtIterations < syntheticIterations && System.nanoTime() <= deadline) {
+            jwtUtils.extractUsername(token);
+            jwtUtils.validateToken(token, user);
+            jwtIterations++;
+        }
+        result.put("jwtIterations", jwtIterations);
+        result.put("jwtMs", elapsedMillis(phaseStart));
+
+        // JSON序列化：与接口返回的结构一致
+        // 序列化失败说明接口同样会失败，每次都会失败，记录第一次的异常后结束这一步
+        phaseStart = System.nanoTime();
+        int jsonIterations = 0;
+        int jsonFailures = 0;
+        if (!warmedPages.isEmpty()) {
+            try {
+                while (jsonIterations < syntheticIterations && System.nanoTime() <= deadline) {
+                    Page<ProductSummaryDTO> page = warmedPages.get(jsonIterations % warmedPages.size());
+                    objectMapper.writeValueAsString(ApiResponse.success("获取商品列表成功", page));
+                    jsonIterations++;
+                }
+            } catch (JsonProcessingException e) {
+                jsonFailures++;
+                log.warn("预热JSON序列化失败", e);
+            }
+        }
+        result.put("jsonIterations", jsonIterations);
+        result.put("jsonFailures", jsonFailures);
+        result.put("jsonMs", elapsedMillis(phaseStart));
+
+        // 预热调用不计入接口耗时统计
+        if (resetMetrics) {
+            performanceMonitor.reset();
+        }
+        result.put("timedOut", System.nanoTime() > deadline);
+        result.put("durationMs", elapsedMillis(start));
+        return result;
+    }
+
+    /**
+     * 获取最近一次预热的报告
+     * @return 预热报告，未执行时只包含 enabled=false
+     */
+    public Map<String, Object> getReport() {
+        return report;
+    }
+
+    private static int failures(Map<String, Object> report) {
+        return (int) report.getOrDefault("listingFailures", 0) + (int) report.getOrDefault("jsonFailures", 0);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
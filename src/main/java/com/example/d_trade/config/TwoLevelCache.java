@@ -0,0 +1,149 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.utils.CacheDependencyTracker;
+import com.example.d_trade.utils.CacheValueCodec;
+import com.example.d_trade.utils.L2CacheStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * 两级缓存：本地Caffeine为一级，多个实例共享的 L2CacheStore 为二级
+ * 读取先查一级，未命中时查二级并回填一级，都未命中时执行方法并同时写入两级；
+ * 失效同时删除两级，其他实例的一级缓存由 CacheDependencyTracker 收到广播的变更事件后删除：
+ * 写入二级缓存时同时保存条目的依赖（列表页包含的商品、所属用户），其他实例回填一级缓存时按它登记，之后才能被变更事件失效。
+ * 空值和不能序列化的值只保存在一级缓存
+ */
+@Slf4j
+class TwoLevelCache implements Cache {
+
+    private final Cache local;
+    private final L2CacheStore store;
+    private final Duration ttl;
+    private final Supplier<CacheDependencyTracker> dependencyTracker;
+
+    TwoLevelCache(Cache local, L2CacheStore store, Duration ttl, Supplier<CacheDependencyTracker> dependencyTracker) {
+        this.local = local;
+        this.store = store;
+        this.ttl = ttl;
+        this.dependencyTracker = dependencyTracker;
+    }
+
+    @Override
+    public String getName() {
+        return local.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        // 统计和依赖清理都查看一级缓存
+        return local.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = local.get(key);
+        if (wrapper != null) {
+            return wrapper;
+        }
+        Object value = loadRemote(key);
+        if (value == null) {
+            return null;
+        }
+        local.put(key, value);
+        return new SimpleValueWrapper(value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存值类型不匹配: " + type.getName() + ", 实际为 " + value.getClass().getName());
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // 一级缓存的计算保证同一个键在本实例只加载一次，二级缓存减少多个实例各自查询数据库
+        return local.get(key, () -> {
+            Object remote = loadRemote(key);
+            if (remote != null) {
+                return (T) remote;
+            }
+            T value = valueLoader.call();
+            storeRemote(key, value);
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        local.put(key, value);
+        storeRemote(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        local.evict(key);
+        store.evict(getName(), String.valueOf(key));
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+        store.clear(getName());
+    }
+
+    private Object loadRemote(Object key) {
+        byte[] bytes = store.get(getName(), String.valueOf(key));
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            Object decoded = CacheValueCodec.decode(bytes);
+            if (!(decoded instanceof Entry entry)) {
+                // 没有保存依赖的旧格式
+                return decoded;
+            }
+            CacheDependencyTracker tracker = dependencyTracker.get();
+            if (tracker != null && entry.dependency() != null) {
+                tracker.restore(getName(), key, entry.dependency());
+            }
+            return entry.value();
+        } catch (IOException e) {
+            // 类结构变化（滚动发布期间新旧版本共存）或数据损坏，当作未命中，重新加载后覆盖
+            log.warn("二级缓存值无法反序列化: cache={}, key={}, error={}", getName(), key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void storeRemote(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        CacheDependencyTracker tracker = dependencyTracker.get();
+        CacheDependencyTracker.Dependency dependency = tracker != null ? tracker.dependencyOf(getName(), key) : null;
+        try {
+            store.put(getName(), String.valueOf(key), CacheValueCodec.encode(new Entry(value, dependency)), ttl);
+        } catch (IOException e) {
+            log.warn("缓存值无法序列化，只保存在本地: cache={}, type={}, error={}",
+                    getName(), value.getClass().getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * 二级缓存中保存的值和它的依赖
+     */
+    record Entry(Object value, CacheDependencyTracker.Dependency dependency) implements Serializable {
+    }
+}
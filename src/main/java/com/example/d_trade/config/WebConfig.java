@@ -52,7 +52,7 @@ public class WebConfig implements WebMvcConfigurer {
                 )
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH")
                 .allowedHeaders("Authorization", "Content-Type", "X-Requested-With", "Accept", "Origin", "Cache-Control")
-                .exposedHeaders("Authorization")
+                .exposedHeaders("Authorization", "Server-Timing")
                 .allowCredentials(true)
                 .maxAge(3600);
     }
@@ -1,9 +1,10 @@
 package com.example.d_trade.controller;
 
-import com.example.d_trade.dto.ProductDTO;
+import com.example.d_trade.dto.ProductSummaryDTO;
 import com.example.d_trade.dto.UserDTO;
 import com.example.d_trade.dto.response.ApiResponse;
 import com.example.d_trade.service.ProductService;
+import com.example.d_trade.service.StatisticsService;
 import com.example.d_trade.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -24,10 +25,13 @@ public class AdminController {
 
     private final UserService userService;
     private final ProductService productService;
+    private final StatisticsService statisticsService;
 
-    public AdminController(UserService userService, ProductService productService) {
+    public AdminController(UserService userService, ProductService productService,
+                           StatisticsService statisticsService) {
         this.userService = userService;
         this.productService = productService;
+        this.statisticsService = statisticsService;
     }
 
     @GetMapping("/users")
@@ -70,14 +74,14 @@ public class AdminController {
     }
 
     @GetMapping("/products")
-    public ResponseEntity<ApiResponse<Page<ProductDTO>>> getProducts(
+    public ResponseEntity<ApiResponse<Page<ProductSummaryDTO>>> getProducts(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String status,
             @PageableDefault(size = 10) Pageable pageable) {
         try {
             log.info("管理员获取商品列表: keyword={}, status={}, page={}, size={}", 
                     keyword, status, pageable.getPageNumber(), pageable.getPageSize());
-            Page<ProductDTO> products = productService.getProducts(keyword, status, null, pageable);
+            Page<ProductSummaryDTO> products = productService.getProducts(keyword, status, null, pageable);
             log.info("管理员获取商品列表成功: 总数={}", products.getTotalElements());
             return ResponseEntity.ok(ApiResponse.success(products));
         } catch (Exception e) {
@@ -98,23 +102,11 @@ public class AdminController {
     }
 
     @GetMapping("/statistics")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> getStatistics() {
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getStatistics(
+            @RequestParam(defaultValue = "7") int days) {
         try {
-            // 创建统计数据
-            Map<String, Object> statistics = new HashMap<>();
-            
-            // 用户统计
-            long totalUsers = userService.getUsers(null, Pageable.unpaged()).getTotalElements();
-            
-            // 商品统计
-            long totalProducts = productService.getProducts(null, null, null, Pageable.unpaged()).getTotalElements();
-            long availableProducts = productService.getProducts(null, "AVAILABLE", null, Pageable.unpaged()).getTotalElements();
-            
-            // 填充统计数据
-            statistics.put("userCount", totalUsers);
-            statistics.put("productCount", totalProducts);
-            statistics.put("availableProductCount", availableProducts);
-            
+            // 读取内存中增量维护的计数，不再查询全部用户和商品
+            Map<String, Object> statistics = statisticsService.getStatistics(days);
             return ResponseEntity.ok(ApiResponse.success("获取统计数据成功", statistics));
         } catch (Exception e) {
             log.error("获取统计数据失败", e);
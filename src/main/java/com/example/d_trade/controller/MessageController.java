@@ -2,25 +2,33 @@ package com.example.d_trade.controller;
 
 import com.example.d_trade.dto.MessageDTO;
 import com.example.d_trade.dto.response.ApiResponse;
+import com.example.d_trade.dto.response.CursorPage;
+import com.example.d_trade.security.StreamTicketService;
 import com.example.d_trade.service.MessageService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/messages")
 @PreAuthorize("isAuthenticated()")
 public class MessageController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final MessageService messageService;
+    private final StreamTicketService streamTicketService;
 
-    public MessageController(MessageService messageService) {
+    public MessageController(MessageService messageService, StreamTicketService streamTicketService) {
         this.messageService = messageService;
+        this.streamTicketService = streamTicketService;
     }
 
     @GetMapping
@@ -32,6 +40,20 @@ public class MessageController {
         return ResponseEntity.ok(ApiResponse.success(messages));
     }
 
+    /**
+     * 游标分页模式：携带cursor参数（第一页传空值）时启用，适用于无限滚动
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<ApiResponse<CursorPage<MessageDTO>>> scrollMessages(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) Boolean read,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        CursorPage<MessageDTO> messages = messageService.scrollMessages(userDetails.getUsername(), read, cursor, pageSize);
+        return ResponseEntity.ok(ApiResponse.success(messages));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<MessageDTO>> getMessage(
             @AuthenticationPrincipal UserDetails userDetails,
@@ -61,4 +83,23 @@ public class MessageController {
         Long count = messageService.getUnreadCount(userDetails.getUsername());
         return ResponseEntity.ok(ApiResponse.success(count));
     }
-} 
\ No newline at end of file
+
+    /**
+     * 获取消息推送连接凭证：浏览器 EventSource 不能设置请求头，先用登录令牌换取一次性短期凭证，
+     * 再用 ticket 参数建立推送连接，登录令牌不出现在URL中；断线重连时重新获取
+     */
+    @PostMapping("/stream-ticket")
+    public ResponseEntity<ApiResponse<String>> streamTicket(@AuthenticationPrincipal UserDetails userDetails) {
+        String ticket = streamTicketService.issue(userDetails.getUsername());
+        return ResponseEntity.ok(ApiResponse.success(ticket));
+    }
+
+    /**
+     * 消息推送（SSE）：连接后推送当前未读数，之后推送新消息（message）、未读数变化（unread-count），
+     * 推送积压时发送 resync 要求重新拉取列表；使用 ticket 参数传递 /stream-ticket 获取的凭证
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@AuthenticationPrincipal UserDetails userDetails) {
+        return messageService.subscribe(userDetails.getUsername());
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.d_trade.controller;
 
 import com.example.d_trade.dto.OrderDTO;
+import com.example.d_trade.dto.OrderSummaryDTO;
 import com.example.d_trade.dto.response.ApiResponse;
+import com.example.d_trade.dto.response.CursorPage;
 import com.example.d_trade.service.OrderService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -17,6 +19,8 @@ import org.springframework.web.bind.annotation.*;
 @PreAuthorize("isAuthenticated()")
 public class OrderController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final OrderService orderService;
 
     public OrderController(OrderService orderService) {
@@ -24,12 +28,27 @@ public class OrderController {
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<OrderDTO>>> getOrders(
+    public ResponseEntity<ApiResponse<Page<OrderSummaryDTO>>> getOrders(
             @AuthenticationPrincipal UserDetails userDetails,
             @RequestParam(required = false) String type,
             @RequestParam(required = false) String status,
             @PageableDefault(size = 10) Pageable pageable) {
-        Page<OrderDTO> orders = orderService.getOrders(userDetails.getUsername(), type, status, pageable);
+        Page<OrderSummaryDTO> orders = orderService.getOrders(userDetails.getUsername(), type, status, pageable);
+        return ResponseEntity.ok(ApiResponse.success(orders));
+    }
+
+    /**
+     * 游标分页模式：携带cursor参数（第一页传空值）时启用，适用于无限滚动
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<ApiResponse<CursorPage<OrderSummaryDTO>>> scrollOrders(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String status,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        CursorPage<OrderSummaryDTO> orders = orderService.scrollOrders(userDetails.getUsername(), type, status, cursor, pageSize);
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
@@ -1,14 +1,44 @@
 package com.example.d_trade.controller;
 
+import com.example.d_trade.config.StartupWarmup;
 import com.example.d_trade.dto.response.ApiResponse;
+import com.example.d_trade.utils.CacheDependencyTracker;
+import com.example.d_trade.utils.CacheInvalidationBus;
+import com.example.d_trade.utils.CacheReloadRegistry;
+import com.example.d_trade.utils.ExecutorRegistry;
+import com.example.d_trade.utils.L2CacheStore;
+import com.example.d_trade.utils.MessageStreamRegistry;
+import com.example.d_trade.utils.NotificationOutbox;
+import com.example.d_trade.utils.ObjectSizeEstimator;
+import com.example.d_trade.utils.OffHeapProductCatalog;
 import com.example.d_trade.utils.PerformanceMonitor;
+import com.example.d_trade.utils.SlowTraceRecorder;
+import com.example.d_trade.utils.SqlStatisticsRegistry;
+import com.example.d_trade.utils.UnreadCountCache;
+import com.example.d_trade.utils.VirtualThreadPinningMonitor;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 
 /**
  * 性能监控控制器
@@ -20,18 +50,212 @@ import java.util.Map;
 public class PerformanceController {
 
     private final PerformanceMonitor performanceMonitor;
+    private final CacheManager cacheManager;
+    private final CacheDependencyTracker cacheDependencyTracker;
+    private final SlowTraceRecorder slowTraceRecorder;
+    private final SqlStatisticsRegistry sqlStatisticsRegistry;
+    private final CacheReloadRegistry cacheReloadRegistry;
+    private final StartupWarmup startupWarmup;
+    private final ObjectProvider<L2CacheStore> l2CacheStore;
+    private final ObjectProvider<CacheInvalidationBus> cacheInvalidationBus;
+    private final OffHeapProductCatalog productCatalog;
+    private final NotificationOutbox notificationOutbox;
+    private final ExecutorRegistry executorRegistry;
+    private final VirtualThreadPinningMonitor pinningMonitor;
+    private final MessageStreamRegistry messageStream;
+    private final UnreadCountCache unreadCounts;
 
-    public PerformanceController(PerformanceMonitor performanceMonitor) {
+    public PerformanceController(PerformanceMonitor performanceMonitor, CacheManager cacheManager,
+                                 CacheDependencyTracker cacheDependencyTracker, SlowTraceRecorder slowTraceRecorder,
+                                 SqlStatisticsRegistry sqlStatisticsRegistry, CacheReloadRegistry cacheReloadRegistry,
+                                 StartupWarmup startupWarmup, ObjectProvider<L2CacheStore> l2CacheStore,
+                                 ObjectProvider<CacheInvalidationBus> cacheInvalidationBus,
+                                 OffHeapProductCatalog productCatalog, NotificationOutbox notificationOutbox,
+                                 ExecutorRegistry executorRegistry, VirtualThreadPinningMonitor pinningMonitor,
+                                 MessageStreamRegistry messageStream, UnreadCountCache unreadCounts) {
         this.performanceMonitor = performanceMonitor;
+        this.cacheManager = cacheManager;
+        this.cacheDependencyTracker = cacheDependencyTracker;
+        this.slowTraceRecorder = slowTraceRecorder;
+        this.sqlStatisticsRegistry = sqlStatisticsRegistry;
+        this.cacheReloadRegistry = cacheReloadRegistry;
+        this.startupWarmup = startupWarmup;
+        this.l2CacheStore = l2CacheStore;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.productCatalog = productCatalog;
+        this.notificationOutbox = notificationOutbox;
+        this.executorRegistry = executorRegistry;
+        this.pinningMonitor = pinningMonitor;
+        this.messageStream = messageStream;
+        this.unreadCounts = unreadCounts;
     }
 
     /**
-     * 获取性能统计数据
-     * @return 性能统计数据
+     * 获取性能统计数据，包括每个方法的p50/p90/p99/p999和最大耗时（毫秒）
+     * @param window 时间窗口（1m、5m、1h），不传时返回启动以来的累计数据
+     * @return 性能统计数据，指定窗口时额外包含吞吐量和错误率
      */
     @GetMapping
-    public ApiResponse<Map<String, Map<String, Object>>> getPerformanceStats() {
-        return ApiResponse.success("获取性能统计数据成功", performanceMonitor.getMethodStats());
+    public ApiResponse<Map<String, Map<String, Object>>> getPerformanceStats(
+            @RequestParam(required = false) String window) {
+        if (window == null) {
+            return ApiResponse.success("获取性能统计数据成功", performanceMonitor.getMethodStats());
+        }
+        return ApiResponse.success("获取性能统计数据成功",
+                performanceMonitor.getWindowStats(PerformanceMonitor.Window.of(window)));
+    }
+
+    /**
+     * 获取各方法的延迟直方图快照
+     * 返回非空桶的计数，多个实例的结果可用 LatencyHistogram.Snapshot.fromMap 还原后合并
+     * @return 直方图快照
+     */
+    @GetMapping("/histograms")
+    public ApiResponse<Map<String, Map<String, Object>>> getHistograms() {
+        return ApiResponse.success("获取延迟直方图成功", performanceMonitor.getHistogramSnapshots());
+    }
+
+    /**
+     * 获取最慢的若干个请求的完整调用链（controller→service→repository），按耗时从慢到快排列
+     * @return 调用链列表
+     */
+    @GetMapping("/traces")
+    public ApiResponse<List<Map<String, Object>>> getSlowTraces() {
+        return ApiResponse.success("获取慢请求调用链成功", slowTraceRecorder.getTraces());
+    }
+
+    /**
+     * 获取各接口每个请求的SQL语句条数、返回行数、JDBC耗时，以及重复执行次数最多的疑似N+1语句
+     * @return SQL统计数据
+     */
+    @GetMapping("/sql")
+    public ApiResponse<Map<String, Object>> getSqlStats() {
+        return ApiResponse.success("获取SQL统计数据成功", sqlStatisticsRegistry.getStats());
+    }
+
+    /**
+     * 获取启动预热报告：预热的列表页数、热点商品数、JWT和JSON的合成调用次数及各阶段耗时
+     * @return 预热报告
+     */
+    @GetMapping("/warmup")
+    public ApiResponse<Map<String, Object>> getWarmupReport() {
+        return ApiResponse.success("获取启动预热报告成功", startupWarmup.getReport());
+    }
+
+    /**
+     * 获取缓存命中率、淘汰、加载耗时、估算内存占用、失效和提前刷新统计，开启集群缓存时包含二级缓存和失效广播统计
+     * 切换 app.cache.targeted-eviction 可对比精确失效与整体清空的命中率
+     * @return 缓存统计数据
+     */
+    @GetMapping("/caches")
+    public ApiResponse<Map<String, Object>> getCacheStats() {
+        Map<String, Object> caches = new TreeMap<>();
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+                caches.put(cacheName, describeCache(caffeine));
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("caches", caches);
+        result.put("invalidation", cacheDependencyTracker.getStats());
+        result.put("refreshAhead", cacheReloadRegistry.getStats());
+        l2CacheStore.ifAvailable(store -> result.put("l2", store.getStats()));
+        cacheInvalidationBus.ifAvailable(bus -> result.put("invalidationBus", bus.getStats()));
+        return ApiResponse.success("获取缓存统计数据成功", result);
+    }
+
+    /**
+     * 获取堆外商品目录统计，以及商品缓存的估算占用、堆内存、堆外直接内存和各垃圾收集器的次数与耗时
+     * 关闭 app.catalog.off-heap.enabled 后重启、施加相同负载，可对比只用 Caffeine 缓存时的堆内存和GC
+     * @return 目录和JVM内存统计
+     */
+    @GetMapping("/catalog")
+    public ApiResponse<Map<String, Object>> getCatalogStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("catalog", productCatalog.getStats());
+
+        Map<String, Object> caches = new LinkedHashMap<>();
+        for (String cacheName : List.of("product", "products")) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+                Map<String, Object> stat = describeCache(caffeine);
+                caches.put(cacheName, Map.of("size", stat.get("size"), "estimatedBytes", stat.get("estimatedBytes")));
+            }
+        }
+        result.put("caches", caches);
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        Map<String, Object> memory = new LinkedHashMap<>();
+        memory.put("heapUsedBytes", heap.getUsed());
+        memory.put("heapCommittedBytes", heap.getCommitted());
+        memory.put("heapMaxBytes", heap.getMax());
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                memory.put("directBuffers", pool.getCount());
+                memory.put("directUsedBytes", pool.getMemoryUsed());
+            }
+        }
+        result.put("memory", memory);
+
+        Map<String, Object> gc = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gc.put(collector.getName(), Map.of("count", collector.getCollectionCount(),
+                    "timeMs", collector.getCollectionTime()));
+        }
+        result.put("gc", gc);
+        return ApiResponse.success("获取商品目录统计成功", result);
+    }
+
+    /**
+     * 获取通知发件箱统计：积压数量、最早一条待投递通知的等待时间、投递批次大小和提交到写入消息表的延迟
+     * @return 发件箱统计数据
+     */
+    @GetMapping("/outbox")
+    public ApiResponse<Map<String, Object>> getOutboxStats() {
+        return ApiResponse.success("获取通知发件箱统计成功", notificationOutbox.getStats());
+    }
+
+    /**
+     * 获取各异步执行器的统计：线程数、队列深度和容量、拒绝策略、提交/完成/失败/拒绝次数、排队和执行耗时
+     * @return 执行器名 -> 统计数据
+     */
+    @GetMapping("/executors")
+    public ApiResponse<Map<String, Map<String, Object>>> getExecutorStats() {
+        return ApiResponse.success("获取执行器统计成功", executorRegistry.getStats());
+    }
+
+    /**
+     * 获取消息推送统计：当前连接数，发送的事件和心跳，积压丢弃、发送失败和卡住的连接数
+     * @return 推送统计数据
+     */
+    @GetMapping("/streams")
+    public ApiResponse<Map<String, Object>> getStreamStats() {
+        return ApiResponse.success("获取消息推送统计成功", messageStream.getStats());
+    }
+
+    /**
+     * 获取未读数缓存统计：缓存用户数，命中和从数据库加载次数，写入路径的调整次数，对账次数和修正的用户数
+     * @return 未读数缓存统计数据
+     */
+    @GetMapping("/unread-counts")
+    public ApiResponse<Map<String, Object>> getUnreadCountStats() {
+        return ApiResponse.success("获取未读数缓存统计成功", unreadCounts.getStats());
+    }
+
+    /**
+     * 获取线程模式和虚拟线程钉住统计
+     * platformThreads 只统计平台线程（含虚拟线程的载体线程），虚拟线程不计入
+     * @return 线程统计数据
+     */
+    @GetMapping("/threads")
+    public ApiResponse<Map<String, Object>> getThreadStats() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Map<String, Object> stats = new LinkedHashMap<>(pinningMonitor.getStats());
+        stats.put("platformThreads", threads.getThreadCount());
+        stats.put("peakPlatformThreads", threads.getPeakThreadCount());
+        return ApiResponse.success("获取线程统计成功", stats);
     }
 
     /**
@@ -41,6 +265,38 @@ public class PerformanceController {
     @PostMapping("/reset")
     public ApiResponse<Void> resetPerformanceStats() {
         performanceMonitor.reset();
+        slowTraceRecorder.reset();
+        sqlStatisticsRegistry.reset();
         return ApiResponse.success("重置性能统计数据成功", null);
     }
-} 
\ No newline at end of file
+
+    private static Map<String, Object> describeCache(com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+        CacheStats stats = caffeine.stats();
+        Map<String, Object> stat = new LinkedHashMap<>();
+        stat.put("size", caffeine.estimatedSize());
+        stat.put("hitCount", stats.hitCount());
+        stat.put("missCount", stats.missCount());
+        stat.put("hitRatio", stats.hitRate());
+        stat.put("evictionCount", stats.evictionCount());
+        stat.put("evictionWeight", stats.evictionWeight());
+        stat.put("loadCount", stats.loadCount());
+        stat.put("averageLoadMs", stats.averageLoadPenalty() / 1_000_000.0);
+        stat.put("totalLoadMs", stats.totalLoadTime() / 1_000_000.0);
+
+        Policy<?, ?> policy = caffeine.policy();
+        Optional<Policy.Eviction<?, ?>> eviction = policy.eviction().map(e -> e);
+        boolean weighted = eviction.map(Policy.Eviction::isWeighted).orElse(false);
+        eviction.ifPresent(e -> stat.put(weighted ? "maximumWeightBytes" : "maximumSize", e.getMaximum()));
+        policy.expireAfterWrite().ifPresent(e -> stat.put("expireAfterWriteSeconds", e.getExpiresAfter().toSeconds()));
+        policy.expireAfterAccess().ifPresent(e -> stat.put("expireAfterAccessSeconds", e.getExpiresAfter().toSeconds()));
+        // 按权重限制的缓存直接使用权重合计，其他缓存遍历条目估算
+        long estimatedBytes = weighted
+                ? eviction.get().weightedSize().orElse(0)
+                : caffeine.asMap().entrySet().stream()
+                        .mapToLong(entry -> ObjectSizeEstimator.estimate(entry.getKey())
+                                + ObjectSizeEstimator.estimate(entry.getValue()))
+                        .sum();
+        stat.put("estimatedBytes", estimatedBytes);
+        return stat;
+    }
+}
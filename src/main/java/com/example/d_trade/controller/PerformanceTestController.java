@@ -1,24 +1,46 @@
 package com.example.d_trade.controller;
 
-import com.example.d_trade.dto.ProductDTO;
+import com.example.d_trade.dto.ProductSummaryDTO;
 import com.example.d_trade.dto.response.ApiResponse;
 import com.example.d_trade.service.ProductService;
+import com.example.d_trade.utils.CacheDependencyTracker;
+import com.example.d_trade.utils.LatencyHistogram;
 import com.example.d_trade.utils.PerformanceMonitor;
+import com.example.d_trade.utils.VirtualThreadPinningMonitor;
+import com.example.d_trade.utils.VirtualThreads;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 性能测试控制器
@@ -31,25 +53,38 @@ public class PerformanceTestController {
 
     private final ProductService productService;
     private final PerformanceMonitor performanceMonitor;
+    private final CacheManager cacheManager;
+    private final VirtualThreadPinningMonitor pinningMonitor;
 
-    public PerformanceTestController(ProductService productService, PerformanceMonitor performanceMonitor) {
+    public PerformanceTestController(ProductService productService, PerformanceMonitor performanceMonitor,
+                                     CacheManager cacheManager, VirtualThreadPinningMonitor pinningMonitor) {
         this.productService = productService;
         this.performanceMonitor = performanceMonitor;
+        this.cacheManager = cacheManager;
+        this.pinningMonitor = pinningMonitor;
     }
 
     /**
      * 测试商品列表查询性能
+     * coldStart 为true时先清空商品列表缓存，模拟商品写操作后大量请求同时未命中，
+     * 结果中的 productsCache.loadCount 为实际执行查询的次数，合并并发未命中后应为1
      * @param concurrency 并发数
      * @param requests 请求数
+     * @param coldStart 是否先清空商品列表缓存
      * @return 测试结果
      */
     @PostMapping("/products")
     public ApiResponse<Map<String, Object>> testProductsPerformance(
             @RequestParam(defaultValue = "10") int concurrency,
-            @RequestParam(defaultValue = "100") int requests) {
+            @RequestParam(defaultValue = "100") int requests,
+            @RequestParam(defaultValue = "false") boolean coldStart) {
         
-        log.info("开始性能测试: 并发数={}, 请求数={}", concurrency, requests);
-        performanceMonitor.reset();
+        log.info("开始性能测试: 并发数={}, 请求数={}, 冷启动={}", concurrency, requests, coldStart);
+        Cache productsCache = cacheManager.getCache(CacheDependencyTracker.PRODUCTS);
+        if (coldStart && productsCache != null) {
+            productsCache.clear();
+        }
+        CacheStats statsBefore = cacheStats(productsCache);
         
         // 创建线程池
         ExecutorService executor = Executors.newFixedThreadPool(concurrency);
@@ -65,7 +100,7 @@ public class PerformanceTestController {
             CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
                 try {
                     // 执行查询
-                    Page<ProductDTO> products = productService.getProducts(
+                    Page<ProductSummaryDTO> products = productService.getProducts(
                             null, "AVAILABLE", "newest", PageRequest.of(0, 10));
                     successCount.incrementAndGet();
                 } catch (Exception e) {
@@ -104,10 +139,133 @@ public class PerformanceTestController {
         result.put("errorCount", errorCount.get());
         result.put("totalTimeMs", totalTime);
         result.put("requestsPerSecond", requestsPerSecond);
-        result.put("methodStats", performanceMonitor.getMethodStats());
+        result.put("coldStart", coldStart);
+        result.put("productsCache", describeCacheStats(cacheStats(productsCache).minus(statsBefore)));
+        // 只取测试期间的滑动窗口数据，不重置全局统计
+        result.put("methodStats", performanceMonitor.getRecentStats((totalTime + 999) / 1000));
         
         log.info("性能测试完成: 总时间={}ms, QPS={}", totalTime, requestsPerSecond);
         
         return ApiResponse.success("性能测试完成", result);
     }
-} 
\ No newline at end of file
+
+    /**
+     * 通过HTTP压测本应用的接口，用于比较平台线程和虚拟线程（virtual profile）两种模式
+     * 请求经过Tomcat完整处理，每个在途请求占用一个HTTP/1.1连接，concurrency 即同时打开的连接数。
+     * 分别以两种模式启动应用，用相同参数调用（如 concurrency=1000、requests=20000），
+     * 比较 QPS、延迟分位数、平台线程峰值和测试期间的钉住次数。
+     * 压测端和应用在同一个进程中，结果用于比较两种模式的相对差异，不代表单独部署时的容量
+     * @param path 被压测的接口路径，可以带查询参数
+     * @param concurrency 同时在途的请求数
+     * @param requests 请求总数
+     * @param timeoutSeconds 整个测试的最长时间
+     * @param request 当前请求，用于获取端口和转发认证头
+     * @return 测试结果
+     */
+    @PostMapping("/http")
+    public ApiResponse<Map<String, Object>> testHttpLoad(
+            @RequestParam(defaultValue = "/api/products") String path,
+            @RequestParam(defaultValue = "1000") int concurrency,
+            @RequestParam(defaultValue = "10000") int requests,
+            @RequestParam(defaultValue = "300") int timeoutSeconds,
+            HttpServletRequest request) throws InterruptedException {
+        if (!path.startsWith("/") || path.startsWith("/api/admin/performance-test")) {
+            throw new IllegalArgumentException("无效的压测路径: " + path);
+        }
+        if (concurrency < 1 || requests < 1) {
+            throw new IllegalArgumentException("并发数和请求数必须大于0");
+        }
+        log.info("开始HTTP压测: 路径={}, 并发连接={}, 请求数={}, 虚拟线程={}",
+                path, concurrency, requests, pinningMonitor.isVirtualActive());
+
+        URI uri = URI.create("http://localhost:" + request.getLocalPort() + path);
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(timeoutSeconds)).GET();
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null) {
+            requestBuilder.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        HttpRequest httpRequest = requestBuilder.build();
+
+        // 压测端自己的回调线程，和被测的请求线程模式一致
+        ExecutorService clientExecutor = VirtualThreads.isSupported()
+                ? Executors.newCachedThreadPool(VirtualThreads.factory("load"))
+                : Executors.newCachedThreadPool();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(clientExecutor)
+                .build();
+
+        LatencyHistogram latency = new LatencyHistogram();
+        Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        LongAdder errorCount = new LongAdder();
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long pinnedBefore = pinningMonitor.getPinnedEvents();
+        long startTime = System.nanoTime();
+
+        try {
+            for (int i = 0; i < requests; i++) {
+                inFlight.acquire();
+                long sentAt = System.nanoTime();
+                client.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                    latency.record(System.nanoTime() - sentAt);
+                    if (error != null) {
+                        errorCount.increment();
+                    } else {
+                        statusCounts.computeIfAbsent(response.statusCode(), code -> new LongAdder()).increment();
+                    }
+                    inFlight.release();
+                    done.countDown();
+                });
+            }
+            if (!done.await(timeoutSeconds, TimeUnit.SECONDS)) {
+                log.warn("HTTP压测超时，{} 个请求未完成", done.getCount());
+            }
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+
+        long totalNanos = System.nanoTime() - startTime;
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        Map<Integer, Long> statuses = new TreeMap<>();
+        statusCounts.forEach((code, count) -> statuses.put(code, count.sum()));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("path", path);
+        result.put("virtualThreads", pinningMonitor.isVirtualActive());
+        result.put("concurrency", concurrency);
+        result.put("requests", requests);
+        result.put("completed", snapshot.getTotalCount());
+        result.put("statusCounts", statuses);
+        result.put("errorCount", errorCount.sum());
+        result.put("totalTimeMs", totalNanos / 1_000_000);
+        result.put("requestsPerSecond", snapshot.getTotalCount() * 1_000_000_000.0 / totalNanos);
+        result.put("latencyP50Ms", snapshot.valueAtPercentile(50) / 1_000_000.0);
+        result.put("latencyP99Ms", snapshot.valueAtPercentile(99) / 1_000_000.0);
+        result.put("latencyMaxMs", snapshot.getMaxNanos() / 1_000_000.0);
+        result.put("peakPlatformThreads", threads.getPeakThreadCount());
+        result.put("pinnedEvents", pinningMonitor.getPinnedEvents() - pinnedBefore);
+
+        log.info("HTTP压测完成: 总时间={}ms, QPS={}", result.get("totalTimeMs"), result.get("requestsPerSecond"));
+        return ApiResponse.success("HTTP压测完成", result);
+    }
+
+    private static CacheStats cacheStats(Cache cache) {
+        if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            return caffeine.stats();
+        }
+        return CacheStats.empty();
+    }
+
+    private static Map<String, Object> describeCacheStats(CacheStats stats) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("loadCount", stats.loadCount());
+        result.put("averageLoadMs", stats.averageLoadPenalty() / 1_000_000.0);
+        return result;
+    }
+}
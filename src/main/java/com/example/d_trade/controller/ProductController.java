@@ -1,8 +1,11 @@
 package com.example.d_trade.controller;
 
 import com.example.d_trade.dto.ProductDTO;
+import com.example.d_trade.dto.ProductSummaryDTO;
+import com.example.d_trade.dto.request.ProductFilter;
 import com.example.d_trade.dto.request.ProductRequest;
 import com.example.d_trade.dto.response.ApiResponse;
+import com.example.d_trade.dto.response.CursorPage;
 import com.example.d_trade.service.ProductService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
@@ -15,12 +18,16 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final ProductService productService;
 
     public ProductController(ProductService productService) {
@@ -28,12 +35,57 @@ public class ProductController {
     }
 
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<ProductDTO>>> getProducts(
+    public ResponseEntity<ApiResponse<Page<ProductSummaryDTO>>> getProducts(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false, defaultValue = "AVAILABLE") String status,
             @RequestParam(required = false) String sort,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String tradeLocation,
             @PageableDefault(size = 10) Pageable pageable) {
-        Page<ProductDTO> products = productService.getProducts(keyword, status, sort, pageable);
+        ProductFilter filter = new ProductFilter(minPrice, maxPrice, tradeLocation);
+        Page<ProductSummaryDTO> products = filter.isEmpty()
+                ? productService.getProducts(keyword, status, sort, pageable)
+                : productService.getProducts(keyword, status, sort, filter, pageable);
+        return ResponseEntity.ok(ApiResponse.success(products));
+    }
+
+    /**
+     * 分面计数：各状态商品数、价格区间和交易地点的商品数，用于筛选栏展示
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getProductFacets(
+            @RequestParam(required = false, defaultValue = "AVAILABLE") String status,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String tradeLocation) {
+        Map<String, Object> facets = productService.getProductFacets(status,
+                new ProductFilter(minPrice, maxPrice, tradeLocation));
+        return ResponseEntity.ok(ApiResponse.success(facets));
+    }
+
+    /**
+     * 游标分页模式：携带cursor参数（第一页传空值）时启用，适用于无限滚动
+     * 游标按发布时间倒序定位，不支持其他排序和价格、交易地点筛选，携带这些参数时返回400而不是忽略
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<ApiResponse<CursorPage<ProductSummaryDTO>>> scrollProducts(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false, defaultValue = "AVAILABLE") String status,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String tradeLocation) {
+        if (sort != null && !"newest".equals(sort)) {
+            throw new IllegalArgumentException("游标分页只支持按发布时间倒序（newest）");
+        }
+        if (!new ProductFilter(minPrice, maxPrice, tradeLocation).isEmpty()) {
+            throw new IllegalArgumentException("游标分页不支持价格区间和交易地点筛选，请使用页码分页");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        CursorPage<ProductSummaryDTO> products = productService.scrollProducts(keyword, status, cursor, pageSize);
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
@@ -90,11 +142,11 @@ public class ProductController {
 
     @GetMapping("/user")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<ApiResponse<Page<ProductDTO>>> getUserProducts(
+    public ResponseEntity<ApiResponse<Page<ProductSummaryDTO>>> getUserProducts(
             @AuthenticationPrincipal UserDetails userDetails,
             @RequestParam(required = false) String status,
             @PageableDefault(size = 10) Pageable pageable) {
-        Page<ProductDTO> products = productService.getUserProducts(userDetails.getUsername(), status, pageable);
+        Page<ProductSummaryDTO> products = productService.getUserProducts(userDetails.getUsername(), status, pageable);
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 } 
\ No newline at end of file
@@ -1,16 +1,20 @@
 package com.example.d_trade.dto;
 
+import com.example.d_trade.dto.projection.MessageListProjection;
 import com.example.d_trade.entity.Message;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class MessageDTO {
+public class MessageDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
     
     private Long id;
     private Message.Type type;
@@ -40,4 +44,20 @@ public class MessageDTO {
         dto.setCreateTime(message.getCreateTime());
         return dto;
     }
+    
+    /**
+     * 列表查询使用：接收者为当前用户，不再填充
+     */
+    public static MessageDTO fromProjection(MessageListProjection row) {
+        MessageDTO dto = new MessageDTO();
+        dto.setId(row.id());
+        dto.setType(row.type());
+        dto.setTitle(row.title());
+        dto.setContent(row.content());
+        dto.setRead(row.read());
+        dto.setProductId(row.productId());
+        dto.setOrderId(row.orderId());
+        dto.setCreateTime(row.createTime());
+        return dto;
+    }
 }
@@ -0,0 +1,58 @@
+package com.example.d_trade.dto;
+
+import com.example.d_trade.dto.projection.OrderListProjection;
+import com.example.d_trade.entity.Order;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 订单列表DTO，商品和买卖双方只包含列表展示的字段，详情页使用OrderDTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    
+    private Long id;
+    private ProductSummaryDTO product;
+    private UserSummaryDTO buyer;
+    private UserSummaryDTO seller;
+    private Order.Status status;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updateTime;
+    
+    public static OrderSummaryDTO fromProjection(OrderListProjection row) {
+        UserSummaryDTO seller = new UserSummaryDTO(row.sellerId(), row.sellerStudentId(),
+                row.sellerUsername(), row.sellerNickname());
+        
+        ProductSummaryDTO product = new ProductSummaryDTO();
+        product.setId(row.productId());
+        product.setTitle(row.productTitle());
+        product.setPrice(row.productPrice());
+        product.setStatus(row.productStatus());
+        product.setImagePaths(row.productImagePaths());
+        product.setSeller(seller);
+        
+        OrderSummaryDTO dto = new OrderSummaryDTO();
+        dto.setId(row.id());
+        dto.setProduct(product);
+        dto.setBuyer(new UserSummaryDTO(row.buyerId(), row.buyerStudentId(),
+                row.buyerUsername(), row.buyerNickname()));
+        dto.setSeller(seller);
+        dto.setStatus(row.status());
+        dto.setCreateTime(row.createTime());
+        dto.setUpdateTime(row.updateTime());
+        return dto;
+    }
+}
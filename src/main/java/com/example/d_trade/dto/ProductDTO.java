@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -13,7 +14,9 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ProductDTO {
+public class ProductDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
     
     private Long id;
     private String title;
@@ -41,7 +44,7 @@ public class ProductDTO {
         dto.setPrice(product.getPrice());
         dto.setDescription(product.getDescription());
         dto.setTradeLocation(product.getTradeLocation());
-        dto.setImagePaths(product.getImagePaths());
+        dto.setImagePaths(product.getImagePaths() != null ? product.getImagePaths() : List.of());
         dto.setStatus(product.getStatus());
         
         if (product.getSeller() != null) {
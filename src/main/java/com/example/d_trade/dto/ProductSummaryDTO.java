@@ -0,0 +1,53 @@
+package com.example.d_trade.dto;
+
+import com.example.d_trade.dto.projection.ProductListProjection;
+import com.example.d_trade.entity.Product;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 商品列表DTO，不包含描述，详情页使用ProductDTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummaryDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    
+    private Long id;
+    private String title;
+    private BigDecimal price;
+    private String tradeLocation;
+    private List<String> imagePaths;
+    private Product.Status status;
+    private UserSummaryDTO seller;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDateTime createTime;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDateTime updateTime;
+    
+    public static ProductSummaryDTO fromProjection(ProductListProjection row) {
+        ProductSummaryDTO dto = new ProductSummaryDTO();
+        dto.setId(row.id());
+        dto.setTitle(row.title());
+        dto.setPrice(row.price());
+        dto.setTradeLocation(row.tradeLocation());
+        dto.setImagePaths(row.imagePaths());
+        dto.setStatus(row.status());
+        dto.setSeller(new UserSummaryDTO(row.sellerId(), row.sellerStudentId(),
+                row.sellerUsername(), row.sellerNickname()));
+        dto.setCreateTime(row.createTime());
+        dto.setUpdateTime(row.updateTime());
+        return dto;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.d_trade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 列表中展示的用户基本信息
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    
+    private Long id;
+    private String studentId;
+    private String username;
+    private String nickname;
+}
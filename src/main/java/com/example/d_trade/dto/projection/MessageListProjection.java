@@ -0,0 +1,13 @@
+package com.example.d_trade.dto.projection;
+
+import com.example.d_trade.entity.Message;
+
+import java.time.LocalDateTime;
+
+/**
+ * 消息列表行投影（构造器投影）
+ * 关联的商品和订单只取外键ID，接收者即当前用户，不再关联查询
+ */
+public record MessageListProjection(Long id, Message.Type type, String title, String content, boolean read,
+                                    Long productId, Long orderId, LocalDateTime createTime) {
+}
@@ -0,0 +1,24 @@
+package com.example.d_trade.dto.projection;
+
+import com.example.d_trade.entity.Order;
+import com.example.d_trade.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 订单列表行投影（构造器投影）
+ * 商品只取标题、价格、图片和状态，买卖双方只取基本信息
+ */
+public record OrderListProjection(Long id, Order.Status status, LocalDateTime createTime, LocalDateTime updateTime,
+                                  Long productId, String productTitle, BigDecimal productPrice,
+                                  List<String> productImagePaths, Product.Status productStatus,
+                                  Long buyerId, String buyerStudentId, String buyerUsername, String buyerNickname,
+                                  Long sellerId, String sellerStudentId, String sellerUsername,
+                                  String sellerNickname) {
+
+    public OrderListProjection {
+        productImagePaths = productImagePaths != null ? productImagePaths : List.of();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.d_trade.dto.projection;
+
+import com.example.d_trade.entity.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * 分面计数构建所需的字段投影
+ */
+public interface ProductFacetProjection {
+
+    Long getId();
+
+    Product.Status getStatus();
+
+    BigDecimal getPrice();
+
+    String getTradeLocation();
+}
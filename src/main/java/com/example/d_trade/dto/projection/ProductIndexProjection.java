@@ -0,0 +1,25 @@
+package com.example.d_trade.dto.projection;
+
+import com.example.d_trade.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 商品搜索索引构建所需的字段投影
+ * 只查询建索引用到的列，避免加载卖家和图片集合
+ */
+public interface ProductIndexProjection {
+
+    Long getId();
+
+    String getTitle();
+
+    BigDecimal getPrice();
+
+    Product.Status getStatus();
+
+    LocalDateTime getCreateTime();
+
+    String getTradeLocation();
+}
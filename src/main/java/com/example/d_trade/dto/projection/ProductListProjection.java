@@ -0,0 +1,22 @@
+package com.example.d_trade.dto.projection;
+
+import com.example.d_trade.entity.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 商品列表行投影（构造器投影）
+ * 只查询列表页展示的列和卖家的基本信息，不加载描述、订单集合和完整的卖家实体
+ */
+public record ProductListProjection(Long id, String title, BigDecimal price, String tradeLocation,
+                                    List<String> imagePaths, Product.Status status,
+                                    LocalDateTime createTime, LocalDateTime updateTime,
+                                    Long sellerId, String sellerStudentId, String sellerUsername,
+                                    String sellerNickname) {
+
+    public ProductListProjection {
+        imagePaths = imagePaths != null ? imagePaths : List.of();
+    }
+}
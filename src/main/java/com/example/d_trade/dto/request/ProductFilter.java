@@ -0,0 +1,60 @@
+package com.example.d_trade.dto.request;
+
+import org.springframework.util.StringUtils;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * 商品列表筛选条件：价格区间（包含两端）和交易地点，为空的条件不参与筛选
+ * @param minPrice 最低价格
+ * @param maxPrice 最高价格
+ * @param tradeLocation 交易地点，精确匹配
+ */
+public record ProductFilter(BigDecimal minPrice, BigDecimal maxPrice, String tradeLocation) implements Serializable {
+
+    public static final ProductFilter NONE = new ProductFilter(null, null, null);
+
+    public ProductFilter {
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("最低价格不能高于最高价格");
+        }
+        tradeLocation = StringUtils.hasText(tradeLocation) ? tradeLocation.trim() : null;
+    }
+
+    /**
+     * 是否没有任何筛选条件
+     * @return 没有条件时为true
+     */
+    public boolean isEmpty() {
+        return minPrice == null && maxPrice == null && tradeLocation == null;
+    }
+
+    /**
+     * 判断商品是否满足筛选条件
+     * @param price 商品价格
+     * @param location 交易地点
+     * @return 是否满足
+     */
+    public boolean matches(BigDecimal price, String location) {
+        if (minPrice != null && (price == null || price.compareTo(minPrice) < 0)) {
+            return false;
+        }
+        if (maxPrice != null && (price == null || price.compareTo(maxPrice) > 0)) {
+            return false;
+        }
+        return tradeLocation == null || location != null && tradeLocation.equals(location.trim());
+    }
+
+    /**
+     * 用于缓存键的字符串，价格去掉末尾的0，10 和 10.00 是同一个条件
+     * @return 缓存键片段
+     */
+    public String cacheKey() {
+        return plain(minPrice) + "~" + plain(maxPrice) + "@" + tradeLocation;
+    }
+
+    private static String plain(BigDecimal price) {
+        return price != null ? price.stripTrailingZeros().toPlainString() : "";
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.d_trade.dto.response;
+
+import com.example.d_trade.utils.CursorCodec;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 游标分页结果
+ * 不执行COUNT查询，只返回当前页数据和下一页游标
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private int size;
+
+    /**
+     * 由Slice构建游标分页结果
+     * @param slice 查询结果
+     * @param mapper 实体到DTO的转换
+     * @param createTimeOf 取创建时间
+     * @param idOf 取ID
+     * @return 游标分页结果
+     */
+    public static <E, T> CursorPage<T> of(Slice<E> slice, Function<E, T> mapper,
+                                          Function<E, LocalDateTime> createTimeOf, Function<E, Long> idOf) {
+        List<E> entities = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext() && !entities.isEmpty()) {
+            E last = entities.get(entities.size() - 1);
+            nextCursor = CursorCodec.encode(createTimeOf.apply(last), idOf.apply(last));
+        }
+        List<T> content = entities.stream().map(mapper).collect(Collectors.toList());
+        return new CursorPage<>(content, nextCursor, slice.hasNext(), content.size());
+    }
+}
@@ -9,7 +9,10 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        // 游标分页按 (create_time, id) 定位
+        @Index(name = "idx_messages_receiver_create_time", columnList = "receiver_id, create_time, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -10,7 +10,11 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // 游标分页按 (create_time, id) 定位
+        @Index(name = "idx_orders_buyer_create_time", columnList = "buyer_id, create_time, id"),
+        @Index(name = "idx_orders_seller_create_time", columnList = "seller_id, create_time, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
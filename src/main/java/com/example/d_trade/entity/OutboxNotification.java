@@ -0,0 +1,65 @@
+package com.example.d_trade.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待发送的通知（事务性发件箱）
+ * 与订单等业务数据在同一个事务中写入，提交后由 NotificationOutbox 批量转成 messages 表的记录并删除；
+ * 只保存关联ID，不建外键，写入时不需要加载关联实体；无法投递的记录标记 failedTime 后留在表中，不再投递
+ */
+@Entity
+@Table(name = "notification_outbox")
+@Data
+@NoArgsConstructor
+public class OutboxNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Message.Type type; // 消息类型
+
+    @Column(nullable = false)
+    private String title; // 消息标题
+
+    @Column(columnDefinition = "TEXT")
+    private String content; // 消息内容
+
+    @Column(name = "receiver_id", nullable = false)
+    private Long receiverId; // 接收者ID
+
+    @Column(name = "product_id")
+    private Long productId; // 相关商品ID（可选）
+
+    @Column(name = "order_id")
+    private Long orderId; // 相关订单ID（可选）
+
+    @Column(name = "create_time", nullable = false)
+    private LocalDateTime createTime; // 创建时间，即消息的发送时间
+
+    @Column(name = "failed_time")
+    private LocalDateTime failedTime; // 投递失败时间，为空表示待投递
+
+    /**
+     * 从未保存的消息构建发件箱记录
+     * @param message 消息
+     * @return 发件箱记录
+     */
+    public static OutboxNotification of(Message message) {
+        OutboxNotification notification = new OutboxNotification();
+        notification.setType(message.getType());
+        notification.setTitle(message.getTitle());
+        notification.setContent(message.getContent());
+        notification.setReceiverId(message.getReceiver().getId());
+        notification.setProductId(message.getProduct() != null ? message.getProduct().getId() : null);
+        notification.setOrderId(message.getOrder() != null ? message.getOrder().getId() : null);
+        notification.setCreateTime(message.getCreateTime() != null ? message.getCreateTime() : LocalDateTime.now());
+        return notification;
+    }
+}
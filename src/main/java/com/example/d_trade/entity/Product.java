@@ -5,7 +5,9 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -15,7 +17,12 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // 游标分页按 (create_time, id) 定位
+        @Index(name = "idx_products_status_create_time", columnList = "status, create_time, id"),
+        // 价格区间筛选和按价格排序
+        @Index(name = "idx_products_status_price", columnList = "status, price, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -36,9 +43,8 @@ public class Product {
     
     private String tradeLocation; // 交易地点
     
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "product_images", joinColumns = @JoinColumn(name = "product_id"))
-    @Column(name = "image_path")
+    @JdbcTypeCode(SqlTypes.JSON) // 以JSON数组存放在商品行内，读取无需关联图片表，更新只改一列
+    @Column(name = "image_paths")
     private List<String> imagePaths = new ArrayList<>(); // 商品图片路径
     
     @Enumerated(EnumType.STRING)
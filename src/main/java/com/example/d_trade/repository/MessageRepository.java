@@ -1,18 +1,51 @@
 package com.example.d_trade.repository;
 
+import com.example.d_trade.dto.projection.MessageListProjection;
 import com.example.d_trade.entity.Message;
 import com.example.d_trade.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
     
-    Page<Message> findByReceiverOrderByCreateTimeDesc(User receiver, Pageable pageable);
-    
+    @EntityGraph(attributePaths = "receiver")
     Page<Message> findByReceiverAndIsReadOrderByCreateTimeDesc(User receiver, boolean isRead, Pageable pageable);
     
     long countByReceiverAndIsRead(User receiver, boolean isRead);
-} 
\ No newline at end of file
+
+    /**
+     * 按发送日期统计消息数
+     * @return [日期, 数量]
+     */
+    @Query("SELECT CAST(m.createTime AS LocalDate), COUNT(m) FROM Message m WHERE m.createTime >= :since "
+            + "GROUP BY CAST(m.createTime AS LocalDate)")
+    List<Object[]> countByCreateDateSince(LocalDateTime since);
+
+    /**
+     * 列表页投影查询：关联的商品和订单只取外键，不关联接收者
+     */
+    String LIST_SELECT = "SELECT new com.example.d_trade.dto.projection.MessageListProjection("
+            + "m.id, m.type, m.title, m.content, m.isRead, m.product.id, m.order.id, m.createTime) "
+            + "FROM Message m ";
+
+    @Query(value = LIST_SELECT + "WHERE m.receiver = :receiver AND (:isRead IS NULL OR m.isRead = :isRead) "
+            + "ORDER BY m.createTime DESC",
+            countQuery = "SELECT COUNT(m) FROM Message m WHERE m.receiver = :receiver "
+                    + "AND (:isRead IS NULL OR m.isRead = :isRead)")
+    Page<MessageListProjection> findListByReceiver(User receiver, Boolean isRead, Pageable pageable);
+
+    @Query(LIST_SELECT + "WHERE m.receiver = :receiver AND (:isRead IS NULL OR m.isRead = :isRead) "
+            + "AND (m.createTime < :createTime OR (m.createTime = :createTime AND m.id < :id)) "
+            + "ORDER BY m.createTime DESC, m.id DESC")
+    Slice<MessageListProjection> findByReceiverAfterCursor(User receiver, Boolean isRead, LocalDateTime createTime,
+                                                           Long id, Pageable pageable);
+}
\ No newline at end of file
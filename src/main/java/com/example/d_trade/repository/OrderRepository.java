@@ -1,30 +1,88 @@
 package com.example.d_trade.repository;
 
+import com.example.d_trade.dto.projection.OrderListProjection;
 import com.example.d_trade.entity.Order;
 import com.example.d_trade.entity.Product;
 import com.example.d_trade.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
-    Page<Order> findByBuyerOrderByCreateTimeDesc(User buyer, Pageable pageable);
+    // 订单DTO需要的关联（商品及其卖家、买家、卖家）通过实体图一次JOIN加载；列表页使用投影查询
     
-    Page<Order> findBySellerOrderByCreateTimeDesc(User seller, Pageable pageable);
-    
-    Page<Order> findByBuyerAndStatusOrderByCreateTimeDesc(User buyer, Order.Status status, Pageable pageable);
-    
-    Page<Order> findBySellerAndStatusOrderByCreateTimeDesc(User seller, Order.Status status, Pageable pageable);
-    
-    Page<Order> findByBuyerOrSellerOrderByCreateTimeDesc(User buyer, User seller, Pageable pageable);
+    @Override
+    @EntityGraph(attributePaths = {"product", "product.seller", "buyer", "seller"})
+    Optional<Order> findById(Long id);
     
     Optional<Order> findByProductAndStatus(Product product, Order.Status status);
     
     List<Order> findByProduct(Product product);
-} 
\ No newline at end of file
+
+    /**
+     * 按状态统计订单数
+     * @return [状态, 数量]
+     */
+    @Query("SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status")
+    List<Object[]> countGroupByStatus();
+
+    /**
+     * 按创建日期统计订单数
+     * @return [日期, 数量]
+     */
+    @Query("SELECT CAST(o.createTime AS LocalDate), COUNT(o) FROM Order o WHERE o.createTime >= :since "
+            + "GROUP BY CAST(o.createTime AS LocalDate)")
+    List<Object[]> countByCreateDateSince(LocalDateTime since);
+
+    /**
+     * 列表页投影查询：订单字段、商品的标题价格状态、买卖双方的基本信息
+     */
+    String LIST_SELECT = "SELECT new com.example.d_trade.dto.projection.OrderListProjection("
+            + "o.id, o.status, o.createTime, o.updateTime, p.id, p.title, p.price, p.imagePaths, p.status, "
+            + "b.id, b.studentId, b.username, b.nickname, s.id, s.studentId, s.username, s.nickname) "
+            + "FROM Order o JOIN o.product p JOIN o.buyer b JOIN o.seller s ";
+
+    @Query(value = LIST_SELECT + "WHERE o.buyer = :user AND (:status IS NULL OR o.status = :status) "
+            + "ORDER BY o.createTime DESC",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.buyer = :user "
+                    + "AND (:status IS NULL OR o.status = :status)")
+    Page<OrderListProjection> findListByBuyer(User user, Order.Status status, Pageable pageable);
+
+    @Query(value = LIST_SELECT + "WHERE o.seller = :user AND (:status IS NULL OR o.status = :status) "
+            + "ORDER BY o.createTime DESC",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.seller = :user "
+                    + "AND (:status IS NULL OR o.status = :status)")
+    Page<OrderListProjection> findListBySeller(User user, Order.Status status, Pageable pageable);
+
+    @Query(value = LIST_SELECT + "WHERE o.buyer = :user OR o.seller = :user ORDER BY o.createTime DESC",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.buyer = :user OR o.seller = :user")
+    Page<OrderListProjection> findListByBuyerOrSeller(User user, Pageable pageable);
+
+    @Query(LIST_SELECT + "WHERE o.buyer = :user AND (:status IS NULL OR o.status = :status) "
+            + "AND (o.createTime < :createTime OR (o.createTime = :createTime AND o.id < :id)) "
+            + "ORDER BY o.createTime DESC, o.id DESC")
+    Slice<OrderListProjection> findByBuyerAfterCursor(User user, Order.Status status, LocalDateTime createTime,
+                                                      Long id, Pageable pageable);
+
+    @Query(LIST_SELECT + "WHERE o.seller = :user AND (:status IS NULL OR o.status = :status) "
+            + "AND (o.createTime < :createTime OR (o.createTime = :createTime AND o.id < :id)) "
+            + "ORDER BY o.createTime DESC, o.id DESC")
+    Slice<OrderListProjection> findBySellerAfterCursor(User user, Order.Status status, LocalDateTime createTime,
+                                                       Long id, Pageable pageable);
+
+    @Query(LIST_SELECT + "WHERE (o.buyer = :user OR o.seller = :user) "
+            + "AND (o.createTime < :createTime OR (o.createTime = :createTime AND o.id < :id)) "
+            + "ORDER BY o.createTime DESC, o.id DESC")
+    Slice<OrderListProjection> findByBuyerOrSellerAfterCursor(User user, LocalDateTime createTime, Long id,
+                                                              Pageable pageable);
+}
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.example.d_trade.repository;
+
+import com.example.d_trade.entity.OutboxNotification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxNotificationRepository extends JpaRepository<OutboxNotification, Long> {
+}
@@ -1,32 +1,132 @@
 package com.example.d_trade.repository;
 
+import com.example.d_trade.dto.projection.ProductFacetProjection;
+import com.example.d_trade.dto.projection.ProductIndexProjection;
+import com.example.d_trade.dto.projection.ProductListProjection;
 import com.example.d_trade.entity.Product;
 import com.example.d_trade.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
-    Page<Product> findByStatusOrderByCreateTimeDesc(Product.Status status, Pageable pageable);
+    @Override
+    @EntityGraph(attributePaths = "seller")
+    Optional<Product> findById(Long id);
     
-    Page<Product> findByStatusOrderByPriceAsc(Product.Status status, Pageable pageable);
-    
-    Page<Product> findByStatusOrderByPriceDesc(Product.Status status, Pageable pageable);
+    @Override
+    @EntityGraph(attributePaths = "seller")
+    List<Product> findAllById(Iterable<Long> ids);
     
     List<Product> findBySeller(User seller);
     
-    Page<Product> findBySeller(User seller, Pageable pageable);
-    
-    Page<Product> findBySellerAndStatus(User seller, Product.Status status, Pageable pageable);
-    
-    Page<Product> findByTitleContainingAndStatus(String title, Product.Status status, Pageable pageable);
-    
     @Query("SELECT COUNT(o) FROM Order o WHERE o.product.id = :productId")
     long countOrdersByProductId(Long productId);
-} 
\ No newline at end of file
+
+    /**
+     * 按状态统计商品数
+     * @return [状态, 数量]
+     */
+    @Query("SELECT p.status, COUNT(p) FROM Product p GROUP BY p.status")
+    List<Object[]> countGroupByStatus();
+
+    /**
+     * 按发布日期统计商品数
+     * @return [日期, 数量]
+     */
+    @Query("SELECT CAST(p.createTime AS LocalDate), COUNT(p) FROM Product p WHERE p.createTime >= :since "
+            + "GROUP BY CAST(p.createTime AS LocalDate)")
+    List<Object[]> countByCreateDateSince(LocalDateTime since);
+
+    @Query("SELECT p.id AS id, p.title AS title, p.price AS price, "
+            + "p.status AS status, p.createTime AS createTime, p.tradeLocation AS tradeLocation "
+            + "FROM Product p WHERE p.id > :lastId ORDER BY p.id ASC")
+    List<ProductIndexProjection> findIndexBatch(Long lastId, Pageable pageable);
+
+    /**
+     * 按ID分批读取分面计数需要的字段
+     */
+    @Query("SELECT p.id AS id, p.status AS status, p.price AS price, p.tradeLocation AS tradeLocation "
+            + "FROM Product p WHERE p.id > :lastId ORDER BY p.id ASC")
+    List<ProductFacetProjection> findFacetBatch(Long lastId, Pageable pageable);
+
+    /**
+     * 按ID分批读取某个状态的商品和卖家，用于加载堆外商品目录
+     */
+    @Query("SELECT p FROM Product p JOIN FETCH p.seller WHERE p.status = :status AND p.id > :lastId ORDER BY p.id ASC")
+    List<Product> findCatalogBatch(Product.Status status, Long lastId, Pageable pageable);
+
+    /**
+     * 列表页投影查询只选择列表展示的列，卖家只取基本信息
+     */
+    String LIST_SELECT = "SELECT new com.example.d_trade.dto.projection.ProductListProjection("
+            + "p.id, p.title, p.price, p.tradeLocation, p.imagePaths, p.status, p.createTime, p.updateTime, "
+            + "s.id, s.studentId, s.username, s.nickname) FROM Product p JOIN p.seller s ";
+
+    /**
+     * 标题包含关键词，与派生查询 TitleContaining 一致：关键词中的 % 和 _ 转义后按普通字符匹配
+     */
+    String TITLE_CONTAINS = "p.title LIKE CONCAT('%', :#{escape(#keyword)}, '%') ESCAPE :#{escapeCharacter()} ";
+
+    @Query(value = LIST_SELECT + "WHERE p.status = :status",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.status = :status")
+    Page<ProductListProjection> findListByStatus(Product.Status status, Pageable pageable);
+
+    @Query(value = LIST_SELECT + "WHERE p.status = :status AND " + TITLE_CONTAINS,
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.status = :status AND " + TITLE_CONTAINS)
+    Page<ProductListProjection> findListByTitleContainingAndStatus(String keyword, Product.Status status,
+                                                                   Pageable pageable);
+
+    /**
+     * 价格区间和交易地点筛选，参数为空时不限制
+     */
+    String FILTER_CONDITION = "AND (:minPrice IS NULL OR p.price >= :minPrice) "
+            + "AND (:maxPrice IS NULL OR p.price <= :maxPrice) "
+            + "AND (:tradeLocation IS NULL OR p.tradeLocation = :tradeLocation)";
+
+    @Query(value = LIST_SELECT + "WHERE p.status = :status " + FILTER_CONDITION,
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.status = :status " + FILTER_CONDITION)
+    Page<ProductListProjection> findListByStatusAndFilter(Product.Status status, BigDecimal minPrice,
+                                                          BigDecimal maxPrice, String tradeLocation,
+                                                          Pageable pageable);
+
+    @Query(value = LIST_SELECT + "WHERE p.status = :status AND " + TITLE_CONTAINS + FILTER_CONDITION,
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.status = :status AND " + TITLE_CONTAINS
+                    + FILTER_CONDITION)
+    Page<ProductListProjection> findListByTitleContainingAndFilter(String keyword, Product.Status status,
+                                                                   BigDecimal minPrice, BigDecimal maxPrice,
+                                                                   String tradeLocation, Pageable pageable);
+
+    @Query(value = LIST_SELECT + "WHERE p.seller = :seller AND (:status IS NULL OR p.status = :status)",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.seller = :seller "
+                    + "AND (:status IS NULL OR p.status = :status)")
+    Page<ProductListProjection> findListBySeller(User seller, Product.Status status, Pageable pageable);
+
+    @Query(LIST_SELECT + "WHERE p.id IN :ids")
+    List<ProductListProjection> findListByIdIn(Collection<Long> ids);
+
+    @Query(LIST_SELECT + "WHERE p.status = :status "
+            + "AND (p.createTime < :createTime OR (p.createTime = :createTime AND p.id < :id)) "
+            + "ORDER BY p.createTime DESC, p.id DESC")
+    Slice<ProductListProjection> findByStatusAfterCursor(Product.Status status, LocalDateTime createTime, Long id,
+                                                         Pageable pageable);
+
+    @Query(LIST_SELECT + "WHERE p.status = :status AND " + TITLE_CONTAINS
+            + "AND (p.createTime < :createTime OR (p.createTime = :createTime AND p.id < :id)) "
+            + "ORDER BY p.createTime DESC, p.id DESC")
+    Slice<ProductListProjection> findByTitleAndStatusAfterCursor(String keyword, Product.Status status,
+                                                                 LocalDateTime createTime, Long id,
+                                                                 Pageable pageable);
+}
\ No newline at end of file
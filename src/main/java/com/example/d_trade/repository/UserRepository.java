@@ -3,8 +3,11 @@ package com.example.d_trade.repository;
 import com.example.d_trade.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -15,4 +18,12 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     boolean existsByStudentId(String studentId);
     
     Optional<User> findByUsername(String username);
+    
+    /**
+     * 按注册日期统计用户数
+     * @return [日期, 数量]
+     */
+    @Query("SELECT CAST(u.createTime AS LocalDate), COUNT(u) FROM User u WHERE u.createTime >= :since "
+            + "GROUP BY CAST(u.createTime AS LocalDate)")
+    List<Object[]> countByCreateDateSince(LocalDateTime since);
 } 
\ No newline at end of file
@@ -24,9 +24,12 @@ import java.util.List;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+    private static final String STREAM_PATH = "/api/messages/stream";
+    private static final String STREAM_TICKET_PARAMETER = "ticket";
     
     private final JwtUtils jwtUtils;
     private final UserDetailsService userDetailsService;
+    private final StreamTicketService streamTicketService;
     private final AntPathMatcher pathMatcher = new AntPathMatcher();
 
     // 定义不需要过滤的路径列表
@@ -38,9 +41,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             "/h2-console/**"
     );
 
-    public JwtAuthenticationFilter(JwtUtils jwtUtils, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtils jwtUtils, UserDetailsService userDetailsService,
+                                   StreamTicketService streamTicketService) {
         this.jwtUtils = jwtUtils;
         this.userDetailsService = userDetailsService;
+        this.streamTicketService = streamTicketService;
     }
     
     @Override
@@ -82,19 +87,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     logger.info("已加载用户详情: {}", userDetails.getUsername());
                     
                     if (jwtUtils.validateToken(jwt, userDetails)) {
-                        UsernamePasswordAuthenticationToken authentication =
-                                new UsernamePasswordAuthenticationToken(userDetails, null,
-                                        userDetails.getAuthorities());
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                        logger.info("成功设置认证信息, 用户: {}, 权限: {}", username, userDetails.getAuthorities());
+                        authenticate(request, userDetails);
                     } else {
                         logger.warn("JWT令牌验证失败, 用户: {}", username);
                     }
                 } else {
                     logger.warn("未能从JWT中提取用户名或认证上下文非空");
                 }
+            } else if (STREAM_PATH.equals(request.getServletPath())) {
+                authenticateStreamTicket(request);
             } else {
                 logger.warn("请求中未找到JWT令牌");
             }
@@ -114,8 +115,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             logger.info("成功解析Authorization头, 获取到JWT令牌");
             return token;
         }
-        
+
         logger.warn("Authorization头格式不正确或不存在");
         return null;
     }
+
+    /**
+     * EventSource 不能设置请求头，消息推送连接使用一次性凭证认证，登录令牌不出现在URL中
+     */
+    private void authenticateStreamTicket(HttpServletRequest request) {
+        String ticket = request.getParameter(STREAM_TICKET_PARAMETER);
+        String username = StringUtils.hasText(ticket) ? streamTicketService.redeem(ticket) : null;
+        if (username == null) {
+            logger.warn("推送连接凭证无效、已过期或已使用");
+            return;
+        }
+        authenticate(request, userDetailsService.loadUserByUsername(username));
+    }
+
+    private void authenticate(HttpServletRequest request, UserDetails userDetails) {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        logger.info("成功设置认证信息, 用户: {}, 权限: {}", userDetails.getUsername(), userDetails.getAuthorities());
+    }
 }
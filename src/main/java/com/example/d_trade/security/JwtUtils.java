@@ -13,12 +13,16 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
 public class JwtUtils {
     
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
+
+    /** 用途声明：登录令牌没有该声明，其他用途的短期令牌不能当作登录令牌使用 */
+    public static final String SCOPE_CLAIM = "scope";
     
     @Value("${jwt.secret}")
     private String jwtSecret;
@@ -27,19 +31,33 @@ public class JwtUtils {
     private int jwtExpirationMs;
     
     public String generateToken(UserDetails userDetails) {
-        logger.info("为用户生成JWT: {}", userDetails.getUsername());
+        logger.debug("为用户生成JWT: {}", userDetails.getUsername());
+        Map<String, Object> claims = new HashMap<>();
+        return createToken(claims, userDetails.getUsername(), jwtExpirationMs, null);
+    }
+
+    /**
+     * 生成指定用途的短期令牌，带唯一ID，用于一次性凭证
+     * @param subject 用户名
+     * @param scope 用途
+     * @param expirationMs 有效期（毫秒）
+     * @return 令牌
+     */
+    public String generateScopedToken(String subject, String scope, long expirationMs) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername());
+        claims.put(SCOPE_CLAIM, scope);
+        return createToken(claims, subject, expirationMs, UUID.randomUUID().toString());
     }
     
-    private String createToken(Map<String, Object> claims, String subject) {
+    private String createToken(Map<String, Object> claims, String subject, long expirationMs, String id) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpirationMs);
+        Date expiryDate = new Date(now.getTime() + expirationMs);
         
-        logger.info("创建JWT令牌, 主题: {}, 过期时间: {}", subject, expiryDate);
+        logger.debug("创建JWT令牌, 主题: {}, 过期时间: {}", subject, expiryDate);
         
         return Jwts.builder()
                 .claims(claims)
+                .id(id)
                 .subject(subject)
                 .issuedAt(now)
                 .expiration(expiryDate)
@@ -54,7 +72,7 @@ public class JwtUtils {
     public String extractUsername(String token) {
         try {
             String username = extractClaim(token, Claims::getSubject);
-            logger.info("从JWT中提取用户名: {}", username);
+            logger.debug("从JWT中提取用户名: {}", username);
             return username;
         } catch (Exception e) {
             logger.error("从JWT中提取用户名失败: {}", e.getMessage());
@@ -65,7 +83,7 @@ public class JwtUtils {
     public Date extractExpiration(String token) {
         try {
             Date expiration = extractClaim(token, Claims::getExpiration);
-            logger.info("从JWT中提取过期时间: {}", expiration);
+            logger.debug("从JWT中提取过期时间: {}", expiration);
             return expiration;
         } catch (Exception e) {
             logger.error("从JWT中提取过期时间失败: {}", e.getMessage());
@@ -85,7 +103,7 @@ public class JwtUtils {
                     .build()
                     .parseSignedClaims(token)
                     .getPayload();
-            logger.info("成功解析JWT声明");
+            logger.debug("成功解析JWT声明");
             return claims;
         } catch (MalformedJwtException e) {
             logger.error("JWT格式错误: {}", e.getMessage());
@@ -109,7 +127,7 @@ public class JwtUtils {
         try {
             Date expiration = extractExpiration(token);
             boolean isExpired = expiration != null && expiration.before(new Date());
-            logger.info("检查JWT是否过期: {}", isExpired);
+            logger.debug("检查JWT是否过期: {}", isExpired);
             return isExpired;
         } catch (Exception e) {
             logger.error("检查JWT过期状态时发生错误: {}", e.getMessage());
@@ -120,8 +138,9 @@ public class JwtUtils {
     public Boolean validateToken(String token, UserDetails userDetails) {
         try {
             final String username = extractUsername(token);
-            boolean isValid = (username != null && username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-            logger.info("验证JWT: 用户名匹配={}, 令牌未过期={}, 最终结果={}", 
+            boolean isValid = (username != null && username.equals(userDetails.getUsername()) && !isTokenExpired(token)
+                    && extractClaim(token, claims -> claims.get(SCOPE_CLAIM)) == null);
+            logger.debug("验证JWT: 用户名匹配={}, 令牌未过期={}, 最终结果={}", 
                 username != null && username.equals(userDetails.getUsername()), 
                 !isTokenExpired(token), 
                 isValid);
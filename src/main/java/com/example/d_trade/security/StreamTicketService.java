@@ -0,0 +1,77 @@
+package com.example.d_trade.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 消息推送连接凭证
+ * 浏览器 EventSource 不能设置请求头，只能把凭证放在URL里。为了不让登录令牌出现在URL和日志中，
+ * 客户端先用登录令牌换取一个短期凭证（默认30秒），再用凭证建立推送连接。
+ * 凭证是带用途声明和唯一ID的签名令牌，多个节点都能校验；每个ID在本节点只能使用一次，断线重连需要重新获取
+ */
+@Component
+public class StreamTicketService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamTicketService.class);
+
+    static final String STREAM_SCOPE = "message-stream";
+
+    private final JwtUtils jwtUtils;
+    private final long ttlMillis;
+    /** 已使用的凭证ID，保留到凭证过期之后 */
+    private final Cache<String, Boolean> redeemed;
+
+    public StreamTicketService(JwtUtils jwtUtils,
+                               @Value("${app.messages.stream.ticket-ttl-ms:30000}") long ttlMillis) {
+        this.jwtUtils = jwtUtils;
+        this.ttlMillis = ttlMillis;
+        this.redeemed = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMillis * 2))
+                .maximumSize(100_000)
+                .build();
+    }
+
+    /**
+     * 为已登录用户签发推送连接凭证
+     * @param username 用户名
+     * @return 凭证
+     */
+    public String issue(String username) {
+        return jwtUtils.generateScopedToken(username, STREAM_SCOPE, ttlMillis);
+    }
+
+    /**
+     * 使用凭证，成功后同一凭证不能再次使用
+     * @param ticket 凭证
+     * @return 用户名，凭证无效、过期或已使用时返回null
+     */
+    public String redeem(String ticket) {
+        Claims claims;
+        try {
+            claims = jwtUtils.extractClaim(ticket, c -> c);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (!STREAM_SCOPE.equals(claims.get(JwtUtils.SCOPE_CLAIM)) || claims.getId() == null) {
+            logger.warn("推送连接凭证用途不正确, 用户: {}", claims.getSubject());
+            return null;
+        }
+        if (redeemed.asMap().putIfAbsent(claims.getId(), Boolean.TRUE) != null) {
+            logger.warn("推送连接凭证已被使用, 用户: {}", claims.getSubject());
+            return null;
+        }
+        return claims.getSubject();
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.d_trade.service;
 
 import com.example.d_trade.dto.MessageDTO;
+import com.example.d_trade.dto.response.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 public interface MessageService {
     
@@ -15,6 +17,16 @@ public interface MessageService {
      */
     Page<MessageDTO> getMessages(String studentId, Boolean read, Pageable pageable);
     
+    /**
+     * 游标方式获取用户消息列表（按创建时间倒序，不统计总数）
+     * @param studentId 学号
+     * @param read 是否已读
+     * @param cursor 上一页返回的游标，为空时获取第一页
+     * @param size 每页数量
+     * @return 消息游标分页列表
+     */
+    CursorPage<MessageDTO> scrollMessages(String studentId, Boolean read, String cursor, int size);
+    
     /**
      * 根据ID获取消息详情
      * @param studentId 学号
@@ -43,4 +55,11 @@ public interface MessageService {
      * @return 未读消息数量
      */
     Long getUnreadCount(String studentId);
-} 
\ No newline at end of file
+    
+    /**
+     * 建立消息推送连接（SSE），推送新消息和未读数变化
+     * @param studentId 学号
+     * @return 推送连接
+     */
+    SseEmitter subscribe(String studentId);
+}
@@ -1,6 +1,8 @@
 package com.example.d_trade.service;
 
 import com.example.d_trade.dto.OrderDTO;
+import com.example.d_trade.dto.OrderSummaryDTO;
+import com.example.d_trade.dto.response.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -14,7 +16,18 @@ public interface OrderService {
      * @param pageable 分页
      * @return 订单分页列表
      */
-    Page<OrderDTO> getOrders(String studentId, String type, String status, Pageable pageable);
+    Page<OrderSummaryDTO> getOrders(String studentId, String type, String status, Pageable pageable);
+    
+    /**
+     * 游标方式获取用户相关订单（按创建时间倒序，不统计总数）
+     * @param studentId 学号
+     * @param type 订单类型（buy/sell）
+     * @param status 订单状态
+     * @param cursor 上一页返回的游标，为空时获取第一页
+     * @param size 每页数量
+     * @return 订单游标分页列表
+     */
+    CursorPage<OrderSummaryDTO> scrollOrders(String studentId, String type, String status, String cursor, int size);
     
     /**
      * 根据ID获取订单详情
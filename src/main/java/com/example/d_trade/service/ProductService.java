@@ -1,12 +1,16 @@
 package com.example.d_trade.service;
 
 import com.example.d_trade.dto.ProductDTO;
+import com.example.d_trade.dto.ProductSummaryDTO;
+import com.example.d_trade.dto.request.ProductFilter;
 import com.example.d_trade.dto.request.ProductRequest;
+import com.example.d_trade.dto.response.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ProductService {
     
@@ -18,7 +22,37 @@ public interface ProductService {
      * @param pageable 分页
      * @return 商品分页列表
      */
-    Page<ProductDTO> getProducts(String keyword, String status, String sort, Pageable pageable);
+    Page<ProductSummaryDTO> getProducts(String keyword, String status, String sort, Pageable pageable);
+
+    /**
+     * 按价格区间和交易地点筛选商品列表
+     * @param keyword 关键字
+     * @param status 状态
+     * @param sort 排序
+     * @param filter 筛选条件
+     * @param pageable 分页
+     * @return 商品分页列表
+     */
+    Page<ProductSummaryDTO> getProducts(String keyword, String status, String sort, ProductFilter filter,
+                                        Pageable pageable);
+
+    /**
+     * 获取商品分面计数：各状态商品数、价格区间和交易地点的商品数
+     * @param status 状态
+     * @param filter 筛选条件
+     * @return 分面计数
+     */
+    Map<String, Object> getProductFacets(String status, ProductFilter filter);
+    
+    /**
+     * 游标方式获取商品列表（按发布时间倒序，不统计总数）
+     * @param keyword 关键字
+     * @param status 状态
+     * @param cursor 上一页返回的游标，为空时获取第一页
+     * @param size 每页数量
+     * @return 商品游标分页列表
+     */
+    CursorPage<ProductSummaryDTO> scrollProducts(String keyword, String status, String cursor, int size);
     
     /**
      * 根据ID获取商品详情
@@ -72,7 +106,7 @@ public interface ProductService {
      * @param pageable 分页
      * @return 商品分页列表
      */
-    Page<ProductDTO> getUserProducts(String studentId, String status, Pageable pageable);
+    Page<ProductSummaryDTO> getUserProducts(String studentId, String status, Pageable pageable);
     
     /**
      * 管理员删除商品
@@ -0,0 +1,73 @@
+package com.example.d_trade.service;
+
+import com.example.d_trade.entity.Order;
+import com.example.d_trade.entity.Product;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 平台统计服务：在内存中维护用户、商品、订单、消息的计数，
+ * 写操作提交后增量更新，定期与数据库对账
+ */
+public interface StatisticsService {
+    
+    /**
+     * 新用户注册
+     * @param createTime 注册时间
+     */
+    void userRegistered(LocalDateTime createTime);
+    
+    /**
+     * 商品发布
+     * @param status 商品状态
+     * @param createTime 发布时间
+     */
+    void productCreated(Product.Status status, LocalDateTime createTime);
+    
+    /**
+     * 商品状态变更
+     * @param from 原状态
+     * @param to 新状态
+     */
+    void productStatusChanged(Product.Status from, Product.Status to);
+    
+    /**
+     * 商品删除
+     * @param status 删除前的状态
+     * @param createTime 发布时间
+     */
+    void productDeleted(Product.Status status, LocalDateTime createTime);
+    
+    /**
+     * 订单创建
+     * @param status 订单状态
+     * @param createTime 创建时间
+     */
+    void orderCreated(Order.Status status, LocalDateTime createTime);
+    
+    /**
+     * 订单状态变更
+     * @param from 原状态
+     * @param to 新状态
+     */
+    void orderStatusChanged(Order.Status from, Order.Status to);
+    
+    /**
+     * 消息发送
+     * @param createTime 发送时间
+     */
+    void messageCreated(LocalDateTime createTime);
+    
+    /**
+     * 从数据库重新统计，修正增量计数的偏差
+     */
+    void reconcile();
+    
+    /**
+     * 获取统计数据
+     * @param days 按天明细的天数（含今天）
+     * @return 总数、按状态分布和按天明细
+     */
+    Map<String, Object> getStatistics(int days);
+}
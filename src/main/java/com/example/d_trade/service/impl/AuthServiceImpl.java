@@ -8,6 +8,7 @@ import com.example.d_trade.entity.User;
 import com.example.d_trade.repository.UserRepository;
 import com.example.d_trade.security.JwtUtils;
 import com.example.d_trade.service.AuthService;
+import com.example.d_trade.service.StatisticsService;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -24,13 +25,16 @@ public class AuthServiceImpl implements AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtils jwtUtils;
+    private final StatisticsService statisticsService;
 
     public AuthServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
-                          AuthenticationManager authenticationManager, JwtUtils jwtUtils) {
+                          AuthenticationManager authenticationManager, JwtUtils jwtUtils,
+                          StatisticsService statisticsService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtils = jwtUtils;
+        this.statisticsService = statisticsService;
     }
 
     @Override
@@ -53,6 +57,7 @@ public class AuthServiceImpl implements AuthService {
 
         // 保存用户
         User savedUser = userRepository.save(user);
+        statisticsService.userRegistered(savedUser.getCreateTime());
 
         // 返回用户DTO
         return UserDTO.fromEntity(savedUser);
@@ -1,26 +1,40 @@
 package com.example.d_trade.service.impl;
 
 import com.example.d_trade.dto.MessageDTO;
+import com.example.d_trade.dto.projection.MessageListProjection;
+import com.example.d_trade.dto.response.CursorPage;
 import com.example.d_trade.entity.Message;
 import com.example.d_trade.entity.User;
 import com.example.d_trade.repository.MessageRepository;
 import com.example.d_trade.repository.UserRepository;
 import com.example.d_trade.service.MessageService;
+import com.example.d_trade.utils.CursorCodec;
+import com.example.d_trade.utils.MessageStreamRegistry;
+import com.example.d_trade.utils.TransactionUtils;
+import com.example.d_trade.utils.UnreadCountCache;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Service
 public class MessageServiceImpl implements MessageService {
 
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
+    private final MessageStreamRegistry messageStream;
+    private final UnreadCountCache unreadCounts;
 
-    public MessageServiceImpl(MessageRepository messageRepository, UserRepository userRepository) {
+    public MessageServiceImpl(MessageRepository messageRepository, UserRepository userRepository,
+                              MessageStreamRegistry messageStream, UnreadCountCache unreadCounts) {
         this.messageRepository = messageRepository;
         this.userRepository = userRepository;
+        this.messageStream = messageStream;
+        this.unreadCounts = unreadCounts;
     }
 
     @Override
@@ -28,14 +42,22 @@ public class MessageServiceImpl implements MessageService {
         User user = userRepository.findByStudentId(studentId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
 
-        Page<Message> messages;
-        if (read != null) {
-            messages = messageRepository.findByReceiverAndIsReadOrderByCreateTimeDesc(user, read, pageable);
-        } else {
-            messages = messageRepository.findByReceiverOrderByCreateTimeDesc(user, pageable);
-        }
+        // 列表投影查询，read为空时不过滤
+        Page<MessageListProjection> messages = messageRepository.findListByReceiver(user, read, pageable);
+        return messages.map(MessageDTO::fromProjection);
+    }
 
-        return messages.map(MessageDTO::fromEntity);
+    @Override
+    public CursorPage<MessageDTO> scrollMessages(String studentId, Boolean read, String cursor, int size) {
+        CursorCodec.Cursor position = CursorCodec.decode(cursor);
+
+        User user = userRepository.findByStudentId(studentId)
+                .orElseThrow(() -> new RuntimeException("用户不存在"));
+
+        Slice<MessageListProjection> messages = messageRepository.findByReceiverAfterCursor(user, read,
+                position.createTime(), position.id(), PageRequest.of(0, size));
+        return CursorPage.of(messages, MessageDTO::fromProjection,
+                MessageListProjection::createTime, MessageListProjection::id);
     }
 
     @Override
@@ -68,9 +90,13 @@ public class MessageServiceImpl implements MessageService {
             throw new AccessDeniedException("无权操作此消息");
         }
 
-        // 标记为已读
+        // 标记为已读，原来未读时未读数减一
+        boolean wasUnread = !message.isRead();
         message.setRead(true);
         Message updatedMessage = messageRepository.save(message);
+        if (wasUnread) {
+            adjustUnreadCountAfterCommit(user.getId(), -1);
+        }
 
         return MessageDTO.fromEntity(updatedMessage);
     }
@@ -90,13 +116,40 @@ public class MessageServiceImpl implements MessageService {
             message.setRead(true);
             messageRepository.save(message);
         });
+        // 只减去本次标记的数量，查询之后新投递的消息仍然未读
+        if (unreadMessages.getNumberOfElements() > 0) {
+            adjustUnreadCountAfterCommit(user.getId(), -unreadMessages.getNumberOfElements());
+        }
     }
 
     @Override
     public Long getUnreadCount(String studentId) {
+        Long userId = unreadCounts.userIdFor(studentId, () -> userRepository.findByStudentId(studentId)
+                .map(User::getId)
+                .orElseThrow(() -> new RuntimeException("用户不存在")));
+
+        // 未读数在内存中维护，只有第一次读取时查询数据库
+        return unreadCounts.get(userId);
+    }
+
+    @Override
+    public SseEmitter subscribe(String studentId) {
         User user = userRepository.findByStudentId(studentId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
 
-        return messageRepository.countByReceiverAndIsRead(user, false);
+        // 只在建立连接时认证和查询一次，之后的变化由写入路径推送
+        return messageStream.subscribe(user.getId(), () -> unreadCounts.get(user.getId()));
+    }
+
+    /**
+     * 已读状态提交后调整未读数，并推送给该用户的推送连接（如其他标签页）
+     */
+    private void adjustUnreadCountAfterCommit(Long userId, long delta) {
+        TransactionUtils.afterCommit(() -> {
+            unreadCounts.adjust(userId, delta);
+            if (messageStream.isSubscribed(userId)) {
+                messageStream.pushUnreadCount(userId, unreadCounts.get(userId));
+            }
+        });
     }
 }
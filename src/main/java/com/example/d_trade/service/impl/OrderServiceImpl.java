@@ -1,26 +1,36 @@
 package com.example.d_trade.service.impl;
 
 import com.example.d_trade.dto.OrderDTO;
+import com.example.d_trade.dto.OrderSummaryDTO;
+import com.example.d_trade.dto.projection.OrderListProjection;
+import com.example.d_trade.dto.response.CursorPage;
 import com.example.d_trade.entity.Message;
 import com.example.d_trade.entity.Order;
 import com.example.d_trade.entity.Product;
 import com.example.d_trade.entity.User;
-import com.example.d_trade.repository.MessageRepository;
 import com.example.d_trade.repository.OrderRepository;
 import com.example.d_trade.repository.ProductRepository;
 import com.example.d_trade.repository.UserRepository;
 import com.example.d_trade.service.OrderService;
+import com.example.d_trade.service.StatisticsService;
+import com.example.d_trade.utils.CacheDependencyTracker;
+import com.example.d_trade.utils.CacheDependencyTracker.ProductSnapshot;
+import com.example.d_trade.utils.CursorCodec;
+import com.example.d_trade.utils.NotificationOutbox;
+import com.example.d_trade.utils.OffHeapProductCatalog;
+import com.example.d_trade.utils.ProductFacetCounter;
+import com.example.d_trade.utils.ProductSearchIndex;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.concurrent.CompletableFuture;
+import java.time.LocalDateTime;
 
 @Service
 @Slf4j
@@ -29,56 +39,96 @@ public class OrderServiceImpl implements OrderService {
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
-    private final MessageRepository messageRepository;
+    private final NotificationOutbox notificationOutbox;
+    private final ProductSearchIndex productSearchIndex;
+    private final CacheDependencyTracker cacheDependencyTracker;
+    private final StatisticsService statisticsService;
+    private final OffHeapProductCatalog productCatalog;
+    private final ProductFacetCounter productFacetCounter;
 
     public OrderServiceImpl(OrderRepository orderRepository, UserRepository userRepository,
-                           ProductRepository productRepository, MessageRepository messageRepository) {
+                           ProductRepository productRepository, NotificationOutbox notificationOutbox,
+                           ProductSearchIndex productSearchIndex, CacheDependencyTracker cacheDependencyTracker,
+                           StatisticsService statisticsService, OffHeapProductCatalog productCatalog,
+                           ProductFacetCounter productFacetCounter) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
-        this.messageRepository = messageRepository;
+        this.notificationOutbox = notificationOutbox;
+        this.productSearchIndex = productSearchIndex;
+        this.cacheDependencyTracker = cacheDependencyTracker;
+        this.statisticsService = statisticsService;
+        this.productCatalog = productCatalog;
+        this.productFacetCounter = productFacetCounter;
     }
 
     @Override
     @Cacheable(value = "orders", key = "#studentId + '-' + #type + '-' + #status + '-' + #pageable.pageNumber + '-' + #pageable.pageSize")
-    public Page<OrderDTO> getOrders(String studentId, String type, String status, Pageable pageable) {
+    public Page<OrderSummaryDTO> getOrders(String studentId, String type, String status, Pageable pageable) {
         log.debug("获取订单列表: studentId={}, type={}, status={}, page={}, size={}", 
                  studentId, type, status, pageable.getPageNumber(), pageable.getPageSize());
         
         User user = userRepository.findByStudentId(studentId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
 
-        Page<Order> orders;
+        Order.Status orderStatus = parseStatus(status);
+        Page<OrderListProjection> orders;
         if ("buy".equalsIgnoreCase(type)) {
             // 买家订单
-            if (status != null && !status.isEmpty()) {
-                try {
-                    Order.Status orderStatus = Order.Status.valueOf(status);
-                    orders = orderRepository.findByBuyerAndStatusOrderByCreateTimeDesc(user, orderStatus, pageable);
-                } catch (IllegalArgumentException e) {
-                    orders = orderRepository.findByBuyerOrderByCreateTimeDesc(user, pageable);
-                }
-            } else {
-                orders = orderRepository.findByBuyerOrderByCreateTimeDesc(user, pageable);
-            }
+            orders = orderRepository.findListByBuyer(user, orderStatus, pageable);
         } else if ("sell".equalsIgnoreCase(type)) {
             // 卖家订单
-            if (status != null && !status.isEmpty()) {
-                try {
-                    Order.Status orderStatus = Order.Status.valueOf(status);
-                    orders = orderRepository.findBySellerAndStatusOrderByCreateTimeDesc(user, orderStatus, pageable);
-                } catch (IllegalArgumentException e) {
-                    orders = orderRepository.findBySellerOrderByCreateTimeDesc(user, pageable);
-                }
-            } else {
-                orders = orderRepository.findBySellerOrderByCreateTimeDesc(user, pageable);
-            }
+            orders = orderRepository.findListBySeller(user, orderStatus, pageable);
         } else {
             // 所有订单
-            orders = orderRepository.findByBuyerOrSellerOrderByCreateTimeDesc(user, user, pageable);
+            orders = orderRepository.findListByBuyerOrSeller(user, pageable);
         }
 
-        return orders.map(OrderDTO::fromEntity);
+        cacheDependencyTracker.registerOwned(CacheDependencyTracker.ORDERS, studentId,
+                studentId + "-" + type + "-" + status + "-" + pageable.getPageNumber() + "-" + pageable.getPageSize());
+        return orders.map(OrderSummaryDTO::fromProjection);
+    }
+
+    @Override
+    public CursorPage<OrderSummaryDTO> scrollOrders(String studentId, String type, String status, String cursor,
+                                                    int size) {
+        log.debug("游标获取订单列表: studentId={}, type={}, status={}, cursor={}, size={}",
+                 studentId, type, status, cursor, size);
+        CursorCodec.Cursor position = CursorCodec.decode(cursor);
+
+        User user = userRepository.findByStudentId(studentId)
+                .orElseThrow(() -> new RuntimeException("用户不存在"));
+
+        Order.Status orderStatus = parseStatus(status);
+        Pageable limit = PageRequest.of(0, size);
+        Slice<OrderListProjection> orders;
+        if ("buy".equalsIgnoreCase(type)) {
+            orders = orderRepository.findByBuyerAfterCursor(user, orderStatus,
+                    position.createTime(), position.id(), limit);
+        } else if ("sell".equalsIgnoreCase(type)) {
+            orders = orderRepository.findBySellerAfterCursor(user, orderStatus,
+                    position.createTime(), position.id(), limit);
+        } else {
+            orders = orderRepository.findByBuyerOrSellerAfterCursor(user,
+                    position.createTime(), position.id(), limit);
+        }
+        return CursorPage.of(orders, OrderSummaryDTO::fromProjection,
+                OrderListProjection::createTime, OrderListProjection::id);
+    }
+
+    /**
+     * 解析订单状态过滤条件，无效值视为不过滤
+     */
+    private Order.Status parseStatus(String status) {
+        if (status == null || status.isEmpty()) {
+            return null;
+        }
+        try {
+            return Order.Status.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            log.warn("无效的订单状态: {}", status);
+            return null;
+        }
     }
 
     @Override
@@ -96,12 +146,12 @@ public class OrderServiceImpl implements OrderService {
             throw new AccessDeniedException("无权查看此订单");
         }
 
+        cacheDependencyTracker.registerOwned(CacheDependencyTracker.ORDER, studentId, studentId + "-" + id);
         return OrderDTO.fromEntity(order);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"orders", "order"}, allEntries = true)
     public OrderDTO updateOrderStatus(String studentId, Long id, String statusStr) {
         log.debug("更新订单状态: studentId={}, id={}, status={}", studentId, id, statusStr);
         User user = userRepository.findByStudentId(studentId)
@@ -129,20 +179,28 @@ public class OrderServiceImpl implements OrderService {
         validateStatusChange(order, newStatus, isBuyer, isSeller);
 
         // 更新订单状态
+        Order.Status previousStatus = order.getStatus();
         order.setStatus(newStatus);
         Order updatedOrder = orderRepository.save(order);
+        cacheDependencyTracker.orderChanged(order.getId(), order.getBuyer().getStudentId(),
+                order.getSeller().getStudentId());
+        statisticsService.orderStatusChanged(previousStatus, newStatus);
 
         // 如果订单完成，更新商品状态
         if (newStatus == Order.Status.COMPLETED) {
             Product product = order.getProduct();
+            ProductSnapshot before = ProductSnapshot.of(product);
             product.setStatus(Product.Status.SOLD);
             productRepository.save(product);
+            productSearchIndex.onStatusChanged(product.getId(), Product.Status.SOLD);
+            productCatalog.onStatusChanged(product.getId(), Product.Status.SOLD);
+            productFacetCounter.onStatusChanged(product.getId(), Product.Status.SOLD);
+            cacheDependencyTracker.productChanged(before, ProductSnapshot.of(product));
+            statisticsService.productStatusChanged(before.status(), Product.Status.SOLD);
         }
 
-        // 异步发送消息通知
-        CompletableFuture.runAsync(() -> {
-            sendOrderStatusChangeNotification(order, newStatus, isBuyer);
-        });
+        // 通知写入发件箱，随订单一起提交
+        sendOrderStatusChangeNotification(order, newStatus, isBuyer);
 
         return OrderDTO.fromEntity(updatedOrder);
     }
@@ -166,7 +224,6 @@ public class OrderServiceImpl implements OrderService {
         }
     }
 
-    @Async
     private void sendOrderStatusChangeNotification(Order order, Order.Status newStatus, boolean isBuyer) {
         Message message = new Message();
         message.setType(Message.Type.ORDER_STATUS_CHANGE);
@@ -182,7 +239,9 @@ public class OrderServiceImpl implements OrderService {
         message.setOrder(order);
         message.setProduct(order.getProduct());
         
-        messageRepository.save(message);
-        log.debug("已发送订单状态变更通知: orderId={}, status={}", order.getId(), newStatus);
+        message.setCreateTime(LocalDateTime.now());
+        notificationOutbox.enqueue(message);
+        statisticsService.messageCreated(message.getCreateTime());
+        log.debug("已写入订单状态变更通知: orderId={}, status={}", order.getId(), newStatus);
     }
 } 
\ No newline at end of file
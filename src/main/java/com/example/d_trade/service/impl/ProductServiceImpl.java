@@ -1,23 +1,37 @@
 package com.example.d_trade.service.impl;
 
 import com.example.d_trade.dto.ProductDTO;
+import com.example.d_trade.dto.ProductSummaryDTO;
+import com.example.d_trade.dto.projection.ProductListProjection;
+import com.example.d_trade.dto.request.ProductFilter;
 import com.example.d_trade.dto.request.ProductRequest;
+import com.example.d_trade.dto.response.CursorPage;
 import com.example.d_trade.entity.Message;
 import com.example.d_trade.entity.Order;
 import com.example.d_trade.entity.Product;
 import com.example.d_trade.entity.User;
-import com.example.d_trade.repository.MessageRepository;
 import com.example.d_trade.repository.OrderRepository;
 import com.example.d_trade.repository.ProductRepository;
 import com.example.d_trade.repository.UserRepository;
 import com.example.d_trade.service.ProductService;
+import com.example.d_trade.service.StatisticsService;
+import com.example.d_trade.utils.CacheDependencyTracker;
+import com.example.d_trade.utils.CacheDependencyTracker.ProductSnapshot;
+import com.example.d_trade.utils.CacheReloadRegistry;
+import com.example.d_trade.utils.ExecutorRegistry;
+import com.example.d_trade.utils.CursorCodec;
+import com.example.d_trade.utils.NotificationOutbox;
+import com.example.d_trade.utils.OffHeapProductCatalog;
+import com.example.d_trade.utils.ProductFacetCounter;
+import com.example.d_trade.utils.ProductSearchIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
@@ -25,13 +39,21 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -43,21 +65,95 @@ public class ProductServiceImpl implements ProductService {
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final OrderRepository orderRepository;
-    private final MessageRepository messageRepository;
+    private final NotificationOutbox notificationOutbox;
+    private final ProductSearchIndex productSearchIndex;
+    private final CacheDependencyTracker cacheDependencyTracker;
+    private final StatisticsService statisticsService;
+    private final CacheReloadRegistry cacheReloadRegistry;
+    private final OffHeapProductCatalog productCatalog;
+    private final ProductFacetCounter productFacetCounter;
+    private final ExecutorRegistry executorRegistry;
 
     public ProductServiceImpl(ProductRepository productRepository, UserRepository userRepository,
-                             OrderRepository orderRepository, MessageRepository messageRepository) {
+                             OrderRepository orderRepository, NotificationOutbox notificationOutbox,
+                             ProductSearchIndex productSearchIndex, CacheDependencyTracker cacheDependencyTracker,
+                             StatisticsService statisticsService, CacheReloadRegistry cacheReloadRegistry,
+                             OffHeapProductCatalog productCatalog, ProductFacetCounter productFacetCounter,
+                             ExecutorRegistry executorRegistry) {
         this.productRepository = productRepository;
         this.userRepository = userRepository;
         this.orderRepository = orderRepository;
-        this.messageRepository = messageRepository;
+        this.notificationOutbox = notificationOutbox;
+        this.productSearchIndex = productSearchIndex;
+        this.cacheDependencyTracker = cacheDependencyTracker;
+        this.statisticsService = statisticsService;
+        this.cacheReloadRegistry = cacheReloadRegistry;
+        this.productCatalog = productCatalog;
+        this.productFacetCounter = productFacetCounter;
+        this.executorRegistry = executorRegistry;
     }
 
+    /**
+     * 首页等热点列表页在商品变更后会被大量请求同时未命中：sync = true 让同一个键的并发未命中只查询一次，
+     * 其余请求等待结果；同时登记重新加载方法，配合 products 缓存的 refresh-after-write 在过期前后台刷新。
+     * 无关键词的在售列表页（按发布时间倒序、按价格升序或降序）由堆外商品目录直接提供，不查询数据库也不经过本地缓存
+     */
     @Override
-    @Cacheable(value = "products", key = "#keyword + '-' + #status + '-' + #sort + '-' + #pageable.pageNumber + '-' + #pageable.pageSize")
-    public Page<ProductDTO> getProducts(String keyword, String status, String sort, Pageable pageable) {
-        log.debug("获取商品列表: keyword={}, status={}, sort={}, page={}, size={}", 
-                 keyword, status, sort, pageable.getPageNumber(), pageable.getPageSize());
+    @Cacheable(value = "products", key = "#keyword + '-' + #status + '-' + #sort + '-' + #pageable.pageNumber + '-' + #pageable.pageSize",
+            condition = "!@offHeapProductCatalog.servesListing(#keyword, #status, #sort, #pageable)", sync = true)
+    public Page<ProductSummaryDTO> getProducts(String keyword, String status, String sort, Pageable pageable) {
+        if (productCatalog.servesListing(keyword, status, sort, pageable)) {
+            return productCatalog.list(sort, pageable);
+        }
+        Page<ProductSummaryDTO> result = loadProducts(keyword, status, sort, ProductFilter.NONE, pageable);
+        if (pageable.isPaged()) {
+            cacheReloadRegistry.register(CacheDependencyTracker.PRODUCTS, listingCacheKey(keyword, status, sort, pageable),
+                    () -> loadProducts(keyword, status, sort, ProductFilter.NONE, pageable));
+        }
+        return result;
+    }
+
+    /**
+     * 筛选条件组合多，单个条目的命中率低于默认列表页，仍然缓存以吸收翻页和重复请求；
+     * 依赖跟踪按筛选条件判断商品变更是否影响该页
+     */
+    @Override
+    @Cacheable(value = "products", key = "#keyword + '-' + #status + '-' + #sort + '-' + #filter.cacheKey() + '-' + #pageable.pageNumber + '-' + #pageable.pageSize",
+            condition = "!#filter.isEmpty()", sync = true)
+    public Page<ProductSummaryDTO> getProducts(String keyword, String status, String sort, ProductFilter filter,
+                                               Pageable pageable) {
+        if (filter.isEmpty()) {
+            return getProducts(keyword, status, sort, pageable);
+        }
+        Page<ProductSummaryDTO> result = loadProducts(keyword, status, sort, filter, pageable);
+        if (pageable.isPaged()) {
+            cacheReloadRegistry.register(CacheDependencyTracker.PRODUCTS,
+                    listingCacheKey(keyword, status, sort, filter, pageable),
+                    () -> loadProducts(keyword, status, sort, filter, pageable));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getProductFacets(String status, ProductFilter filter) {
+        Product.Status productStatus = Product.Status.AVAILABLE;
+        if (status != null && !status.isEmpty()) {
+            try {
+                productStatus = Product.Status.valueOf(status);
+            } catch (IllegalArgumentException e) {
+                log.warn("无效的商品状态: {}", status);
+            }
+        }
+        return productFacetCounter.getFacets(productStatus, filter);
+    }
+
+    /**
+     * 查询商品列表，不经过缓存；后台刷新时也调用这里
+     */
+    private Page<ProductSummaryDTO> loadProducts(String keyword, String status, String sort, ProductFilter filter,
+                                                 Pageable pageable) {
+        log.debug("获取商品列表: keyword={}, status={}, sort={}, filter={}, page={}, size={}",
+                 keyword, status, sort, filter, pageable.getPageNumber(), pageable.getPageSize());
         
         // 处理排序
         Pageable sortedPageable = pageable;
@@ -79,6 +175,7 @@ public class ProductServiceImpl implements ProductService {
                     break;
             }
         }
+        sortedPageable = withDefaultSort(sortedPageable);
 
         // 处理状态
         Product.Status productStatus = null;
@@ -93,15 +190,26 @@ public class ProductServiceImpl implements ProductService {
             productStatus = Product.Status.AVAILABLE;
         }
 
-        // 执行查询
-        Page<Product> products;
+        // 执行查询（列表投影，不加载描述和完整的卖家实体）；查询前读取商品变更代数，查询期间有变更时结果不缓存
+        long generation = cacheDependencyTracker.productGeneration();
+        Page<ProductListProjection> products;
         try {
-            if (keyword != null && !keyword.isEmpty()) {
+            if (keyword != null && !keyword.isEmpty()
+                    && productSearchIndex.isReady() && productSearchIndex.canSearch(keyword)) {
+                log.debug("按关键词索引查询商品: keyword={}, status={}", keyword, productStatus);
+                products = searchByIndex(keyword, productStatus, filter, sort, pageable);
+            } else if (keyword != null && !keyword.isEmpty()) {
                 log.debug("按关键词和状态查询商品: keyword={}, status={}", keyword, productStatus);
-                products = productRepository.findByTitleContainingAndStatus(keyword, productStatus, sortedPageable);
+                products = filter.isEmpty()
+                        ? productRepository.findListByTitleContainingAndStatus(keyword, productStatus, sortedPageable)
+                        : productRepository.findListByTitleContainingAndFilter(keyword, productStatus,
+                                filter.minPrice(), filter.maxPrice(), filter.tradeLocation(), sortedPageable);
             } else {
                 log.debug("按状态查询商品: status={}", productStatus);
-                products = productRepository.findByStatusOrderByCreateTimeDesc(productStatus, sortedPageable);
+                products = filter.isEmpty()
+                        ? productRepository.findListByStatus(productStatus, sortedPageable)
+                        : productRepository.findListByStatusAndFilter(productStatus,
+                                filter.minPrice(), filter.maxPrice(), filter.tradeLocation(), sortedPageable);
             }
             log.debug("查询结果: 总数={}", products.getTotalElements());
         } catch (Exception e) {
@@ -109,13 +217,107 @@ public class ProductServiceImpl implements ProductService {
             throw new RuntimeException("查询商品失败: " + e.getMessage(), e);
         }
 
+        // 记录列表页依赖的商品，商品变更时只失效相关页
+        if (pageable.isPaged()) {
+            cacheDependencyTracker.registerListing(listingCacheKey(keyword, status, sort, filter, pageable), productStatus,
+                    keyword, filter, sort, products.map(ProductListProjection::id).getContent(), generation);
+        }
+
         // 转换为DTO
-        return products.map(ProductDTO::fromEntity);
+        return products.map(ProductSummaryDTO::fromProjection);
     }
 
     @Override
-    @Cacheable(value = "product", key = "#id")
+    public CursorPage<ProductSummaryDTO> scrollProducts(String keyword, String status, String cursor, int size) {
+        log.debug("游标获取商品列表: keyword={}, status={}, cursor={}, size={}", keyword, status, cursor, size);
+        CursorCodec.Cursor position = CursorCodec.decode(cursor);
+
+        Product.Status productStatus = Product.Status.AVAILABLE;
+        if (status != null && !status.isEmpty()) {
+            try {
+                productStatus = Product.Status.valueOf(status);
+            } catch (IllegalArgumentException e) {
+                log.warn("无效的商品状态: {}", status);
+            }
+        }
+
+        // 只取 size + 1 条判断是否有下一页，不执行COUNT
+        Pageable limit = PageRequest.of(0, size);
+        Slice<ProductListProjection> products;
+        if (keyword != null && !keyword.isEmpty()) {
+            products = productRepository.findByTitleAndStatusAfterCursor(keyword, productStatus,
+                    position.createTime(), position.id(), limit);
+        } else {
+            products = productRepository.findByStatusAfterCursor(productStatus,
+                    position.createTime(), position.id(), limit);
+        }
+        return CursorPage.of(products, ProductSummaryDTO::fromProjection,
+                ProductListProjection::createTime, ProductListProjection::id);
+    }
+
+    /**
+     * 通过倒排索引查询关键词，只按当前页的ID回表
+     */
+    private Page<ProductListProjection> searchByIndex(String keyword, Product.Status status, ProductFilter filter,
+                                                      String sort, Pageable pageable) {
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        ProductSearchIndex.SearchResult result = productSearchIndex.search(keyword, status, filter, sort, offset, limit);
+        if (result.ids().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, result.total());
+        }
+
+        // IN查询不保证顺序，按索引排序结果重新排列
+        Map<Long, ProductListProjection> productMap = productRepository.findListByIdIn(result.ids()).stream()
+                .collect(Collectors.toMap(ProductListProjection::id, Function.identity()));
+        List<ProductListProjection> content = result.ids().stream()
+                .map(productMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, result.total());
+    }
+
+    /**
+     * 商品列表缓存键，与 getProducts 上 @Cacheable 的key表达式一致
+     */
+    private static String listingCacheKey(String keyword, String status, String sort, Pageable pageable) {
+        return keyword + "-" + status + "-" + sort + "-" + pageable.getPageNumber() + "-" + pageable.getPageSize();
+    }
+
+    /**
+     * 带筛选条件的商品列表缓存键，与筛选版 getProducts 上 @Cacheable 的key表达式一致，没有筛选条件时同默认列表页
+     */
+    private static String listingCacheKey(String keyword, String status, String sort, ProductFilter filter,
+                                          Pageable pageable) {
+        if (filter.isEmpty()) {
+            return listingCacheKey(keyword, status, sort, pageable);
+        }
+        return keyword + "-" + status + "-" + sort + "-" + filter.cacheKey() + "-" + pageable.getPageNumber() + "-"
+                + pageable.getPageSize();
+    }
+
+    /**
+     * 未指定排序时按发布时间倒序
+     */
+    private static Pageable withDefaultSort(Pageable pageable) {
+        if (pageable.isUnpaged() || pageable.getSort().isSorted()) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(Sort.Direction.DESC, "createTime"));
+    }
+
+
+    /**
+     * 在售商品由堆外商品目录提供，不经过本地缓存；其余商品查询数据库并缓存
+     */
+    @Override
+    @Cacheable(value = "product", key = "#id", condition = "!@offHeapProductCatalog.contains(#id)")
     public ProductDTO getProductById(Long id) {
+        ProductDTO catalogProduct = productCatalog.getProduct(id);
+        if (catalogProduct != null) {
+            return catalogProduct;
+        }
         log.debug("根据ID获取商品: id={}", id);
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("商品不存在"));
@@ -124,7 +326,6 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     @Transactional
-    @CacheEvict(value = {"products", "product", "userProducts"}, allEntries = true)
     public ProductDTO createProduct(String studentId, ProductRequest productRequest) {
         log.debug("创建商品: studentId={}, title={}", studentId, productRequest.getTitle());
         User seller = userRepository.findByStudentId(studentId)
@@ -140,12 +341,16 @@ public class ProductServiceImpl implements ProductService {
         product.setSeller(seller);
 
         Product savedProduct = productRepository.save(product);
+        productSearchIndex.onProductSaved(savedProduct);
+        productCatalog.onProductSaved(savedProduct);
+        productFacetCounter.onProductSaved(savedProduct);
+        cacheDependencyTracker.productChanged(null, ProductSnapshot.of(savedProduct));
+        statisticsService.productCreated(savedProduct.getStatus(), savedProduct.getCreateTime());
         return ProductDTO.fromEntity(savedProduct);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"products", "product"}, allEntries = true)
     public ProductDTO updateProduct(String studentId, Long id, ProductRequest productRequest) {
         log.debug("更新商品: studentId={}, id={}", studentId, id);
         User user = userRepository.findByStudentId(studentId)
@@ -158,6 +363,7 @@ public class ProductServiceImpl implements ProductService {
         if (!product.getSeller().getId().equals(user.getId())) {
             throw new AccessDeniedException("无权修改此商品");
         }
+        ProductSnapshot before = ProductSnapshot.of(product);
 
         // 更新商品信息
         product.setTitle(productRequest.getTitle());
@@ -167,12 +373,15 @@ public class ProductServiceImpl implements ProductService {
         product.setImagePaths(productRequest.getImagePaths());
 
         Product updatedProduct = productRepository.save(product);
+        productSearchIndex.onProductSaved(updatedProduct);
+        productCatalog.onProductSaved(updatedProduct);
+        productFacetCounter.onProductSaved(updatedProduct);
+        cacheDependencyTracker.productChanged(before, ProductSnapshot.of(updatedProduct));
         return ProductDTO.fromEntity(updatedProduct);
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = {"products", "product"}, allEntries = true)
     public void deleteProduct(String studentId, Long id) {
         log.debug("删除商品: studentId={}, id={}", studentId, id);
         User user = userRepository.findByStudentId(studentId)
@@ -194,46 +403,64 @@ public class ProductServiceImpl implements ProductService {
         
         // 删除商品
         productRepository.delete(product);
+        productSearchIndex.onProductDeleted(id);
+        productCatalog.onProductDeleted(id);
+        productFacetCounter.onProductDeleted(id);
+        cacheDependencyTracker.productChanged(ProductSnapshot.of(product), null);
+        statisticsService.productDeleted(product.getStatus(), product.getCreateTime());
     }
 
     @Override
     public List<String> uploadImages(List<MultipartFile> files) {
         log.debug("上传图片: 文件数量={}", files.size());
-        List<String> imagePaths = new ArrayList<>();
-
+        Path uploadPath = Paths.get(uploadDir);
         try {
             // 创建上传目录
-            Path uploadPath = Paths.get(uploadDir);
             if (!Files.exists(uploadPath)) {
                 Files.createDirectories(uploadPath);
             }
-
-            // 处理每个文件
-            for (MultipartFile file : files) {
-                if (file.isEmpty()) {
-                    continue;
-                }
-
-                // 生成唯一文件名
-                String originalFileName = file.getOriginalFilename();
-                String fileExtension = originalFileName != null && originalFileName.lastIndexOf(".") > 0 
-                    ? originalFileName.substring(originalFileName.lastIndexOf(".")) 
-                    : ".jpg";
-                String newFileName = UUID.randomUUID() + fileExtension;
-
-                // 保存文件 - 使用NIO的标准复制选项提高性能
-                Path filePath = uploadPath.resolve(newFileName);
-                Files.copy(file.getInputStream(), filePath, 
-                           java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-
-                // 添加到路径列表
-                imagePaths.add("/uploads/" + newFileName);
-            }
         } catch (IOException e) {
             throw new RuntimeException("图片上传失败", e);
         }
 
-        return imagePaths;
+        // 多个文件在 image 执行器上并行写盘，执行器忙不过来时由当前请求线程自己写
+        Executor executor = executorRegistry.executor(ExecutorRegistry.IMAGE);
+        List<CompletableFuture<String>> saves = new ArrayList<>();
+        for (MultipartFile file : files) {
+            if (!file.isEmpty()) {
+                saves.add(CompletableFuture.supplyAsync(() -> saveImage(uploadPath, file), executor));
+            }
+        }
+        try {
+            return saves.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            throw new RuntimeException("图片上传失败", e.getCause());
+        }
+    }
+
+    /**
+     * 保存一张图片
+     * @param uploadPath 上传目录
+     * @param file 图片文件
+     * @return 图片访问路径
+     */
+    private static String saveImage(Path uploadPath, MultipartFile file) {
+        // 生成唯一文件名
+        String originalFileName = file.getOriginalFilename();
+        String fileExtension = originalFileName != null && originalFileName.lastIndexOf(".") > 0 
+            ? originalFileName.substring(originalFileName.lastIndexOf(".")) 
+            : ".jpg";
+        String newFileName = UUID.randomUUID() + fileExtension;
+
+        // 保存文件 - 使用NIO的标准复制选项提高性能
+        Path filePath = uploadPath.resolve(newFileName);
+        try {
+            Files.copy(file.getInputStream(), filePath, 
+                       java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return "/uploads/" + newFileName;
     }
 
     @Override
@@ -263,11 +490,12 @@ public class ProductServiceImpl implements ProductService {
         order.setSeller(product.getSeller());
         order.setStatus(Order.Status.PENDING);
         Order savedOrder = orderRepository.save(order);
+        cacheDependencyTracker.orderChanged(savedOrder.getId(), user.getStudentId(),
+                product.getSeller().getStudentId());
+        statisticsService.orderCreated(savedOrder.getStatus(), savedOrder.getCreateTime());
 
-        // 异步发送消息通知卖家
-        CompletableFuture.runAsync(() -> {
-            sendInterestNotification(user, product, savedOrder);
-        });
+        // 通知卖家：写入发件箱，随订单一起提交
+        sendInterestNotification(user, product, savedOrder);
     }
 
     private void sendInterestNotification(User user, Product product, Order order) {
@@ -278,48 +506,56 @@ public class ProductServiceImpl implements ProductService {
         message.setReceiver(product.getSeller());
         message.setProduct(product);
         message.setOrder(order);
-        messageRepository.save(message);
-        log.debug("已发送商品感兴趣通知: orderId={}", order.getId());
+        message.setCreateTime(LocalDateTime.now());
+        notificationOutbox.enqueue(message);
+        statisticsService.messageCreated(message.getCreateTime());
+        log.debug("已写入商品感兴趣通知: orderId={}", order.getId());
     }
 
     @Override
     @Cacheable(value = "userProducts", key = "#studentId + '-' + #status + '-' + #pageable.pageNumber + '-' + #pageable.pageSize")
-    public Page<ProductDTO> getUserProducts(String studentId, String status, Pageable pageable) {
+    public Page<ProductSummaryDTO> getUserProducts(String studentId, String status, Pageable pageable) {
         log.debug("获取用户发布的商品: studentId={}, status={}, page={}, size={}", 
                  studentId, status, pageable.getPageNumber(), pageable.getPageSize());
         
         User seller = userRepository.findByStudentId(studentId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
         
-        Page<Product> products;
+        Product.Status productStatus = null;
         if (status != null && !status.isEmpty()) {
             try {
-                Product.Status productStatus = Product.Status.valueOf(status);
-                products = productRepository.findBySellerAndStatus(seller, productStatus, pageable);
+                productStatus = Product.Status.valueOf(status);
             } catch (IllegalArgumentException e) {
-                products = productRepository.findBySeller(seller, pageable);
+                log.warn("无效的商品状态: {}", status);
             }
-        } else {
-            products = productRepository.findBySeller(seller, pageable);
         }
+        Page<ProductListProjection> products = productRepository.findListBySeller(seller, productStatus,
+                withDefaultSort(pageable));
         
-        return products.map(ProductDTO::fromEntity);
+        cacheDependencyTracker.registerOwned(CacheDependencyTracker.USER_PRODUCTS, studentId,
+                studentId + "-" + status + "-" + pageable.getPageNumber() + "-" + pageable.getPageSize());
+        return products.map(ProductSummaryDTO::fromProjection);
     }
     
     @Override
     @Transactional
-    @CacheEvict(value = {"products", "product"}, allEntries = true)
     public void adminRemoveProduct(Long id) {
         log.debug("管理员删除商品: id={}", id);
         
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("商品不存在"));
+        ProductSnapshot before = ProductSnapshot.of(product);
         
         // 将商品状态设置为已删除
         product.setStatus(Product.Status.REMOVED);
         
         // 保存更新
         productRepository.save(product);
+        productSearchIndex.onStatusChanged(id, Product.Status.REMOVED);
+        productCatalog.onStatusChanged(id, Product.Status.REMOVED);
+        productFacetCounter.onStatusChanged(id, Product.Status.REMOVED);
+        cacheDependencyTracker.productChanged(before, ProductSnapshot.of(product));
+        statisticsService.productStatusChanged(before.status(), Product.Status.REMOVED);
         
         // 通知卖家商品被管理员删除
         sendProductRemovedNotification(product);
@@ -339,7 +575,9 @@ public class ProductServiceImpl implements ProductService {
         message.setRead(false);
         message.setType(Message.Type.SYSTEM);
         message.setProduct(product);
+        message.setCreateTime(LocalDateTime.now());
         
-        messageRepository.save(message);
+        notificationOutbox.enqueue(message);
+        statisticsService.messageCreated(message.getCreateTime());
     }
 } 
\ No newline at end of file
@@ -0,0 +1,316 @@
+package com.example.d_trade.service.impl;
+
+import com.example.d_trade.entity.Order;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.repository.MessageRepository;
+import com.example.d_trade.repository.OrderRepository;
+import com.example.d_trade.repository.ProductRepository;
+import com.example.d_trade.repository.UserRepository;
+import com.example.d_trade.service.StatisticsService;
+import com.example.d_trade.utils.ExecutorRegistry;
+import com.example.d_trade.utils.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+@Slf4j
+public class StatisticsServiceImpl implements StatisticsService {
+
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final MessageRepository messageRepository;
+    private final ExecutorRegistry executorRegistry;
+
+    @Value("${app.statistics.daily-retention-days:30}")
+    private int retentionDays = 30;
+
+    /** 对账时整体替换，增量更新总是作用在当前对象上 */
+    private volatile Counters counters = new Counters();
+    private volatile LocalDateTime lastReconciledAt;
+    private volatile long lastDrift;
+    private final AtomicLong reconciliations = new AtomicLong();
+
+    public StatisticsServiceImpl(UserRepository userRepository, ProductRepository productRepository,
+                                 OrderRepository orderRepository, MessageRepository messageRepository,
+                                 ExecutorRegistry executorRegistry) {
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+        this.messageRepository = messageRepository;
+        this.executorRegistry = executorRegistry;
+    }
+
+    @Override
+    public void userRegistered(LocalDateTime createTime) {
+        TransactionUtils.afterCommit(() -> {
+            Counters current = counters;
+            current.users.increment();
+            current.addDaily(Metric.USERS, createTime, 1);
+        });
+    }
+
+    @Override
+    public void productCreated(Product.Status status, LocalDateTime createTime) {
+        TransactionUtils.afterCommit(() -> {
+            Counters current = counters;
+            current.productsByStatus.get(status).increment();
+            current.addDaily(Metric.PRODUCTS, createTime, 1);
+        });
+    }
+
+    @Override
+    public void productStatusChanged(Product.Status from, Product.Status to) {
+        if (from == to) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            Counters current = counters;
+            current.productsByStatus.get(from).decrement();
+            current.productsByStatus.get(to).increment();
+        });
+    }
+
+    @Override
+    public void productDeleted(Product.Status status, LocalDateTime createTime) {
+        TransactionUtils.afterCommit(() -> {
+            Counters current = counters;
+            current.productsByStatus.get(status).decrement();
+            current.addDaily(Metric.PRODUCTS, createTime, -1);
+        });
+    }
+
+    @Override
+    public void orderCreated(Order.Status status, LocalDateTime createTime) {
+        TransactionUtils.afterCommit(() -> {
+            Counters current = counters;
+            current.ordersByStatus.get(status).increment();
+            current.addDaily(Metric.ORDERS, createTime, 1);
+        });
+    }
+
+    @Override
+    public void orderStatusChanged(Order.Status from, Order.Status to) {
+        if (from == to) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            Counters current = counters;
+            current.ordersByStatus.get(from).decrement();
+            current.ordersByStatus.get(to).increment();
+        });
+    }
+
+    @Override
+    public void messageCreated(LocalDateTime createTime) {
+        TransactionUtils.afterCommit(() -> {
+            Counters current = counters;
+            current.messages.increment();
+            current.addDaily(Metric.MESSAGES, createTime, 1);
+        });
+    }
+
+    /**
+     * 应用启动完成后（管理员账号等初始化数据已写入）做第一次统计
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    /**
+     * 定期对账：提交到 reporting 执行器执行，不占用定时任务线程（缓存失效轮询等任务共用这个线程）；
+     * 上一次对账还在排队时本次丢弃
+     */
+    @Scheduled(fixedDelayString = "${app.statistics.reconcile-interval-ms:600000}",
+            initialDelayString = "${app.statistics.reconcile-interval-ms:600000}")
+    public void scheduleReconcile() {
+        try {
+            executorRegistry.executor(ExecutorRegistry.REPORTING).execute(this::reconcile);
+        } catch (RejectedExecutionException e) {
+            log.debug("统计对账任务被拒绝，等待下次执行: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 对账；查询数据库到替换计数之间发生的增量会丢失，由下一次对账修正
+     */
+    @Override
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        LocalDateTime since = LocalDate.now().minusDays(retentionDays - 1L).atStartOfDay();
+
+        Counters fresh = new Counters();
+        fresh.users.add(userRepository.count());
+        fresh.messages.add(messageRepository.count());
+        for (Object[] row : productRepository.countGroupByStatus()) {
+            if (row[0] != null) {
+                fresh.productsByStatus.get((Product.Status) row[0]).add(((Number) row[1]).longValue());
+            }
+        }
+        for (Object[] row : orderRepository.countGroupByStatus()) {
+            if (row[0] != null) {
+                fresh.ordersByStatus.get((Order.Status) row[0]).add(((Number) row[1]).longValue());
+            }
+        }
+        fresh.loadDaily(Metric.USERS, userRepository.countByCreateDateSince(since));
+        fresh.loadDaily(Metric.PRODUCTS, productRepository.countByCreateDateSince(since));
+        fresh.loadDaily(Metric.ORDERS, orderRepository.countByCreateDateSince(since));
+        fresh.loadDaily(Metric.MESSAGES, messageRepository.countByCreateDateSince(since));
+
+        Counters previous = counters;
+        counters = fresh;
+        // 首次统计前计数为空，不算偏差
+        lastDrift = lastReconciledAt != null ? previous.drift(fresh) : 0;
+        lastReconciledAt = LocalDateTime.now();
+        reconciliations.incrementAndGet();
+        if (lastDrift != 0) {
+            log.info("统计对账完成: 修正偏差={}, 耗时={}ms", lastDrift, System.currentTimeMillis() - start);
+        } else {
+            log.debug("统计对账完成: 无偏差, 耗时={}ms", System.currentTimeMillis() - start);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics(int days) {
+        Counters current = counters;
+        int window = Math.max(1, Math.min(days, retentionDays));
+
+        Map<String, Long> productsByStatus = toMap(current.productsByStatus);
+        Map<String, Long> ordersByStatus = toMap(current.ordersByStatus);
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("userCount", current.users.sum());
+        statistics.put("productCount", productsByStatus.values().stream().mapToLong(Long::longValue).sum());
+        statistics.put("availableProductCount", productsByStatus.get(Product.Status.AVAILABLE.name()));
+        statistics.put("productsByStatus", productsByStatus);
+        statistics.put("orderCount", ordersByStatus.values().stream().mapToLong(Long::longValue).sum());
+        statistics.put("ordersByStatus", ordersByStatus);
+        statistics.put("messageCount", current.messages.sum());
+
+        List<Map<String, Object>> daily = new ArrayList<>(window);
+        LocalDate today = LocalDate.now();
+        for (int i = window - 1; i >= 0; i--) {
+            LocalDate date = today.minusDays(i);
+            DailyCounts counts = current.daily.get(date);
+            Map<String, Object> day = new LinkedHashMap<>();
+            day.put("date", date.toString());
+            for (Metric metric : Metric.values()) {
+                day.put(metric.key, counts != null ? counts.get(metric) : 0L);
+            }
+            daily.add(day);
+        }
+        statistics.put("daily", daily);
+
+        statistics.put("lastReconciledAt", lastReconciledAt);
+        statistics.put("lastDrift", lastDrift);
+        statistics.put("reconciliations", reconciliations.get());
+        return statistics;
+    }
+
+    private static <E extends Enum<E>> Map<String, Long> toMap(Map<E, LongAdder> counts) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        counts.forEach((status, count) -> result.put(status.name(), count.sum()));
+        return result;
+    }
+
+    /**
+     * 按天统计的指标
+     */
+    private enum Metric {
+        USERS("users"), PRODUCTS("products"), ORDERS("orders"), MESSAGES("messages");
+
+        private final String key;
+
+        Metric(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * 某一天各指标的新增数量
+     */
+    private static final class DailyCounts {
+
+        private final LongAdder[] counts = new LongAdder[Metric.values().length];
+
+        DailyCounts() {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        void add(Metric metric, long delta) {
+            counts[metric.ordinal()].add(delta);
+        }
+
+        long get(Metric metric) {
+            return counts[metric.ordinal()].sum();
+        }
+    }
+
+    /**
+     * 一组计数；状态Map预先放入所有枚举值，之后只读不改结构，可以并发访问
+     */
+    private final class Counters {
+
+        private final LongAdder users = new LongAdder();
+        private final LongAdder messages = new LongAdder();
+        private final Map<Product.Status, LongAdder> productsByStatus = newStatusMap(Product.Status.class);
+        private final Map<Order.Status, LongAdder> ordersByStatus = newStatusMap(Order.Status.class);
+        private final Map<LocalDate, DailyCounts> daily = new ConcurrentHashMap<>();
+
+        void addDaily(Metric metric, LocalDateTime createTime, long delta) {
+            LocalDate date = createTime != null ? createTime.toLocalDate() : LocalDate.now();
+            if (date.isBefore(LocalDate.now().minusDays(retentionDays - 1L))) {
+                return;
+            }
+            daily.computeIfAbsent(date, k -> new DailyCounts()).add(metric, delta);
+        }
+
+        void loadDaily(Metric metric, List<Object[]> rows) {
+            for (Object[] row : rows) {
+                LocalDate date = row[0] instanceof java.sql.Date sqlDate ? sqlDate.toLocalDate() : (LocalDate) row[0];
+                daily.computeIfAbsent(date, k -> new DailyCounts()).add(metric, ((Number) row[1]).longValue());
+            }
+        }
+
+        /**
+         * 与对账结果相比各总数的偏差之和
+         */
+        long drift(Counters actual) {
+            long drift = Math.abs(users.sum() - actual.users.sum()) + Math.abs(messages.sum() - actual.messages.sum());
+            for (Product.Status status : Product.Status.values()) {
+                drift += Math.abs(productsByStatus.get(status).sum() - actual.productsByStatus.get(status).sum());
+            }
+            for (Order.Status status : Order.Status.values()) {
+                drift += Math.abs(ordersByStatus.get(status).sum() - actual.ordersByStatus.get(status).sum());
+            }
+            return drift;
+        }
+
+        private <E extends Enum<E>> Map<E, LongAdder> newStatusMap(Class<E> type) {
+            Map<E, LongAdder> map = new EnumMap<>(type);
+            for (E status : type.getEnumConstants()) {
+                map.put(status, new LongAdder());
+            }
+            return map;
+        }
+    }
+}
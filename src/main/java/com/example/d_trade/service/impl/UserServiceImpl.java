@@ -6,6 +6,7 @@ import com.example.d_trade.dto.request.UserUpdateRequest;
 import com.example.d_trade.entity.User;
 import com.example.d_trade.repository.UserRepository;
 import com.example.d_trade.service.UserService;
+import com.example.d_trade.utils.OffHeapProductCatalog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -24,10 +25,13 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final OffHeapProductCatalog productCatalog;
 
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           OffHeapProductCatalog productCatalog) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.productCatalog = productCatalog;
     }
 
     @Override
@@ -52,6 +56,7 @@ public class UserServiceImpl implements UserService {
         }
 
         User updatedUser = userRepository.save(user);
+        productCatalog.onSellerChanged(updatedUser);
         return UserDTO.fromEntity(updatedUser);
     }
 
@@ -105,6 +110,7 @@ public class UserServiceImpl implements UserService {
         
         user.setEnabled(enabled);
         User updatedUser = userRepository.save(user);
+        productCatalog.onSellerChanged(updatedUser);
         return UserDTO.fromEntity(updatedUser);
     }
     
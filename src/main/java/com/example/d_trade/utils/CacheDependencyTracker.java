@@ -0,0 +1,430 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.request.ProductFilter;
+import com.example.d_trade.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缓存依赖跟踪器
+ * 记录每个缓存条目依赖的数据（列表页包含的商品、查询范围，用户维度的缓存键），
+ * 写操作只失效受影响的条目，替代 allEntries = true 的整体清空。
+ * 列表页在查询后登记依赖、方法返回后才写入缓存，两者之间的商品变更会删除依赖：缓存按 isCurrent 检查，这次的结果不写入；
+ * 查询期间发生的商品变更（登记依赖之前）按商品变更代数识别，同样不登记、不写入。
+ * 多实例部署时，本实例失效后把变更事件广播给其他实例，其他实例按各自记录的依赖失效；
+ * 条目的依赖随值一起写入二级缓存，其他实例从二级缓存回填本地缓存时按它登记依赖
+ */
+@Slf4j
+@Component
+public class CacheDependencyTracker {
+
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCT = "product";
+    public static final String USER_PRODUCTS = "userProducts";
+    public static final String ORDERS = "orders";
+    public static final String ORDER = "order";
+
+    /**
+     * 注册后超过该时长且已不在缓存中的记录会被清理，避免误删正在回填的条目
+     */
+    private static final long PRUNE_GRACE_MILLIS = 60_000;
+
+    private final CacheManager cacheManager;
+    private final CacheInvalidationBus invalidationBus;
+
+    @Value("${app.cache.targeted-eviction:true}")
+    private boolean targetedEviction = true;
+
+    /** 商品列表缓存键 -> 列表页依赖 */
+    private final Map<String, ListingEntry> listings = new ConcurrentHashMap<>();
+    /** 缓存名 -> 学号 -> 该用户的缓存键及注册时间 */
+    private final Map<String, Map<String, Map<String, Long>>> ownedKeys = new ConcurrentHashMap<>();
+
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong evictedEntries = new AtomicLong();
+    private final AtomicLong fullClears = new AtomicLong();
+    private final AtomicLong remoteInvalidations = new AtomicLong();
+    /** 加载期间依赖已失效、没有写入缓存的列表页 */
+    private final AtomicLong staleListings = new AtomicLong();
+    /** 商品变更代数，每次处理商品变更（包括其他实例广播的）加一 */
+    private final AtomicLong productGeneration = new AtomicLong();
+
+    public CacheDependencyTracker(CacheManager cacheManager) {
+        this(cacheManager, null);
+    }
+
+    @Autowired
+    public CacheDependencyTracker(CacheManager cacheManager, @Nullable CacheInvalidationBus invalidationBus) {
+        this.cacheManager = cacheManager;
+        this.invalidationBus = invalidationBus;
+        if (invalidationBus != null) {
+            invalidationBus.subscribe(this::applyRemote);
+        }
+    }
+
+    /**
+     * 记录一个商品列表页缓存条目
+     * @param key 缓存键
+     * @param status 查询的商品状态
+     * @param keyword 查询关键词
+     * @param sort 排序方式
+     * @param productIds 页内商品ID
+     */
+    public void registerListing(String key, Product.Status status, String keyword, String sort,
+                                Collection<Long> productIds) {
+        registerListing(key, status, keyword, ProductFilter.NONE, sort, productIds);
+    }
+
+    /**
+     * 记录一个带价格区间、交易地点筛选的商品列表页缓存条目
+     * @param key 缓存键
+     * @param status 查询的商品状态
+     * @param keyword 查询关键词
+     * @param filter 筛选条件
+     * @param sort 排序方式
+     * @param productIds 页内商品ID
+     */
+    public void registerListing(String key, Product.Status status, String keyword, ProductFilter filter, String sort,
+                                Collection<Long> productIds) {
+        registerListing(key, status, keyword, filter, sort, productIds, productGeneration.get());
+    }
+
+    /**
+     * 记录一个商品列表页缓存条目，查询开始后发生过商品变更时不记录，isCurrent 返回false，这次的结果不写入缓存
+     * @param key 缓存键
+     * @param status 查询的商品状态
+     * @param keyword 查询关键词
+     * @param filter 筛选条件
+     * @param sort 排序方式
+     * @param productIds 页内商品ID
+     * @param generation 查询前读取的 productGeneration()
+     */
+    public void registerListing(String key, Product.Status status, String keyword, ProductFilter filter, String sort,
+                                Collection<Long> productIds, long generation) {
+        ListingEntry entry = new ListingEntry(status, keyword, filter, sort, Set.copyOf(productIds),
+                System.currentTimeMillis());
+        listings.put(key, entry);
+        // 先登记再检查代数：检查之后开始的失效一定能看到这条记录
+        if (productGeneration.get() != generation) {
+            listings.remove(key, entry);
+        }
+    }
+
+    /**
+     * 当前的商品变更代数，列表页查询前读取，登记依赖时传入
+     * @return 商品变更代数
+     */
+    public long productGeneration() {
+        return productGeneration.get();
+    }
+
+    /**
+     * 判断刚加载的缓存条目能否写入缓存：列表页的依赖已被失效或没有登记时不能写入，其他缓存总是可以
+     * @param cacheName 缓存名
+     * @param key 缓存键
+     * @return 能否写入
+     */
+    public boolean isCurrent(String cacheName, Object key) {
+        if (!PRODUCTS.equals(cacheName) || listings.containsKey(String.valueOf(key))) {
+            return true;
+        }
+        staleListings.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 记录一个按用户划分的缓存条目（userProducts、orders、order）
+     * @param cacheName 缓存名
+     * @param studentId 学号
+     * @param key 缓存键
+     */
+    public void registerOwned(String cacheName, String studentId, String key) {
+        ownedKeys.computeIfAbsent(cacheName, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(studentId, k -> new ConcurrentHashMap<>())
+                .put(key, System.currentTimeMillis());
+    }
+
+    /**
+     * 获取缓存条目的依赖，写入二级缓存时随值一起保存
+     * @param cacheName 缓存名
+     * @param key 缓存键
+     * @return 依赖，没有登记时为null
+     */
+    @Nullable
+    public Dependency dependencyOf(String cacheName, Object key) {
+        if (PRODUCTS.equals(cacheName)) {
+            ListingEntry entry = listings.get(String.valueOf(key));
+            return entry != null ? new Dependency(entry.status(), entry.keyword(), entry.filter(), entry.sort(),
+                    entry.productIds(), null) : null;
+        }
+        Map<String, Map<String, Long>> byOwner = ownedKeys.get(cacheName);
+        if (byOwner == null) {
+            return null;
+        }
+        for (Map.Entry<String, Map<String, Long>> owner : byOwner.entrySet()) {
+            if (owner.getValue().containsKey(String.valueOf(key))) {
+                return new Dependency(null, null, null, null, null, owner.getKey());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按二级缓存中保存的依赖登记本实例回填的条目
+     * @param cacheName 缓存名
+     * @param key 缓存键
+     * @param dependency 依赖
+     */
+    public void restore(String cacheName, Object key, Dependency dependency) {
+        if (PRODUCTS.equals(cacheName) && dependency.productIds() != null) {
+            registerListing(String.valueOf(key), dependency.status(), dependency.keyword(),
+                    dependency.filter() != null ? dependency.filter() : ProductFilter.NONE, dependency.sort(),
+                    dependency.productIds());
+        } else if (dependency.owner() != null) {
+            registerOwned(cacheName, dependency.owner(), String.valueOf(key));
+        }
+    }
+
+    /**
+     * 商品发生变化（创建时before为空，删除时after为空），事务提交后失效相关缓存
+     * @param before 变更前快照
+     * @param after 变更后快照
+     */
+    public void productChanged(ProductSnapshot before, ProductSnapshot after) {
+        TransactionUtils.afterCommit(() -> {
+            evictForProduct(before, after);
+            publish(CacheInvalidationEvent.productChanged(before, after));
+        });
+    }
+
+    /**
+     * 订单发生变化，事务提交后失效买卖双方的订单缓存
+     * @param orderId 订单ID（新建订单时可为空）
+     * @param buyerStudentId 买家学号
+     * @param sellerStudentId 卖家学号
+     */
+    public void orderChanged(Long orderId, String buyerStudentId, String sellerStudentId) {
+        TransactionUtils.afterCommit(() -> {
+            evictForOrder(orderId, buyerStudentId, sellerStudentId);
+            publish(CacheInvalidationEvent.orderChanged(orderId, buyerStudentId, sellerStudentId));
+        });
+    }
+
+    private void publish(CacheInvalidationEvent event) {
+        if (invalidationBus != null) {
+            invalidationBus.publish(event);
+        }
+    }
+
+    /**
+     * 处理其他实例广播的变更事件
+     * 二级缓存中的条目会再删除一次：其他实例在本实例删除后、事务可见前读到旧数据写回的值也会被清掉
+     * @param event 变更事件
+     */
+    void applyRemote(CacheInvalidationEvent event) {
+        remoteInvalidations.incrementAndGet();
+        switch (event.type()) {
+            case PRODUCT_CHANGED -> evictForProduct(event.before(), event.after());
+            case ORDER_CHANGED -> evictForOrder(event.orderId(), event.buyerStudentId(), event.sellerStudentId());
+        }
+    }
+
+    private void evictForProduct(ProductSnapshot before, ProductSnapshot after) {
+        invalidations.incrementAndGet();
+        productGeneration.incrementAndGet();
+        if (!targetedEviction) {
+            clear(PRODUCTS);
+            clear(PRODUCT);
+            clear(USER_PRODUCTS);
+            return;
+        }
+
+        ProductSnapshot any = after != null ? after : before;
+        evict(PRODUCT, any.id());
+        evictOwned(USER_PRODUCTS, any.sellerStudentId());
+
+        listings.forEach((key, entry) -> {
+            if (affects(entry, any.id(), before, after)) {
+                evict(PRODUCTS, key);
+                listings.remove(key, entry);
+            }
+        });
+    }
+
+    private void evictForOrder(Long orderId, String buyerStudentId, String sellerStudentId) {
+        invalidations.incrementAndGet();
+        if (!targetedEviction) {
+            clear(ORDERS);
+            clear(ORDER);
+            return;
+        }
+
+        for (String studentId : new String[]{buyerStudentId, sellerStudentId}) {
+            evictOwned(ORDERS, studentId);
+            if (orderId != null) {
+                evict(ORDER, studentId + "-" + orderId);
+            }
+        }
+    }
+
+    /**
+     * 判断商品变化是否影响某个列表页：
+     * 1. 页内包含该商品；
+     * 2. 商品进入或离开该查询范围（状态变化、标题变化导致关键词匹配变化、价格或交易地点变化导致筛选结果变化），后续页整体偏移；
+     * 3. 按价格排序的页中，范围内商品价格变化导致顺序变化
+     */
+    private static boolean affects(ListingEntry entry, Long productId, ProductSnapshot before, ProductSnapshot after) {
+        if (entry.productIds().contains(productId)) {
+            return true;
+        }
+        boolean wasInScope = inScope(entry, before);
+        boolean isInScope = inScope(entry, after);
+        if (wasInScope != isInScope) {
+            return true;
+        }
+        return isInScope && isPriceSort(entry.sort()) && !Objects.equals(before.price(), after.price());
+    }
+
+    private static boolean inScope(ListingEntry entry, ProductSnapshot snapshot) {
+        if (snapshot == null || snapshot.status() != entry.status()
+                || !entry.filter().matches(snapshot.price(), snapshot.tradeLocation())) {
+            return false;
+        }
+        String keyword = entry.keyword();
+        if (keyword == null || keyword.isEmpty()) {
+            return true;
+        }
+        // 索引查询和LIKE回退都按标题包含关键词匹配
+        return ProductSearchIndex.matches(keyword, snapshot.title());
+    }
+
+    private static boolean isPriceSort(String sort) {
+        return "price_asc".equals(sort) || "price_desc".equals(sort);
+    }
+
+    private void evictOwned(String cacheName, String studentId) {
+        if (studentId == null) {
+            return;
+        }
+        Map<String, Map<String, Long>> byOwner = ownedKeys.get(cacheName);
+        Map<String, Long> keys = byOwner != null ? byOwner.remove(studentId) : null;
+        if (keys != null) {
+            keys.keySet().forEach(key -> evict(cacheName, key));
+        }
+    }
+
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+            evictedEntries.incrementAndGet();
+        }
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+            fullClears.incrementAndGet();
+        }
+        if (PRODUCTS.equals(cacheName)) {
+            listings.clear();
+        } else {
+            ownedKeys.remove(cacheName);
+        }
+    }
+
+    /**
+     * 清理已被缓存自身淘汰（容量、过期）的依赖记录
+     */
+    @Scheduled(fixedDelayString = "${app.cache.prune-interval-ms:60000}")
+    public void prune() {
+        long threshold = System.currentTimeMillis() - PRUNE_GRACE_MILLIS;
+        Cache products = cacheManager.getCache(PRODUCTS);
+        if (products != null) {
+            listings.entrySet().removeIf(e -> e.getValue().registeredAt() < threshold && !isCached(products, e.getKey()));
+        }
+        ownedKeys.forEach((cacheName, byOwner) -> {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache == null) {
+                return;
+            }
+            byOwner.values().forEach(keys -> keys.entrySet()
+                    .removeIf(e -> e.getValue() < threshold && !isCached(cache, e.getKey())));
+            byOwner.values().removeIf(Map::isEmpty);
+        });
+    }
+
+    /**
+     * 判断键是否仍在缓存中，Caffeine缓存直接查看底层Map，不计入命中统计
+     */
+    private static boolean isCached(Cache cache, Object key) {
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            return caffeine.asMap().containsKey(key);
+        }
+        return cache.get(key) != null;
+    }
+
+    /**
+     * 获取失效统计
+     * @return 统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("mode", targetedEviction ? "targeted" : "allEntries");
+        stats.put("trackedListings", listings.size());
+        stats.put("trackedOwnedKeys", ownedKeys.values().stream()
+                .flatMap(byOwner -> byOwner.values().stream())
+                .mapToInt(Map::size)
+                .sum());
+        stats.put("invalidations", invalidations.get());
+        stats.put("evictedEntries", evictedEntries.get());
+        stats.put("fullClears", fullClears.get());
+        stats.put("remoteInvalidations", remoteInvalidations.get());
+        stats.put("staleListings", staleListings.get());
+        return stats;
+    }
+
+    /**
+     * 列表页依赖：查询范围和页内商品
+     */
+    private record ListingEntry(Product.Status status, String keyword, ProductFilter filter, String sort,
+                                Set<Long> productIds, long registeredAt) {
+    }
+
+    /**
+     * 可序列化的条目依赖：列表页的查询范围和页内商品，或按用户划分的缓存条目的学号
+     */
+    public record Dependency(Product.Status status, String keyword, ProductFilter filter, String sort,
+                             Set<Long> productIds, String owner) implements Serializable {
+    }
+
+    /**
+     * 商品快照：判断缓存依赖所需的字段
+     */
+    public record ProductSnapshot(Long id, String sellerStudentId, Product.Status status,
+                                  String title, BigDecimal price, String tradeLocation) {
+
+        public static ProductSnapshot of(Product product) {
+            String sellerStudentId = product.getSeller() != null ? product.getSeller().getStudentId() : null;
+            return new ProductSnapshot(product.getId(), sellerStudentId, product.getStatus(),
+                    product.getTitle(), product.getPrice(), product.getTradeLocation());
+        }
+    }
+}
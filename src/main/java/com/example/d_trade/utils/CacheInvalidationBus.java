@@ -0,0 +1,29 @@
+package com.example.d_trade.utils;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效事件的广播通道
+ * 发布的事件会在有限的延迟内投递给其他实例的订阅者，不投递给发布者自己
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * 发布事件
+     * @param event 失效事件
+     */
+    void publish(CacheInvalidationEvent event);
+
+    /**
+     * 订阅其他实例发布的事件
+     * @param listener 事件处理方法
+     */
+    void subscribe(Consumer<CacheInvalidationEvent> listener);
+
+    /**
+     * 获取广播统计
+     * @return 统计数据
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,33 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.utils.CacheDependencyTracker.ProductSnapshot;
+
+/**
+ * 在实例之间广播的缓存失效事件
+ * 广播的是数据变化而不是缓存键：列表页等缓存的依赖关系只记录在计算它的实例上，
+ * 每个实例收到事件后按自己的依赖记录失效
+ * @param type 事件类型
+ * @param before 变更前的商品快照
+ * @param after 变更后的商品快照
+ * @param orderId 订单ID
+ * @param buyerStudentId 买家学号
+ * @param sellerStudentId 卖家学号
+ */
+public record CacheInvalidationEvent(Type type, ProductSnapshot before, ProductSnapshot after,
+                                     Long orderId, String buyerStudentId, String sellerStudentId) {
+
+    /**
+     * 事件类型
+     */
+    public enum Type {
+        PRODUCT_CHANGED, ORDER_CHANGED
+    }
+
+    public static CacheInvalidationEvent productChanged(ProductSnapshot before, ProductSnapshot after) {
+        return new CacheInvalidationEvent(Type.PRODUCT_CHANGED, before, after, null, null, null);
+    }
+
+    public static CacheInvalidationEvent orderChanged(Long orderId, String buyerStudentId, String sellerStudentId) {
+        return new CacheInvalidationEvent(Type.ORDER_CHANGED, null, null, orderId, buyerStudentId, sellerStudentId);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.d_trade.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 缓存条目的重新加载方法
+ * 配置了 refresh-after-write 的缓存，条目写入超过刷新间隔后再被读取时，Caffeine在后台调用这里登记的方法重新计算，
+ * 读取方继续拿到旧值不会阻塞；只有被持续访问的热点条目会被刷新，冷条目按过期时间淘汰
+ */
+@Slf4j
+@Component
+public class CacheReloadRegistry {
+
+    /** 缓存名 -> 缓存键 -> 重新加载方法 */
+    private final Map<String, Map<Object, Supplier<?>>> loaders = new ConcurrentHashMap<>();
+
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private final AtomicLong missingLoaders = new AtomicLong();
+
+    /**
+     * 登记缓存条目的重新加载方法，在首次计算缓存值时调用
+     * @param cacheName 缓存名
+     * @param key 缓存键
+     * @param loader 不经过缓存直接计算的方法
+     */
+    public void register(String cacheName, Object key, Supplier<?> loader) {
+        loaders.computeIfAbsent(cacheName, k -> new ConcurrentHashMap<>()).put(key, loader);
+    }
+
+    /**
+     * 重新计算缓存值，由Caffeine的刷新线程调用
+     * @param cacheName 缓存名
+     * @param key 缓存键
+     * @return 新的缓存值，没有登记方法时返回null，Caffeine会移除该条目，下次读取时重新计算
+     */
+    public Object reload(String cacheName, Object key) {
+        Map<Object, Supplier<?>> cacheLoaders = loaders.get(cacheName);
+        Supplier<?> loader = cacheLoaders != null ? cacheLoaders.get(key) : null;
+        if (loader == null) {
+            missingLoaders.incrementAndGet();
+            return null;
+        }
+        try {
+            Object value = loader.get();
+            refreshes.incrementAndGet();
+            return value;
+        } catch (RuntimeException e) {
+            // 刷新失败时Caffeine保留旧值
+            refreshFailures.incrementAndGet();
+            log.warn("缓存刷新失败: cache={}, key={}", cacheName, key, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 缓存条目被移除后清理重新加载方法
+     * @param cacheName 缓存名
+     * @param key 缓存键
+     */
+    public void removed(String cacheName, Object key) {
+        Map<Object, Supplier<?>> cacheLoaders = loaders.get(cacheName);
+        if (cacheLoaders != null) {
+            cacheLoaders.remove(key);
+        }
+    }
+
+    /**
+     * 获取刷新统计
+     * @return 统计数据
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("registeredLoaders", loaders.values().stream().mapToInt(Map::size).sum());
+        stats.put("refreshes", refreshes.get());
+        stats.put("refreshFailures", refreshFailures.get());
+        stats.put("missingLoaders", missingLoaders.get());
+        return stats;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.d_trade.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * 二级缓存值的序列化
+ * 使用Java序列化，缓存值（DTO、分页结果）需要实现 Serializable；
+ * 反序列化只允许本项目、JDK和Spring Data分页相关的类，共享存储中的数据被篡改时不会实例化任意类
+ */
+public final class CacheValueCodec {
+
+    private static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=20;com.example.d_trade.**;java.**;org.springframework.data.domain.**;!*");
+
+    private CacheValueCodec() {
+    }
+
+    /**
+     * 序列化缓存值
+     * @param value 缓存值
+     * @return 字节数组
+     * @throws IOException 缓存值不能序列化时抛出
+     */
+    public static byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 反序列化缓存值
+     * @param bytes 字节数组
+     * @return 缓存值
+     * @throws IOException 数据损坏、类不存在或不在允许范围内时抛出
+     */
+    public static Object decode(byte[] bytes) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            in.setObjectInputFilter(FILTER);
+            return in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new InvalidClassException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.d_trade.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 游标分页编解码工具
+ * 游标对客户端不透明，内容为最后一条记录的 (create_time, id)
+ */
+public final class CursorCodec {
+
+    /**
+     * 首页游标：大于所有真实记录的哨兵值
+     */
+    public static final Cursor FIRST = new Cursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {
+    }
+
+    /**
+     * 编码游标
+     * @param createTime 创建时间
+     * @param id 记录ID
+     * @return 游标字符串
+     */
+    public static String encode(LocalDateTime createTime, Long id) {
+        String raw = createTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标，空游标表示第一页
+     * @param cursor 游标字符串
+     * @return 游标
+     */
+    public static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            return new Cursor(LocalDateTime.parse(raw.substring(0, index)), Long.parseLong(raw.substring(index + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的游标", e);
+        }
+    }
+
+    /**
+     * 游标位置
+     */
+    public record Cursor(LocalDateTime createTime, Long id) {
+    }
+}
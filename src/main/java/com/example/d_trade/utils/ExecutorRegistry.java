@@ -0,0 +1,62 @@
+package com.example.d_trade.utils;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 具名的异步执行器
+ * 业务代码中的异步任务都提交到这里的执行器，不使用公共 ForkJoinPool 或临时创建的线程池，
+ * 每类任务的并发数、排队长度和队列满时的行为单独配置，互不影响，统计见 /api/admin/performance/executors
+ */
+public class ExecutorRegistry {
+
+    /** 通知投递：把发件箱中的通知写入消息表 */
+    public static final String NOTIFICATION = "notification";
+    /** 图片处理：保存上传的图片 */
+    public static final String IMAGE = "image";
+    /** 报表统计：管理后台统计数据的定期对账 */
+    public static final String REPORTING = "reporting";
+    /** 消息推送：向SSE连接发送新消息、未读数和心跳 */
+    public static final String PUSH = "push";
+
+    public static final List<String> NAMES = List.of(NOTIFICATION, IMAGE, REPORTING, PUSH);
+
+    private final Map<String, MonitoredExecutor> executors = new LinkedHashMap<>();
+
+    public ExecutorRegistry(List<MonitoredExecutor> executors) {
+        executors.forEach(executor -> this.executors.put(executor.getName(), executor));
+    }
+
+    /**
+     * 获取执行器
+     * @param name 执行器名，见本类的常量
+     * @return 执行器
+     */
+    public MonitoredExecutor executor(String name) {
+        MonitoredExecutor executor = executors.get(name);
+        if (executor == null) {
+            throw new IllegalArgumentException("未定义的执行器: " + name);
+        }
+        return executor;
+    }
+
+    /**
+     * 获取所有执行器的统计
+     * @return 执行器名 -> 统计数据
+     */
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        executors.forEach((name, executor) -> stats.put(name, executor.getStats()));
+        return Collections.unmodifiableMap(stats);
+    }
+
+    /**
+     * 应用关闭时等待已提交的任务完成
+     */
+    public void shutdown() {
+        executors.values().forEach(executor -> executor.shutdown(Duration.ofSeconds(10)));
+    }
+}
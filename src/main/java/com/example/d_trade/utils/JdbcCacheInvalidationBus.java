@@ -0,0 +1,162 @@
+package com.example.d_trade.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 基于数据库表的缓存失效广播
+ * 发布时插入一行事件，各实例按 poll-interval-ms 轮询其他实例的新事件，失效延迟不超过一个轮询间隔加查询耗时。
+ * 按创建时间回看一段时间而不是只取大于上次最大ID的行：自增ID分配和事务提交的顺序可能不同，
+ * 已处理的ID单独记录避免重复投递；回看时间同时覆盖实例之间少量的时钟偏差
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cache.cluster.enabled", havingValue = "true")
+public class JdbcCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final long lookbackMillis;
+    private final long retentionMillis;
+
+    private final List<Consumer<CacheInvalidationEvent>> listeners = new CopyOnWriteArrayList<>();
+    /** 已处理的事件ID -> 创建时间，超出回看范围后清理 */
+    private final Map<Long, Long> delivered = new ConcurrentHashMap<>();
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+
+    public JdbcCacheInvalidationBus(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper,
+                                    @Value("${app.cache.cluster.poll-interval-ms:500}") long pollIntervalMillis,
+                                    @Value("${app.cache.cluster.retention-ms:600000}") long retentionMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 在事务提交后的回调中发布，需要挂起已提交的事务，在独立连接上自动提交
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+        this.objectMapper = objectMapper;
+        this.lookbackMillis = Math.max(5_000, pollIntervalMillis * 10);
+        this.retentionMillis = Math.max(retentionMillis, lookbackMillis * 2);
+    }
+
+    @PostConstruct
+    public void createTable() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS cache_invalidation ("
+                + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "node_id VARCHAR(64) NOT NULL, "
+                + "payload TEXT NOT NULL, "
+                + "created_at BIGINT NOT NULL)");
+    }
+
+    @Override
+    public void publish(CacheInvalidationEvent event) {
+        try {
+            String payload = objectMapper.writeValueAsString(event);
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                    "INSERT INTO cache_invalidation (node_id, payload, created_at) VALUES (?, ?, ?)",
+                    nodeId, payload, System.currentTimeMillis()));
+            published.incrementAndGet();
+        } catch (JsonProcessingException | DataAccessException e) {
+            // 广播失败时其他实例的缓存只能等待过期
+            errors.incrementAndGet();
+            log.error("发布缓存失效事件失败: event={}", event, e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidationEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 拉取并投递其他实例发布的事件
+     */
+    @Scheduled(fixedDelayString = "${app.cache.cluster.poll-interval-ms:500}")
+    public void poll() {
+        long now = System.currentTimeMillis();
+        long since = now - lookbackMillis;
+        List<Map<String, Object>> rows;
+        try {
+            rows = transactionTemplate.execute(status -> jdbcTemplate.queryForList(
+                    "SELECT id, payload, created_at FROM cache_invalidation "
+                            + "WHERE created_at >= ? AND node_id <> ? ORDER BY id",
+                    since, nodeId));
+        } catch (DataAccessException e) {
+            errors.incrementAndGet();
+            log.warn("拉取缓存失效事件失败: {}", e.getMessage());
+            return;
+        }
+
+        for (Map<String, Object> row : rows != null ? rows : List.<Map<String, Object>>of()) {
+            long id = ((Number) row.get("id")).longValue();
+            long createdAt = ((Number) row.get("created_at")).longValue();
+            if (delivered.putIfAbsent(id, createdAt) != null) {
+                continue;
+            }
+            try {
+                CacheInvalidationEvent event = objectMapper.readValue(String.valueOf(row.get("payload")),
+                        CacheInvalidationEvent.class);
+                listeners.forEach(listener -> listener.accept(event));
+                received.incrementAndGet();
+                lastLagMillis = Math.max(0, System.currentTimeMillis() - createdAt);
+                maxLagMillis = Math.max(maxLagMillis, lastLagMillis);
+            } catch (JsonProcessingException | RuntimeException e) {
+                errors.incrementAndGet();
+                log.error("处理缓存失效事件失败: id={}", id, e);
+            }
+        }
+        delivered.values().removeIf(createdAt -> createdAt < since);
+    }
+
+    /**
+     * 删除超过保留时间的事件
+     */
+    @Scheduled(fixedDelayString = "${app.cache.cluster.cleanup-interval-ms:60000}")
+    public void purge() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                    "DELETE FROM cache_invalidation WHERE created_at < ?",
+                    System.currentTimeMillis() - retentionMillis));
+        } catch (DataAccessException e) {
+            log.warn("清理缓存失效事件失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("type", "jdbc");
+        stats.put("nodeId", nodeId);
+        stats.put("published", published.get());
+        stats.put("received", received.get());
+        stats.put("errors", errors.get());
+        stats.put("lastLagMs", lastLagMillis);
+        stats.put("maxLagMs", maxLagMillis);
+        return stats;
+    }
+}
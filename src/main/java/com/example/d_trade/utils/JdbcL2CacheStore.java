@@ -0,0 +1,148 @@
+package com.example.d_trade.utils;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于数据库表的二级缓存存储，所有实例连接同一个数据库即可共享
+ * 作为Redis等专用存储的替代，适合实例数少、缓存值小的部署；读写在独立连接上执行，不加入业务事务
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cache.cluster.enabled", havingValue = "true")
+public class JdbcL2CacheStore implements L2CacheStore {
+
+    /** MySQL BLOB列最大64KB，超过的值只保存在本地缓存 */
+    static final int MAX_VALUE_BYTES = 60 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private final AtomicLong oversized = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public JdbcL2CacheStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 挂起调用方的事务：只读事务中也能写入，业务回滚不影响缓存，缓存失败也不影响业务
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+    }
+
+    @PostConstruct
+    public void createTable() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS cache_l2 ("
+                + "cache_name VARCHAR(64) NOT NULL, "
+                + "cache_key VARCHAR(255) NOT NULL, "
+                + "cache_value BLOB NOT NULL, "
+                + "expires_at BIGINT NOT NULL, "
+                + "PRIMARY KEY (cache_name, cache_key))");
+    }
+
+    @Override
+    public byte[] get(String cacheName, String key) {
+        try {
+            List<byte[]> rows = transactionTemplate.execute(status -> jdbcTemplate.query(
+                    "SELECT cache_value FROM cache_l2 WHERE cache_name = ? AND cache_key = ? AND expires_at > ?",
+                    (rs, rowNum) -> rs.getBytes(1), cacheName, key, System.currentTimeMillis()));
+            if (rows == null || rows.isEmpty()) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return rows.get(0);
+        } catch (DataAccessException e) {
+            errors.incrementAndGet();
+            log.warn("读取二级缓存失败: cache={}, key={}, error={}", cacheName, key, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String cacheName, String key, byte[] value, Duration ttl) {
+        if (value.length > MAX_VALUE_BYTES || key.length() > 255) {
+            oversized.incrementAndGet();
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // 先更新，不存在时插入；并发插入冲突时改为更新，兼容H2和MySQL
+                int updated = jdbcTemplate.update(
+                        "UPDATE cache_l2 SET cache_value = ?, expires_at = ? WHERE cache_name = ? AND cache_key = ?",
+                        value, expiresAt, cacheName, key);
+                if (updated == 0) {
+                    try {
+                        jdbcTemplate.update(
+                                "INSERT INTO cache_l2 (cache_name, cache_key, cache_value, expires_at) VALUES (?, ?, ?, ?)",
+                                cacheName, key, value, expiresAt);
+                    } catch (DuplicateKeyException e) {
+                        jdbcTemplate.update(
+                                "UPDATE cache_l2 SET cache_value = ?, expires_at = ? WHERE cache_name = ? AND cache_key = ?",
+                                value, expiresAt, cacheName, key);
+                    }
+                }
+            });
+            puts.incrementAndGet();
+        } catch (DataAccessException e) {
+            errors.incrementAndGet();
+            log.warn("写入二级缓存失败: cache={}, key={}, error={}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void evict(String cacheName, String key) {
+        execute("DELETE FROM cache_l2 WHERE cache_name = ? AND cache_key = ?", cacheName, key);
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        execute("DELETE FROM cache_l2 WHERE cache_name = ?", cacheName);
+    }
+
+    /**
+     * 删除已过期的缓存值
+     */
+    @Scheduled(fixedDelayString = "${app.cache.cluster.cleanup-interval-ms:60000}")
+    public void purgeExpired() {
+        execute("DELETE FROM cache_l2 WHERE expires_at <= ?", System.currentTimeMillis());
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("type", "jdbc");
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("puts", puts.get());
+        stats.put("oversized", oversized.get());
+        stats.put("errors", errors.get());
+        return stats;
+    }
+
+    private void execute(String sql, Object... args) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(sql, args));
+        } catch (DataAccessException e) {
+            errors.incrementAndGet();
+            log.warn("更新二级缓存失败: sql={}, error={}", sql, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.d_trade.utils;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 本地缓存值的紧凑表示
+ * 把DTO对象图（嵌套的用户DTO、LocalDateTime、BigDecimal、字符串）压成一个UTF-8 JSON字节数组，
+ * 一个缓存条目只剩字节数组和少量元数据，命中时再还原为对象。
+ * 使用独立的ObjectMapper：直接读写字段、忽略注解（@JsonFormat 会丢掉时间部分）、省略null，保证还原后与原对象一致；
+ * 与接口返回的JSON格式无关，不能直接写到响应中
+ */
+public final class JsonCacheValueCodec {
+
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(MapperFeature.USE_ANNOTATIONS)
+            .visibility(PropertyAccessor.ALL, Visibility.NONE)
+            .visibility(PropertyAccessor.FIELD, Visibility.ANY)
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private static final ClassValue<JavaType> LIST_TYPES = new ClassValue<>() {
+        @Override
+        protected JavaType computeValue(Class<?> elementType) {
+            return MAPPER.getTypeFactory().constructCollectionType(List.class, elementType);
+        }
+    };
+
+    private JsonCacheValueCodec() {
+    }
+
+    /**
+     * 压缩缓存值
+     * @param value 缓存值，不能为null
+     * @return 紧凑表示
+     * @throws IOException 值不能按字段序列化（如分页内容的类型不一致）时抛出
+     */
+    public static Encoded encode(Object value) throws IOException {
+        if (value instanceof Page<?> page) {
+            // PageImpl不能直接反序列化，只保存内容，分页信息原样保留
+            List<?> content = page.getContent();
+            Class<?> elementType = content.isEmpty() ? Object.class : content.get(0).getClass();
+            for (Object element : content) {
+                if (element == null || element.getClass() != elementType) {
+                    throw new IOException("分页内容类型不一致: " + elementType.getName());
+                }
+            }
+            return new EncodedPage(MAPPER.writeValueAsBytes(content), elementType,
+                    page.getPageable(), page.getTotalElements());
+        }
+        return new EncodedValue(MAPPER.writeValueAsBytes(value), value.getClass());
+    }
+
+    /**
+     * 紧凑表示的缓存值
+     */
+    public sealed interface Encoded permits EncodedValue, EncodedPage {
+
+        /**
+         * 还原为对象，每次调用都返回新的对象
+         * @return 缓存值
+         * @throws IOException 类结构变化导致无法还原时抛出
+         */
+        Object decode() throws IOException;
+
+        /**
+         * 序列化后的字节数
+         * @return 字节数
+         */
+        int byteSize();
+    }
+
+    /**
+     * 单个对象
+     * @param json 对象的JSON
+     * @param type 对象的类型
+     */
+    public record EncodedValue(byte[] json, Class<?> type) implements Encoded {
+
+        @Override
+        public Object decode() throws IOException {
+            return MAPPER.readValue(json, type);
+        }
+
+        @Override
+        public int byteSize() {
+            return json.length;
+        }
+    }
+
+    /**
+     * 分页结果
+     * @param content 页内容的JSON数组
+     * @param elementType 元素类型
+     * @param pageable 分页参数
+     * @param total 总条数
+     */
+    public record EncodedPage(byte[] content, Class<?> elementType, Pageable pageable, long total)
+            implements Encoded {
+
+        @Override
+        public Object decode() throws IOException {
+            List<?> elements = MAPPER.readValue(content, LIST_TYPES.get(elementType));
+            return new PageImpl<>(elements, pageable, total);
+        }
+
+        @Override
+        public int byteSize() {
+            return content.length;
+        }
+    }
+}
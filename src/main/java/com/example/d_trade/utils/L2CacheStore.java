@@ -0,0 +1,47 @@
+package com.example.d_trade.utils;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 二级缓存的共享存储，多个实例读写同一份数据
+ * 实现为尽力而为：存储不可用时读取返回null、写入直接忽略，缓存退化为只使用本地一级缓存
+ */
+public interface L2CacheStore {
+
+    /**
+     * 读取缓存值
+     * @param cacheName 缓存名
+     * @param key 缓存键
+     * @return 序列化后的缓存值，不存在或已过期时返回null
+     */
+    byte[] get(String cacheName, String key);
+
+    /**
+     * 写入缓存值
+     * @param cacheName 缓存名
+     * @param key 缓存键
+     * @param value 序列化后的缓存值
+     * @param ttl 存活时间
+     */
+    void put(String cacheName, String key, byte[] value, Duration ttl);
+
+    /**
+     * 删除缓存值
+     * @param cacheName 缓存名
+     * @param key 缓存键
+     */
+    void evict(String cacheName, String key);
+
+    /**
+     * 清空缓存
+     * @param cacheName 缓存名
+     */
+    void clear(String cacheName);
+
+    /**
+     * 获取读写统计
+     * @return 统计数据
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,336 @@
+package com.example.d_trade.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数分桶延迟直方图（纳秒）
+ * 分桶方式与HdrHistogram相同：小于2^bits纳秒逐个计数，之后每翻一倍的区间再均分为2^(bits-1)个子桶，
+ * 默认7位时相对误差不超过1/64（约1.6%）。记录只做一次数组原子自增，不加锁；
+ * 计数按倍数区间分页，第一次记录到某个区间时才分配该页，实际延迟通常只落在少数几个区间，大部分页不会分配
+ */
+public class LatencyHistogram {
+
+    /** 默认子桶位数，决定精度 */
+    static final int DEFAULT_SUB_BUCKET_BITS = 7;
+
+    /** 可记录的最大值约为18分钟，超过的按最大值记录 */
+    static final long MAX_TRACKABLE_NANOS = (1L << 40) - 1;
+
+    private final int subBucketBits;
+    private final long maxTrackableNanos;
+    /** 第0页为小于2^bits的值，第n页为第n个倍数区间的 2^(bits-1) 个子桶 */
+    private final AtomicReferenceArray<AtomicLongArray> pages;
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong minNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxNanos = new AtomicLong(0);
+
+    public LatencyHistogram() {
+        this(DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @param subBucketBits 子桶位数，位数越少占用内存越小、误差越大（相对误差约 1/2^(bits-1)）
+     */
+    public LatencyHistogram(int subBucketBits) {
+        this(subBucketBits, MAX_TRACKABLE_NANOS);
+    }
+
+    /**
+     * @param subBucketBits 子桶位数
+     * @param maxTrackableNanos 可记录的最大值，超过的按最大值记录；范围越小需要的页越少
+     */
+    public LatencyHistogram(int subBucketBits, long maxTrackableNanos) {
+        if (subBucketBits < 2 || subBucketBits > 16) {
+            throw new IllegalArgumentException("子桶位数必须在2到16之间");
+        }
+        this.subBucketBits = subBucketBits;
+        this.maxTrackableNanos = Math.max(1, Math.min(maxTrackableNanos, MAX_TRACKABLE_NANOS));
+        this.pages = new AtomicReferenceArray<>(pageOf(indexOf(this.maxTrackableNanos, subBucketBits), subBucketBits) + 1);
+    }
+
+    /**
+     * 记录一次耗时
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        record(nanos, 1);
+    }
+
+    /**
+     * 记录耗时并按次数加权，用于抽样记录时还原总次数
+     * @param nanos 耗时（纳秒）
+     * @param count 代表的调用次数
+     */
+    public void record(long nanos, long count) {
+        long value = Math.max(0, Math.min(nanos, maxTrackableNanos));
+        int index = indexOf(value, subBucketBits);
+        int page = pageOf(index, subBucketBits);
+        AtomicLongArray counts = pages.get(page);
+        if (counts == null) {
+            counts = allocate(page);
+        }
+        counts.addAndGet(index - firstIndexOf(page, subBucketBits), count);
+        totalCount.add(count);
+        totalNanos.add(value * count);
+
+        long currentMax;
+        while (value > (currentMax = maxNanos.get())) {
+            if (maxNanos.compareAndSet(currentMax, value)) {
+                break;
+            }
+        }
+        long currentMin;
+        while (value < (currentMin = minNanos.get())) {
+            if (minNanos.compareAndSet(currentMin, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 生成当前数据的快照；记录仍在并发进行时各字段之间可能有微小出入
+     */
+    public Snapshot snapshot() {
+        // 快照总是完整长度，不同范围、同样精度的快照可以合并
+        long[] bucketCounts = new long[bucketCount(subBucketBits)];
+        long count = 0;
+        for (int page = 0; page < pages.length(); page++) {
+            AtomicLongArray counts = pages.get(page);
+            if (counts == null) {
+                continue;
+            }
+            int first = firstIndexOf(page, subBucketBits);
+            for (int i = 0; i < counts.length(); i++) {
+                bucketCounts[first + i] = counts.get(i);
+                count += bucketCounts[first + i];
+            }
+        }
+        long min = minNanos.get();
+        return new Snapshot(subBucketBits, bucketCounts, count, totalNanos.sum(),
+                min == Long.MAX_VALUE ? 0 : min, maxNanos.get());
+    }
+
+    /**
+     * 清零所有计数，已分配的页保留下来继续使用
+     * 与记录并发执行时，清零前后写入的少量记录可能被清掉或保留，只适合允许这种误差的场景（如滑动窗口复用时间片）
+     */
+    public void reset() {
+        for (int page = 0; page < pages.length(); page++) {
+            AtomicLongArray counts = pages.get(page);
+            if (counts != null) {
+                for (int i = 0; i < counts.length(); i++) {
+                    counts.set(i, 0);
+                }
+            }
+        }
+        totalCount.reset();
+        totalNanos.reset();
+        minNanos.set(Long.MAX_VALUE);
+        maxNanos.set(0);
+    }
+
+    private AtomicLongArray allocate(int page) {
+        int size = page == 0 ? 1 << subBucketBits : 1 << (subBucketBits - 1);
+        // 并发分配时只保留先写入的一页
+        pages.compareAndSet(page, null, new AtomicLongArray(size));
+        return pages.get(page);
+    }
+
+    /**
+     * 桶下标所在的页
+     */
+    static int pageOf(int index, int subBucketBits) {
+        int subBucketCount = 1 << subBucketBits;
+        return index < subBucketCount ? 0 : (index - subBucketCount) / (subBucketCount >> 1) + 1;
+    }
+
+    /**
+     * 页内第一个桶的下标
+     */
+    static int firstIndexOf(int page, int subBucketBits) {
+        int subBucketCount = 1 << subBucketBits;
+        return page == 0 ? 0 : subBucketCount + (page - 1) * (subBucketCount >> 1);
+    }
+
+    /**
+     * 指定精度下的桶数量
+     */
+    static int bucketCount(int subBucketBits) {
+        return indexOf(MAX_TRACKABLE_NANOS, subBucketBits) + 1;
+    }
+
+    /**
+     * 纳秒值对应的桶下标
+     */
+    static int indexOf(long value, int subBucketBits) {
+        int subBucketCount = 1 << subBucketBits;
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        // 保留最高的 subBucketBits 位，shift 即所在的倍数区间
+        int subBucketHalf = subBucketCount >> 1;
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (subBucketBits - 1);
+        int subBucket = (int) (value >>> shift);
+        return subBucketCount + (shift - 1) * subBucketHalf + (subBucket - subBucketHalf);
+    }
+
+    /**
+     * 桶内可以表示的最大值
+     */
+    static long highestValueOf(int index, int subBucketBits) {
+        int subBucketCount = 1 << subBucketBits;
+        if (index < subBucketCount) {
+            return index;
+        }
+        int subBucketHalf = subBucketCount >> 1;
+        int offset = index - subBucketCount;
+        int shift = offset / subBucketHalf + 1;
+        long subBucket = offset % subBucketHalf + subBucketHalf;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * 直方图快照，不可变
+     * 同样精度的快照可以直接按桶相加合并，例如合并多个方法、多个时间窗口或多个实例的数据
+     */
+    public static final class Snapshot {
+
+        private final int subBucketBits;
+        private final long[] counts;
+        private final long totalCount;
+        private final long totalNanos;
+        private final long minNanos;
+        private final long maxNanos;
+
+        private Snapshot(int subBucketBits, long[] counts, long totalCount, long totalNanos,
+                         long minNanos, long maxNanos) {
+            this.subBucketBits = subBucketBits;
+            this.counts = counts;
+            this.totalCount = totalCount;
+            this.totalNanos = totalNanos;
+            this.minNanos = minNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public static Snapshot empty() {
+            return empty(DEFAULT_SUB_BUCKET_BITS);
+        }
+
+        public static Snapshot empty(int subBucketBits) {
+            return new Snapshot(subBucketBits, new long[bucketCount(subBucketBits)], 0, 0, 0, 0);
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMinNanos() {
+            return minNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public double getMeanNanos() {
+            return totalCount > 0 ? (double) totalNanos / totalCount : 0;
+        }
+
+        /**
+         * 计算百分位数
+         * @param percentile 百分位，例如 99.9
+         * @return 该百分位的耗时上界（纳秒），不超过实际最大值
+         */
+        public long valueAtPercentile(double percentile) {
+            if (totalCount == 0) {
+                return 0;
+            }
+            double clamped = Math.max(0, Math.min(percentile, 100));
+            long target = Math.max(1, (long) Math.ceil(clamped / 100 * totalCount));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(highestValueOf(i, subBucketBits), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        /**
+         * 与另一个快照合并
+         * @param other 另一个同样精度的快照
+         * @return 合并后的新快照
+         */
+        public Snapshot merge(Snapshot other) {
+            if (other.subBucketBits != subBucketBits) {
+                throw new IllegalArgumentException("直方图精度不一致，无法合并");
+            }
+            if (other.totalCount == 0) {
+                return this;
+            }
+            if (totalCount == 0) {
+                return other;
+            }
+            long[] merged = new long[counts.length];
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] = counts[i] + other.counts[i];
+            }
+            return new Snapshot(subBucketBits, merged, totalCount + other.totalCount, totalNanos + other.totalNanos,
+                    Math.min(minNanos, other.minNanos), Math.max(maxNanos, other.maxNanos));
+        }
+
+        /**
+         * 导出为可合并的格式：只包含非空桶，键为桶下标
+         * @return 快照数据
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Long> buckets = new LinkedHashMap<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    buckets.put(String.valueOf(i), counts[i]);
+                }
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("subBucketBits", subBucketBits);
+            result.put("totalCount", totalCount);
+            result.put("totalNanos", totalNanos);
+            result.put("minNanos", minNanos);
+            result.put("maxNanos", maxNanos);
+            result.put("buckets", buckets);
+            return result;
+        }
+
+        /**
+         * 从 {@link #toMap()} 导出的数据还原快照
+         * @param map 快照数据
+         * @return 快照
+         */
+        public static Snapshot fromMap(Map<String, ?> map) {
+            Object bits = map.get("subBucketBits");
+            if (!(bits instanceof Number number)) {
+                throw new IllegalArgumentException("缺少直方图精度");
+            }
+            int subBucketBits = number.intValue();
+            long[] counts = new long[bucketCount(subBucketBits)];
+            Object buckets = map.get("buckets");
+            if (buckets instanceof Map<?, ?> bucketMap) {
+                bucketMap.forEach((index, count) ->
+                        counts[Integer.parseInt(index.toString())] += ((Number) count).longValue());
+            }
+            return new Snapshot(subBucketBits, counts, ((Number) map.get("totalCount")).longValue(),
+                    ((Number) map.get("totalNanos")).longValue(), ((Number) map.get("minNanos")).longValue(),
+                    ((Number) map.get("maxNanos")).longValue());
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.MessageDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * 消息推送连接注册表（SSE）
+ * 按用户ID保存已连接的 SseEmitter，消息写入和已读状态变化时推送新消息和未读数，客户端不再轮询未读数。
+ * 空闲连接只占用Tomcat的一个NIO连接和这里的一个对象，不占用请求线程；
+ * 推送先放入每个连接自己的有界队列，再由 push 执行器发送，发送慢的客户端不会阻塞消息写入：
+ * 未读数只保留最新值，新消息超过队列容量时丢弃并发送 resync 事件让客户端重新拉取，
+ * 一次发送超过 stall-timeout-ms 仍未完成的连接被移出注册表。
+ * 事件：unread-count（未读数）、message（新消息）、resync（有消息被丢弃，需要重新拉取列表）；
+ * 每隔 heartbeat-interval-ms 对没有其他事件的连接发送注释行，防止代理断开空闲连接并及时发现已断开的客户端
+ */
+@Slf4j
+@Component
+public class MessageStreamRegistry {
+
+    private static final String HEARTBEAT = "heartbeat";
+
+    private final ExecutorRegistry executorRegistry;
+    private final long timeoutMillis;
+    private final long retryMillis;
+    private final int maxConnections;
+    private final int maxConnectionsPerUser;
+    private final int maxQueuedMessages;
+    private final long stallTimeoutNanos;
+
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder heartbeatsSent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder stalled = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+
+    public MessageStreamRegistry(ExecutorRegistry executorRegistry,
+                                 @Value("${app.messages.stream.timeout-ms:1800000}") long timeoutMillis,
+                                 @Value("${app.messages.stream.retry-ms:3000}") long retryMillis,
+                                 @Value("${app.messages.stream.max-connections:10000}") int maxConnections,
+                                 @Value("${app.messages.stream.max-connections-per-user:5}") int maxConnectionsPerUser,
+                                 @Value("${app.messages.stream.max-queued-messages:32}") int maxQueuedMessages,
+                                 @Value("${app.messages.stream.stall-timeout-ms:30000}") long stallTimeoutMillis) {
+        this.executorRegistry = executorRegistry;
+        this.timeoutMillis = timeoutMillis;
+        this.retryMillis = retryMillis;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerUser = Math.max(1, maxConnectionsPerUser);
+        this.maxQueuedMessages = Math.max(1, maxQueuedMessages);
+        this.stallTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(stallTimeoutMillis);
+    }
+
+    /**
+     * 建立推送连接，连接后立即发送当前未读数
+     * 先登记连接再读取未读数，读取期间写入的消息也会推送，不会错过
+     * 同一用户的连接数超过上限时关闭最早的连接（如多个浏览器标签页）
+     * @param userId 用户ID
+     * @param unreadCount 读取当前未读数
+     * @return 推送连接
+     */
+    public SseEmitter subscribe(Long userId, LongSupplier unreadCount) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            refused.increment();
+            throw new IllegalStateException("推送连接数已达上限，请稍后重试");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        try {
+            // 处理方法返回前发送的事件先缓存，连接建立后立即写出
+            emitter.send(SseEmitter.event().reconnectTime(retryMillis).comment("connected"));
+        } catch (IOException e) {
+            connections.decrementAndGet();
+            throw new IllegalStateException("建立推送连接失败", e);
+        }
+
+        List<Subscriber> evicted = new ArrayList<>();
+        subscribers.compute(userId, (id, list) -> {
+            List<Subscriber> current = list != null ? list : new CopyOnWriteArrayList<>();
+            while (current.size() >= maxConnectionsPerUser) {
+                evicted.add(current.remove(0));
+            }
+            current.add(subscriber);
+            return current;
+        });
+        opened.increment();
+        evicted.forEach(old -> {
+            remove(old);
+            old.emitter.complete();
+        });
+
+        try {
+            // 登记后已有推送时保留推送的值
+            subscriber.unreadCount.compareAndSet(null, unreadCount.getAsLong());
+            schedule(subscriber);
+        } catch (RuntimeException e) {
+            remove(subscriber);
+            throw e;
+        }
+        return emitter;
+    }
+
+    /**
+     * 用户是否有推送连接，没有连接时调用方不必计算推送内容
+     */
+    public boolean isSubscribed(Long userId) {
+        return subscribers.containsKey(userId);
+    }
+
+    /**
+     * 推送新消息
+     * @param userId 接收者ID
+     * @param message 消息
+     */
+    public void pushMessage(Long userId, MessageDTO message) {
+        forEach(userId, subscriber -> {
+            if (subscriber.queued.incrementAndGet() > maxQueuedMessages) {
+                subscriber.queued.decrementAndGet();
+                subscriber.overflowed.set(true);
+                dropped.increment();
+            } else {
+                subscriber.messages.add(message);
+            }
+            schedule(subscriber);
+        });
+    }
+
+    /**
+     * 推送未读数，尚未发送的旧值被覆盖
+     * @param userId 用户ID
+     * @param unreadCount 未读数
+     */
+    public void pushUnreadCount(Long userId, long unreadCount) {
+        forEach(userId, subscriber -> {
+            subscriber.unreadCount.set(unreadCount);
+            schedule(subscriber);
+        });
+    }
+
+    /**
+     * 定期对所有连接发送心跳，移出发送卡住的连接
+     */
+    @Scheduled(fixedDelayString = "${app.messages.stream.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        subscribers.values().forEach(list -> list.forEach(subscriber -> {
+            long sendingSince = subscriber.sendingSince;
+            if (sendingSince != 0 && now - sendingSince > stallTimeoutNanos) {
+                // 发送线程阻塞在写操作上，不能在这里关闭连接，停止向它推送，写操作失败后由容器回收
+                stalled.increment();
+                remove(subscriber);
+                log.warn("用户 {} 的推送连接发送超时，已移除", subscriber.userId);
+                return;
+            }
+            subscriber.heartbeat.set(true);
+            schedule(subscriber);
+        }));
+    }
+
+    /**
+     * 应用关闭时关闭所有连接，客户端按 retry 间隔重连到其他实例
+     */
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(list -> list.forEach(subscriber -> {
+            try {
+                subscriber.emitter.complete();
+            } catch (RuntimeException e) {
+                log.debug("关闭推送连接失败: {}", e.getMessage());
+            }
+        }));
+        subscribers.clear();
+    }
+
+    private void forEach(Long userId, Consumer<Subscriber> action) {
+        List<Subscriber> list = subscribers.get(userId);
+        if (list != null) {
+            list.forEach(action);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.removed.compareAndSet(false, true)) {
+            return;
+        }
+        subscribers.computeIfPresent(subscriber.userId, (id, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+        connections.decrementAndGet();
+        closed.increment();
+    }
+
+    /**
+     * 每个连接同一时间最多有一个发送任务，任务被拒绝时待发送内容留在队列中，由下一次推送或心跳发送
+     */
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.removed.get() || !subscriber.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executorRegistry.executor(ExecutorRegistry.PUSH).execute(() -> flush(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.scheduled.set(false);
+            deferred.increment();
+        }
+    }
+
+    private void flush(Subscriber subscriber) {
+        subscriber.sendingSince = System.nanoTime();
+        try {
+            do {
+                boolean sent = false;
+                MessageDTO message;
+                while ((message = subscriber.messages.poll()) != null) {
+                    subscriber.queued.decrementAndGet();
+                    SseEmitter.SseEventBuilder event = SseEmitter.event().name("message").data(message);
+                    if (message.getId() != null) {
+                        event.id(String.valueOf(message.getId()));
+                    }
+                    send(subscriber, event);
+                    sent = true;
+                }
+                if (subscriber.overflowed.getAndSet(false)) {
+                    resyncs.increment();
+                    send(subscriber, SseEmitter.event().name("resync").data(""));
+                    sent = true;
+                }
+                Long unreadCount = subscriber.unreadCount.getAndSet(null);
+                if (unreadCount != null) {
+                    send(subscriber, SseEmitter.event().name("unread-count").data(unreadCount));
+                    sent = true;
+                }
+                if (subscriber.heartbeat.getAndSet(false) && !sent) {
+                    subscriber.emitter.send(SseEmitter.event().comment(HEARTBEAT));
+                    heartbeatsSent.increment();
+                }
+                subscriber.scheduled.set(false);
+                // 发送期间有新的推送时继续发送，否则由新的推送提交任务
+            } while (subscriber.hasPending() && subscriber.scheduled.compareAndSet(false, true));
+        } catch (IOException | IllegalStateException e) {
+            // 客户端已断开或连接已关闭
+            sendFailures.increment();
+            subscriber.scheduled.set(false);
+            remove(subscriber);
+            log.debug("向用户 {} 推送失败: {}", subscriber.userId, e.getMessage());
+        } finally {
+            subscriber.sendingSince = 0;
+        }
+    }
+
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.emitter.send(event);
+        eventsSent.increment();
+    }
+
+    /**
+     * 获取推送统计：当前连接数和用户数，建立/关闭/拒绝的连接数，发送的事件、心跳，丢弃和发送失败次数
+     * @return 统计数据
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connections.get());
+        stats.put("users", subscribers.size());
+        stats.put("maxConnections", maxConnections);
+        stats.put("opened", opened.sum());
+        stats.put("closed", closed.sum());
+        stats.put("refused", refused.sum());
+        stats.put("eventsSent", eventsSent.sum());
+        stats.put("heartbeatsSent", heartbeatsSent.sum());
+        stats.put("droppedMessages", dropped.sum());
+        stats.put("resyncs", resyncs.sum());
+        stats.put("deferred", deferred.sum());
+        stats.put("sendFailures", sendFailures.sum());
+        stats.put("stalled", stalled.sum());
+        return stats;
+    }
+
+    /**
+     * 一个推送连接及其待发送内容
+     */
+    private static final class Subscriber {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<MessageDTO> messages = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicReference<Long> unreadCount = new AtomicReference<>();
+        private final AtomicBoolean overflowed = new AtomicBoolean();
+        private final AtomicBoolean heartbeat = new AtomicBoolean();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean removed = new AtomicBoolean();
+        private volatile long sendingSince;
+
+        private Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private boolean hasPending() {
+            return !messages.isEmpty() || overflowed.get() || unreadCount.get() != null || heartbeat.get();
+        }
+    }
+}
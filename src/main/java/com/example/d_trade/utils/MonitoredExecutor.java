@@ -0,0 +1,195 @@
+package com.example.d_trade.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界、可观测的线程池
+ * 队列容量固定，队列满且线程数达到上限后按拒绝策略处理：ABORT 抛出异常由调用方处理，
+ * CALLER_RUNS 由提交任务的线程自己执行（反压，提交方变慢），DISCARD 丢弃（适合可合并的触发型任务）。
+ * 记录每个任务的排队时间和执行时间，以及提交、完成、失败、拒绝次数
+ */
+@Slf4j
+public class MonitoredExecutor implements Executor {
+
+    /**
+     * 队列已满时的处理方式
+     */
+    public enum Rejection {
+        ABORT, CALLER_RUNS, DISCARD
+    }
+
+    private final String name;
+    private final ThreadPoolExecutor pool;
+    private final int queueCapacity;
+    private final Rejection rejection;
+    private final boolean virtualThreads;
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram runTime = new LatencyHistogram();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param name 名称，同时作为线程名前缀
+     * @param coreSize 核心线程数
+     * @param maxSize 最大线程数，队列满后才会创建核心线程以外的线程
+     * @param queueCapacity 队列容量，0表示不排队
+     * @param keepAlive 核心线程以外的线程空闲多久后回收
+     * @param rejection 队列满时的处理方式
+     */
+    public MonitoredExecutor(String name, int coreSize, int maxSize, int queueCapacity, Duration keepAlive,
+                             Rejection rejection) {
+        this(name, coreSize, maxSize, queueCapacity, keepAlive, rejection, false);
+    }
+
+    /**
+     * @param virtualThreads 是否用虚拟线程执行任务，运行时不支持时使用平台线程。
+     *                       使用虚拟线程时线程数和队列仍然有效，maxSize 限制的是同时执行的任务数，
+     *                       避免大量任务同时占用数据库连接
+     */
+    public MonitoredExecutor(String name, int coreSize, int maxSize, int queueCapacity, Duration keepAlive,
+                             Rejection rejection, boolean virtualThreads) {
+        if (coreSize < 1 || maxSize < coreSize || queueCapacity < 0) {
+            throw new IllegalArgumentException("执行器 " + name + " 配置无效: coreSize=" + coreSize
+                    + ", maxSize=" + maxSize + ", queueCapacity=" + queueCapacity);
+        }
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.rejection = rejection;
+        this.virtualThreads = virtualThreads && VirtualThreads.isSupported();
+        BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        this.pool = new ThreadPoolExecutor(coreSize, maxSize, keepAlive.toMillis(), TimeUnit.MILLISECONDS, queue,
+                this.virtualThreads ? VirtualThreads.factory(name) : platformThreads(name),
+                (runnable, executor) -> reject(runnable));
+    }
+
+    private static ThreadFactory platformThreads(String name) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submitted.increment();
+        pool.execute(new TimedTask(task, System.nanoTime()));
+    }
+
+    private void reject(Runnable runnable) {
+        rejected.increment();
+        switch (rejection) {
+            case CALLER_RUNS -> {
+                if (!pool.isShutdown()) {
+                    runnable.run();
+                }
+            }
+            case DISCARD -> log.debug("执行器 {} 队列已满，丢弃任务", name);
+            default -> throw new RejectedExecutionException("执行器 " + name + " 队列已满");
+        }
+    }
+
+    /**
+     * 停止接收新任务，等待已提交的任务完成
+     * @param timeout 最长等待时间，超时后中断正在执行的任务
+     */
+    public void shutdown(Duration timeout) {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("执行器 {} 关闭超时，剩余 {} 个排队任务被丢弃", name, pool.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 获取执行器统计：线程数、队列深度、提交/完成/失败/拒绝次数，排队和执行耗时（毫秒）
+     * @return 统计数据
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("coreSize", pool.getCorePoolSize());
+        stats.put("maxSize", pool.getMaximumPoolSize());
+        stats.put("poolSize", pool.getPoolSize());
+        stats.put("activeThreads", pool.getActiveCount());
+        stats.put("largestPoolSize", pool.getLargestPoolSize());
+        stats.put("queueDepth", pool.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("rejection", rejection.name());
+        stats.put("virtualThreads", virtualThreads);
+        stats.put("submitted", submitted.sum());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("queueWait", describe(queueWait.snapshot()));
+        stats.put("runTime", describe(runTime.snapshot()));
+        return stats;
+    }
+
+    private static Map<String, Object> describe(LatencyHistogram.Snapshot snapshot) {
+        Map<String, Object> stat = new LinkedHashMap<>();
+        stat.put("count", snapshot.getTotalCount());
+        stat.put("p50", toMillis(snapshot.valueAtPercentile(50)));
+        stat.put("p99", toMillis(snapshot.valueAtPercentile(99)));
+        stat.put("max", toMillis(snapshot.getMaxNanos()));
+        return stat;
+    }
+
+    private static double toMillis(double nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    /**
+     * 记录排队和执行耗时的任务包装
+     */
+    private final class TimedTask implements Runnable {
+
+        private final Runnable task;
+        private final long submittedAt;
+
+        private TimedTask(Runnable task, long submittedAt) {
+            this.task = task;
+            this.submittedAt = submittedAt;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            queueWait.record(start - submittedAt);
+            try {
+                task.run();
+                completed.increment();
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("执行器 {} 的任务执行失败", name, e);
+            } finally {
+                runTime.record(System.nanoTime() - start);
+            }
+        }
+    }
+}
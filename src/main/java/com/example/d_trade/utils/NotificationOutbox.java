@@ -0,0 +1,417 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.MessageDTO;
+import com.example.d_trade.entity.Message;
+import com.example.d_trade.entity.OutboxNotification;
+import com.example.d_trade.repository.MessageRepository;
+import com.example.d_trade.repository.OutboxNotificationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 通知发件箱：业务操作在自己的事务中写入待发送的通知，提交后在 notification 执行器上批量写入 messages 表
+ * 通知和订单同时提交或同时回滚，进程在投递前退出也不会丢失，重启后继续投递；
+ * 一批通知在一个事务中用JDBC批量插入消息并删除发件箱记录，多个实例同时投递时用 FOR UPDATE 锁住同一批记录，不会重复发送。
+ * 提交后立即触发投递，另外按 poll-interval-ms 轮询其他实例写入或上次未投递完的记录。
+ * 投递的事务提交后增加接收者的未读数，并把新消息和未读数推送给已建立推送连接的用户。
+ * 关闭 app.notification.outbox.enabled 时不经过发件箱，消息在业务事务中直接写入 messages 表
+ */
+@Slf4j
+@Component
+public class NotificationOutbox {
+
+    private static final String SELECT_BATCH = "SELECT id, type, title, content, receiver_id, product_id, order_id, "
+            + "create_time FROM notification_outbox WHERE failed_time IS NULL ORDER BY id LIMIT ? FOR UPDATE";
+    private static final String SELECT_ONE = "SELECT id, type, title, content, receiver_id, product_id, order_id, "
+            + "create_time FROM notification_outbox WHERE id = ? AND failed_time IS NULL FOR UPDATE";
+    private static final String INSERT_MESSAGE = "INSERT INTO messages "
+            + "(type, title, content, is_read, receiver_id, product_id, order_id, create_time) "
+            + "VALUES (?, ?, ?, FALSE, ?, ?, ?, ?)";
+
+    private static final RowMapper<Pending> ROW_MAPPER = (rs, rowNum) -> new Pending(
+            rs.getLong("id"), rs.getString("type"), rs.getString("title"), rs.getString("content"),
+            rs.getLong("receiver_id"), rs.getObject("product_id", Long.class),
+            rs.getObject("order_id", Long.class), rs.getTimestamp("create_time").toLocalDateTime());
+
+    private final OutboxNotificationRepository outboxRepository;
+    private final MessageRepository messageRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorRegistry executorRegistry;
+    private final MessageStreamRegistry messageStream;
+    private final UnreadCountCache unreadCounts;
+    private final boolean enabled;
+    private final int batchSize;
+    private volatile boolean running;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong detached = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile int maxBatchSize;
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+
+    public NotificationOutbox(OutboxNotificationRepository outboxRepository, MessageRepository messageRepository,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager, ExecutorRegistry executorRegistry,
+                              MessageStreamRegistry messageStream, UnreadCountCache unreadCounts,
+                              @Value("${app.notification.outbox.enabled:true}") boolean enabled,
+                              @Value("${app.notification.outbox.batch-size:100}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.messageRepository = messageRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executorRegistry = executorRegistry;
+        this.messageStream = messageStream;
+        this.unreadCounts = unreadCounts;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * 写入一条待发送的通知，加入当前事务；提交后唤醒投递线程
+     * 关闭发件箱时直接保存消息，提交后更新未读数并推送
+     * @param message 未保存的消息，接收者必填，商品和订单可选
+     */
+    public void enqueue(Message message) {
+        if (!enabled) {
+            Message saved = messageRepository.save(message);
+            TransactionUtils.afterCommit(() -> {
+                enqueued.incrementAndGet();
+                delivered.incrementAndGet();
+                publish(List.of(new Delivered(saved.getReceiver().getId(), MessageDTO.fromEntity(saved))));
+            });
+            return;
+        }
+        outboxRepository.save(OutboxNotification.of(message));
+        TransactionUtils.afterCommit(() -> {
+            enqueued.incrementAndGet();
+            requestDrain();
+        });
+    }
+
+    /**
+     * 应用启动完成（表结构和初始化数据就绪）后开始投递，先投递上次关闭时未投递的通知
+     * 关闭发件箱时不启动投递，关闭前留在发件箱中的通知需要重新开启后才会投递
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        log.info("Notification outbox started: batchSize={}", batchSize);
+        requestDrain();
+    }
+
+    /**
+     * 停止投递，正在投递的批次由执行器关闭时等待完成，未投递的记录留在发件箱中下次启动时继续投递
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * 定期投递其他实例写入或上次失败未投递的通知
+     */
+    @Scheduled(fixedDelayString = "${app.notification.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        requestDrain();
+    }
+
+    /**
+     * 提交一次投递任务
+     * notification 执行器只有一个线程、队列容量为1，已有任务排队时新的请求被丢弃：排队的任务会取走所有已提交的通知
+     */
+    private void requestDrain() {
+        if (!running) {
+            return;
+        }
+        try {
+            executorRegistry.executor(ExecutorRegistry.NOTIFICATION).execute(this::drainAll);
+        } catch (RejectedExecutionException e) {
+            // 配置为 ABORT 时由下一次轮询投递，不影响已提交的业务事务
+            log.debug("投递任务被拒绝，等待下次轮询: {}", e.getMessage());
+        }
+    }
+
+    private void drainAll() {
+        try {
+            while (running && drain() >= batchSize) {
+                // 还有积压，继续投递下一批
+            }
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            log.warn("投递通知失败，等待下次轮询重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 投递一批通知：插入消息并删除发件箱记录
+     * 批次中有无法写入的记录时改为逐条投递：关联的商品或订单已被删除时去掉关联后投递，
+     * 仍然无法写入（如接收者已被删除）的记录标记为失败留在发件箱中，不再投递，也不阻塞后面的通知
+     * @return 本批处理的记录数
+     */
+    public int drain() {
+        List<Delivered> batch;
+        try {
+            batch = transactionTemplate.execute(status -> {
+                List<Pending> rows = jdbcTemplate.query(SELECT_BATCH, ROW_MAPPER, batchSize);
+                if (rows.isEmpty()) {
+                    return List.<Delivered>of();
+                }
+                List<Delivered> delivered = insertMessages(rows);
+                deleteOutbox(rows);
+                return delivered;
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.warn("批量投递通知失败，改为逐条投递: {}", e.getMessage());
+            return drainOneByOne();
+        }
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        recordDelivered(batch);
+        publish(batch);
+        return batch.size();
+    }
+
+    private int drainOneByOne() {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM notification_outbox WHERE failed_time IS NULL ORDER BY id LIMIT ?", Long.class, batchSize);
+        List<Delivered> delivered = new ArrayList<>();
+        for (Long id : ids) {
+            Delivered one;
+            try {
+                one = deliverOne(id, false);
+            } catch (DataIntegrityViolationException e) {
+                one = deliverWithoutReferences(id, e);
+            }
+            if (one != null) {
+                delivered.add(one);
+            }
+        }
+        // 每条记录的事务都已提交，再计入投递统计并推送
+        if (!delivered.isEmpty()) {
+            recordDelivered(delivered);
+        }
+        publish(delivered);
+        return ids.size();
+    }
+
+    /**
+     * 去掉商品和订单关联后重新投递，仍然失败时标记为失败
+     */
+    private Delivered deliverWithoutReferences(Long id, DataIntegrityViolationException cause) {
+        try {
+            Delivered one = deliverOne(id, true);
+            if (one != null) {
+                detached.incrementAndGet();
+                log.warn("通知关联的商品或订单已不存在，去掉关联后投递: id={}, {}", id, cause.getMessage());
+            }
+            return one;
+        } catch (DataIntegrityViolationException e) {
+            jdbcTemplate.update("UPDATE notification_outbox SET failed_time = ? WHERE id = ?",
+                    Timestamp.valueOf(LocalDateTime.now()), id);
+            failed.incrementAndGet();
+            log.error("通知无法投递，已标记为失败: id={}", id, e);
+            return null;
+        }
+    }
+
+    /**
+     * 在单独的事务中投递一条通知，写入失败时整个事务回滚，记录留在发件箱中
+     * @param id 发件箱记录ID
+     * @param withoutReferences 为true时不写入商品和订单关联
+     * @return 投递的消息，已被其他实例投递时为null
+     */
+    private Delivered deliverOne(Long id, boolean withoutReferences) {
+        return transactionTemplate.execute(status -> {
+            List<Pending> rows = jdbcTemplate.query(SELECT_ONE, ROW_MAPPER, id);
+            if (rows.isEmpty()) {
+                // 已被其他实例投递
+                return null;
+            }
+            List<Pending> pending = withoutReferences ? List.of(rows.get(0).withoutReferences()) : rows;
+            List<Delivered> inserted = insertMessages(pending);
+            deleteOutbox(rows);
+            return inserted.get(0);
+        });
+    }
+
+    /**
+     * 批量插入消息，返回带生成ID的消息用于推送
+     */
+    private List<Delivered> insertMessages(List<Pending> rows) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_MESSAGE, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setMessage(ps, rows.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<Delivered> delivered = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Long messageId = i < keys.size() ? ((Number) keys.get(i).values().iterator().next()).longValue() : null;
+            delivered.add(new Delivered(rows.get(i).receiverId(), rows.get(i).toMessage(messageId)));
+        }
+        return delivered;
+    }
+
+    private static void setMessage(PreparedStatement ps, Pending row) throws SQLException {
+        ps.setString(1, row.type());
+        ps.setString(2, row.title());
+        ps.setString(3, row.content());
+        ps.setLong(4, row.receiverId());
+        if (row.productId() != null) {
+            ps.setLong(5, row.productId());
+        } else {
+            ps.setNull(5, Types.BIGINT);
+        }
+        if (row.orderId() != null) {
+            ps.setLong(6, row.orderId());
+        } else {
+            ps.setNull(6, Types.BIGINT);
+        }
+        ps.setTimestamp(7, Timestamp.valueOf(row.createTime()));
+    }
+
+    private void deleteOutbox(List<Pending> rows) {
+        String placeholders = String.join(", ", Collections.nCopies(rows.size(), "?"));
+        jdbcTemplate.update("DELETE FROM notification_outbox WHERE id IN (" + placeholders + ")",
+                rows.stream().map(Pending::id).toArray());
+    }
+
+    private void recordDelivered(List<Delivered> rows) {
+        delivered.addAndGet(rows.size());
+        batches.incrementAndGet();
+        maxBatchSize = Math.max(maxBatchSize, rows.size());
+        // 批次中最早的通知从提交到写入消息表的延迟
+        lastLagMillis = Math.max(0, Duration.between(rows.get(0).message().getCreateTime(), LocalDateTime.now()).toMillis());
+        maxLagMillis = Math.max(maxLagMillis, lastLagMillis);
+    }
+
+    /**
+     * 投递提交后增加接收者的未读数，向已连接的接收者推送新消息和最新未读数
+     */
+    private void publish(List<Delivered> rows) {
+        Map<Long, List<MessageDTO>> byReceiver = rows.stream()
+                .collect(Collectors.groupingBy(Delivered::receiverId, LinkedHashMap::new,
+                        Collectors.mapping(Delivered::message, Collectors.toList())));
+        byReceiver.forEach((receiverId, messages) -> {
+            unreadCounts.adjust(receiverId, messages.size());
+            if (!messageStream.isSubscribed(receiverId)) {
+                return;
+            }
+            messages.forEach(message -> messageStream.pushMessage(receiverId, message));
+            try {
+                messageStream.pushUnreadCount(receiverId, unreadCounts.get(receiverId));
+            } catch (DataAccessException e) {
+                log.warn("查询用户 {} 的未读数失败: {}", receiverId, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 获取发件箱统计：积压数量、最早一条待投递通知的等待时间、投递批次和延迟
+     * @return 统计数据
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("running", running);
+        try {
+            Map<String, Object> pending = jdbcTemplate.queryForMap("SELECT COUNT(*) AS depth, MIN(create_time) AS oldest "
+                    + "FROM notification_outbox WHERE failed_time IS NULL");
+            stats.put("depth", ((Number) pending.get("depth")).longValue());
+            Object oldest = pending.get("oldest");
+            stats.put("oldestPendingMs", oldest instanceof Timestamp timestamp
+                    ? Math.max(0, Duration.between(timestamp.toLocalDateTime(), LocalDateTime.now()).toMillis()) : 0L);
+        } catch (DataAccessException e) {
+            stats.put("depth", -1L);
+            log.warn("查询发件箱积压失败: {}", e.getMessage());
+        }
+        long batchCount = batches.get();
+        stats.put("enqueued", enqueued.get());
+        stats.put("delivered", delivered.get());
+        stats.put("detached", detached.get());
+        stats.put("failed", failed.get());
+        stats.put("batches", batchCount);
+        stats.put("avgBatchSize", batchCount > 0 ? (double) delivered.get() / batchCount : 0.0);
+        stats.put("maxBatchSize", maxBatchSize);
+        stats.put("lastLagMs", lastLagMillis);
+        stats.put("maxLagMs", maxLagMillis);
+        stats.put("errors", errors.get());
+        return stats;
+    }
+
+    /**
+     * 发件箱中的一条通知
+     */
+    private record Pending(long id, String type, String title, String content, long receiverId, Long productId,
+                           Long orderId, LocalDateTime createTime) {
+
+        Pending withoutReferences() {
+            return new Pending(id, type, title, content, receiverId, null, null, createTime);
+        }
+
+        MessageDTO toMessage(Long messageId) {
+            MessageDTO message = new MessageDTO();
+            message.setId(messageId);
+            message.setType(Message.Type.valueOf(type));
+            message.setTitle(title);
+            message.setContent(content);
+            message.setRead(false);
+            message.setProductId(productId);
+            message.setOrderId(orderId);
+            message.setCreateTime(createTime);
+            return message;
+        }
+    }
+
+    /**
+     * 已写入消息表的通知
+     */
+    private record Delivered(long receiverId, MessageDTO message) {
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.d_trade.utils;
+
+import org.springframework.data.domain.Slice;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对象占用堆内存的估算，用于缓存按字节限制容量
+ * 按64位JVM、压缩指针估算对象头和引用，不追踪共享引用，结果只用于相对比较和容量控制，不是精确值
+ */
+public final class ObjectSizeEstimator {
+
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int MAX_DEPTH = 8;
+
+    /** 每个类需要递归估算的字段，反射结果只计算一次 */
+    private static final ClassValue<ClassLayout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected ClassLayout computeValue(Class<?> type) {
+            return ClassLayout.of(type);
+        }
+    };
+
+    private ObjectSizeEstimator() {
+    }
+
+    /**
+     * 估算对象及其引用的对象占用的字节数
+     * @param value 对象
+     * @return 字节数
+     */
+    public static long estimate(Object value) {
+        return estimate(value, 0);
+    }
+
+    private static long estimate(Object value, int depth) {
+        if (value == null || value instanceof Enum<?> || value instanceof Boolean || value instanceof Class<?>) {
+            // 枚举、Boolean和Class是共享实例
+            return 0;
+        }
+        if (value instanceof String string) {
+            // String对象 + byte[]，中文按UTF16每字符2字节
+            return OBJECT_HEADER + 8 + align(OBJECT_HEADER + (long) string.length() * (isLatin1(string) ? 1 : 2));
+        }
+        if (value instanceof BigDecimal || value instanceof BigInteger) {
+            return 40;
+        }
+        if (value instanceof Number || value instanceof Character) {
+            return OBJECT_HEADER;
+        }
+        if (value instanceof Temporal) {
+            // LocalDateTime = LocalDate + LocalTime
+            return 72;
+        }
+        if (depth >= MAX_DEPTH) {
+            return OBJECT_HEADER;
+        }
+        if (value instanceof Slice<?> slice) {
+            // Page/Slice 本身 + Pageable，主要是内容
+            return 64 + estimate(slice.getContent(), depth + 1);
+        }
+        if (value instanceof Collection<?> collection) {
+            long size = OBJECT_HEADER + 8 + align(OBJECT_HEADER + (long) collection.size() * REFERENCE);
+            for (Object element : collection) {
+                size += estimate(element, depth + 1);
+            }
+            return size;
+        }
+        if (value instanceof Map<?, ?> map) {
+            // 每个条目一个Node（头 + hash + key/value/next引用）加上table中的引用
+            long size = 48 + align(OBJECT_HEADER + (long) map.size() * 2 * REFERENCE) + map.size() * 32L;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1);
+            }
+            return size;
+        }
+        if (value.getClass().isArray()) {
+            return estimateArray(value, depth);
+        }
+        ClassLayout layout = LAYOUTS.get(value.getClass());
+        long size = layout.shallowSize;
+        for (Field field : layout.references) {
+            try {
+                size += estimate(field.get(value), depth + 1);
+            } catch (IllegalAccessException e) {
+                // 无法访问的字段只计引用本身
+            }
+        }
+        return size;
+    }
+
+    private static long estimateArray(Object array, int depth) {
+        if (array instanceof byte[] bytes) {
+            return align(OBJECT_HEADER + bytes.length);
+        }
+        if (array instanceof Object[] objects) {
+            long size = align(OBJECT_HEADER + (long) objects.length * REFERENCE);
+            for (Object element : objects) {
+                size += estimate(element, depth + 1);
+            }
+            return size;
+        }
+        // 其他基本类型数组按8字节一个元素的上限估算
+        return align(OBJECT_HEADER + (long) java.lang.reflect.Array.getLength(array) * 8);
+    }
+
+    private static boolean isLatin1(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * 类的浅层大小和需要递归的引用字段
+     */
+    private record ClassLayout(long shallowSize, List<Field> references) {
+
+        static ClassLayout of(Class<?> type) {
+            long size = OBJECT_HEADER;
+            List<Field> references = new ArrayList<>();
+            // 只展开本项目的类，JDK和第三方类型按浅层大小计算
+            boolean expand = type.getName().startsWith("com.example.");
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    Class<?> fieldType = field.getType();
+                    size += fieldType == long.class || fieldType == double.class ? 8 : REFERENCE;
+                    if (expand && !fieldType.isPrimitive() && field.trySetAccessible()) {
+                        references.add(field);
+                    }
+                }
+            }
+            return new ClassLayout(align(size), List.copyOf(references));
+        }
+    }
+}
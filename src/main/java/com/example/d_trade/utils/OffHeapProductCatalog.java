@@ -0,0 +1,814 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.ProductDTO;
+import com.example.d_trade.dto.ProductSummaryDTO;
+import com.example.d_trade.dto.UserDTO;
+import com.example.d_trade.dto.UserSummaryDTO;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 堆外商品目录：保存全部在售（AVAILABLE）商品，用于商品详情和无关键词的在售列表页（按发布时间倒序、按价格升序或降序）
+ * 数据都放在 ByteBuffer.allocateDirect 分配的堆外内存中，GC不需要扫描，堆内存不随商品数量增长：
+ * <ul>
+ *     <li>记录区：每个商品一条定长记录（ID、价格、卖家ID、发布和更新时间、变长数据的偏移和长度、状态），记录连续存放，删除时用最后一条填补空位；</li>
+ *     <li>数据区：标题、描述、交易地点、图片路径按UTF-8追加写入，更新后旧数据成为垃圾，垃圾过多时整体压缩；</li>
+ *     <li>ID索引：线性探测哈希表，ID -> 记录位置；</li>
+ *     <li>排序索引：按（发布时间, ID）和（价格, ID）升序排列的记录位置数组，列表页按偏移量直接定位第一条，
+ *     倒序时从尾部读取；写入时二分查找插入位置并整体移动后续元素。</li>
+ * </ul>
+ * 排序索引用有序数组而不是跳表：列表页按页码跳转，数组可以直接定位第 n 条，跳表需要逐个跳过前面的元素
+ * 卖家信息按卖家ID保存在堆内，数量远少于商品。读写使用读写锁，写操作在事务提交后执行
+ */
+@Slf4j
+@Component
+public class OffHeapProductCatalog {
+
+    static final int RECORD_BYTES = 56;
+    private static final int ID = 0;
+    private static final int PRICE = 8;
+    private static final int SELLER = 16;
+    private static final int CREATE_TIME = 24;
+    private static final int UPDATE_TIME = 32;
+    private static final int DATA_OFFSET = 40;
+    private static final int DATA_LENGTH = 44;
+    private static final int PRICE_SCALE = 48;
+    private static final int STATUS = 49;
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final Product.Status[] STATUSES = Product.Status.values();
+    /** 垃圾超过该大小且超过存活数据时压缩数据区 */
+    private static final long COMPACT_THRESHOLD_BYTES = 1 << 20;
+
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ByteBuffer records;
+    private int count;
+    private ByteBuffer data;
+    private int dataEnd;
+    private long garbageBytes;
+    private LongBuffer idKeys;
+    private IntBuffer idSlots;
+    private int idMask;
+    private final SortedSlots timeOrder = new SortedSlots(this::compareTime);
+    private final SortedSlots priceOrder = new SortedSlots(this::comparePrice);
+    private final Map<Long, Seller> sellers = new HashMap<>();
+    private volatile boolean ready;
+
+    private final AtomicLong productHits = new AtomicLong();
+    private final AtomicLong listingHits = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public OffHeapProductCatalog(@Value("${app.catalog.off-heap.enabled:false}") boolean enabled,
+                                 @Value("${app.catalog.off-heap.initial-capacity:10000}") int initialCapacity) {
+        this.enabled = enabled;
+        allocate(Math.max(16, initialCapacity));
+    }
+
+    /**
+     * 是否开启堆外目录
+     * @return 配置了 app.catalog.off-heap.enabled 时为true
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 是否已完成初始加载，未完成时所有查询回退到缓存和数据库
+     * @return 是否可用
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * 标记初始加载完成
+     */
+    public void markReady() {
+        ready = true;
+        log.info("Off-heap product catalog ready: {} products, {} bytes off-heap", size(), offHeapBytes());
+    }
+
+    /**
+     * 目录中的商品数量
+     * @return 商品数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 商品详情能否由目录提供，用于 getProductById 的 @Cacheable 条件：能提供时不再经过本地缓存
+     * @param id 商品ID
+     * @return 目录可用且包含该商品时为true
+     */
+    public boolean contains(Long id) {
+        if (!isReady() || id == null) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return find(id) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 列表查询能否由目录提供：无关键词、在售状态、按发布时间倒序或按价格排序的分页查询
+     * @param keyword 关键词
+     * @param status 状态参数
+     * @param sort 排序参数
+     * @param pageable 分页参数
+     * @return 能提供时为true
+     */
+    public boolean servesListing(String keyword, String status, String sort, Pageable pageable) {
+        return isReady() && pageable.isPaged()
+                && (keyword == null || keyword.isEmpty())
+                && (status == null || status.isEmpty() || Product.Status.AVAILABLE.name().equals(status))
+                && (sort == null || "newest".equals(sort) || "price_asc".equals(sort) || "price_desc".equals(sort));
+    }
+
+    /**
+     * 读取商品详情
+     * @param id 商品ID
+     * @return 商品详情，目录中没有时返回null
+     */
+    public ProductDTO getProduct(Long id) {
+        if (!isReady() || id == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            int slot = find(id);
+            if (slot < 0) {
+                return null;
+            }
+            productHits.incrementAndGet();
+            return toProduct(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 读取在售商品的一页
+     * @param sort 排序参数：price_asc、price_desc，其他值按发布时间倒序
+     * @param pageable 分页参数
+     * @return 商品列表页
+     */
+    public Page<ProductSummaryDTO> list(String sort, Pageable pageable) {
+        SortedSlots order = "price_asc".equals(sort) || "price_desc".equals(sort) ? priceOrder : timeOrder;
+        boolean descending = !"price_asc".equals(sort);
+        lock.readLock().lock();
+        try {
+            listingHits.incrementAndGet();
+            List<ProductSummaryDTO> content = new ArrayList<>(pageable.getPageSize());
+            long end = Math.min(count, pageable.getOffset() + pageable.getPageSize());
+            for (long index = pageable.getOffset(); index < end; index++) {
+                int position = (int) (descending ? count - 1 - index : index);
+                content.add(toSummary(order.get(position)));
+            }
+            return new PageImpl<>(content, pageable, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 商品保存后更新目录，存在事务时在提交后生效；不是在售状态的商品从目录移除
+     * @param product 商品
+     */
+    public void onProductSaved(Product product) {
+        if (!enabled) {
+            return;
+        }
+        // 卖家在事务内读取，其余字段在提交后读取（更新时间在flush时才写入）
+        UserDTO seller = UserDTO.fromEntity(product.getSeller());
+        TransactionUtils.afterCommit(() -> put(product, seller));
+    }
+
+    /**
+     * 商品状态变更后更新目录，存在事务时在提交后生效
+     * @param id 商品ID
+     * @param status 新状态
+     */
+    public void onStatusChanged(Long id, Product.Status status) {
+        if (enabled && status != Product.Status.AVAILABLE) {
+            TransactionUtils.afterCommit(() -> remove(id));
+        }
+    }
+
+    /**
+     * 商品删除后移出目录，存在事务时在提交后生效
+     * @param id 商品ID
+     */
+    public void onProductDeleted(Long id) {
+        if (enabled) {
+            TransactionUtils.afterCommit(() -> remove(id));
+        }
+    }
+
+    /**
+     * 用户资料或状态变更后更新卖家信息，存在事务时在提交后生效
+     * @param user 用户
+     */
+    public void onSellerChanged(User user) {
+        if (!enabled) {
+            return;
+        }
+        UserDTO seller = UserDTO.fromEntity(user);
+        TransactionUtils.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                Seller existing = sellers.get(seller.getId());
+                if (existing != null) {
+                    existing.user = seller;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * 写入或替换一个商品，不是在售状态时移除
+     * @param product 商品
+     * @param seller 卖家
+     */
+    public void put(Product product, UserDTO seller) {
+        if (product.getStatus() != Product.Status.AVAILABLE || seller == null) {
+            remove(product.getId());
+            return;
+        }
+        BigDecimal price = product.getPrice();
+        if (price == null || price.unscaledValue().bitLength() > 63 || price.scale() != (byte) price.scale()) {
+            // 超出定长记录能表示的范围，交给缓存和数据库
+            rejected.incrementAndGet();
+            remove(product.getId());
+            return;
+        }
+        byte[] encoded = encodeData(product.getTitle(), product.getDescription(), product.getTradeLocation(),
+                product.getImagePaths());
+
+        lock.writeLock().lock();
+        try {
+            long id = product.getId();
+            long createTime = toLong(product.getCreateTime());
+            int slot = find(id);
+            boolean reorderTime;
+            boolean reorderPrice;
+            if (slot >= 0) {
+                int base = recordOffset(slot);
+                garbageBytes += records.getInt(base + DATA_LENGTH);
+                releaseSeller(records.getLong(base + SELLER));
+                // 排序字段变化时先按旧值从索引中移除，写入新值后重新插入
+                reorderTime = records.getLong(base + CREATE_TIME) != createTime;
+                reorderPrice = records.getLong(base + PRICE) != price.unscaledValue().longValue()
+                        || records.get(base + PRICE_SCALE) != price.scale();
+                if (reorderTime) {
+                    timeOrder.remove(slot, count);
+                }
+                if (reorderPrice) {
+                    priceOrder.remove(slot, count);
+                }
+            } else {
+                ensureCapacity(count + 1);
+                slot = count++;
+                insertId(id, slot);
+                reorderTime = true;
+                reorderPrice = true;
+            }
+
+            int offset = appendData(encoded);
+            int base = recordOffset(slot);
+            records.putLong(base + ID, id);
+            records.putLong(base + PRICE, price.unscaledValue().longValue());
+            records.putLong(base + SELLER, seller.getId());
+            records.putLong(base + CREATE_TIME, createTime);
+            records.putLong(base + UPDATE_TIME, toLong(product.getUpdateTime()));
+            records.putInt(base + DATA_OFFSET, offset);
+            records.putInt(base + DATA_LENGTH, encoded.length);
+            records.put(base + PRICE_SCALE, (byte) price.scale());
+            records.put(base + STATUS, (byte) product.getStatus().ordinal());
+            if (reorderTime) {
+                timeOrder.insert(slot, count - 1);
+            }
+            if (reorderPrice) {
+                priceOrder.insert(slot, count - 1);
+            }
+            Seller entry = sellers.computeIfAbsent(seller.getId(), key -> new Seller());
+            entry.user = seller;
+            entry.products++;
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 从目录移除商品
+     * @param id 商品ID
+     */
+    public void remove(Long id) {
+        if (id == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int slot = find(id);
+            if (slot < 0) {
+                return;
+            }
+            int base = recordOffset(slot);
+            garbageBytes += records.getInt(base + DATA_LENGTH);
+            releaseSeller(records.getLong(base + SELLER));
+            timeOrder.remove(slot, count);
+            priceOrder.remove(slot, count);
+            deleteId(id);
+
+            // 用最后一条记录填补空位，记录区保持连续
+            int last = --count;
+            if (slot != last) {
+                long movedId = records.getLong(recordOffset(last) + ID);
+                int timePosition = timeOrder.search(count, last);
+                int pricePosition = priceOrder.search(count, last);
+                byte[] moved = new byte[RECORD_BYTES];
+                records.get(recordOffset(last), moved);
+                records.put(base, moved);
+                insertId(movedId, slot);
+                timeOrder.set(timePosition, slot);
+                priceOrder.set(pricePosition, slot);
+            }
+            if (count == 0) {
+                dataEnd = 0;
+                garbageBytes = 0;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 清空目录，重新加载前调用
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            allocate(records.capacity() / RECORD_BYTES);
+            sellers.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取目录统计
+     * @return 商品数、堆外内存占用、命中次数等
+     */
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("enabled", enabled);
+            stats.put("ready", ready);
+            stats.put("products", count);
+            stats.put("sellers", sellers.size());
+            stats.put("recordCapacity", records.capacity() / RECORD_BYTES);
+            stats.put("dataBytes", dataEnd);
+            stats.put("garbageBytes", garbageBytes);
+            stats.put("offHeapBytes", offHeapBytes());
+            stats.put("productHits", productHits.get());
+            stats.put("listingHits", listingHits.get());
+            stats.put("compactions", compactions.get());
+            stats.put("rejected", rejected.get());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long offHeapBytes() {
+        return (long) records.capacity() + data.capacity() + idKeys.capacity() * 8L
+                + idSlots.capacity() * 4L + timeOrder.bytes() + priceOrder.bytes();
+    }
+
+    // ---------------------------------------------------------------- 读取
+
+    private ProductDTO toProduct(int slot) {
+        int base = recordOffset(slot);
+        int position = records.getInt(base + DATA_OFFSET);
+        ProductDTO dto = new ProductDTO();
+        dto.setId(records.getLong(base + ID));
+        dto.setPrice(readPrice(base));
+        dto.setStatus(STATUSES[records.get(base + STATUS)]);
+        dto.setCreateTime(toTime(records.getLong(base + CREATE_TIME)));
+        dto.setUpdateTime(toTime(records.getLong(base + UPDATE_TIME)));
+        int[] cursor = {position};
+        dto.setTitle(readString(cursor));
+        dto.setDescription(readString(cursor));
+        dto.setTradeLocation(readString(cursor));
+        dto.setImagePaths(readImages(cursor));
+        UserDTO seller = sellers.get(records.getLong(base + SELLER)).user;
+        dto.setSeller(new UserDTO(seller.getId(), seller.getStudentId(), seller.getUsername(), seller.getNickname(),
+                seller.getContactInfo(), seller.isEnabled(), seller.getRole(), seller.getCreateTime()));
+        return dto;
+    }
+
+    private ProductSummaryDTO toSummary(int slot) {
+        int base = recordOffset(slot);
+        ProductSummaryDTO dto = new ProductSummaryDTO();
+        dto.setId(records.getLong(base + ID));
+        dto.setPrice(readPrice(base));
+        dto.setStatus(STATUSES[records.get(base + STATUS)]);
+        dto.setCreateTime(toTime(records.getLong(base + CREATE_TIME)));
+        dto.setUpdateTime(toTime(records.getLong(base + UPDATE_TIME)));
+        int[] cursor = {records.getInt(base + DATA_OFFSET)};
+        dto.setTitle(readString(cursor));
+        skipString(cursor);
+        dto.setTradeLocation(readString(cursor));
+        dto.setImagePaths(readImages(cursor));
+        UserDTO seller = sellers.get(records.getLong(base + SELLER)).user;
+        dto.setSeller(new UserSummaryDTO(seller.getId(), seller.getStudentId(), seller.getUsername(),
+                seller.getNickname()));
+        return dto;
+    }
+
+    private BigDecimal readPrice(int base) {
+        return BigDecimal.valueOf(records.getLong(base + PRICE), records.get(base + PRICE_SCALE));
+    }
+
+    private String readString(int[] cursor) {
+        int length = data.getInt(cursor[0]);
+        cursor[0] += 4;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.get(cursor[0], bytes);
+        cursor[0] += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void skipString(int[] cursor) {
+        int length = data.getInt(cursor[0]);
+        cursor[0] += 4 + Math.max(0, length);
+    }
+
+    private List<String> readImages(int[] cursor) {
+        int size = data.getInt(cursor[0]);
+        cursor[0] += 4;
+        List<String> images = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            images.add(readString(cursor));
+        }
+        return images;
+    }
+
+    private static LocalDateTime toTime(long value) {
+        if (value == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(value, NANOS_PER_SECOND),
+                (int) Math.floorMod(value, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+
+    private static long toLong(LocalDateTime time) {
+        if (time == null) {
+            return NULL_TIME;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * NANOS_PER_SECOND + time.getNano();
+    }
+
+    // ---------------------------------------------------------------- 数据区
+
+    private static byte[] encodeData(String title, String description, String tradeLocation, List<String> images) {
+        List<byte[]> parts = new ArrayList<>();
+        parts.add(utf8(title));
+        parts.add(utf8(description));
+        parts.add(utf8(tradeLocation));
+        List<String> paths = images != null ? images : List.of();
+        int size = 4 * (parts.size() + 1 + paths.size());
+        for (String path : paths) {
+            parts.add(utf8(path));
+        }
+        for (byte[] part : parts) {
+            size += part != null ? part.length : 0;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (int i = 0; i < 3; i++) {
+            putString(buffer, parts.get(i));
+        }
+        buffer.putInt(paths.size());
+        for (int i = 3; i < parts.size(); i++) {
+            putString(buffer, parts.get(i));
+        }
+        return buffer.array();
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private int appendData(byte[] encoded) {
+        if (data.capacity() - dataEnd < encoded.length) {
+            rebuildData(encoded.length);
+        }
+        int offset = dataEnd;
+        data.put(offset, encoded);
+        dataEnd += encoded.length;
+        return offset;
+    }
+
+    private void compactIfNeeded() {
+        if (garbageBytes > COMPACT_THRESHOLD_BYTES && garbageBytes > dataEnd - garbageBytes) {
+            rebuildData(0);
+        }
+    }
+
+    /**
+     * 只复制存活记录的数据到新的数据区，空间不够时同时扩容
+     */
+    private void rebuildData(int extra) {
+        long live = dataEnd - garbageBytes;
+        long required = live + extra;
+        long capacity = data.capacity();
+        while (capacity < required * 2 && capacity < Integer.MAX_VALUE / 2) {
+            capacity *= 2;
+        }
+        if (required > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("堆外商品目录数据区已满");
+        }
+        ByteBuffer target = ByteBuffer.allocateDirect((int) Math.max(capacity, required));
+        int end = 0;
+        for (int slot = 0; slot < count; slot++) {
+            int base = recordOffset(slot);
+            int offset = records.getInt(base + DATA_OFFSET);
+            int length = records.getInt(base + DATA_LENGTH);
+            target.put(end, data, offset, length);
+            records.putInt(base + DATA_OFFSET, end);
+            end += length;
+        }
+        data = target;
+        dataEnd = end;
+        garbageBytes = 0;
+        compactions.incrementAndGet();
+    }
+
+    // ---------------------------------------------------------------- ID索引
+
+    private static int hash(long id) {
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+    }
+
+    private int find(long id) {
+        int index = hash(id) & idMask;
+        while (true) {
+            long key = idKeys.get(index);
+            if (key == 0) {
+                return -1;
+            }
+            if (key == id) {
+                return idSlots.get(index);
+            }
+            index = (index + 1) & idMask;
+        }
+    }
+
+    private void insertId(long id, int slot) {
+        int index = hash(id) & idMask;
+        while (idKeys.get(index) != 0 && idKeys.get(index) != id) {
+            index = (index + 1) & idMask;
+        }
+        idKeys.put(index, id);
+        idSlots.put(index, slot);
+    }
+
+    /**
+     * 线性探测删除：把后续同一探测链上的键前移，不留删除标记
+     */
+    private void deleteId(long id) {
+        int hole = hash(id) & idMask;
+        while (idKeys.get(hole) != id) {
+            if (idKeys.get(hole) == 0) {
+                return;
+            }
+            hole = (hole + 1) & idMask;
+        }
+        int index = hole;
+        while (true) {
+            index = (index + 1) & idMask;
+            long key = idKeys.get(index);
+            if (key == 0) {
+                break;
+            }
+            int home = hash(key) & idMask;
+            boolean between = hole <= index ? hole < home && home <= index : hole < home || home <= index;
+            if (!between) {
+                idKeys.put(hole, key);
+                idSlots.put(hole, idSlots.get(index));
+                hole = index;
+            }
+        }
+        idKeys.put(hole, 0);
+    }
+
+    // ---------------------------------------------------------------- 排序索引
+
+    private int compareTime(int left, int right) {
+        int leftBase = recordOffset(left);
+        int rightBase = recordOffset(right);
+        int result = Long.compare(records.getLong(leftBase + CREATE_TIME), records.getLong(rightBase + CREATE_TIME));
+        return result != 0 ? result : Long.compare(records.getLong(leftBase + ID), records.getLong(rightBase + ID));
+    }
+
+    private int comparePrice(int left, int right) {
+        int leftBase = recordOffset(left);
+        int rightBase = recordOffset(right);
+        // 价格来自 DECIMAL(10,2) 列，精度相同时直接比较未缩放的值
+        int result = records.get(leftBase + PRICE_SCALE) == records.get(rightBase + PRICE_SCALE)
+                ? Long.compare(records.getLong(leftBase + PRICE), records.getLong(rightBase + PRICE))
+                : readPrice(leftBase).compareTo(readPrice(rightBase));
+        return result != 0 ? result : Long.compare(records.getLong(leftBase + ID), records.getLong(rightBase + ID));
+    }
+
+    /**
+     * 记录位置之间的比较，（排序字段, ID）唯一，相等即同一条记录
+     */
+    @FunctionalInterface
+    private interface SlotComparator {
+        int compare(int left, int right);
+    }
+
+    /**
+     * 按比较规则升序排列的记录位置数组，比较时读取记录区中的当前值
+     */
+    private static final class SortedSlots {
+
+        private final SlotComparator comparator;
+        private IntBuffer slots;
+
+        SortedSlots(SlotComparator comparator) {
+            this.comparator = comparator;
+        }
+
+        void allocate(int capacity) {
+            slots = ByteBuffer.allocateDirect(capacity * 4).asIntBuffer();
+        }
+
+        void grow(int capacity, int size) {
+            IntBuffer grown = ByteBuffer.allocateDirect(capacity * 4).asIntBuffer();
+            grown.put(0, slots, 0, size);
+            slots = grown;
+        }
+
+        long bytes() {
+            return slots.capacity() * 4L;
+        }
+
+        int get(int position) {
+            return slots.get(position);
+        }
+
+        void set(int position, int slot) {
+            slots.put(position, slot);
+        }
+
+        /**
+         * 在前 size 项中二分查找记录
+         * @return 找到时为位置，否则为 -(插入位置) - 1
+         */
+        int search(int size, int slot) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = comparator.compare(slots.get(mid), slot);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        /**
+         * 插入记录，调用前数组中有 size 项；新发布的商品通常在末尾，移动的元素很少
+         */
+        void insert(int slot, int size) {
+            int position = -search(size, slot) - 1;
+            slots.put(position + 1, slots, position, size - position);
+            slots.put(position, slot);
+        }
+
+        /**
+         * 移除记录，调用前数组中有 size 项
+         */
+        void remove(int slot, int size) {
+            int position = search(size, slot);
+            slots.put(position, slots, position + 1, size - 1 - position);
+        }
+    }
+
+    // ---------------------------------------------------------------- 空间管理
+
+    private static int recordOffset(int slot) {
+        return slot * RECORD_BYTES;
+    }
+
+    private void allocate(int capacity) {
+        records = ByteBuffer.allocateDirect(capacity * RECORD_BYTES);
+        data = ByteBuffer.allocateDirect(capacity * 128);
+        timeOrder.allocate(capacity);
+        priceOrder.allocate(capacity);
+        allocateIdIndex(capacity);
+        count = 0;
+        dataEnd = 0;
+        garbageBytes = 0;
+    }
+
+    private void allocateIdIndex(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(16, capacity) * 2 - 1) << 1;
+        idKeys = ByteBuffer.allocateDirect(tableSize * 8).asLongBuffer();
+        idSlots = ByteBuffer.allocateDirect(tableSize * 4).asIntBuffer();
+        idMask = tableSize - 1;
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = records.capacity() / RECORD_BYTES;
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(required, capacity * 2);
+        ByteBuffer newRecords = ByteBuffer.allocateDirect(newCapacity * RECORD_BYTES);
+        newRecords.put(0, records, 0, count * RECORD_BYTES);
+        records = newRecords;
+
+        timeOrder.grow(newCapacity, count);
+        priceOrder.grow(newCapacity, count);
+
+        // 负载因子保持在0.5以下
+        allocateIdIndex(newCapacity);
+        for (int slot = 0; slot < count; slot++) {
+            insertId(records.getLong(recordOffset(slot) + ID), slot);
+        }
+    }
+
+    private void releaseSeller(long sellerId) {
+        Seller seller = sellers.get(sellerId);
+        if (seller != null && --seller.products <= 0) {
+            sellers.remove(sellerId);
+        }
+    }
+
+    /**
+     * 卖家信息和在目录中的商品数
+     */
+    private static final class Seller {
+        private UserDTO user;
+        private int products;
+    }
+}
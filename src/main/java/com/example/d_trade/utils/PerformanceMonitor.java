@@ -3,131 +3,290 @@ package com.example.d_trade.utils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
 /**
  * 性能监控工具类
- * 用于记录方法执行时间和资源使用情况
+ * 用于记录方法执行时间，每个方法一个纳秒精度的延迟直方图，可以查看p50/p90/p99/p999
+ * 另外按1秒和1分钟两种时间片各保留60个，用于查看最近1分钟/5分钟/1小时的吞吐量、错误率和百分位数
  */
 @Slf4j
 @Component
 public class PerformanceMonitor {
 
-    private final Map<String, MethodStats> methodStatsMap = new ConcurrentHashMap<>();
+    /** 时间片直方图使用较低精度（相对误差约6%），减少每个方法120个时间片的内存占用 */
+    private static final int WINDOW_SUB_BUCKET_BITS = 5;
+    /** 时间片直方图只记录到60秒，更慢的调用按60秒计入窗口百分位，完整范围由累计直方图保留 */
+    private static final long WINDOW_MAX_TRACKABLE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final Map<String, MethodMetrics> methodStatsMap = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    /** 每次重置加一，用于让调用方缓存的指标对象失效 */
+    private final AtomicInteger generation = new AtomicInteger();
+
+    public PerformanceMonitor() {
+        this(System::currentTimeMillis);
+    }
+
+    PerformanceMonitor(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * 统计时间窗口
+     */
+    public enum Window {
+        ONE_MINUTE("1m", false, 60),
+        FIVE_MINUTES("5m", true, 5),
+        ONE_HOUR("1h", true, 60);
+
+        private final String label;
+        private final boolean minuteSlots;
+        private final int slotCount;
+
+        Window(String label, boolean minuteSlots, int slotCount) {
+            this.label = label;
+            this.minuteSlots = minuteSlots;
+            this.slotCount = slotCount;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * 按标签解析时间窗口
+         * @param label 1m、5m 或 1h
+         * @return 时间窗口
+         */
+        public static Window of(String label) {
+            return Arrays.stream(values())
+                    .filter(window -> window.label.equalsIgnoreCase(label))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("不支持的时间窗口: " + label));
+        }
+    }
 
     /**
      * 记录方法开始执行的时间
      * @param methodName 方法名称
-     * @return 开始时间戳
+     * @return 开始时间（System.nanoTime）
      */
     public long start(String methodName) {
-        long startTime = System.currentTimeMillis();
-        log.debug("Method {} started at {}", methodName, startTime);
+        long startTime = System.nanoTime();
+        log.debug("Method {} started", methodName);
         return startTime;
     }
 
     /**
      * 记录方法结束执行的时间并计算执行时间
      * @param methodName 方法名称
-     * @param startTime 开始时间戳
+     * @param startTime {@link #start(String)} 返回的开始时间
      * @return 执行时间（毫秒）
      */
     public long end(String methodName, long startTime) {
-        long endTime = System.currentTimeMillis();
-        long executionTime = endTime - startTime;
-        
-        // 更新方法统计信息
-        methodStatsMap.computeIfAbsent(methodName, k -> new MethodStats())
-                      .addExecution(executionTime);
-        
+        return end(methodName, startTime, false);
+    }
+
+    /**
+     * 记录方法结束执行的时间并计算执行时间
+     * @param methodName 方法名称
+     * @param startTime {@link #start(String)} 返回的开始时间
+     * @param failed 方法是否抛出异常
+     * @return 执行时间（毫秒）
+     */
+    public long end(String methodName, long startTime, boolean failed) {
+        long executionNanos = System.nanoTime() - startTime;
+        record(methodName, executionNanos, failed);
+
+        long executionTime = TimeUnit.NANOSECONDS.toMillis(executionNanos);
         log.debug("Method {} ended. Execution time: {} ms", methodName, executionTime);
         return executionTime;
     }
 
     /**
-     * 获取所有方法的统计信息
+     * 记录一次方法执行耗时
+     * @param methodName 方法名称
+     * @param executionNanos 执行时间（纳秒）
+     * @param failed 方法是否抛出异常
+     */
+    public void record(String methodName, long executionNanos, boolean failed) {
+        getMetrics(methodName).record(executionNanos, failed, 1);
+    }
+
+    /**
+     * 获取方法的指标对象，调用方可以缓存后直接记录，省去每次按方法名查找
+     * 缓存的对象在 {@link #reset()} 之后失效，需要用 {@link #isCurrent(MethodMetrics)} 判断后重新获取
+     * @param methodName 方法名称
+     * @return 指标对象
+     */
+    public MethodMetrics getMetrics(String methodName) {
+        return methodStatsMap.computeIfAbsent(methodName, k -> new MethodMetrics(clock, generation.get()));
+    }
+
+    /**
+     * 判断缓存的指标对象是否仍然有效
+     * @param metrics 指标对象
+     * @return 上次重置之后获取的返回true
+     */
+    public boolean isCurrent(MethodMetrics metrics) {
+        return metrics.generation == generation.get();
+    }
+
+    /**
+     * 获取所有方法自启动（或上次重置）以来的统计信息，时间单位为毫秒
      * @return 方法统计信息映射
      */
     public Map<String, Map<String, Object>> getMethodStats() {
         Map<String, Map<String, Object>> stats = new HashMap<>();
-        
-        methodStatsMap.forEach((methodName, methodStats) -> {
-            Map<String, Object> stat = new HashMap<>();
-            stat.put("totalExecutions", methodStats.getTotalExecutions());
-            stat.put("totalExecutionTime", methodStats.getTotalExecutionTime());
-            stat.put("averageExecutionTime", methodStats.getAverageExecutionTime());
-            stat.put("maxExecutionTime", methodStats.getMaxExecutionTime());
-            stat.put("minExecutionTime", methodStats.getMinExecutionTime());
-            
+        methodStatsMap.forEach((methodName, metrics) -> {
+            Map<String, Object> stat = describe(metrics.lifetime.snapshot());
+            stat.put("errorCount", metrics.lifetimeErrors.sum());
             stats.put(methodName, stat);
         });
-        
         return stats;
     }
 
+    /**
+     * 获取所有方法在最近一个时间窗口内的统计信息，不需要重置，也不影响其他人查看的数据
+     * 窗口内没有调用的方法不返回
+     * @param window 时间窗口
+     * @return 方法统计信息映射，额外包含吞吐量（次/秒）和错误率
+     */
+    public Map<String, Map<String, Object>> getWindowStats(Window window) {
+        return windowStats(window.minuteSlots, window.slotCount);
+    }
+
+    /**
+     * 获取所有方法在最近若干秒内的统计信息
+     * 60秒以内按秒级时间片统计，更长的按分钟级时间片向上取整，最长1小时
+     * @param seconds 秒数
+     * @return 方法统计信息映射
+     */
+    public Map<String, Map<String, Object>> getRecentStats(long seconds) {
+        boolean minuteSlots = seconds > 60;
+        int slotCount = (int) Math.min(60, minuteSlots ? (seconds + 59) / 60 : Math.max(1, seconds));
+        return windowStats(minuteSlots, slotCount);
+    }
+
+    private Map<String, Map<String, Object>> windowStats(boolean minuteSlots, int slotCount) {
+        Map<String, Map<String, Object>> stats = new HashMap<>();
+        methodStatsMap.forEach((methodName, metrics) -> {
+            SlidingWindowMetrics.Window data = metrics.window(minuteSlots, slotCount);
+            if (data.snapshot().getTotalCount() > 0) {
+                stats.put(methodName, describe(data));
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * 获取所有方法的直方图快照（可合并格式），用于汇总多个实例或离线分析
+     * @return 方法名到快照数据的映射
+     */
+    public Map<String, Map<String, Object>> getHistogramSnapshots() {
+        Map<String, Map<String, Object>> snapshots = new HashMap<>();
+        methodStatsMap.forEach((methodName, metrics) -> snapshots.put(methodName, metrics.lifetime.snapshot().toMap()));
+        return snapshots;
+    }
+
+    /**
+     * 获取单个方法的直方图快照
+     * @param methodName 方法名称
+     * @return 快照，未记录过时为空快照
+     */
+    public LatencyHistogram.Snapshot getSnapshot(String methodName) {
+        MethodMetrics metrics = methodStatsMap.get(methodName);
+        return metrics != null ? metrics.lifetime.snapshot() : LatencyHistogram.Snapshot.empty();
+    }
+
+    /**
+     * 把快照转换为展示用的统计数据
+     * @param snapshot 直方图快照
+     * @return 次数、总耗时、平均值、最值和百分位数（毫秒）
+     */
+    public static Map<String, Object> describe(LatencyHistogram.Snapshot snapshot) {
+        Map<String, Object> stat = new LinkedHashMap<>();
+        stat.put("totalExecutions", snapshot.getTotalCount());
+        stat.put("totalExecutionTime", toMillis(snapshot.getTotalNanos()));
+        stat.put("averageExecutionTime", toMillis(snapshot.getMeanNanos()));
+        stat.put("minExecutionTime", toMillis(snapshot.getMinNanos()));
+        stat.put("p50", toMillis(snapshot.valueAtPercentile(50)));
+        stat.put("p90", toMillis(snapshot.valueAtPercentile(90)));
+        stat.put("p99", toMillis(snapshot.valueAtPercentile(99)));
+        stat.put("p999", toMillis(snapshot.valueAtPercentile(99.9)));
+        stat.put("maxExecutionTime", toMillis(snapshot.getMaxNanos()));
+        return stat;
+    }
+
+    private static Map<String, Object> describe(SlidingWindowMetrics.Window window) {
+        Map<String, Object> stat = describe(window.snapshot());
+        stat.put("errorCount", window.errors());
+        stat.put("errorRate", window.getErrorRate());
+        stat.put("throughputPerSecond", Math.round(window.getThroughputPerSecond() * 100) / 100.0);
+        stat.put("windowSeconds", window.elapsedMillis() / 1000.0);
+        return stat;
+    }
+
+    /**
+     * 纳秒转换为毫秒，保留到微秒
+     */
+    private static double toMillis(double nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
     /**
      * 重置统计信息
      */
     public void reset() {
+        generation.incrementAndGet();
         methodStatsMap.clear();
         log.info("Performance statistics reset");
     }
 
     /**
-     * 方法统计信息类
-     */
-    private static class MethodStats {
-        private final AtomicLong totalExecutions = new AtomicLong(0);
-        private final AtomicLong totalExecutionTime = new AtomicLong(0);
-        private final AtomicLong maxExecutionTime = new AtomicLong(0);
-        private final AtomicLong minExecutionTime = new AtomicLong(Long.MAX_VALUE);
-
-        public void addExecution(long executionTime) {
-            totalExecutions.incrementAndGet();
-            totalExecutionTime.addAndGet(executionTime);
-            
-            // 更新最大执行时间
-            long currentMax;
-            do {
-                currentMax = maxExecutionTime.get();
-                if (executionTime <= currentMax) {
-                    break;
-                }
-            } while (!maxExecutionTime.compareAndSet(currentMax, executionTime));
-            
-            // 更新最小执行时间
-            long currentMin;
-            do {
-                currentMin = minExecutionTime.get();
-                if (executionTime >= currentMin) {
-                    break;
-                }
-            } while (!minExecutionTime.compareAndSet(currentMin, executionTime));
-        }
-
-        public long getTotalExecutions() {
-            return totalExecutions.get();
-        }
-
-        public long getTotalExecutionTime() {
-            return totalExecutionTime.get();
-        }
+     * 单个方法的指标：累计直方图 + 秒级、分钟级两个滑动窗口
+     */
+    public static final class MethodMetrics {
+        private final int generation;
+        private final LatencyHistogram lifetime = new LatencyHistogram();
+        private final LongAdder lifetimeErrors = new LongAdder();
+        private final SlidingWindowMetrics seconds;
+        private final SlidingWindowMetrics minutes;
 
-        public double getAverageExecutionTime() {
-            long executions = totalExecutions.get();
-            return executions > 0 ? (double) totalExecutionTime.get() / executions : 0;
+        MethodMetrics(LongSupplier clock, int generation) {
+            this.generation = generation;
+            this.seconds = new SlidingWindowMetrics(1_000, 60, WINDOW_SUB_BUCKET_BITS,
+                    WINDOW_MAX_TRACKABLE_NANOS, clock);
+            this.minutes = new SlidingWindowMetrics(60_000, 60, WINDOW_SUB_BUCKET_BITS,
+                    WINDOW_MAX_TRACKABLE_NANOS, clock);
         }
 
-        public long getMaxExecutionTime() {
-            return maxExecutionTime.get();
+        /**
+         * 记录一次执行
+         * @param nanos 执行时间（纳秒）
+         * @param failed 是否抛出异常
+         * @param weight 抽样权重，即这次记录代表的调用次数
+         */
+        public void record(long nanos, boolean failed, long weight) {
+            lifetime.record(nanos, weight);
+            if (failed) {
+                lifetimeErrors.add(weight);
+            }
+            seconds.record(nanos, failed, weight);
+            minutes.record(nanos, failed, weight);
         }
 
-        public long getMinExecutionTime() {
-            long min = minExecutionTime.get();
-            return min == Long.MAX_VALUE ? 0 : min;
+        SlidingWindowMetrics.Window window(boolean minuteSlots, int slotCount) {
+            return (minuteSlots ? minutes : seconds).window(slotCount);
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,275 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.projection.ProductFacetProjection;
+import com.example.d_trade.dto.request.ProductFilter;
+import com.example.d_trade.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品分面计数：按状态统计每个价格区间、每个交易地点的商品数
+ * 启动时全量构建，之后在商品写操作提交后增量更新，查询分面时不再对数据库执行 GROUP BY。
+ * 每个商品记住自己计入的状态、价格区间和地点，状态变更和删除只凭ID就能减去原来的计数
+ */
+@Slf4j
+@Component
+public class ProductFacetCounter {
+
+    /** 未填写交易地点的商品只计入价格区间 */
+    private static final String NO_LOCATION = "";
+
+    /** 价格区间的分界点，升序；第 i 个区间为 [boundaries[i-1], boundaries[i]) */
+    private final BigDecimal[] boundaries;
+    private final int maxLocations;
+
+    private final Map<Long, Facet> products = new HashMap<>();
+    /** 状态 -> 交易地点 -> 各价格区间的商品数 */
+    private final Map<Product.Status, Map<String, long[]>> counts = new EnumMap<>(Product.Status.class);
+    private volatile boolean ready;
+
+    public ProductFacetCounter(
+            @Value("${app.facets.price-buckets:10,50,100,200,500,1000}") List<BigDecimal> boundaries,
+            @Value("${app.facets.max-locations:20}") int maxLocations) {
+        this.boundaries = boundaries.stream().sorted().distinct().toArray(BigDecimal[]::new);
+        this.maxLocations = maxLocations;
+    }
+
+    /**
+     * 是否已完成初始构建
+     * @return 是否可用
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 标记初始构建完成
+     */
+    public void markReady() {
+        ready = true;
+        log.info("Product facet counts ready: {} products, price buckets {}", size(), Arrays.toString(boundaries));
+    }
+
+    /**
+     * 已计数的商品数量
+     * @return 商品数量
+     */
+    public synchronized int size() {
+        return products.size();
+    }
+
+    /**
+     * 商品保存后更新计数，存在事务时在提交后生效
+     * @param product 商品
+     */
+    public void onProductSaved(Product product) {
+        Long id = product.getId();
+        Product.Status status = product.getStatus();
+        BigDecimal price = product.getPrice();
+        String tradeLocation = product.getTradeLocation();
+        TransactionUtils.afterCommit(() -> put(id, status, price, tradeLocation));
+    }
+
+    /**
+     * 商品状态变更后更新计数，存在事务时在提交后生效
+     * @param id 商品ID
+     * @param status 新状态
+     */
+    public void onStatusChanged(Long id, Product.Status status) {
+        TransactionUtils.afterCommit(() -> updateStatus(id, status));
+    }
+
+    /**
+     * 商品删除后减去计数，存在事务时在提交后生效
+     * @param id 商品ID
+     */
+    public void onProductDeleted(Long id) {
+        TransactionUtils.afterCommit(() -> remove(id));
+    }
+
+    /**
+     * 用投影行计数（启动时全量构建使用）
+     * @param row 商品投影
+     */
+    public void add(ProductFacetProjection row) {
+        put(row.getId(), row.getStatus(), row.getPrice(), row.getTradeLocation());
+    }
+
+    /**
+     * 写入或覆盖一个商品的计数
+     */
+    public synchronized void put(Long id, Product.Status status, BigDecimal price, String tradeLocation) {
+        Facet facet = new Facet(status, bucketOf(price), locationKey(tradeLocation));
+        Facet previous = products.put(id, facet);
+        if (previous != null) {
+            decrement(previous);
+        }
+        increment(facet);
+    }
+
+    /**
+     * 更新商品状态
+     */
+    public synchronized void updateStatus(Long id, Product.Status status) {
+        Facet previous = products.get(id);
+        if (previous == null || previous.status() == status) {
+            return;
+        }
+        Facet facet = new Facet(status, previous.bucket(), previous.location());
+        products.put(id, facet);
+        decrement(previous);
+        increment(facet);
+    }
+
+    /**
+     * 移除一个商品的计数
+     */
+    public synchronized void remove(Long id) {
+        Facet previous = products.remove(id);
+        if (previous != null) {
+            decrement(previous);
+        }
+    }
+
+    /**
+     * 清空计数，重建前调用
+     */
+    public synchronized void clear() {
+        ready = false;
+        products.clear();
+        counts.clear();
+    }
+
+    /**
+     * 获取某个状态下的分面计数
+     * 每个分面不使用自身的筛选条件：价格区间计数按交易地点筛选，交易地点计数不受价格筛选影响
+     * （计数按区间聚合，任意价格范围无法精确拆分）
+     * @param status 商品状态
+     * @param filter 筛选条件
+     * @return 各状态商品数、价格区间计数、交易地点计数（按数量倒序，最多 max-locations 个）
+     */
+    public synchronized Map<String, Object> getFacets(Product.Status status, ProductFilter filter) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ready", ready);
+
+        Map<String, Long> statuses = new LinkedHashMap<>();
+        for (Product.Status each : Product.Status.values()) {
+            statuses.put(each.name(), total(counts.get(each)));
+        }
+        result.put("statuses", statuses);
+
+        Map<String, long[]> byLocation = counts.getOrDefault(status, Map.of());
+        long[] buckets = new long[boundaries.length + 1];
+        byLocation.forEach((location, values) -> {
+            if (filter.tradeLocation() == null || filter.tradeLocation().equals(location)) {
+                for (int i = 0; i < values.length; i++) {
+                    buckets[i] += values[i];
+                }
+            }
+        });
+        List<Map<String, Object>> priceRanges = new ArrayList<>();
+        for (int i = 0; i < buckets.length; i++) {
+            Map<String, Object> range = new LinkedHashMap<>();
+            // 第一个区间没有下限，最后一个区间没有上限；区间包含下限、不包含上限
+            if (i > 0) {
+                range.put("min", boundaries[i - 1]);
+            }
+            if (i < boundaries.length) {
+                range.put("max", boundaries[i]);
+            }
+            range.put("count", buckets[i]);
+            priceRanges.add(range);
+        }
+        result.put("priceRanges", priceRanges);
+
+        List<Map<String, Object>> locations = new ArrayList<>();
+        byLocation.entrySet().stream()
+                .filter(entry -> !NO_LOCATION.equals(entry.getKey()))
+                .map(entry -> Map.entry(entry.getKey(), sum(entry.getValue())))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(maxLocations)
+                .forEach(entry -> {
+                    Map<String, Object> location = new LinkedHashMap<>();
+                    location.put("location", entry.getKey());
+                    location.put("count", entry.getValue());
+                    locations.add(location);
+                });
+        result.put("locations", locations);
+        return result;
+    }
+
+    private void increment(Facet facet) {
+        counts.computeIfAbsent(facet.status(), k -> new HashMap<>())
+                .computeIfAbsent(facet.location(), k -> new long[boundaries.length + 1])[facet.bucket()]++;
+    }
+
+    private void decrement(Facet facet) {
+        Map<String, long[]> byLocation = counts.get(facet.status());
+        long[] values = byLocation != null ? byLocation.get(facet.location()) : null;
+        if (values == null) {
+            return;
+        }
+        values[facet.bucket()]--;
+        if (sum(values) == 0) {
+            byLocation.remove(facet.location());
+        }
+    }
+
+    private int bucketOf(BigDecimal price) {
+        if (price == null) {
+            return 0;
+        }
+        // 二分查找不大于价格的分界点个数
+        int low = 0;
+        int high = boundaries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (boundaries[mid].compareTo(price) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String locationKey(String tradeLocation) {
+        return tradeLocation != null ? tradeLocation.trim() : NO_LOCATION;
+    }
+
+    private static long total(Map<String, long[]> byLocation) {
+        if (byLocation == null) {
+            return 0;
+        }
+        long total = 0;
+        for (long[] values : byLocation.values()) {
+            total += sum(values);
+        }
+        return total;
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    /**
+     * 商品计入的状态、价格区间序号和交易地点
+     */
+    private record Facet(Product.Status status, int bucket, String location) {
+    }
+}
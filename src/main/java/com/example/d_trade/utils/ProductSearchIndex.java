@@ -0,0 +1,340 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.projection.ProductIndexProjection;
+import com.example.d_trade.dto.request.ProductFilter;
+import com.example.d_trade.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 商品搜索倒排索引
+ * 对商品标题按字符切分一元/二元片段（适配中文无空格分词），
+ * 关键词查询只在内存中求交集和排序，数据库只需按最终一页的ID取数据。
+ * 片段求交集只用于缩小范围，候选商品再按标题包含关键词（忽略大小写）校验，与回退的标题LIKE查询结果一致
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    private static final Comparator<IndexedProduct> NEWEST = Comparator
+            .comparing(IndexedProduct::createTime, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(IndexedProduct::id, Comparator.reverseOrder());
+
+    private static final Comparator<IndexedProduct> PRICE_ASC = Comparator
+            .comparing(IndexedProduct::price, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(IndexedProduct::id);
+
+    private static final Comparator<IndexedProduct> PRICE_DESC = Comparator
+            .comparing(IndexedProduct::price, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(IndexedProduct::id, Comparator.reverseOrder());
+
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final Map<Long, IndexedProduct> documents = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+
+    /**
+     * 索引是否已完成初始构建，未完成时调用方应回退到数据库查询
+     * @return 是否可用
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 标记索引构建完成
+     */
+    public void markReady() {
+        ready = true;
+        log.info("Product search index ready: {} products, {} terms", documents.size(), postings.size());
+    }
+
+    /**
+     * 获取已索引的商品数量
+     * @return 商品数量
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * 判断关键词能否通过索引查询（纯标点等无法切分的关键词需回退到数据库）
+     * @param keyword 关键词
+     * @return 是否可查询
+     */
+    public boolean canSearch(String keyword) {
+        return !queryTerms(keyword).isEmpty();
+    }
+
+    /**
+     * 商品保存后更新索引，存在事务时在提交后生效
+     * @param product 商品
+     */
+    public void onProductSaved(Product product) {
+        Long id = product.getId();
+        String title = product.getTitle();
+        BigDecimal price = product.getPrice();
+        Product.Status status = product.getStatus();
+        LocalDateTime createTime = product.getCreateTime();
+        String tradeLocation = product.getTradeLocation();
+        TransactionUtils.afterCommit(() -> index(id, title, price, status, createTime, tradeLocation));
+    }
+
+    /**
+     * 商品状态变更后更新索引，存在事务时在提交后生效
+     * @param id 商品ID
+     * @param status 新状态
+     */
+    public void onStatusChanged(Long id, Product.Status status) {
+        TransactionUtils.afterCommit(() -> updateStatus(id, status));
+    }
+
+    /**
+     * 商品删除后移除索引，存在事务时在提交后生效
+     * @param id 商品ID
+     */
+    public void onProductDeleted(Long id) {
+        TransactionUtils.afterCommit(() -> remove(id));
+    }
+
+    /**
+     * 判断商品标题是否匹配关键词（与search的校验规则相同）
+     * @param keyword 关键词
+     * @param title 标题
+     * @return 是否匹配
+     */
+    public static boolean matches(String keyword, String title) {
+        return title != null && keyword != null && title.toLowerCase().contains(keyword.toLowerCase());
+    }
+
+    /**
+     * 用投影行构建索引（启动时全量重建使用）
+     * @param row 商品投影
+     */
+    public void index(ProductIndexProjection row) {
+        index(row.getId(), row.getTitle(), row.getPrice(), row.getStatus(), row.getCreateTime(), row.getTradeLocation());
+    }
+
+    /**
+     * 写入或覆盖一个商品的索引
+     */
+    public synchronized void index(Long id, String title, BigDecimal price,
+                                   Product.Status status, LocalDateTime createTime, String tradeLocation) {
+        String normalizedTitle = title != null ? title.toLowerCase() : "";
+        Set<String> terms = termsOf(normalizedTitle);
+
+        IndexedProduct document = new IndexedProduct(id, price, status, createTime, tradeLocation, normalizedTitle);
+        IndexedProduct previous = documents.put(id, document);
+        if (previous != null) {
+            for (String term : termsOf(previous.title())) {
+                if (!terms.contains(term)) {
+                    removePosting(term, id);
+                }
+            }
+        }
+        for (String term : terms) {
+            postings.computeIfAbsent(term, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    /**
+     * 更新商品状态
+     */
+    public synchronized void updateStatus(Long id, Product.Status status) {
+        documents.computeIfPresent(id, (k, document) -> document.withStatus(status));
+    }
+
+    /**
+     * 移除一个商品的索引
+     */
+    public synchronized void remove(Long id) {
+        IndexedProduct previous = documents.remove(id);
+        if (previous != null) {
+            for (String term : termsOf(previous.title())) {
+                removePosting(term, id);
+            }
+        }
+    }
+
+    /**
+     * 清空索引，重建前调用
+     */
+    public synchronized void clear() {
+        ready = false;
+        postings.clear();
+        documents.clear();
+    }
+
+    /**
+     * 按关键词查询商品ID
+     * @param keyword 关键词
+     * @param status 商品状态
+     * @param sort 排序方式（price_asc/price_desc/newest，默认按发布时间倒序）
+     * @param offset 起始位置
+     * @param limit 数量
+     * @return 当前页ID和命中总数
+     */
+    public SearchResult search(String keyword, Product.Status status, String sort, long offset, int limit) {
+        return search(keyword, status, ProductFilter.NONE, sort, offset, limit);
+    }
+
+    /**
+     * 按关键词查询商品ID，同时按价格区间和交易地点筛选
+     * @param keyword 关键词
+     * @param status 商品状态
+     * @param filter 筛选条件
+     * @param sort 排序方式（price_asc/price_desc/newest，默认按发布时间倒序）
+     * @param offset 起始位置
+     * @param limit 数量
+     * @return 当前页ID和命中总数
+     */
+    public SearchResult search(String keyword, Product.Status status, ProductFilter filter, String sort,
+                               long offset, int limit) {
+        List<Set<Long>> candidates = new ArrayList<>();
+        for (String term : queryTerms(keyword)) {
+            Set<Long> ids = postings.get(term);
+            if (ids == null) {
+                return new SearchResult(List.of(), 0);
+            }
+            candidates.add(ids);
+        }
+        if (candidates.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        // 从最短的倒排链开始求交集
+        candidates.sort(Comparator.comparingInt(Set::size));
+        Set<Long> smallest = candidates.get(0);
+        List<Set<Long>> others = candidates.subList(1, candidates.size());
+
+        String normalizedKeyword = keyword.toLowerCase();
+        List<IndexedProduct> matches = new ArrayList<>();
+        for (Long id : smallest) {
+            if (!containsAll(others, id)) {
+                continue;
+            }
+            // 包含全部片段不代表片段连续出现，按标题校验一次
+            IndexedProduct document = documents.get(id);
+            if (document != null && (status == null || document.status() == status)
+                    && document.title().contains(normalizedKeyword)
+                    && filter.matches(document.price(), document.tradeLocation())) {
+                matches.add(document);
+            }
+        }
+
+        matches.sort(comparator(sort));
+        int total = matches.size();
+        int from = (int) Math.min(offset, total);
+        int to = (int) Math.min((long) from + limit, total);
+        List<Long> ids = new ArrayList<>(to - from);
+        for (IndexedProduct document : matches.subList(from, to)) {
+            ids.add(document.id());
+        }
+        return new SearchResult(ids, total);
+    }
+
+    private static boolean containsAll(List<Set<Long>> sets, Long id) {
+        for (Set<Long> set : sets) {
+            if (!set.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Comparator<IndexedProduct> comparator(String sort) {
+        if ("price_asc".equals(sort)) {
+            return PRICE_ASC;
+        }
+        if ("price_desc".equals(sort)) {
+            return PRICE_DESC;
+        }
+        return NEWEST;
+    }
+
+    private void removePosting(String term, Long id) {
+        postings.computeIfPresent(term, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * 文本切分：按非字母数字断开成片段，每个片段输出全部一元和二元字符片段
+     */
+    private static Set<String> termsOf(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String segment : segments(text)) {
+            for (int i = 0; i < segment.length(); i++) {
+                terms.add(segment.substring(i, i + 1));
+                if (i + 1 < segment.length()) {
+                    terms.add(segment.substring(i, i + 2));
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 关键词切分：单字片段用一元，其余用二元，所有片段都命中才算匹配
+     */
+    private static Set<String> queryTerms(String keyword) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (keyword == null) {
+            return terms;
+        }
+        for (String segment : segments(keyword)) {
+            if (segment.length() == 1) {
+                terms.add(segment);
+            } else {
+                for (int i = 0; i + 1 < segment.length(); i++) {
+                    terms.add(segment.substring(i, i + 2));
+                }
+            }
+        }
+        return terms;
+    }
+
+    private static List<String> segments(String text) {
+        List<String> segments = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        text.toLowerCase().codePoints().forEach(cp -> {
+            if (Character.isLetterOrDigit(cp)) {
+                current.appendCodePoint(cp);
+            } else if (current.length() > 0) {
+                segments.add(current.toString());
+                current.setLength(0);
+            }
+        });
+        if (current.length() > 0) {
+            segments.add(current.toString());
+        }
+        return segments;
+    }
+
+    /**
+     * 索引中的商品：只保留过滤、校验和排序需要的字段，标题已转为小写
+     */
+    private record IndexedProduct(Long id, BigDecimal price, Product.Status status,
+                                  LocalDateTime createTime, String tradeLocation, String title) {
+
+        IndexedProduct withStatus(Product.Status newStatus) {
+            return new IndexedProduct(id, price, newStatus, createTime, tradeLocation, title);
+        }
+    }
+
+    /**
+     * 查询结果：当前页的商品ID（已排序）及命中总数
+     */
+    public record SearchResult(List<Long> ids, long total) {
+    }
+}
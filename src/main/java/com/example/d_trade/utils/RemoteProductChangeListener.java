@@ -0,0 +1,60 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.UserDTO;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.repository.ProductRepository;
+import com.example.d_trade.utils.CacheDependencyTracker.ProductSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * 把其他实例的商品变更同步到本实例的堆外商品目录和商品分面计数
+ * 这两份数据不经过缓存，CacheDependencyTracker 的失效对它们无效。
+ * 收到事件后按ID重新读取商品，以数据库的当前状态覆盖：事件的先后顺序和快照是否过时都不影响结果
+ */
+@Slf4j
+@Component
+public class RemoteProductChangeListener {
+
+    private final ProductRepository productRepository;
+    private final OffHeapProductCatalog productCatalog;
+    private final ProductFacetCounter productFacetCounter;
+
+    public RemoteProductChangeListener(ProductRepository productRepository, OffHeapProductCatalog productCatalog,
+                                       ProductFacetCounter productFacetCounter,
+                                       @Nullable CacheInvalidationBus invalidationBus) {
+        this.productRepository = productRepository;
+        this.productCatalog = productCatalog;
+        this.productFacetCounter = productFacetCounter;
+        if (invalidationBus != null) {
+            invalidationBus.subscribe(this::applyRemote);
+        }
+    }
+
+    /**
+     * 处理其他实例广播的变更事件，只处理商品变更
+     * @param event 变更事件
+     */
+    void applyRemote(CacheInvalidationEvent event) {
+        if (event.type() != CacheInvalidationEvent.Type.PRODUCT_CHANGED) {
+            return;
+        }
+        ProductSnapshot snapshot = event.after() != null ? event.after() : event.before();
+        Long id = snapshot.id();
+        Optional<Product> current = productRepository.findById(id);
+        if (current.isPresent()) {
+            Product product = current.get();
+            productFacetCounter.put(id, product.getStatus(), product.getPrice(), product.getTradeLocation());
+            if (productCatalog.isEnabled()) {
+                productCatalog.put(product, UserDTO.fromEntity(product.getSeller()));
+            }
+        } else {
+            productFacetCounter.remove(id);
+            productCatalog.remove(id);
+        }
+        log.debug("Applied remote product change: id={}", id);
+    }
+}
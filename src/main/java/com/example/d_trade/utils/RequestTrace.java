@@ -0,0 +1,204 @@
+package com.example.d_trade.utils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 单个请求的调用链：controller→service→repository 的调用按嵌套关系组成一棵树
+ * 由请求线程独占，放在ThreadLocal中，不需要同步；异步线程中的调用不计入
+ */
+public final class RequestTrace {
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    /** 单个请求最多保留的节点数，循环调用过多时只统计耗时不再挂到树上 */
+    static final int MAX_SPANS = 256;
+
+    /**
+     * 调用所在的层
+     */
+    public enum Layer {
+        CONTROLLER, SERVICE, REPOSITORY
+    }
+
+    private final String method;
+    private final String uri;
+    private final LocalDateTime startTime = LocalDateTime.now();
+    private final long startNanos = System.nanoTime();
+    private final List<Span> roots = new ArrayList<>();
+    private final Deque<Span> stack = new ArrayDeque<>();
+    private int spanCount;
+    private int droppedSpans;
+    private int repositoryDepth;
+    private long dbNanos;
+    private long durationNanos = -1;
+    private int status;
+    private Map<String, Object> sql;
+
+    private RequestTrace(String method, String uri) {
+        this.method = method;
+        this.uri = uri;
+    }
+
+    /**
+     * 在当前线程开始记录一个请求
+     * @param method HTTP方法
+     * @param uri 请求路径
+     * @return 调用链
+     */
+    public static RequestTrace begin(String method, String uri) {
+        RequestTrace trace = new RequestTrace(method, uri);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * 当前线程正在记录的调用链
+     * @return 调用链，不在请求中时为null
+     */
+    public static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 结束记录并从当前线程移除
+     * @param status HTTP状态码
+     */
+    public void finish(int status) {
+        this.status = status;
+        this.durationNanos = System.nanoTime() - startNanos;
+        CURRENT.remove();
+    }
+
+    /**
+     * 进入一个方法调用
+     * @param name 方法名
+     * @param layer 所在的层
+     * @return 节点，方法返回时传给 {@link #exit(Span, long, boolean)}
+     */
+    public Span enter(String name, Layer layer) {
+        Span span = new Span(name, layer, System.nanoTime() - startNanos);
+        if (layer == Layer.REPOSITORY) {
+            repositoryDepth++;
+        }
+        if (spanCount < MAX_SPANS) {
+            spanCount++;
+            Span parent = stack.peek();
+            if (parent != null) {
+                parent.children.add(span);
+            } else {
+                roots.add(span);
+            }
+        } else {
+            droppedSpans++;
+        }
+        stack.push(span);
+        return span;
+    }
+
+    /**
+     * 方法调用返回
+     * @param span {@link #enter(String, Layer)} 返回的节点
+     * @param nanos 执行时间（纳秒）
+     * @param failed 是否抛出异常
+     */
+    public void exit(Span span, long nanos, boolean failed) {
+        span.durationNanos = nanos;
+        span.failed = failed;
+        stack.remove(span);
+        // 只累计最外层的repository调用，避免嵌套调用重复计算
+        if (span.layer == Layer.REPOSITORY && --repositoryDepth == 0) {
+            dbNanos += nanos;
+        }
+    }
+
+    /**
+     * 生成 Server-Timing 响应头：total为目前为止的请求耗时，db为repository层耗时，app为其余部分
+     * @return 响应头的值
+     */
+    public String serverTiming() {
+        long totalNanos = durationNanos >= 0 ? durationNanos : System.nanoTime() - startNanos;
+        return String.format(Locale.ROOT, "app;dur=%.3f, db;dur=%.3f, total;dur=%.3f",
+                toMillis(totalNanos - dbNanos), toMillis(dbNanos), toMillis(totalNanos));
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getDbNanos() {
+        return dbNanos;
+    }
+
+    /**
+     * 附加请求的SQL统计摘要
+     * @param sql 语句条数、行数、JDBC耗时和重复语句
+     */
+    public void setSql(Map<String, Object> sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * 转换为展示用的数据
+     * @return 请求信息和调用树
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("method", method);
+        result.put("uri", uri);
+        result.put("status", status);
+        result.put("startTime", startTime);
+        result.put("durationMs", toMillis(durationNanos));
+        result.put("dbMs", toMillis(dbNanos));
+        result.put("spanCount", spanCount);
+        result.put("droppedSpans", droppedSpans);
+        if (sql != null) {
+            result.put("sql", sql);
+        }
+        result.put("spans", roots.stream().map(Span::toMap).toList());
+        return result;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    /**
+     * 调用树中的一个节点
+     */
+    public static final class Span {
+        private final String name;
+        private final Layer layer;
+        private final long offsetNanos;
+        private final List<Span> children = new ArrayList<>(2);
+        private long durationNanos;
+        private boolean failed;
+
+        private Span(String name, Layer layer, long offsetNanos) {
+            this.name = name;
+            this.layer = layer;
+            this.offsetNanos = offsetNanos;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("name", name);
+            result.put("layer", layer);
+            result.put("startMs", toMillis(offsetNanos));
+            result.put("durationMs", toMillis(durationNanos));
+            if (failed) {
+                result.put("failed", true);
+            }
+            if (!children.isEmpty()) {
+                result.put("children", children.stream().map(Span::toMap).toList());
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.d_trade.utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 滑动时间窗口指标：固定数量的时间片组成环形缓冲区，每个时间片一个延迟直方图和错误计数
+ * 时间片按需创建，过期的时间片在下一次写入同一位置时清零后复用，不需要后台线程，轮转时也不再分配新的直方图；
+ * 清零与并发写入之间不加锁，轮转瞬间的少量记录可能计入相邻时间片或被清掉，对窗口统计的影响可以忽略
+ */
+public class SlidingWindowMetrics {
+
+    private final long slotMillis;
+    private final int subBucketBits;
+    private final long maxTrackableNanos;
+    private final LongSupplier clock;
+    private final AtomicReferenceArray<Slot> slots;
+
+    /**
+     * @param slotMillis 每个时间片的长度（毫秒）
+     * @param slotCount 时间片数量，窗口总长度为 slotMillis * slotCount
+     * @param subBucketBits 时间片直方图的精度
+     * @param maxTrackableNanos 时间片直方图可记录的最大值，超过的按最大值记录
+     * @param clock 当前时间（毫秒）
+     */
+    public SlidingWindowMetrics(long slotMillis, int slotCount, int subBucketBits, long maxTrackableNanos,
+                                LongSupplier clock) {
+        this.slotMillis = slotMillis;
+        this.subBucketBits = subBucketBits;
+        this.maxTrackableNanos = maxTrackableNanos;
+        this.clock = clock;
+        this.slots = new AtomicReferenceArray<>(slotCount);
+    }
+
+    /**
+     * 记录一次执行
+     * @param nanos 执行时间（纳秒）
+     * @param failed 是否抛出异常
+     */
+    public void record(long nanos, boolean failed) {
+        record(nanos, failed, 1);
+    }
+
+    /**
+     * 记录一次抽样到的执行，按抽样权重计数
+     * @param nanos 执行时间（纳秒）
+     * @param failed 是否抛出异常
+     * @param weight 代表的调用次数
+     */
+    public void record(long nanos, boolean failed, long weight) {
+        Slot slot = currentSlot();
+        slot.histogram.record(nanos, weight);
+        if (failed) {
+            slot.errors.add(weight);
+        }
+    }
+
+    /**
+     * 汇总最近若干个时间片（包括当前未结束的时间片）
+     * @param slotCount 时间片数量，超过容量时按容量计算
+     * @return 窗口汇总数据
+     */
+    public Window window(int slotCount) {
+        int count = Math.max(1, Math.min(slotCount, slots.length()));
+        long currentEpoch = clock.getAsLong() / slotMillis;
+        LatencyHistogram.Snapshot snapshot = LatencyHistogram.Snapshot.empty(subBucketBits);
+        long errors = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.epoch > currentEpoch - count && slot.epoch <= currentEpoch) {
+                snapshot = snapshot.merge(slot.histogram.snapshot());
+                errors += slot.errors.sum();
+            }
+        }
+        // 当前时间片只过去了一部分，按实际经过的时间计算吞吐量
+        long elapsedMillis = (count - 1) * slotMillis + clock.getAsLong() % slotMillis + 1;
+        return new Window(snapshot, errors, elapsedMillis);
+    }
+
+    /**
+     * 窗口容量（时间片数量）
+     */
+    public int capacity() {
+        return slots.length();
+    }
+
+    public long getSlotMillis() {
+        return slotMillis;
+    }
+
+    private Slot currentSlot() {
+        long epoch = clock.getAsLong() / slotMillis;
+        int index = (int) (epoch % slots.length());
+        while (true) {
+            Slot slot = slots.get(index);
+            if (slot == null) {
+                // 尚未创建；并发创建失败时重新读取
+                Slot fresh = new Slot(epoch, subBucketBits, maxTrackableNanos);
+                if (slots.compareAndSet(index, null, fresh)) {
+                    return fresh;
+                }
+                continue;
+            }
+            // 其他线程已经轮转到更新的时间片时直接记入，不把新数据清掉
+            if (slot.epoch < epoch) {
+                slot.rotate(epoch);
+            }
+            return slot;
+        }
+    }
+
+    private static final class Slot {
+        private volatile long epoch;
+        private final LatencyHistogram histogram;
+        private final LongAdder errors = new LongAdder();
+
+        Slot(long epoch, int subBucketBits, long maxTrackableNanos) {
+            this.epoch = epoch;
+            this.histogram = new LatencyHistogram(subBucketBits, maxTrackableNanos);
+        }
+
+        /**
+         * 清零后用于新的时间片，同一时间片只由一个线程清零
+         */
+        synchronized void rotate(long newEpoch) {
+            if (epoch < newEpoch) {
+                histogram.reset();
+                errors.reset();
+                epoch = newEpoch;
+            }
+        }
+    }
+
+    /**
+     * 窗口汇总数据
+     * @param snapshot 延迟直方图
+     * @param errors 错误次数
+     * @param elapsedMillis 窗口覆盖的时长（毫秒）
+     */
+    public record Window(LatencyHistogram.Snapshot snapshot, long errors, long elapsedMillis) {
+
+        public double getThroughputPerSecond() {
+            return snapshot.getTotalCount() * 1000.0 / elapsedMillis;
+        }
+
+        public double getErrorRate() {
+            long total = snapshot.getTotalCount();
+            return total > 0 ? (double) errors / total : 0;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.d_trade.utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 保留最慢的N个请求调用链
+ * 容量固定，满了之后新的调用链只有比已保留的最快一条更慢时才替换它；
+ * 绝大多数请求只读一次volatile门槛值就返回，不进入锁
+ */
+@Component
+public class SlowTraceRecorder {
+
+    private final int capacity;
+    private final PriorityQueue<RequestTrace> fastestFirst =
+            new PriorityQueue<>(Comparator.comparingLong(RequestTrace::getDurationNanos));
+    /** 已满时保留的最快一条的耗时，未满时为-1 */
+    private volatile long thresholdNanos = -1;
+
+    public SlowTraceRecorder(@Value("${app.performance.trace.slowest-count:20}") int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * 提交一个已结束的调用链
+     * @param trace 调用链
+     */
+    public void offer(RequestTrace trace) {
+        if (trace.getDurationNanos() <= thresholdNanos) {
+            return;
+        }
+        synchronized (fastestFirst) {
+            if (fastestFirst.size() >= capacity) {
+                if (trace.getDurationNanos() <= fastestFirst.peek().getDurationNanos()) {
+                    return;
+                }
+                fastestFirst.poll();
+            }
+            fastestFirst.offer(trace);
+            thresholdNanos = fastestFirst.size() >= capacity ? fastestFirst.peek().getDurationNanos() : -1;
+        }
+    }
+
+    /**
+     * 获取保留的调用链，按耗时从慢到快排列
+     * @return 调用链数据
+     */
+    public List<Map<String, Object>> getTraces() {
+        List<RequestTrace> traces;
+        synchronized (fastestFirst) {
+            traces = new ArrayList<>(fastestFirst);
+        }
+        traces.sort(Comparator.comparingLong(RequestTrace::getDurationNanos).reversed());
+        return traces.stream().map(RequestTrace::toMap).toList();
+    }
+
+    /**
+     * 清空保留的调用链
+     */
+    public void reset() {
+        synchronized (fastestFirst) {
+            fastestFirst.clear();
+            thresholdNanos = -1;
+        }
+    }
+}
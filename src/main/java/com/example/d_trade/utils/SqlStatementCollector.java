@@ -0,0 +1,123 @@
+package com.example.d_trade.utils;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 当前线程的SQL语句统计：语句条数、返回行数、JDBC执行耗时，以及每条语句的重复次数
+ * 由Hibernate的 StatementInspector、SessionEventListener 和统计回调写入（见 SqlStatisticsConfig），
+ * 请求中由 RequestTraceFilter 开启；测试中也可以直接使用：
+ * <pre>
+ * try (SqlStatementCollector sql = SqlStatementCollector.begin()) {
+ *     productRepository.findListByStatus(...);
+ *     assertEquals(2, sql.getStatementCount());
+ * }
+ * </pre>
+ */
+public final class SqlStatementCollector implements AutoCloseable {
+
+    private static final ThreadLocal<SqlStatementCollector> CURRENT = new ThreadLocal<>();
+
+    private final SqlStatementCollector previous;
+    private final Map<String, Integer> statementCounts = new HashMap<>();
+    private int statementCount;
+    private long rowCount;
+    private long jdbcNanos;
+
+    private SqlStatementCollector(SqlStatementCollector previous) {
+        this.previous = previous;
+    }
+
+    /**
+     * 在当前线程开始统计，已有统计时暂停外层，关闭后恢复
+     * @return 统计对象
+     */
+    public static SqlStatementCollector begin() {
+        SqlStatementCollector collector = new SqlStatementCollector(CURRENT.get());
+        CURRENT.set(collector);
+        return collector;
+    }
+
+    /**
+     * 当前线程正在进行的统计
+     * @return 统计对象，没有时为null
+     */
+    public static SqlStatementCollector current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 记录一条即将执行的SQL
+     * @param sql Hibernate生成的SQL，参数为占位符
+     */
+    public static void statementPrepared(String sql) {
+        SqlStatementCollector collector = CURRENT.get();
+        if (collector != null) {
+            collector.statementCount++;
+            collector.statementCounts.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * 记录返回给Hibernate的行数
+     * @param rows 行数
+     */
+    public static void rowsReturned(long rows) {
+        SqlStatementCollector collector = CURRENT.get();
+        if (collector != null) {
+            collector.rowCount += rows;
+        }
+    }
+
+    /**
+     * 记录一次JDBC执行耗时
+     * @param nanos 耗时（纳秒）
+     */
+    public static void jdbcExecuted(long nanos) {
+        SqlStatementCollector collector = CURRENT.get();
+        if (collector != null) {
+            collector.jdbcNanos += nanos;
+        }
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    /**
+     * 同一条SQL（仅参数不同）执行次数达到阈值的语句，通常是N+1查询
+     * @param threshold 次数阈值
+     * @return SQL到执行次数的映射，按次数从多到少排列
+     */
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        statementCounts.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+        return repeated;
+    }
+
+    /**
+     * 结束统计，恢复外层统计
+     */
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
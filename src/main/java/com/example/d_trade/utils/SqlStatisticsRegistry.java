@@ -0,0 +1,168 @@
+package com.example.d_trade.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按接口汇总每个请求的SQL统计，并记录疑似N+1的语句
+ */
+@Slf4j
+@Component
+public class SqlStatisticsRegistry {
+
+    /** 最多记录的疑似N+1语句数，超过后只更新已有的 */
+    private static final int MAX_OFFENDERS = 500;
+    private static final int TOP_COUNT = 10;
+
+    private final int nPlusOneThreshold;
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, Offender> offenders = new ConcurrentHashMap<>();
+
+    public SqlStatisticsRegistry(@Value("${app.performance.sql.n-plus-one-threshold:5}") int nPlusOneThreshold) {
+        this.nPlusOneThreshold = Math.max(2, nPlusOneThreshold);
+    }
+
+    /**
+     * 汇总一个已结束请求的SQL统计
+     * @param endpoint 接口，例如 GET /api/products/{id}
+     * @param collector 请求的SQL统计
+     * @return 该请求中疑似N+1的语句及执行次数
+     */
+    public Map<String, Integer> record(String endpoint, SqlStatementCollector collector) {
+        Map<String, Integer> repeated = collector.getRepeatedStatements(nPlusOneThreshold);
+        endpoints.computeIfAbsent(endpoint, k -> new EndpointStats()).add(collector, !repeated.isEmpty());
+
+        repeated.forEach((sql, count) -> {
+            Offender offender = offenders.get(sql);
+            if (offender == null) {
+                if (offenders.size() >= MAX_OFFENDERS) {
+                    return;
+                }
+                offender = offenders.computeIfAbsent(sql, k -> new Offender());
+                log.warn("疑似N+1查询: 接口={}, 同一语句执行{}次, SQL={}", endpoint, count, sql);
+            }
+            offender.add(endpoint, count);
+        });
+        return repeated;
+    }
+
+    /**
+     * 获取SQL统计：按平均语句条数排序的接口，以及重复次数最多的疑似N+1语句
+     * @return 统计数据
+     */
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> topEndpoints = endpoints.entrySet().stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<String, EndpointStats> entry) ->
+                        entry.getValue().averageStatements()).reversed())
+                .limit(TOP_COUNT)
+                .map(entry -> entry.getValue().toMap(entry.getKey()))
+                .toList();
+        List<Map<String, Object>> topOffenders = offenders.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Offender> entry) ->
+                        entry.getValue().maxRepeats.get()).reversed())
+                .limit(TOP_COUNT)
+                .map(entry -> entry.getValue().toMap(entry.getKey()))
+                .toList();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("nPlusOneThreshold", nPlusOneThreshold);
+        result.put("endpoints", topEndpoints);
+        result.put("nPlusOneOffenders", topOffenders);
+        return result;
+    }
+
+    /**
+     * 清空统计
+     */
+    public void reset() {
+        endpoints.clear();
+        offenders.clear();
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                break;
+            }
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * 单个接口的累计数据
+     */
+    private static final class EndpointStats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder jdbcNanos = new LongAdder();
+        private final LongAdder nPlusOneRequests = new LongAdder();
+        private final AtomicLong maxStatements = new AtomicLong();
+
+        void add(SqlStatementCollector collector, boolean nPlusOne) {
+            requests.increment();
+            statements.add(collector.getStatementCount());
+            rows.add(collector.getRowCount());
+            jdbcNanos.add(collector.getJdbcNanos());
+            if (nPlusOne) {
+                nPlusOneRequests.increment();
+            }
+            updateMax(maxStatements, collector.getStatementCount());
+        }
+
+        double averageStatements() {
+            long count = requests.sum();
+            return count > 0 ? (double) statements.sum() / count : 0;
+        }
+
+        Map<String, Object> toMap(String endpoint) {
+            long count = Math.max(1, requests.sum());
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("endpoint", endpoint);
+            result.put("requests", requests.sum());
+            result.put("avgStatements", round(averageStatements()));
+            result.put("maxStatements", maxStatements.get());
+            result.put("avgRows", round((double) rows.sum() / count));
+            result.put("avgJdbcMs", round(jdbcNanos.sum() / 1_000_000.0 / count));
+            result.put("nPlusOneRequests", nPlusOneRequests.sum());
+            return result;
+        }
+    }
+
+    /**
+     * 疑似N+1的语句
+     */
+    private static final class Offender {
+        private final LongAdder requests = new LongAdder();
+        private final AtomicLong maxRepeats = new AtomicLong();
+        private volatile String lastEndpoint;
+
+        void add(String endpoint, int repeats) {
+            requests.increment();
+            updateMax(maxRepeats, repeats);
+            lastEndpoint = endpoint;
+        }
+
+        Map<String, Object> toMap(String sql) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("sql", sql);
+            result.put("requests", requests.sum());
+            result.put("maxRepeatsPerRequest", maxRepeats.get());
+            result.put("lastEndpoint", lastEndpoint);
+            return result;
+        }
+    }
+}
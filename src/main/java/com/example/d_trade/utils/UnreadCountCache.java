@@ -0,0 +1,248 @@
+package com.example.d_trade.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 每个用户的未读消息数
+ * 第一次读取时从数据库加载，之后由写入路径在事务提交后原子地加减：通知投递后增加，标记已读后减少，
+ * 读取未读数只查内存。每个用户的未读数、版本和是否已加载保存在一个不可变状态中，所有修改都比较并替换整个状态，
+ * 每次加减都会增加版本：加载开始后发生过加减（无法确定是否已包含在查询结果中）时这次加载的结果不缓存，下次读取重新加载；
+ * 其他情况下遗漏的变化（如删除用户级联删除的消息）由定期对账按数据库修正，查询期间发生过加减的用户留到下一轮，
+ * 修正后推送给已连接的用户。
+ * 学号到用户ID的映射不会变化，一并缓存，未读数接口不再查询用户表
+ */
+@Slf4j
+@Component
+public class UnreadCountCache {
+
+    private static final String COUNT_UNREAD = "SELECT COUNT(*) FROM messages WHERE receiver_id = ? AND is_read = FALSE";
+    private static final String COUNT_UNREAD_BY_RECEIVER = "SELECT receiver_id, COUNT(*) AS unread FROM messages "
+            + "WHERE is_read = FALSE AND receiver_id IN (%s) GROUP BY receiver_id";
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorRegistry executorRegistry;
+    private final MessageStreamRegistry messageStream;
+    private final Cache<Long, Counter> counters;
+    private final Cache<String, Long> userIds;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder staleLoads = new LongAdder();
+    private final LongAdder adjustments = new LongAdder();
+    private final LongAdder reconciliations = new LongAdder();
+    private final LongAdder corrections = new LongAdder();
+    private volatile long lastReconcileMillis;
+
+    public UnreadCountCache(JdbcTemplate jdbcTemplate, ExecutorRegistry executorRegistry,
+                            MessageStreamRegistry messageStream,
+                            @Value("${app.messages.unread-count.maximum-size:100000}") long maximumSize,
+                            @Value("${app.messages.unread-count.expire-after-access-minutes:60}") long expireMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.executorRegistry = executorRegistry;
+        this.messageStream = messageStream;
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(Duration.ofMinutes(expireMinutes))
+                .build();
+        this.userIds = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(Duration.ofMinutes(expireMinutes))
+                .build();
+    }
+
+    /**
+     * 获取学号对应的用户ID
+     * @param studentId 学号
+     * @param loader 未缓存时查询用户ID，用户不存在时抛出异常
+     * @return 用户ID
+     */
+    public Long userIdFor(String studentId, Supplier<Long> loader) {
+        Long userId = userIds.getIfPresent(studentId);
+        if (userId == null) {
+            userId = loader.get();
+            userIds.put(studentId, userId);
+        }
+        return userId;
+    }
+
+    /**
+     * 获取未读数，未缓存时从数据库加载
+     * @param userId 用户ID
+     * @return 未读数
+     */
+    public long get(Long userId) {
+        Counter counter = counters.getIfPresent(userId);
+        State observed = counter != null ? counter.state.get() : null;
+        if (observed != null && observed.loaded()) {
+            hits.increment();
+            return observed.count();
+        }
+        if (counter == null) {
+            counter = counters.asMap().computeIfAbsent(userId, id -> new Counter());
+            observed = counter.state.get();
+        }
+        // 先记下加载前的状态再查询，查询期间的加减会改变状态，比较并替换失败
+        long count = load(userId);
+        if (!observed.loaded() && !counter.state.compareAndSet(observed, observed.loaded(count))) {
+            staleLoads.increment();
+        }
+        return count;
+    }
+
+    long load(Long userId) {
+        loads.increment();
+        Long count = jdbcTemplate.queryForObject(COUNT_UNREAD, Long.class, userId);
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * 调整未读数，在消息写入或已读状态变化的事务提交后调用；未缓存的用户不处理，下次读取时从数据库加载
+     * 正在加载的用户只增加版本，使这次加载的结果不被缓存
+     * @param userId 用户ID
+     * @param delta 变化量，新消息为正数，标记已读为负数
+     */
+    public void adjust(Long userId, long delta) {
+        Counter counter = counters.asMap().get(userId);
+        if (counter == null) {
+            return;
+        }
+        State current;
+        do {
+            current = counter.state.get();
+        } while (!counter.state.compareAndSet(current, current.adjusted(delta)));
+        if (current.loaded()) {
+            adjustments.increment();
+        }
+    }
+
+    /**
+     * 定期对账，在 reporting 执行器上执行，不占用定时任务线程
+     */
+    @Scheduled(fixedDelayString = "${app.messages.unread-count.reconcile-interval-ms:300000}",
+            initialDelayString = "${app.messages.unread-count.reconcile-interval-ms:300000}")
+    public void scheduleReconcile() {
+        try {
+            executorRegistry.executor(ExecutorRegistry.REPORTING).execute(this::reconcile);
+        } catch (RejectedExecutionException e) {
+            log.debug("未读数对账任务被拒绝，等待下次执行: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按数据库修正已缓存的未读数
+     * 查询前记下每个用户的状态，只在状态未被替换（查询期间没有加减，版本不变）时修正，与对账同时发生的调整留到下一轮
+     * @return 修正的用户数
+     */
+    public int reconcile() {
+        long start = System.currentTimeMillis();
+        List<Long> cached = counters.asMap().entrySet().stream()
+                .filter(entry -> entry.getValue().state.get().loaded())
+                .map(Map.Entry::getKey)
+                .toList();
+        int corrected = 0;
+        for (int from = 0; from < cached.size(); from += RECONCILE_BATCH_SIZE) {
+            List<Long> batch = cached.subList(from, Math.min(from + RECONCILE_BATCH_SIZE, cached.size()));
+            Map<Long, State> before = new HashMap<>();
+            batch.forEach(userId -> {
+                Counter counter = counters.asMap().get(userId);
+                State state = counter != null ? counter.state.get() : null;
+                if (state != null && state.loaded()) {
+                    before.put(userId, state);
+                }
+            });
+            Map<Long, Long> actual = countUnread(batch);
+            for (Map.Entry<Long, State> entry : before.entrySet()) {
+                Long userId = entry.getKey();
+                State expected = entry.getValue();
+                long count = actual.getOrDefault(userId, 0L);
+                Counter counter = counters.asMap().get(userId);
+                if (count != expected.count() && counter != null
+                        && counter.state.compareAndSet(expected, expected.corrected(count))) {
+                    corrected++;
+                    log.debug("修正用户 {} 的未读数: {} -> {}", userId, expected.count(), count);
+                    if (messageStream.isSubscribed(userId)) {
+                        messageStream.pushUnreadCount(userId, count);
+                    }
+                }
+            }
+        }
+        reconciliations.increment();
+        corrections.add(corrected);
+        lastReconcileMillis = System.currentTimeMillis() - start;
+        if (corrected > 0) {
+            log.info("未读数对账完成: 检查 {} 个用户，修正 {} 个", cached.size(), corrected);
+        }
+        return corrected;
+    }
+
+    Map<Long, Long> countUnread(List<Long> userIds) {
+        String sql = String.format(COUNT_UNREAD_BY_RECEIVER, String.join(", ", Collections.nCopies(userIds.size(), "?")));
+        Map<Long, Long> counts = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            counts.put(rs.getLong("receiver_id"), rs.getLong("unread"));
+        }, userIds.toArray());
+        return counts;
+    }
+
+    /**
+     * 获取未读数缓存统计：缓存用户数，命中和加载次数，调整和对账修正次数
+     * @return 统计数据
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", counters.estimatedSize());
+        stats.put("hits", hits.sum());
+        stats.put("loads", loads.sum());
+        stats.put("staleLoads", staleLoads.sum());
+        stats.put("adjustments", adjustments.sum());
+        stats.put("reconciliations", reconciliations.sum());
+        stats.put("corrections", corrections.sum());
+        stats.put("lastReconcileMs", lastReconcileMillis);
+        return stats;
+    }
+
+    /**
+     * 一个用户的未读数状态，只通过比较并替换整个状态修改
+     */
+    private static final class Counter {
+
+        private final AtomicReference<State> state = new AtomicReference<>(new State(0, 0, false));
+    }
+
+    /**
+     * 未读数状态：loaded 之前正在从数据库加载，version 每次加减或修正时增加
+     */
+    private record State(long count, long version, boolean loaded) {
+
+        State loaded(long count) {
+            return new State(count, version + 1, true);
+        }
+
+        State adjusted(long delta) {
+            // 加载完成前只增加版本，不会减到负数
+            return new State(loaded ? Math.max(0, count + delta) : count, version + 1, loaded);
+        }
+
+        State corrected(long count) {
+            return new State(count, version + 1, true);
+        }
+    }
+}
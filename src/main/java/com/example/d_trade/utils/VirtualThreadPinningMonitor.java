@@ -0,0 +1,155 @@
+package com.example.d_trade.utils;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 虚拟线程钉住（pinning）监控
+ * 虚拟线程在 synchronized 块内或本地方法中阻塞时无法让出载体线程，这段时间载体线程被占住，
+ * 请求处理退化为平台线程池的并发上限。JDBC驱动、连接池和 @Cacheable(sync = true) 的加载过程
+ * （在 ConcurrentHashMap.compute 的锁内执行查询）都可能出现这种情况。
+ * 开启虚拟线程时用JFR订阅 jdk.VirtualThreadPinned 事件，按发生位置统计次数和耗时，
+ * 启动时在日志中报告线程模式，统计见 /api/admin/performance/threads
+ */
+@Slf4j
+@Component
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_SITES = 100;
+
+    private final boolean virtualEnabled;
+    private final long thresholdMillis;
+    private volatile RecordingStream stream;
+
+    private final LongAdder pinnedEvents = new LongAdder();
+    private final LongAdder pinnedNanos = new LongAdder();
+    private final AtomicLong maxPinnedNanos = new AtomicLong();
+    private final Map<String, LongAdder> sites = new ConcurrentHashMap<>();
+
+    public VirtualThreadPinningMonitor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualEnabled,
+                                       @Value("${app.virtual-threads.pinned-threshold-ms:20}") long thresholdMillis) {
+        this.virtualEnabled = virtualEnabled;
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    /**
+     * 报告线程模式，开启虚拟线程时开始记录钉住事件
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!virtualEnabled) {
+            log.info("请求处理和定时任务使用平台线程");
+            return;
+        }
+        if (!VirtualThreads.isSupported()) {
+            log.warn("已配置 spring.threads.virtual.enabled，但当前Java版本 {} 不支持虚拟线程，仍使用平台线程",
+                    Runtime.version());
+            return;
+        }
+        try {
+            RecordingStream recording = new RecordingStream();
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMillis)).withStackTrace();
+            recording.onEvent(PINNED_EVENT, this::record);
+            recording.startAsync();
+            stream = recording;
+            log.info("请求处理和定时任务使用虚拟线程，记录超过 {}ms 的钉住事件", thresholdMillis);
+        } catch (RuntimeException e) {
+            log.warn("无法启动JFR，虚拟线程钉住事件不会被记录: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        RecordingStream recording = stream;
+        stream = null;
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    private void record(RecordedEvent event) {
+        long nanos = event.getDuration().toNanos();
+        pinnedEvents.increment();
+        pinnedNanos.add(nanos);
+        maxPinnedNanos.accumulateAndGet(nanos, Math::max);
+        String site = site(event.getStackTrace());
+        if (!sites.containsKey(site) && sites.size() >= MAX_SITES) {
+            site = "其他";
+        }
+        sites.computeIfAbsent(site, key -> new LongAdder()).increment();
+        log.debug("虚拟线程被钉住 {}ms: {}", nanos / 1_000_000, site);
+    }
+
+    /**
+     * 取调用栈中第一个不属于JDK的帧作为发生位置，通常是持有锁的驱动或业务代码
+     */
+    private static String site(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "未知";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (!frame.isJavaFrame()) {
+                continue;
+            }
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "JDK内部";
+    }
+
+    /**
+     * 当前线程模式下请求线程的类型，用于压测结果标注
+     */
+    public boolean isVirtualActive() {
+        return virtualEnabled && VirtualThreads.isSupported();
+    }
+
+    /**
+     * 钉住事件次数，压测前后相减得到测试期间的次数
+     */
+    public long getPinnedEvents() {
+        return pinnedEvents.sum();
+    }
+
+    /**
+     * 获取线程模式和钉住统计
+     * @return 统计数据，sites 按次数从多到少排列
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("javaVersion", Runtime.version().toString());
+        stats.put("virtualThreadsConfigured", virtualEnabled);
+        stats.put("virtualThreadsActive", isVirtualActive());
+        stats.put("pinnedMonitoring", stream != null);
+        stats.put("pinnedThresholdMs", thresholdMillis);
+        stats.put("pinnedEvents", pinnedEvents.sum());
+        stats.put("pinnedTotalMs", pinnedNanos.sum() / 1_000_000);
+        stats.put("pinnedMaxMs", maxPinnedNanos.get() / 1_000_000);
+        Map<String, Long> topSites = new LinkedHashMap<>();
+        sites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> entry) -> entry.getValue().sum()).reversed())
+                .limit(20)
+                .forEach(entry -> topSites.put(entry.getKey(), entry.getValue().sum()));
+        stats.put("sites", topSites);
+        return stats;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.d_trade.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程支持
+ * 项目按 Java 17 编译，虚拟线程（Java 21）的 API 通过反射调用：在 Java 21 及以上运行时创建虚拟线程，
+ * 更低版本上 isSupported() 返回 false，调用方退回平台线程
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = lookup();
+
+    private VirtualThreads() {
+    }
+
+    private static Method lookup() {
+        try {
+            return Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 创建虚拟线程工厂，线程名为 prefix-0、prefix-1 ...
+     * @param prefix 线程名前缀
+     * @return 线程工厂
+     */
+    public static ThreadFactory factory(String prefix) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("当前Java版本不支持虚拟线程: " + Runtime.version());
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix + "-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建虚拟线程工厂失败", e);
+        }
+    }
+
+    /**
+     * 判断线程是否为虚拟线程
+     */
+    public static boolean isVirtual(Thread thread) {
+        if (!isSupported()) {
+            return false;
+        }
+        try {
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+}
@@ -9,14 +9,14 @@ VALUES
 ('20210102', '李四', '$2a$10$8CU8yBnEJKdSFnIk7RNOhes9nI5CJ0Os.WyUr1thcUgHG9ZNrXe/C', '四哥', '13800138002', 'USER', true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
 ('20210103', '王五', '$2a$10$8CU8yBnEJKdSFnIk7RNOhes9nI5CJ0Os.WyUr1thcUgHG9ZNrXe/C', '五哥', '13800138003', 'USER', true, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
 
--- 插入测试商品数据
+-- 插入测试商品数据（H2中字符串需加 FORMAT JSON 才会按JSON数组解析）
 INSERT INTO products (title, description, price, trade_location, image_paths, status, seller_id, create_time, update_time)
 VALUES 
-('全新iPad Pro', '2023年购入，95新，配件齐全，无拆修', 3999.00, '一号宿舍楼', '["uploads/images/ipad1.jpg", "uploads/images/ipad2.jpg"]', 'AVAILABLE', 2, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-('Java编程思想（第4版）', '经典Java学习书籍，九成新', 45.00, '图书馆门口', '["uploads/images/book1.jpg"]', 'AVAILABLE', 2, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-('Nike运动鞋', '耐克运动鞋，42码，穿过几次，9成新', 199.00, '体育馆', '["uploads/images/shoes1.jpg", "uploads/images/shoes2.jpg"]', 'AVAILABLE', 3, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-('机械键盘', '樱桃轴机械键盘，手感极佳', 299.00, '二号宿舍楼', '["uploads/images/keyboard1.jpg"]', 'AVAILABLE', 4, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
-('自行车', '捷安特自行车，九成新，有锁', 599.00, '校门口自行车棚', '["uploads/images/bike1.jpg", "uploads/images/bike2.jpg"]', 'AVAILABLE', 3, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+('全新iPad Pro', '2023年购入，95新，配件齐全，无拆修', 3999.00, '一号宿舍楼', '["uploads/images/ipad1.jpg", "uploads/images/ipad2.jpg"]' FORMAT JSON, 'AVAILABLE', 2, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+('Java编程思想（第4版）', '经典Java学习书籍，九成新', 45.00, '图书馆门口', '["uploads/images/book1.jpg"]' FORMAT JSON, 'AVAILABLE', 2, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+('Nike运动鞋', '耐克运动鞋，42码，穿过几次，9成新', 199.00, '体育馆', '["uploads/images/shoes1.jpg", "uploads/images/shoes2.jpg"]' FORMAT JSON, 'AVAILABLE', 3, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+('机械键盘', '樱桃轴机械键盘，手感极佳', 299.00, '二号宿舍楼', '["uploads/images/keyboard1.jpg"]' FORMAT JSON, 'AVAILABLE', 4, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP),
+('自行车', '捷安特自行车，九成新，有锁', 599.00, '校门口自行车棚', '["uploads/images/bike1.jpg", "uploads/images/bike2.jpg"]' FORMAT JSON, 'AVAILABLE', 3, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
 
 -- 插入测试订单数据
 INSERT INTO orders (product_id, buyer_id, seller_id, status, create_time, update_time)
@@ -0,0 +1,13 @@
+-- 商品图片改为 products.image_paths JSON列存储
+ALTER TABLE products ADD COLUMN image_paths JSON;
+
+-- 把旧关联表中的图片路径按商品聚合写入JSON列
+UPDATE products p
+    JOIN (SELECT product_id, JSON_ARRAYAGG(image_path) AS paths
+          FROM product_images
+          GROUP BY product_id) i ON i.product_id = p.id
+SET p.image_paths = i.paths
+WHERE p.image_paths IS NULL;
+
+-- 旧表保留备份，确认无误后可手动删除
+RENAME TABLE product_images TO product_images_migrated;
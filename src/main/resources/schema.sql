@@ -1,4 +1,5 @@
 -- 删除已存在的表（按照依赖关系倒序删除）
+DROP TABLE IF EXISTS notification_outbox;
 DROP TABLE IF EXISTS messages;
 DROP TABLE IF EXISTS orders;
 DROP TABLE IF EXISTS products;
@@ -61,4 +62,24 @@ CREATE TABLE IF NOT EXISTS messages (
     FOREIGN KEY (receiver_id) REFERENCES users(id),
     FOREIGN KEY (product_id) REFERENCES products(id),
     FOREIGN KEY (order_id) REFERENCES orders(id)
-); 
\ No newline at end of file
+);
+
+-- 通知发件箱：与业务数据同一事务写入，投递到消息表后删除，无法投递的记录标记 failed_time
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    title VARCHAR(100) NOT NULL,
+    content TEXT,
+    receiver_id BIGINT NOT NULL,
+    product_id BIGINT,
+    order_id BIGINT,
+    create_time TIMESTAMP NOT NULL,
+    failed_time TIMESTAMP
+);
+
+-- 游标分页索引
+CREATE INDEX IF NOT EXISTS idx_products_status_create_time ON products (status, create_time, id);
+CREATE INDEX IF NOT EXISTS idx_products_status_price ON products (status, price, id);
+CREATE INDEX IF NOT EXISTS idx_orders_buyer_create_time ON orders (buyer_id, create_time, id);
+CREATE INDEX IF NOT EXISTS idx_orders_seller_create_time ON orders (seller_id, create_time, id);
+CREATE INDEX IF NOT EXISTS idx_messages_receiver_create_time ON messages (receiver_id, create_time, id);
\ No newline at end of file
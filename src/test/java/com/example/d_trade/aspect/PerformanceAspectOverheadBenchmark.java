@@ -0,0 +1,74 @@
+package com.example.d_trade.aspect;
+
+import com.example.d_trade.service.StatisticsService;
+import com.example.d_trade.service.impl.StatisticsServiceImpl;
+import com.example.d_trade.utils.PerformanceMonitor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 性能监控切面开销基准测试：对比不经过切面、全量记录、每N次抽样、按概率抽样和关闭service层时单次调用的耗时
+ * 被测方法是一个只更新内存计数的service方法，耗时主要来自切面本身。
+ * 项目没有引入JMH，这里按其他基准测试的方式手工预热后计时，
+ * 使用 mvn test -Dbenchmark=true -Dtest=PerformanceAspectOverheadBenchmark 运行
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class PerformanceAspectOverheadBenchmark {
+
+    private static final int WARMUP_CALLS = 2_000_000;
+    private static final int MEASURED_CALLS = 5_000_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void compareInstrumentationModes() {
+        StatisticsService target = new StatisticsServiceImpl(null, null, null, null, null);
+
+        Map<String, StatisticsService> modes = new LinkedHashMap<>();
+        modes.put("不经过切面", target);
+        modes.put("全量记录", proxy(target, true, "all"));
+        modes.put("每10次抽样", proxy(target, true, "every-n"));
+        modes.put("10%概率抽样", proxy(target, true, "probability"));
+        modes.put("关闭service层", proxy(target, false, "all"));
+
+        LocalDateTime createTime = LocalDateTime.now();
+        Map<String, Double> results = new LinkedHashMap<>();
+        for (Map.Entry<String, StatisticsService> mode : modes.entrySet()) {
+            StatisticsService service = mode.getValue();
+            for (int i = 0; i < WARMUP_CALLS; i++) {
+                service.messageCreated(createTime);
+            }
+            // 取多轮中的最好成绩，减少GC和JIT的干扰
+            double best = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < MEASURED_CALLS; i++) {
+                    service.messageCreated(createTime);
+                }
+                best = Math.min(best, (System.nanoTime() - start) / (double) MEASURED_CALLS);
+            }
+            results.put(mode.getKey(), best);
+        }
+
+        double baseline = results.get("不经过切面");
+        results.forEach((mode, nanos) ->
+                System.out.printf("%s: %.1f ns/次, 切面开销 %.1f ns%n", mode, nanos, nanos - baseline));
+
+        // 抽样模式的开销不应超过全量记录
+        assertTrue(results.get("每10次抽样") <= results.get("全量记录") * 1.1);
+    }
+
+    private StatisticsService proxy(StatisticsService target, boolean servicesEnabled, String sampling) {
+        PerformanceAspect aspect = new PerformanceAspect(new PerformanceMonitor(),
+                true, servicesEnabled, true, sampling, 10, 0.1);
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+}
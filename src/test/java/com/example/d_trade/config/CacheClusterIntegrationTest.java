@@ -0,0 +1,178 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.DTradeApplication;
+import com.example.d_trade.dto.ProductDTO;
+import com.example.d_trade.dto.ProductSummaryDTO;
+import com.example.d_trade.dto.request.ProductFilter;
+import com.example.d_trade.dto.request.ProductRequest;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.service.ProductService;
+import com.example.d_trade.utils.L2CacheStore;
+import com.example.d_trade.utils.OffHeapProductCatalog;
+import com.example.d_trade.utils.ProductFacetCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 两个应用实例共享同一个H2数据库时的两级缓存测试：
+ * 一个实例加载的关键词列表页另一个实例从二级缓存读取，一个实例修改商品后另一个实例的堆外商品目录、
+ * 商品分面计数和本地缓存在轮询间隔内更新；从二级缓存读取的列表页同样会被失效。
+ * 商品详情和无关键词的在售列表由堆外目录提供，经过缓存的用例使用关键词列表页
+ */
+public class CacheClusterIntegrationTest {
+
+    private static final String SELLER = "20210101";
+    private static final Long PRODUCT_ID = 1L;
+    private static final String KEYWORD = "iPad";
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+
+    @BeforeEach
+    void setUp() {
+        String[] common = {
+                "--server.port=0",
+                // 二级缓存和变更事件表不随应用关闭删除，每个测试使用单独的数据库
+                "--spring.datasource.url=jdbc:h2:mem:cache_cluster_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--app.cache.cluster.enabled=true",
+                "--app.cache.cluster.poll-interval-ms=100",
+                "--app.cache.specs.products.l2=true",
+                "--app.warmup.enabled=false"
+        };
+        // create-drop建表会清掉先执行的data.sql，第一个实例在建表之后再导入测试数据
+        nodeA = new SpringApplicationBuilder(DTradeApplication.class).profiles("h2").run(concat(common,
+                "--spring.jpa.defer-datasource-initialization=true"));
+        // 第二个实例使用第一个实例建好的表和数据
+        nodeB = new SpringApplicationBuilder(DTradeApplication.class).profiles("h2").run(concat(common,
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--spring.sql.init.mode=never"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        // 第一个实例关闭时会删除表，先关闭第二个实例
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void testSecondNodeReadsFromL2() {
+        ProductService serviceA = nodeA.getBean(ProductService.class);
+        ProductService serviceB = nodeB.getBean(ProductService.class);
+
+        PageRequest firstPage = PageRequest.of(0, 10);
+
+        // 调用测试方法
+        List<Long> loaded = ids(serviceA.getProducts(KEYWORD, "AVAILABLE", "newest", firstPage));
+        List<Long> shared = ids(serviceB.getProducts(KEYWORD, "AVAILABLE", "newest", firstPage));
+
+        // 验证结果
+        assertTrue(loaded.contains(PRODUCT_ID));
+        assertEquals(loaded, shared);
+        assertTrue((Long) nodeB.getBean(L2CacheStore.class).getStats().get("hits") >= 1);
+    }
+
+    @Test
+    void testUpdateOnOneNodeInvalidatesOther() throws InterruptedException {
+        ProductService serviceA = nodeA.getBean(ProductService.class);
+        ProductService serviceB = nodeB.getBean(ProductService.class);
+        PageRequest firstPage = PageRequest.of(0, 10);
+
+        // 两个实例的堆外目录都已加载该商品，第二个实例还缓存了关键词列表页
+        ProductDTO original = serviceA.getProductById(PRODUCT_ID);
+        assertTrue(nodeB.getBean(OffHeapProductCatalog.class).contains(PRODUCT_ID));
+        serviceB.getProducts(KEYWORD, "AVAILABLE", "newest", firstPage);
+
+        ProductRequest request = new ProductRequest();
+        request.setTitle(original.getTitle() + "（已降价）");
+        request.setPrice(original.getPrice().subtract(BigDecimal.ONE));
+        request.setDescription(original.getDescription());
+        request.setTradeLocation("二号宿舍楼");
+        request.setImagePaths(original.getImagePaths());
+
+        // 调用测试方法
+        serviceA.updateProduct(SELLER, PRODUCT_ID, request);
+
+        // 验证结果：商品详情和默认列表来自第二个实例的堆外目录，关键词列表页来自本地缓存
+        assertEquals(request.getTitle(), serviceA.getProductById(PRODUCT_ID).getTitle());
+        assertTrue(eventually(() -> request.getTitle().equals(serviceB.getProductById(PRODUCT_ID).getTitle())));
+        assertTrue(eventually(() -> serviceB.getProducts(null, "AVAILABLE", "newest", firstPage).stream()
+                .anyMatch(product -> PRODUCT_ID.equals(product.getId())
+                        && request.getTitle().equals(product.getTitle()))));
+        assertTrue(eventually(() -> serviceB.getProducts(KEYWORD, "AVAILABLE", "newest", firstPage).stream()
+                .anyMatch(product -> PRODUCT_ID.equals(product.getId())
+                        && request.getTitle().equals(product.getTitle()))));
+        assertTrue(eventually(() -> nodeB.getBean(ProductFacetCounter.class)
+                .getFacets(Product.Status.AVAILABLE, ProductFilter.NONE).get("locations").toString()
+                .contains("二号宿舍楼")));
+    }
+
+    @Test
+    void testListingReadFromL2InvalidatedByOtherNode() throws InterruptedException {
+        ProductService serviceA = nodeA.getBean(ProductService.class);
+        ProductService serviceB = nodeB.getBean(ProductService.class);
+        PageRequest firstPage = PageRequest.of(0, 10);
+
+        // 第一个实例加载列表页，第二个实例从二级缓存读取
+        serviceA.getProducts(KEYWORD, "AVAILABLE", "newest", firstPage);
+        long l2Hits = (Long) nodeB.getBean(L2CacheStore.class).getStats().get("hits");
+        assertTrue(serviceB.getProducts(KEYWORD, "AVAILABLE", "newest", firstPage).stream()
+                .anyMatch(product -> PRODUCT_ID.equals(product.getId())));
+        assertTrue((Long) nodeB.getBean(L2CacheStore.class).getStats().get("hits") > l2Hits);
+
+        ProductDTO original = serviceA.getProductById(PRODUCT_ID);
+        ProductRequest request = new ProductRequest();
+        request.setTitle(original.getTitle() + "（已降价）");
+        request.setPrice(original.getPrice().subtract(BigDecimal.ONE));
+        request.setDescription(original.getDescription());
+        request.setTradeLocation(original.getTradeLocation());
+        request.setImagePaths(original.getImagePaths());
+
+        // 调用测试方法：第一个实例修改该页中的商品
+        serviceA.updateProduct(SELLER, PRODUCT_ID, request);
+
+        // 验证结果：第二个实例按二级缓存中保存的依赖失效本地的列表页
+        assertTrue(eventually(() -> serviceB.getProducts(KEYWORD, "AVAILABLE", "newest", firstPage).stream()
+                .anyMatch(product -> PRODUCT_ID.equals(product.getId())
+                        && request.getTitle().equals(product.getTitle()))));
+    }
+
+    private static boolean eventually(Supplier<Boolean> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (condition.get()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return condition.get();
+    }
+
+    private static List<Long> ids(Page<ProductSummaryDTO> page) {
+        return page.stream().map(ProductSummaryDTO::getId).toList();
+    }
+
+    private static String[] concat(String[] args, String... extra) {
+        String[] result = new String[args.length + extra.length];
+        System.arraycopy(args, 0, result, 0, args.length);
+        System.arraycopy(extra, 0, result, args.length, extra.length);
+        return result;
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.dto.UserSummaryDTO;
+import com.example.d_trade.utils.CacheReloadRegistry;
+import com.example.d_trade.utils.JsonCacheValueCodec;
+import com.github.benmanes.caffeine.cache.Policy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheConfigTest {
+
+    private CacheManager cacheManager;
+    private CacheReloadRegistry cacheReloadRegistry;
+
+    @BeforeEach
+    void setUp() {
+        CacheProperties properties = new CacheProperties();
+        CacheProperties.Spec products = new CacheProperties.Spec();
+        products.setMaximumWeight(DataSize.ofKilobytes(64));
+        products.setExpireAfterAccess(Duration.ofMinutes(10));
+        properties.getSpecs().put("products", products);
+        CacheProperties.Spec product = new CacheProperties.Spec();
+        product.setMaximumSize(5000L);
+        product.setExpireAfterWrite(Duration.ofMinutes(30));
+        properties.getSpecs().put("product", product);
+        CacheProperties.Spec hot = new CacheProperties.Spec();
+        hot.setExpireAfterWrite(Duration.ofMinutes(5));
+        hot.setRefreshAfterWrite(Duration.ofMillis(20));
+        properties.getSpecs().put("hot", hot);
+        CacheProperties.Spec compact = new CacheProperties.Spec();
+        compact.setValueFormat(CacheProperties.ValueFormat.JSON);
+        properties.getSpecs().put("compact", compact);
+
+        cacheReloadRegistry = new CacheReloadRegistry();
+        cacheManager = new CacheConfig().cacheManager(properties, cacheReloadRegistry, null, null);
+    }
+
+    @Test
+    void testConfiguredCachesAreCreatedUpFront() {
+        assertTrue(cacheManager.getCacheNames().containsAll(List.of("products", "product")));
+    }
+
+    @Test
+    void testPerCachePolicies() {
+        Policy<Object, Object> product = nativeCache("product").policy();
+        assertFalse(product.eviction().orElseThrow().isWeighted());
+        assertEquals(5000, product.eviction().orElseThrow().getMaximum());
+        assertEquals(Duration.ofMinutes(30), product.expireAfterWrite().orElseThrow().getExpiresAfter());
+        // 单独配置了过期时间，不再继承默认的访问过期
+        assertTrue(product.expireAfterAccess().isEmpty());
+
+        Policy<Object, Object> products = nativeCache("products").policy();
+        assertTrue(products.eviction().orElseThrow().isWeighted());
+        assertEquals(64 * 1024, products.eviction().orElseThrow().getMaximum());
+
+        // 未配置的缓存使用默认策略
+        Policy<Object, Object> other = nativeCache("other").policy();
+        assertEquals(1000, other.eviction().orElseThrow().getMaximum());
+        assertEquals(Duration.ofMinutes(30), other.expireAfterAccess().orElseThrow().getExpiresAfter());
+    }
+
+    @Test
+    void testWeightedCacheTracksBytes() {
+        Cache cache = cacheManager.getCache("products");
+        cache.put("small", "a");
+        cache.put("large", "x".repeat(4000));
+        // 权重在维护任务中异步累计
+        nativeCache("products").cleanUp();
+
+        long weightedSize = nativeCache("products").policy().eviction().orElseThrow().weightedSize().orElseThrow();
+        assertTrue(weightedSize > 4000, "权重合计: " + weightedSize);
+    }
+
+    @Test
+    void testMissThenPutRecordsLoadTime() throws InterruptedException {
+        Cache cache = cacheManager.getCache("product");
+
+        // 模拟 @Cacheable：查询未命中，执行方法，写入结果
+        assertNull(cache.get(1L));
+        Thread.sleep(5);
+        cache.put(1L, "商品");
+        assertNotNull(cache.get(1L));
+        // 没有先查询的写入不计入加载
+        cache.put(2L, "商品");
+
+        var stats = nativeCache("product").stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+        assertEquals(1, stats.loadCount());
+        assertTrue(stats.totalLoadTime() >= Duration.ofMillis(5).toNanos());
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoad() throws Exception {
+        Cache cache = cacheManager.getCache("products");
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            // 模拟 @Cacheable(sync = true)：并发未命中同一个键
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("home", () -> {
+                        loads.incrementAndGet();
+                        Thread.sleep(50);
+                        return "首页";
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Object> future : futures) {
+                assertEquals("首页", future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(1, nativeCache("products").stats().loadCount());
+    }
+
+    @Test
+    void testHotEntryIsRefreshedInBackground() throws InterruptedException {
+        Cache cache = cacheManager.getCache("hot");
+        CountDownLatch reloadAllowed = new CountDownLatch(1);
+        cacheReloadRegistry.register("hot", "home", () -> {
+            try {
+                reloadAllowed.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "新首页";
+        });
+        cache.put("home", "旧首页");
+        Thread.sleep(50);
+
+        // 超过刷新间隔后的读取不等待重新加载，立即返回旧值
+        assertEquals("旧首页", cache.get("home").get());
+        reloadAllowed.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"新首页".equals(cache.get("home").get()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("新首页", cache.get("home").get());
+        assertTrue((Long) cacheReloadRegistry.getStats().get("refreshes") >= 1);
+    }
+
+    @Test
+    void testRefreshWithoutLoaderDropsEntry() throws InterruptedException {
+        Cache cache = cacheManager.getCache("hot");
+        cache.put("unknown", "值");
+        Thread.sleep(50);
+
+        cache.get("unknown");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.get("unknown") != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // 没有登记重新加载方法时移除条目，下次读取重新计算
+        assertNull(cache.get("unknown"));
+    }
+
+    @Test
+    void testCompactCacheStoresBytesAndRestoresValue() {
+        Cache cache = cacheManager.getCache("compact");
+        UserSummaryDTO seller = new UserSummaryDTO(2L, "20210101", "张三", "三哥");
+        Page<UserSummaryDTO> page = new PageImpl<>(List.of(seller), PageRequest.of(0, 10), 1);
+
+        cache.put("page", page);
+        Object loaded = cache.get("other", () -> seller);
+
+        assertInstanceOf(JsonCacheValueCodec.EncodedPage.class, nativeCache("compact").getIfPresent("page"));
+        Page<?> restored = cache.get("page", Page.class);
+        assertNotSame(page, restored);
+        assertEquals(page.getContent(), restored.getContent());
+        assertEquals(page.getPageable(), restored.getPageable());
+        assertEquals(seller, loaded);
+        assertEquals(seller, cache.get("other").get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache(String name) {
+        return (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cacheManager.getCache(name).getNativeCache();
+    }
+}
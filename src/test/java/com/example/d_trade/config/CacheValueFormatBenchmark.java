@@ -0,0 +1,97 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.dto.ProductSummaryDTO;
+import com.example.d_trade.dto.UserSummaryDTO;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.utils.CacheReloadRegistry;
+import com.example.d_trade.utils.ObjectSizeEstimator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 列表页缓存值的两种保存形式对比：对象图 vs JSON字节
+ * 分别统计每页的常驻堆内存（GC后的实测增量和估算值）和命中路径耗时，
+ * 默认不执行，使用 mvn test -Dbenchmark=true -Dtest=CacheValueFormatBenchmark 运行
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class CacheValueFormatBenchmark {
+
+    private static final int PAGES = 2_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int HIT_ROUNDS = 200_000;
+
+    @Test
+    void compareObjectAndJson() {
+        CacheProperties properties = new CacheProperties();
+        CacheProperties.Spec object = new CacheProperties.Spec();
+        object.setMaximumSize(PAGES * 2L);
+        properties.getSpecs().put("object", object);
+        CacheProperties.Spec json = new CacheProperties.Spec();
+        json.setMaximumSize(PAGES * 2L);
+        json.setValueFormat(CacheProperties.ValueFormat.JSON);
+        properties.getSpecs().put("json", json);
+        CacheManager cacheManager = new CacheConfig().cacheManager(properties, new CacheReloadRegistry(), null, null);
+
+        for (String cacheName : List.of("object", "json")) {
+            Cache cache = cacheManager.getCache(cacheName);
+            long before = usedHeap();
+            for (int i = 0; i < PAGES; i++) {
+                cache.put(i, page(i));
+            }
+            long retained = usedHeap() - before;
+            com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache =
+                    (com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache();
+            long estimated = nativeCache.asMap().values().stream().mapToLong(ObjectSizeEstimator::estimate).sum();
+
+            // 预热后测量命中路径：get + 还原
+            for (int i = 0; i < HIT_ROUNDS / 10; i++) {
+                cache.get(i % PAGES, Page.class);
+            }
+            long start = System.nanoTime();
+            long elements = 0;
+            for (int i = 0; i < HIT_ROUNDS; i++) {
+                elements += cache.get(i % PAGES, Page.class).getNumberOfElements();
+            }
+            long hitNanos = System.nanoTime() - start;
+
+            System.out.printf("[%s] 每页常驻堆内存: 实测 %d B, 估算 %d B; 命中耗时: %.2f us%n",
+                    cacheName, retained / PAGES, estimated / PAGES, hitNanos / 1_000.0 / HIT_ROUNDS);
+            assertEquals((long) HIT_ROUNDS * PAGE_SIZE, elements);
+        }
+    }
+
+    private static Page<ProductSummaryDTO> page(int pageNumber) {
+        Random random = new Random(pageNumber);
+        LocalDateTime now = LocalDateTime.now();
+        List<ProductSummaryDTO> content = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            long id = (long) pageNumber * PAGE_SIZE + i;
+            UserSummaryDTO seller = new UserSummaryDTO(id % 500, "2021" + (1000 + id % 500), "用户" + id % 500, "昵称" + id % 500);
+            content.add(new ProductSummaryDTO(id, "二手自行车九成新" + id, BigDecimal.valueOf(random.nextInt(100_000), 2),
+                    "一号宿舍楼", List.of("uploads/images/" + id + "-1.jpg", "uploads/images/" + id + "-2.jpg"),
+                    Product.Status.AVAILABLE, seller, now.minusMinutes(id), now));
+        }
+        return new PageImpl<>(content, PageRequest.of(pageNumber, PAGE_SIZE), 100_000);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
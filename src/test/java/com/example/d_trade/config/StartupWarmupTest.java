@@ -0,0 +1,134 @@
+package com.example.d_trade.config;
+
+import com.example.d_trade.dto.ProductSummaryDTO;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.security.JwtUtils;
+import com.example.d_trade.service.ProductService;
+import com.example.d_trade.utils.PerformanceMonitor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StartupWarmupTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private JwtUtils jwtUtils;
+
+    @Mock
+    private PerformanceMonitor performanceMonitor;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private StartupWarmup startupWarmup;
+
+    @BeforeEach
+    void setUp() {
+        startupWarmup = new StartupWarmup(productService, jwtUtils,
+                Jackson2ObjectMapperBuilder.json().build(), performanceMonitor, eventPublisher);
+        ReflectionTestUtils.setField(startupWarmup, "pages", 2);
+        ReflectionTestUtils.setField(startupWarmup, "pageSize", 3);
+        ReflectionTestUtils.setField(startupWarmup, "hotProducts", 4);
+        ReflectionTestUtils.setField(startupWarmup, "syntheticIterations", 5);
+    }
+
+    @Test
+    void testWarmUpCoversEverySortAndStatus() {
+        // 每页3个商品，共100个，前2页都不是最后一页
+        when(productService.getProducts(isNull(), anyString(), any(), any(Pageable.class)))
+                .thenAnswer(invocation -> page(invocation.getArgument(3)));
+        when(jwtUtils.generateToken(any())).thenReturn("token");
+
+        // 调用测试方法
+        startupWarmup.run();
+        Map<String, Object> report = startupWarmup.getReport();
+
+        // 验证结果：2个状态 × 4种排序 × 2页
+        assertEquals(16, report.get("listingPages"));
+        verify(productService, times(8)).getProducts(isNull(), eq(Product.Status.AVAILABLE.name()), any(), any());
+        verify(productService, times(8)).getProducts(isNull(), eq(Product.Status.SOLD.name()), any(), any());
+        // 热点商品取在售列表中出现的商品，不超过配置数量
+        assertEquals(4, report.get("hotProducts"));
+        verify(productService, times(4)).getProductById(anyLong());
+        assertEquals(5, report.get("jwtIterations"));
+        verify(jwtUtils, times(5)).validateToken(eq("token"), any());
+        assertEquals(5, report.get("jsonIterations"));
+        assertEquals(0, report.get("jsonFailures"));
+        assertEquals(false, report.get("timedOut"));
+        verify(performanceMonitor).reset();
+    }
+
+    @Test
+    void testWarmUpStopsAtLastPage() {
+        when(productService.getProducts(isNull(), anyString(), any(), any(Pageable.class)))
+                .thenAnswer(invocation -> new PageImpl<>(List.of(), invocation.getArgument(3), 0));
+        when(jwtUtils.generateToken(any())).thenReturn("token");
+
+        // 调用测试方法
+        Map<String, Object> report = startupWarmup.warmUp();
+
+        // 验证结果：没有商品时每种组合只查询第一页
+        assertEquals(8, report.get("listingPages"));
+        assertEquals(0, report.get("hotProducts"));
+        verify(productService, never()).getProductById(anyLong());
+    }
+
+    @Test
+    void testJsonFailureReported() {
+        // 没有注册 JavaTimeModule，ApiResponse.timestamp 无法序列化
+        startupWarmup = new StartupWarmup(productService, jwtUtils, new ObjectMapper(), performanceMonitor, eventPublisher);
+        when(productService.getProducts(isNull(), anyString(), any(), any(Pageable.class)))
+                .thenAnswer(invocation -> page(invocation.getArgument(3)));
+        when(jwtUtils.generateToken(any())).thenReturn("token");
+
+        // 调用测试方法
+        Map<String, Object> report = startupWarmup.warmUp();
+
+        // 验证结果
+        assertEquals(0, report.get("jsonIterations"));
+        assertEquals(1, report.get("jsonFailures"));
+    }
+
+    @Test
+    void testDisabledWarmUpDoesNothing() {
+        ReflectionTestUtils.setField(startupWarmup, "enabled", false);
+
+        // 调用测试方法
+        startupWarmup.run();
+
+        // 验证结果
+        verifyNoInteractions(productService, eventPublisher);
+        assertEquals(false, startupWarmup.getReport().get("enabled"));
+    }
+
+    private static PageImpl<ProductSummaryDTO> page(PageRequest pageable) {
+        List<ProductSummaryDTO> content = new ArrayList<>();
+        for (int i = 0; i < pageable.getPageSize(); i++) {
+            ProductSummaryDTO dto = new ProductSummaryDTO();
+            dto.setId(pageable.getOffset() + i);
+            content.add(dto);
+        }
+        return new PageImpl<>(content, pageable, 100);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.d_trade.repository;
+
+import com.example.d_trade.dto.OrderDTO;
+import com.example.d_trade.dto.ProductDTO;
+import com.example.d_trade.dto.projection.MessageListProjection;
+import com.example.d_trade.dto.projection.OrderListProjection;
+import com.example.d_trade.dto.projection.ProductListProjection;
+import com.example.d_trade.entity.Message;
+import com.example.d_trade.entity.Order;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 抓取计划测试：列表页使用投影查询，SQL条数不随页大小增长且不加载实体；
+ * 详情和批量修改使用的实体查询通过实体图一次取出DTO需要的关联
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.default_batch_fetch_size=50",
+        "spring.sql.init.mode=never"
+})
+public class ListingFetchPlanTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    private User buyer;
+    private Long productId;
+    private Long orderId;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        buyer = persistUser("buyer");
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            // 每个商品一个不同的卖家，最坏情况下每行都会触发卖家查询
+            User seller = persistUser("seller" + i);
+            Product product = new Product();
+            product.setTitle("商品" + i);
+            product.setPrice(new BigDecimal("10.00").add(BigDecimal.valueOf(i)));
+            product.setDescription("描述" + i);
+            product.setImagePaths(new ArrayList<>(List.of("/uploads/" + i + "-1.png", "/uploads/" + i + "-2.png")));
+            product.setStatus(Product.Status.AVAILABLE);
+            product.setSeller(seller);
+            products.add(entityManager.persist(product));
+        }
+        for (Product product : products) {
+            Order order = new Order();
+            order.setProduct(product);
+            order.setBuyer(buyer);
+            order.setSeller(product.getSeller());
+            order.setStatus(Order.Status.PENDING);
+            orderId = entityManager.persist(order).getId();
+        }
+        productId = products.get(0).getId();
+        Message message = new Message();
+        message.setType(Message.Type.SYSTEM);
+        message.setTitle("系统通知");
+        message.setContent("欢迎使用");
+        message.setReceiver(buyer);
+        entityManager.persist(message);
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void testProductDetailStatementCount() {
+        ProductDTO product = productRepository.findById(productId).map(ProductDTO::fromEntity).orElseThrow();
+
+        assertEquals(2, product.getImagePaths().size());
+        assertNotNull(product.getSeller().getUsername());
+        // 商品详情：一条查询JOIN卖家，图片在商品行内
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testOrderDetailStatementCount() {
+        OrderDTO order = orderRepository.findById(orderId).map(OrderDTO::fromEntity).orElseThrow();
+
+        assertNotNull(order.getProduct().getSeller().getUsername());
+        assertEquals(2, order.getProduct().getImagePaths().size());
+        assertEquals(buyer.getStudentId(), order.getBuyer().getStudentId());
+        // 订单详情：一条查询JOIN商品、商品卖家、买家、卖家
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testProductBatchStatementCount() {
+        List<Long> ids = productRepository.findListByStatus(Product.Status.AVAILABLE, PageRequest.of(0, PAGE_SIZE))
+                .map(ProductListProjection::id).getContent();
+        statistics.clear();
+
+        // 图片迁移按批次加载商品实体
+        List<Product> products = productRepository.findAllById(ids);
+
+        assertEquals(PAGE_SIZE, products.size());
+        products.forEach(product -> assertNotNull(product.getSeller().getUsername()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testUnreadMessagesLoadedWithReceiver() {
+        // 全部标记已读时加载未读消息实体
+        Page<Message> page = messageRepository.findByReceiverAndIsReadOrderByCreateTimeDesc(buyer, false,
+                Pageable.unpaged());
+
+        assertEquals(1, page.getNumberOfElements());
+        assertEquals(buyer.getStudentId(), page.getContent().get(0).getReceiver().getStudentId());
+        // 不分页时没有COUNT查询
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testProductProjectionLoadsNoEntities() {
+        Page<ProductListProjection> page = productRepository.findListByStatus(Product.Status.AVAILABLE,
+                PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createTime")));
+
+        assertEquals(PAGE_SIZE, page.getNumberOfElements());
+        assertEquals(2, page.getContent().get(0).imagePaths().size());
+        assertNotNull(page.getContent().get(0).sellerUsername());
+        // 列表投影 + COUNT，持久化上下文中没有实体
+        assertTrue(statistics.getPrepareStatementCount() <= 2,
+                "商品投影SQL条数: " + statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testOrderProjectionLoadsNoEntities() {
+        Page<OrderListProjection> page = orderRepository.findListByBuyer(buyer, null, PageRequest.of(0, PAGE_SIZE));
+
+        assertEquals(PAGE_SIZE, page.getNumberOfElements());
+        assertEquals(buyer.getStudentId(), page.getContent().get(0).buyerStudentId());
+        assertEquals(2, page.getContent().get(0).productImagePaths().size());
+        assertNotNull(page.getContent().get(0).sellerUsername());
+        assertTrue(statistics.getPrepareStatementCount() <= 2,
+                "订单投影SQL条数: " + statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void testMessageProjectionKeepsRowsWithoutProduct() {
+        Page<MessageListProjection> page = messageRepository.findListByReceiver(buyer, false,
+                PageRequest.of(0, PAGE_SIZE));
+
+        // 未关联商品和订单的消息不能被内连接过滤掉
+        assertEquals(1, page.getNumberOfElements());
+        assertNull(page.getContent().get(0).productId());
+        assertNull(page.getContent().get(0).orderId());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    private User persistUser(String studentId) {
+        User user = new User();
+        user.setStudentId(studentId);
+        user.setUsername(studentId);
+        user.setPassword("password");
+        user.setRole(User.Role.USER);
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.d_trade.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 商品图片存储方式基准测试：product_images关联表 vs products.image_paths JSON列
+ * 按Hibernate实际发出的SQL对比列表页读取和商品更新的耗时，
+ * 使用 mvn test -Dbenchmark=true -Dtest=ProductImageStorageBenchmark 运行
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ProductImageStorageBenchmark {
+
+    private static final int PRODUCT_COUNT = 50_000;
+    private static final int IMAGES_PER_PRODUCT = 3;
+    private static final int PAGE_SIZE = 20;
+    private static final int ROUNDS = 2_000;
+
+    @Test
+    void compareListAndUpdateLatency() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:imageBench", "sa", "")) {
+            populate(connection);
+
+            // 预热
+            int tableImages = 0;
+            int jsonImages = 0;
+            for (int i = 0; i < ROUNDS / 10; i++) {
+                tableImages = listWithImageTable(connection, i);
+                jsonImages = listWithJsonColumn(connection, i);
+                updateWithImageTable(connection, i);
+                updateWithJsonColumn(connection, i);
+            }
+            assertEquals(PAGE_SIZE * IMAGES_PER_PRODUCT, tableImages);
+            assertEquals(PAGE_SIZE * IMAGES_PER_PRODUCT, jsonImages);
+
+            long tableList = 0;
+            long jsonList = 0;
+            long tableUpdate = 0;
+            long jsonUpdate = 0;
+            for (int i = 0; i < ROUNDS; i++) {
+                long start = System.nanoTime();
+                listWithImageTable(connection, i);
+                tableList += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                listWithJsonColumn(connection, i);
+                jsonList += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                updateWithImageTable(connection, i);
+                tableUpdate += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                updateWithJsonColumn(connection, i);
+                jsonUpdate += System.nanoTime() - start;
+            }
+
+            System.out.printf("列表页(%d条) 关联表: %.3f ms, JSON列: %.3f ms%n",
+                    PAGE_SIZE, tableList / 1_000_000.0 / ROUNDS, jsonList / 1_000_000.0 / ROUNDS);
+            System.out.printf("商品更新 关联表: %.3f ms, JSON列: %.3f ms%n",
+                    tableUpdate / 1_000_000.0 / ROUNDS, jsonUpdate / 1_000_000.0 / ROUNDS);
+        }
+    }
+
+    /**
+     * 迁移前：分页查询商品后按ID批量查询图片（@BatchSize的效果）
+     */
+    private int listWithImageTable(Connection connection, int round) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        try (PreparedStatement page = connection.prepareStatement(
+                "SELECT id, title, price, status, create_time FROM products "
+                        + "ORDER BY create_time DESC LIMIT ? OFFSET ?")) {
+            page.setInt(1, PAGE_SIZE);
+            page.setInt(2, offset(round));
+            try (ResultSet rs = page.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(","));
+        int images = 0;
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT product_id, image_path FROM product_images WHERE product_id IN (" + placeholders + ")")) {
+            for (int i = 0; i < ids.size(); i++) {
+                select.setLong(i + 1, ids.get(i));
+            }
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    rs.getString(2);
+                    images++;
+                }
+            }
+        }
+        return images;
+    }
+
+    /**
+     * 迁移后：图片随商品行一次读出
+     */
+    private int listWithJsonColumn(Connection connection, int round) throws Exception {
+        int images = 0;
+        try (PreparedStatement page = connection.prepareStatement(
+                "SELECT id, title, price, status, create_time, image_paths FROM products "
+                        + "ORDER BY create_time DESC LIMIT ? OFFSET ?")) {
+            page.setInt(1, PAGE_SIZE);
+            page.setInt(2, offset(round));
+            try (ResultSet rs = page.executeQuery()) {
+                while (rs.next()) {
+                    String json = rs.getString(6);
+                    images += json.split(",").length;
+                }
+            }
+        }
+        return images;
+    }
+
+    /**
+     * 迁移前：更新商品行，集合整体删除后重新插入
+     */
+    private void updateWithImageTable(Connection connection, int round) throws Exception {
+        long id = productId(round);
+        try (PreparedStatement update = connection.prepareStatement("UPDATE products SET title = ? WHERE id = ?");
+             PreparedStatement delete = connection.prepareStatement("DELETE FROM product_images WHERE product_id = ?");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO product_images (product_id, image_path) VALUES (?, ?)")) {
+            update.setString(1, "商品" + id + "-" + round);
+            update.setLong(2, id);
+            update.executeUpdate();
+            delete.setLong(1, id);
+            delete.executeUpdate();
+            for (String path : imagePaths(id, round)) {
+                insert.setLong(1, id);
+                insert.setString(2, path);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    /**
+     * 迁移后：一条UPDATE同时写入图片
+     */
+    private void updateWithJsonColumn(Connection connection, int round) throws Exception {
+        long id = productId(round);
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE products SET title = ?, image_paths = ? FORMAT JSON WHERE id = ?")) {
+            update.setString(1, "商品" + id + "-" + round);
+            update.setString(2, toJson(imagePaths(id, round)));
+            update.setLong(3, id);
+            update.executeUpdate();
+        }
+    }
+
+    private void populate(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, title VARCHAR(100) NOT NULL, "
+                    + "price DECIMAL(10,2) NOT NULL, status VARCHAR(20), create_time TIMESTAMP, image_paths JSON)");
+            statement.execute("CREATE INDEX idx_products_create_time ON products (create_time)");
+            statement.execute("CREATE TABLE product_images (product_id BIGINT NOT NULL, "
+                    + "image_path VARCHAR(255) NOT NULL)");
+            statement.execute("CREATE INDEX idx_product_images_product ON product_images (product_id)");
+        }
+
+        LocalDateTime base = LocalDateTime.now().minusDays(365);
+        try (PreparedStatement product = connection.prepareStatement(
+                "INSERT INTO products (id, title, price, status, create_time, image_paths) "
+                        + "VALUES (?, ?, 99.00, 'AVAILABLE', ?, ? FORMAT JSON)");
+             PreparedStatement image = connection.prepareStatement(
+                     "INSERT INTO product_images (product_id, image_path) VALUES (?, ?)")) {
+            for (long id = 1; id <= PRODUCT_COUNT; id++) {
+                List<String> paths = imagePaths(id, 0);
+                product.setLong(1, id);
+                product.setString(2, "商品" + id);
+                product.setTimestamp(3, Timestamp.valueOf(base.plusSeconds(id * 30)));
+                product.setString(4, toJson(paths));
+                product.addBatch();
+                for (String path : paths) {
+                    image.setLong(1, id);
+                    image.setString(2, path);
+                    image.addBatch();
+                }
+                if (id % 5000 == 0) {
+                    product.executeBatch();
+                    image.executeBatch();
+                }
+            }
+            product.executeBatch();
+            image.executeBatch();
+        }
+    }
+
+    private static int offset(int round) {
+        return (round % 100) * PAGE_SIZE;
+    }
+
+    private static long productId(int round) {
+        return round % PRODUCT_COUNT + 1;
+    }
+
+    private static List<String> imagePaths(long id, int round) {
+        List<String> paths = new ArrayList<>(IMAGES_PER_PRODUCT);
+        for (int i = 0; i < IMAGES_PER_PRODUCT; i++) {
+            paths.add("/uploads/" + id + "-" + round + "-" + i + ".jpg");
+        }
+        return paths;
+    }
+
+    private static String toJson(List<String> paths) {
+        return paths.stream().map(path -> "\"" + path + "\"").collect(Collectors.joining(",", "[", "]"));
+    }
+}
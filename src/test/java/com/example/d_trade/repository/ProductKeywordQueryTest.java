@@ -0,0 +1,82 @@
+package com.example.d_trade.repository;
+
+import com.example.d_trade.dto.projection.ProductListProjection;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 关键词LIKE查询测试：关键词中的通配符按普通字符匹配，与索引查询结果一致
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+public class ProductKeywordQueryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        User seller = new User();
+        seller.setStudentId("2023001");
+        seller.setUsername("seller");
+        seller.setPassword("password");
+        seller.setRole(User.Role.USER);
+        entityManager.persist(seller);
+        for (String title : List.of("九五折 100%新", "二手自行车", "a_b 转接头", "axb 转接头")) {
+            Product product = new Product();
+            product.setTitle(title);
+            product.setPrice(new BigDecimal("10.00"));
+            product.setStatus(Product.Status.AVAILABLE);
+            product.setSeller(seller);
+            entityManager.persist(product);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testWildcardsMatchLiterally() {
+        // 调用测试方法
+        Page<ProductListProjection> percent = productRepository.findListByTitleContainingAndStatus("%",
+                Product.Status.AVAILABLE, PageRequest.of(0, 10));
+        Page<ProductListProjection> underscore = productRepository.findListByTitleContainingAndFilter("a_b",
+                Product.Status.AVAILABLE, null, null, null, PageRequest.of(0, 10));
+
+        // 验证结果
+        assertEquals(List.of("九五折 100%新"), titles(percent));
+        assertEquals(1, percent.getTotalElements());
+        assertEquals(List.of("a_b 转接头"), titles(underscore));
+        assertEquals(1, underscore.getTotalElements());
+    }
+
+    @Test
+    void testCursorQueryEscapesKeyword() {
+        List<ProductListProjection> rows = productRepository.findByTitleAndStatusAfterCursor("_",
+                Product.Status.AVAILABLE, LocalDateTime.now().plusDays(1), Long.MAX_VALUE,
+                PageRequest.of(0, 10)).getContent();
+
+        assertEquals(List.of("a_b 转接头"), rows.stream().map(ProductListProjection::title).toList());
+    }
+
+    private static List<String> titles(Page<ProductListProjection> page) {
+        return page.getContent().stream().map(ProductListProjection::title).toList();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.d_trade.repository;
+
+import com.example.d_trade.config.SqlStatisticsConfig;
+import com.example.d_trade.dto.projection.ProductListProjection;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.entity.User;
+import com.example.d_trade.utils.SqlStatementCollector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SQL语句统计测试：逐个加载关联实体的写法能被识别为N+1，投影查询的语句条数固定
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        // 关闭批量抓取，让延迟加载的卖家逐条查询
+        "spring.jpa.properties.hibernate.default_batch_fetch_size=1",
+        "spring.sql.init.mode=never"
+})
+@Import(SqlStatisticsConfig.class)
+public class SqlStatementCollectorTest {
+
+    private static final int PRODUCT_COUNT = 10;
+    private static final int THRESHOLD = 5;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < PRODUCT_COUNT; i++) {
+            User seller = new User();
+            seller.setStudentId("seller" + i);
+            seller.setUsername("seller" + i);
+            seller.setPassword("password");
+            seller.setRole(User.Role.USER);
+            entityManager.persist(seller);
+
+            Product product = new Product();
+            product.setTitle("商品" + i);
+            product.setPrice(BigDecimal.TEN);
+            product.setDescription("描述" + i);
+            product.setStatus(Product.Status.AVAILABLE);
+            product.setSeller(seller);
+            entityManager.persist(product);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testLazySellerAccessIsReportedAsNPlusOne() {
+        try (SqlStatementCollector sql = SqlStatementCollector.begin()) {
+            // 调用测试方法
+            List<Product> products = productRepository.findAll();
+            products.forEach(product -> assertNotNull(product.getSeller().getUsername()));
+
+            // 验证结果
+            assertEquals(PRODUCT_COUNT, products.size());
+            assertEquals(1 + PRODUCT_COUNT, sql.getStatementCount());
+            assertTrue(sql.getRowCount() >= PRODUCT_COUNT, "返回行数: " + sql.getRowCount());
+            Map<String, Integer> repeated = sql.getRepeatedStatements(THRESHOLD);
+            assertEquals(1, repeated.size());
+            assertEquals(PRODUCT_COUNT, repeated.values().iterator().next());
+        }
+        assertNull(SqlStatementCollector.current());
+    }
+
+    @Test
+    void testProjectionListingHasNoRepeatedStatements() {
+        try (SqlStatementCollector sql = SqlStatementCollector.begin()) {
+            // 调用测试方法
+            Page<ProductListProjection> page = productRepository.findListByStatus(Product.Status.AVAILABLE,
+                    PageRequest.of(0, PRODUCT_COUNT, Sort.by(Sort.Direction.DESC, "createTime")));
+
+            // 验证结果
+            assertEquals(PRODUCT_COUNT, page.getNumberOfElements());
+            assertTrue(sql.getStatementCount() <= 2, "商品投影SQL条数: " + sql.getStatementCount());
+            assertTrue(sql.getRepeatedStatements(THRESHOLD).isEmpty());
+        }
+    }
+
+    @Test
+    void testNestedCollectorRestoresOuter() {
+        try (SqlStatementCollector outer = SqlStatementCollector.begin()) {
+            try (SqlStatementCollector inner = SqlStatementCollector.begin()) {
+                productRepository.count();
+                assertEquals(1, inner.getStatementCount());
+            }
+            assertSame(outer, SqlStatementCollector.current());
+            assertEquals(0, outer.getStatementCount());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.d_trade.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 推送连接凭证测试
+ */
+public class StreamTicketServiceTest {
+
+    private JwtUtils jwtUtils;
+    private StreamTicketService tickets;
+    private UserDetails user;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "yourSecretKey123456789012345678901234567890");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60_000);
+        tickets = new StreamTicketService(jwtUtils, 30_000);
+        user = User.withUsername("2023001").password("").authorities(Collections.emptyList()).build();
+    }
+
+    @Test
+    void testTicketRedeemedOnce() {
+        String ticket = tickets.issue("2023001");
+
+        // 调用测试方法
+        String first = tickets.redeem(ticket);
+        String second = tickets.redeem(ticket);
+
+        // 验证结果
+        assertEquals("2023001", first);
+        assertNull(second);
+    }
+
+    @Test
+    void testLoginTokenAndTicketNotInterchangeable() {
+        String token = jwtUtils.generateToken(user);
+        String ticket = tickets.issue("2023001");
+
+        // 登录令牌不能当作凭证，凭证也不能当作登录令牌
+        assertNull(tickets.redeem(token));
+        assertFalse(jwtUtils.validateToken(ticket, user));
+        assertTrue(jwtUtils.validateToken(token, user));
+    }
+
+    @Test
+    void testExpiredOrInvalidTicketRejected() {
+        String expired = jwtUtils.generateScopedToken("2023001", StreamTicketService.STREAM_SCOPE, -1_000);
+
+        assertNull(tickets.redeem(expired));
+        assertNull(tickets.redeem("not-a-ticket"));
+    }
+}
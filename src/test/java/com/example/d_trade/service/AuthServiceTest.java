@@ -47,6 +47,9 @@ public class AuthServiceTest {
     @Mock
     private UserDetails userDetails;
 
+    @Mock
+    private StatisticsService statisticsService;
+
     @InjectMocks
     private AuthServiceImpl authService;
 
@@ -1,11 +1,16 @@
 package com.example.d_trade.service;
 
 import com.example.d_trade.dto.MessageDTO;
+import com.example.d_trade.dto.projection.MessageListProjection;
+import com.example.d_trade.dto.response.CursorPage;
 import com.example.d_trade.entity.Message;
 import com.example.d_trade.entity.User;
 import com.example.d_trade.repository.MessageRepository;
 import com.example.d_trade.repository.UserRepository;
 import com.example.d_trade.service.impl.MessageServiceImpl;
+import com.example.d_trade.utils.CursorCodec;
+import com.example.d_trade.utils.MessageStreamRegistry;
+import com.example.d_trade.utils.UnreadCountCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,6 +21,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.access.AccessDeniedException;
 
 import java.time.LocalDateTime;
@@ -36,6 +42,12 @@ public class MessageServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private MessageStreamRegistry messageStream;
+
+    @Mock
+    private UnreadCountCache unreadCounts;
+
     @InjectMocks
     private MessageServiceImpl messageService;
 
@@ -65,15 +77,15 @@ public class MessageServiceTest {
     @Test
     void testGetMessages() {
         // 创建测试消息列表
-        List<Message> messageList = new ArrayList<>();
-        messageList.add(testMessage);
+        List<MessageListProjection> messageList = new ArrayList<>();
+        messageList.add(toListRow(testMessage));
         
         // 创建分页结果
-        Page<Message> messagePage = new PageImpl<>(messageList);
+        Page<MessageListProjection> messagePage = new PageImpl<>(messageList);
         
         // 设置模拟行为
         when(userRepository.findByStudentId("2023001")).thenReturn(Optional.of(testUser));
-        when(messageRepository.findByReceiverOrderByCreateTimeDesc(eq(testUser), any(Pageable.class)))
+        when(messageRepository.findListByReceiver(eq(testUser), isNull(), any(Pageable.class)))
             .thenReturn(messagePage);
 
         // 调用测试方法
@@ -93,15 +105,15 @@ public class MessageServiceTest {
     @Test
     void testGetMessagesWithReadFilter() {
         // 创建测试消息列表
-        List<Message> messageList = new ArrayList<>();
-        messageList.add(testMessage);
+        List<MessageListProjection> messageList = new ArrayList<>();
+        messageList.add(toListRow(testMessage));
         
         // 创建分页结果
-        Page<Message> messagePage = new PageImpl<>(messageList);
+        Page<MessageListProjection> messagePage = new PageImpl<>(messageList);
         
         // 设置模拟行为
         when(userRepository.findByStudentId("2023001")).thenReturn(Optional.of(testUser));
-        when(messageRepository.findByReceiverAndIsReadOrderByCreateTimeDesc(eq(testUser), eq(false), any(Pageable.class)))
+        when(messageRepository.findListByReceiver(eq(testUser), eq(false), any(Pageable.class)))
             .thenReturn(messagePage);
 
         // 调用测试方法
@@ -174,6 +186,23 @@ public class MessageServiceTest {
         verify(messageRepository, times(1)).save(testMessage);
     }
 
+    @Test
+    void testMarkAsRead_PushesUnreadCountToOpenStreams() {
+        // 设置模拟行为：用户已建立推送连接
+        when(userRepository.findByStudentId("2023001")).thenReturn(Optional.of(testUser));
+        when(messageRepository.findById(1L)).thenReturn(Optional.of(testMessage));
+        when(messageRepository.save(any(Message.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(messageStream.isSubscribed(1L)).thenReturn(true);
+        when(unreadCounts.get(1L)).thenReturn(3L);
+
+        // 调用测试方法
+        messageService.markAsRead("2023001", 1L);
+
+        // 验证结果：没有事务时立即减少未读数并推送
+        verify(unreadCounts).adjust(1L, -1);
+        verify(messageStream).pushUnreadCount(1L, 3L);
+    }
+
     @Test
     void testMarkAsRead_AccessDenied() {
         // 创建另一个用户
@@ -199,7 +228,7 @@ public class MessageServiceTest {
         List<Message> messageList = new ArrayList<>();
         messageList.add(testMessage);
         
-        // 创建分页结果
+        // 创建分页结果：标记已读需要修改实体，使用实体查询而不是列表投影
         Page<Message> messagePage = new PageImpl<>(messageList);
         
         // 设置模拟行为
@@ -218,13 +247,45 @@ public class MessageServiceTest {
     @Test
     void testGetUnreadCount() {
         // 设置模拟行为
-        when(userRepository.findByStudentId("2023001")).thenReturn(Optional.of(testUser));
-        when(messageRepository.countByReceiverAndIsRead(testUser, false)).thenReturn(5L);
+        when(unreadCounts.userIdFor(eq("2023001"), any())).thenReturn(1L);
+        when(unreadCounts.get(1L)).thenReturn(5L);
 
         // 调用测试方法
         Long result = messageService.getUnreadCount("2023001");
 
-        // 验证结果
+        // 验证结果：从内存读取，不查询消息表
         assertEquals(5L, result);
+        verify(messageRepository, never()).countByReceiverAndIsRead(any(), anyBoolean());
+    }
+
+    @Test
+    void testScrollMessages() {
+        // 设置模拟行为：还有下一页
+        when(userRepository.findByStudentId("2023001")).thenReturn(Optional.of(testUser));
+        when(messageRepository.findByReceiverAfterCursor(eq(testUser), isNull(),
+                eq(CursorCodec.FIRST.createTime()), eq(CursorCodec.FIRST.id()), any(Pageable.class)))
+            .thenReturn(new SliceImpl<>(List.of(toListRow(testMessage)), PageRequest.of(0, 1), true));
+
+        // 调用测试方法
+        CursorPage<MessageDTO> result = messageService.scrollMessages("2023001", null, null, 1);
+
+        // 验证结果：下一页游标指向本页最后一条
+        assertEquals(1, result.getSize());
+        assertTrue(result.isHasNext());
+        CursorCodec.Cursor next = CursorCodec.decode(result.getNextCursor());
+        assertEquals(testMessage.getCreateTime(), next.createTime());
+        assertEquals(testMessage.getId(), next.id());
+    }
+
+    @Test
+    void testScrollMessages_InvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            messageService.scrollMessages("2023001", null, "not-a-cursor", 10);
+        });
+    }
+
+    private static MessageListProjection toListRow(Message message) {
+        return new MessageListProjection(message.getId(), message.getType(), message.getTitle(),
+                message.getContent(), message.isRead(), null, null, message.getCreateTime());
     }
-} 
\ No newline at end of file
+}
@@ -1,14 +1,20 @@
 package com.example.d_trade.service;
 
 import com.example.d_trade.dto.OrderDTO;
+import com.example.d_trade.dto.OrderSummaryDTO;
+import com.example.d_trade.dto.projection.OrderListProjection;
 import com.example.d_trade.entity.Order;
 import com.example.d_trade.entity.Product;
 import com.example.d_trade.entity.User;
-import com.example.d_trade.repository.MessageRepository;
 import com.example.d_trade.repository.OrderRepository;
 import com.example.d_trade.repository.ProductRepository;
 import com.example.d_trade.repository.UserRepository;
 import com.example.d_trade.service.impl.OrderServiceImpl;
+import com.example.d_trade.utils.CacheDependencyTracker;
+import com.example.d_trade.utils.NotificationOutbox;
+import com.example.d_trade.utils.OffHeapProductCatalog;
+import com.example.d_trade.utils.ProductFacetCounter;
+import com.example.d_trade.utils.ProductSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -44,7 +50,22 @@ public class OrderServiceTest {
     private ProductRepository productRepository;
 
     @Mock
-    private MessageRepository messageRepository;
+    private NotificationOutbox notificationOutbox;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private CacheDependencyTracker cacheDependencyTracker;
+
+    @Mock
+    private StatisticsService statisticsService;
+
+    @Mock
+    private OffHeapProductCatalog productCatalog;
+
+    @Mock
+    private ProductFacetCounter productFacetCounter;
 
     @InjectMocks
     private OrderServiceImpl orderService;
@@ -130,44 +151,48 @@ public class OrderServiceTest {
     @Test
     void testGetOrders_Buyer() {
         // 创建测试订单列表
-        List<Order> orderList = new ArrayList<>();
-        orderList.add(order);
+        product.setImagePaths(List.of("/uploads/image1.jpg"));
+        List<OrderListProjection> orderList = new ArrayList<>();
+        orderList.add(toListRow(order));
         
         // 创建分页结果
-        Page<Order> orderPage = new PageImpl<>(orderList);
+        Page<OrderListProjection> orderPage = new PageImpl<>(orderList);
         
         // 设置模拟行为
         when(userRepository.findByStudentId("2023001")).thenReturn(Optional.of(buyer));
-        when(orderRepository.findByBuyerOrderByCreateTimeDesc(eq(buyer), any(Pageable.class)))
+        when(orderRepository.findListByBuyer(eq(buyer), isNull(), any(Pageable.class)))
             .thenReturn(orderPage);
 
         // 调用测试方法
         Pageable pageable = PageRequest.of(0, 10);
-        Page<OrderDTO> result = orderService.getOrders("2023001", "buy", null, pageable);
+        Page<OrderSummaryDTO> result = orderService.getOrders("2023001", "buy", null, pageable);
 
         // 验证结果
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
         assertEquals(order.getId(), result.getContent().get(0).getId());
+        assertEquals(product.getTitle(), result.getContent().get(0).getProduct().getTitle());
+        assertEquals(List.of("/uploads/image1.jpg"), result.getContent().get(0).getProduct().getImagePaths());
+        assertEquals(seller.getUsername(), result.getContent().get(0).getSeller().getUsername());
     }
 
     @Test
     void testGetOrders_Seller() {
         // 创建测试订单列表
-        List<Order> orderList = new ArrayList<>();
-        orderList.add(order);
+        List<OrderListProjection> orderList = new ArrayList<>();
+        orderList.add(toListRow(order));
         
         // 创建分页结果
-        Page<Order> orderPage = new PageImpl<>(orderList);
+        Page<OrderListProjection> orderPage = new PageImpl<>(orderList);
         
         // 设置模拟行为
         when(userRepository.findByStudentId("2023002")).thenReturn(Optional.of(seller));
-        when(orderRepository.findBySellerOrderByCreateTimeDesc(eq(seller), any(Pageable.class)))
+        when(orderRepository.findListBySeller(eq(seller), isNull(), any(Pageable.class)))
             .thenReturn(orderPage);
 
         // 调用测试方法
         Pageable pageable = PageRequest.of(0, 10);
-        Page<OrderDTO> result = orderService.getOrders("2023002", "sell", null, pageable);
+        Page<OrderSummaryDTO> result = orderService.getOrders("2023002", "sell", null, pageable);
 
         // 验证结果
         assertNotNull(result);
@@ -181,7 +206,6 @@ public class OrderServiceTest {
         when(userRepository.findByStudentId("2023001")).thenReturn(Optional.of(buyer));
         when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(messageRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // 调用测试方法
         OrderDTO result = orderService.updateOrderStatus("2023001", 1L, "CANCELLED");
@@ -191,7 +215,7 @@ public class OrderServiceTest {
         assertEquals(Order.Status.CANCELLED, result.getStatus());
         
         // 验证消息通知
-        verify(messageRepository, times(1)).save(any());
+        verify(notificationOutbox, times(1)).enqueue(argThat(message -> message.getReceiver() == seller));
     }
 
     @Test
@@ -201,7 +225,6 @@ public class OrderServiceTest {
         when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(messageRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         // 调用测试方法
         OrderDTO result = orderService.updateOrderStatus("2023001", 1L, "COMPLETED");
@@ -216,7 +239,7 @@ public class OrderServiceTest {
         ));
         
         // 验证消息通知
-        verify(messageRepository, times(1)).save(any());
+        verify(notificationOutbox, times(1)).enqueue(argThat(message -> message.getReceiver() == seller));
     }
 
     @Test
@@ -249,4 +272,14 @@ public class OrderServiceTest {
 
         assertEquals("只有待交易的订单才能被更新", exception.getMessage());
     }
-} 
\ No newline at end of file
+
+    private static OrderListProjection toListRow(Order order) {
+        Product product = order.getProduct();
+        User buyer = order.getBuyer();
+        User seller = order.getSeller();
+        return new OrderListProjection(order.getId(), order.getStatus(), order.getCreateTime(), order.getUpdateTime(),
+                product.getId(), product.getTitle(), product.getPrice(), product.getImagePaths(), product.getStatus(),
+                buyer.getId(), buyer.getStudentId(), buyer.getUsername(), buyer.getNickname(),
+                seller.getId(), seller.getStudentId(), seller.getUsername(), seller.getNickname());
+    }
+}
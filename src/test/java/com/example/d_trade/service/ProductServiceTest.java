@@ -1,24 +1,37 @@
 package com.example.d_trade.service;
 
 import com.example.d_trade.dto.ProductDTO;
+import com.example.d_trade.dto.ProductSummaryDTO;
+import com.example.d_trade.dto.projection.ProductListProjection;
+import com.example.d_trade.dto.request.ProductFilter;
 import com.example.d_trade.dto.request.ProductRequest;
+import com.example.d_trade.entity.Message;
+import com.example.d_trade.entity.Order;
 import com.example.d_trade.entity.Product;
 import com.example.d_trade.entity.User;
-import com.example.d_trade.repository.MessageRepository;
 import com.example.d_trade.repository.OrderRepository;
 import com.example.d_trade.repository.ProductRepository;
 import com.example.d_trade.repository.UserRepository;
 import com.example.d_trade.service.impl.ProductServiceImpl;
+import com.example.d_trade.utils.CacheDependencyTracker;
+import com.example.d_trade.utils.CacheReloadRegistry;
+import com.example.d_trade.utils.ExecutorRegistry;
+import com.example.d_trade.utils.NotificationOutbox;
+import com.example.d_trade.utils.OffHeapProductCatalog;
+import com.example.d_trade.utils.ProductFacetCounter;
+import com.example.d_trade.utils.ProductSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -46,7 +59,28 @@ public class ProductServiceTest {
     private OrderRepository orderRepository;
 
     @Mock
-    private MessageRepository messageRepository;
+    private NotificationOutbox notificationOutbox;
+
+    @Spy
+    private ProductSearchIndex productSearchIndex = new ProductSearchIndex();
+
+    @Mock
+    private CacheDependencyTracker cacheDependencyTracker;
+
+    @Mock
+    private StatisticsService statisticsService;
+
+    @Mock
+    private CacheReloadRegistry cacheReloadRegistry;
+
+    @Mock
+    private OffHeapProductCatalog productCatalog;
+
+    @Mock
+    private ProductFacetCounter productFacetCounter;
+
+    @Mock
+    private ExecutorRegistry executorRegistry;
 
     @InjectMocks
     private ProductServiceImpl productService;
@@ -121,6 +155,20 @@ public class ProductServiceTest {
         assertEquals("商品不存在", exception.getMessage());
     }
 
+    @Test
+    void testGetProductById_ServedFromCatalog() {
+        // 设置模拟行为
+        ProductDTO catalogProduct = ProductDTO.fromEntity(testProduct);
+        when(productCatalog.getProduct(1L)).thenReturn(catalogProduct);
+
+        // 调用测试方法
+        ProductDTO result = productService.getProductById(1L);
+
+        // 验证结果
+        assertSame(catalogProduct, result);
+        verify(productRepository, never()).findById(any());
+    }
+
     @Test
     void testCreateProduct() {
         // 设置模拟行为
@@ -205,23 +253,133 @@ public class ProductServiceTest {
     @Test
     void testGetProducts() {
         // 创建测试商品列表
-        List<Product> productList = new ArrayList<>();
-        productList.add(testProduct);
+        List<ProductListProjection> productList = new ArrayList<>();
+        productList.add(toListRow(testProduct));
         
         // 创建分页结果
-        Page<Product> productPage = new PageImpl<>(productList);
+        Page<ProductListProjection> productPage = new PageImpl<>(productList);
         
         // 设置模拟行为
-        when(productRepository.findByStatusOrderByCreateTimeDesc(eq(Product.Status.AVAILABLE), any(Pageable.class)))
+        when(productRepository.findListByStatus(eq(Product.Status.AVAILABLE), any(Pageable.class)))
             .thenReturn(productPage);
 
         // 调用测试方法
         Pageable pageable = PageRequest.of(0, 10);
-        Page<ProductDTO> result = productService.getProducts(null, "AVAILABLE", null, pageable);
+        Page<ProductSummaryDTO> result = productService.getProducts(null, "AVAILABLE", null, pageable);
 
         // 验证结果
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
         assertEquals(testProduct.getTitle(), result.getContent().get(0).getTitle());
+        assertEquals(testProduct.getImagePaths(), result.getContent().get(0).getImagePaths());
+        assertEquals(testUser.getStudentId(), result.getContent().get(0).getSeller().getStudentId());
+        // 列表查询只走投影，不加载商品实体
+        verify(productRepository, never()).findById(any());
+        verify(productRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void testGetProducts_WithFilter() {
+        // 设置模拟行为
+        ProductFilter filter = new ProductFilter(new BigDecimal("50"), new BigDecimal("200"), " 图书馆 ");
+        when(productRepository.findListByStatusAndFilter(eq(Product.Status.AVAILABLE), eq(new BigDecimal("50")),
+                eq(new BigDecimal("200")), eq("图书馆"), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(toListRow(testProduct))));
+
+        // 调用测试方法
+        Page<ProductSummaryDTO> result = productService.getProducts(null, "AVAILABLE", null, filter, PageRequest.of(0, 10));
+
+        // 验证结果：筛选条件下推到数据库查询
+        assertEquals(1, result.getTotalElements());
+        verify(productRepository, never()).findListByStatus(any(), any(Pageable.class));
+    }
+
+    @Test
+    void testGetUserProducts_DefaultsToNewestFirst() {
+        // 设置模拟行为
+        when(userRepository.findByStudentId("2023001")).thenReturn(Optional.of(testUser));
+        when(productRepository.findListBySeller(eq(testUser), isNull(), any(Pageable.class)))
+            .thenReturn(new PageImpl<>(List.of(toListRow(testProduct))));
+
+        // 调用测试方法
+        Page<ProductSummaryDTO> result = productService.getUserProducts("2023001", null, PageRequest.of(0, 10));
+
+        // 验证结果
+        assertEquals(1, result.getTotalElements());
+        assertEquals(testProduct.getImagePaths(), result.getContent().get(0).getImagePaths());
+        verify(productRepository).findListBySeller(eq(testUser), isNull(),
+                eq(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createTime"))));
+    }
+
+    @Test
+    void testGetProducts_KeywordUsesIndex() {
+        // 构建索引：另一个商品标题不含关键词
+        productSearchIndex.onProductSaved(testProduct);
+        productSearchIndex.index(2L, "二手自行车", new BigDecimal("150.00"),
+                Product.Status.AVAILABLE, LocalDateTime.now(), "图书馆");
+        productSearchIndex.markReady();
+
+        // 设置模拟行为
+        when(productRepository.findListByIdIn(List.of(1L))).thenReturn(List.of(toListRow(testProduct)));
+
+        // 调用测试方法
+        Page<ProductSummaryDTO> result = productService.getProducts("测试", "AVAILABLE", null, PageRequest.of(0, 10));
+
+        // 验证结果：命中索引，不走LIKE查询
+        assertEquals(1, result.getTotalElements());
+        assertEquals(testProduct.getId(), result.getContent().get(0).getId());
+        verify(productRepository, never()).findListByTitleContainingAndStatus(anyString(), any(), any(Pageable.class));
+    }
+
+    @Test
+    void testAdminRemoveProduct_RemovesFromKeywordSearch() {
+        // 构建索引
+        productSearchIndex.onProductSaved(testProduct);
+        productSearchIndex.markReady();
+
+        // 设置模拟行为
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // 调用测试方法
+        productService.adminRemoveProduct(1L);
+        Page<ProductSummaryDTO> result = productService.getProducts("测试", "AVAILABLE", null, PageRequest.of(0, 10));
+
+        // 验证结果
+        assertEquals(0, result.getTotalElements());
+    }
+
+    @Test
+    void testMarkInterest_EnqueuesNotificationForSeller() {
+        User buyer = new User();
+        buyer.setId(2L);
+        buyer.setUsername("buyer");
+        buyer.setStudentId("2023002");
+
+        // 设置模拟行为
+        when(userRepository.findByStudentId("2023002")).thenReturn(Optional.of(buyer));
+        when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order savedOrder = invocation.getArgument(0);
+            savedOrder.setId(10L);
+            return savedOrder;
+        });
+
+        // 调用测试方法
+        productService.markInterest("2023002", 1L);
+
+        // 验证结果：通知写入发件箱，不直接保存消息
+        verify(notificationOutbox, times(1)).enqueue(argThat(message ->
+                message.getType() == Message.Type.PRODUCT_INTEREST
+                        && message.getReceiver() == testUser
+                        && message.getOrder().getId() == 10L));
+    }
+
+    private static ProductListProjection toListRow(Product product) {
+        User seller = product.getSeller();
+        return new ProductListProjection(product.getId(), product.getTitle(), product.getPrice(),
+                product.getTradeLocation(), product.getImagePaths(), product.getStatus(),
+                product.getCreateTime(), product.getUpdateTime(),
+                seller.getId(), seller.getStudentId(), seller.getUsername(), seller.getNickname());
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+package com.example.d_trade.service;
+
+import com.example.d_trade.entity.Order;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.repository.MessageRepository;
+import com.example.d_trade.repository.OrderRepository;
+import com.example.d_trade.repository.ProductRepository;
+import com.example.d_trade.repository.UserRepository;
+import com.example.d_trade.service.impl.StatisticsServiceImpl;
+import com.example.d_trade.utils.ExecutorRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StatisticsServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private ExecutorRegistry executorRegistry;
+
+    @InjectMocks
+    private StatisticsServiceImpl statisticsService;
+
+    @BeforeEach
+    void setUp() {
+        // 数据库中：3个用户、2个在售商品和1个已售商品、1个待交易订单、4条消息
+        LocalDate today = LocalDate.now();
+        when(userRepository.count()).thenReturn(3L);
+        when(messageRepository.count()).thenReturn(4L);
+        when(productRepository.countGroupByStatus()).thenReturn(List.of(
+                new Object[]{Product.Status.AVAILABLE, 2L},
+                new Object[]{Product.Status.SOLD, 1L}));
+        when(orderRepository.countGroupByStatus()).thenReturn(List.<Object[]>of(
+                new Object[]{Order.Status.PENDING, 1L}));
+        when(userRepository.countByCreateDateSince(any())).thenReturn(List.<Object[]>of(
+                new Object[]{today, 1L}));
+        when(productRepository.countByCreateDateSince(any())).thenReturn(List.<Object[]>of(
+                new Object[]{today.minusDays(1), 3L}));
+        when(orderRepository.countByCreateDateSince(any())).thenReturn(List.of());
+        when(messageRepository.countByCreateDateSince(any())).thenReturn(List.of());
+    }
+
+    @Test
+    void testReconcileLoadsCountsFromDatabase() {
+        // 调用测试方法
+        statisticsService.reconcile();
+        Map<String, Object> result = statisticsService.getStatistics(7);
+
+        // 验证结果
+        assertEquals(3L, result.get("userCount"));
+        assertEquals(3L, result.get("productCount"));
+        assertEquals(2L, result.get("availableProductCount"));
+        assertEquals(1L, result.get("orderCount"));
+        assertEquals(4L, result.get("messageCount"));
+        assertEquals(0L, result.get("lastDrift"));
+
+        List<?> daily = (List<?>) result.get("daily");
+        assertEquals(7, daily.size());
+        Map<?, ?> yesterday = (Map<?, ?>) daily.get(5);
+        Map<?, ?> today = (Map<?, ?>) daily.get(6);
+        assertEquals(LocalDate.now().toString(), today.get("date"));
+        assertEquals(1L, today.get("users"));
+        assertEquals(3L, yesterday.get("products"));
+    }
+
+    @Test
+    void testWritesUpdateCountsIncrementally() {
+        statisticsService.reconcile();
+
+        // 调用测试方法：发布商品、下单、完成订单（商品售出）、发送消息
+        LocalDateTime now = LocalDateTime.now();
+        statisticsService.productCreated(Product.Status.AVAILABLE, now);
+        statisticsService.orderCreated(Order.Status.PENDING, now);
+        statisticsService.orderStatusChanged(Order.Status.PENDING, Order.Status.COMPLETED);
+        statisticsService.productStatusChanged(Product.Status.AVAILABLE, Product.Status.SOLD);
+        statisticsService.messageCreated(now);
+        statisticsService.userRegistered(now);
+        Map<String, Object> result = statisticsService.getStatistics(1);
+
+        // 验证结果
+        Map<?, ?> productsByStatus = (Map<?, ?>) result.get("productsByStatus");
+        Map<?, ?> ordersByStatus = (Map<?, ?>) result.get("ordersByStatus");
+        assertEquals(4L, result.get("productCount"));
+        assertEquals(2L, productsByStatus.get("AVAILABLE"));
+        assertEquals(2L, productsByStatus.get("SOLD"));
+        assertEquals(1L, ordersByStatus.get("PENDING"));
+        assertEquals(1L, ordersByStatus.get("COMPLETED"));
+        assertEquals(5L, result.get("messageCount"));
+        assertEquals(4L, result.get("userCount"));
+
+        Map<?, ?> today = (Map<?, ?>) ((List<?>) result.get("daily")).get(0);
+        assertEquals(2L, today.get("users"));
+        assertEquals(1L, today.get("products"));
+        assertEquals(1L, today.get("orders"));
+        assertEquals(1L, today.get("messages"));
+    }
+
+    @Test
+    void testReconcileCorrectsDrift() {
+        statisticsService.reconcile();
+
+        // 一次增量未落库（例如计数更新后写入失败），对账时修正
+        statisticsService.messageCreated(LocalDateTime.now());
+        statisticsService.reconcile();
+        Map<String, Object> result = statisticsService.getStatistics(7);
+
+        // 验证结果
+        assertEquals(4L, result.get("messageCount"));
+        assertEquals(1L, result.get("lastDrift"));
+        assertEquals(2L, result.get("reconciliations"));
+        verify(messageRepository, times(2)).count();
+    }
+}
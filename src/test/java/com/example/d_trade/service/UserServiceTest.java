@@ -6,6 +6,7 @@ import com.example.d_trade.dto.request.UserUpdateRequest;
 import com.example.d_trade.entity.User;
 import com.example.d_trade.repository.UserRepository;
 import com.example.d_trade.service.impl.UserServiceImpl;
+import com.example.d_trade.utils.OffHeapProductCatalog;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -30,6 +31,9 @@ public class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private OffHeapProductCatalog productCatalog;
+
     @InjectMocks
     private UserServiceImpl userService;
 
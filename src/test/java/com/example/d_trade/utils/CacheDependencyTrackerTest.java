@@ -0,0 +1,139 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.request.ProductFilter;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.utils.CacheDependencyTracker.ProductSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheDependencyTrackerTest {
+
+    private ConcurrentMapCacheManager cacheManager;
+    private CacheDependencyTracker tracker;
+
+    private ProductSnapshot bike;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager("products", "product", "userProducts", "orders", "order");
+        tracker = new CacheDependencyTracker(cacheManager);
+        bike = new ProductSnapshot(1L, "2023001", Product.Status.AVAILABLE,
+                "二手自行车", new BigDecimal("150.00"), "图书馆");
+
+        // 首页、另一个关键词的列表页、已售列表页
+        cache("products").put("null-AVAILABLE-newest-0-10", "home");
+        tracker.registerListing("null-AVAILABLE-newest-0-10", Product.Status.AVAILABLE, null, "newest", List.of(1L, 2L));
+        cache("products").put("教材-AVAILABLE-null-0-10", "books");
+        tracker.registerListing("教材-AVAILABLE-null-0-10", Product.Status.AVAILABLE, "教材", null, List.of(3L));
+        cache("products").put("null-SOLD-null-0-10", "sold");
+        tracker.registerListing("null-SOLD-null-0-10", Product.Status.SOLD, null, null, List.of(4L));
+
+        cache("product").put(1L, "bike");
+        cache("product").put(3L, "book");
+        cache("userProducts").put("2023001-null-0-10", "mine");
+        tracker.registerOwned("userProducts", "2023001", "2023001-null-0-10");
+        cache("userProducts").put("2023002-null-0-10", "theirs");
+        tracker.registerOwned("userProducts", "2023002", "2023002-null-0-10");
+    }
+
+    @Test
+    void testUpdateTitle_EvictsOnlyDependentEntries() {
+        ProductSnapshot renamed = new ProductSnapshot(1L, "2023001", Product.Status.AVAILABLE,
+                "山地自行车", new BigDecimal("150.00"), "图书馆");
+
+        tracker.productChanged(bike, renamed);
+
+        assertNull(cache("products").get("null-AVAILABLE-newest-0-10"));
+        assertNull(cache("product").get(1L));
+        assertNull(cache("userProducts").get("2023001-null-0-10"));
+        assertNotNull(cache("products").get("教材-AVAILABLE-null-0-10"));
+        assertNotNull(cache("products").get("null-SOLD-null-0-10"));
+        assertNotNull(cache("product").get(3L));
+        assertNotNull(cache("userProducts").get("2023002-null-0-10"));
+    }
+
+    @Test
+    void testCreate_EvictsPagesThatCouldContainProduct() {
+        ProductSnapshot book = new ProductSnapshot(5L, "2023002", Product.Status.AVAILABLE,
+                "考研教材", new BigDecimal("30.00"), "食堂");
+
+        tracker.productChanged(null, book);
+
+        assertNull(cache("products").get("教材-AVAILABLE-null-0-10"));
+        assertNull(cache("products").get("null-AVAILABLE-newest-0-10"));
+        assertNotNull(cache("products").get("null-SOLD-null-0-10"));
+        assertNull(cache("userProducts").get("2023002-null-0-10"));
+        assertNotNull(cache("userProducts").get("2023001-null-0-10"));
+    }
+
+    @Test
+    void testFilteredListing_EvictedOnlyWhenProductEntersOrLeavesRange() {
+        ProductFilter cheap = new ProductFilter(null, new BigDecimal("100"), "图书馆");
+        cache("products").put("cheap", "cheap");
+        tracker.registerListing("cheap", Product.Status.AVAILABLE, null, cheap, "newest", List.of(7L));
+
+        // 价格不在区间内的改动不影响该页
+        ProductSnapshot repriced = new ProductSnapshot(1L, "2023001", Product.Status.AVAILABLE,
+                "二手自行车", new BigDecimal("180.00"), "图书馆");
+        tracker.productChanged(bike, repriced);
+        assertNotNull(cache("products").get("cheap"));
+
+        // 降价进入区间
+        ProductSnapshot discounted = new ProductSnapshot(1L, "2023001", Product.Status.AVAILABLE,
+                "二手自行车", new BigDecimal("80.00"), "图书馆");
+        tracker.productChanged(repriced, discounted);
+        assertNull(cache("products").get("cheap"));
+    }
+
+    @Test
+    void testOrderChange_EvictsOnlyBuyerAndSellerEntries() {
+        cache("orders").put("2023001-null-null-0-10", "buyer");
+        tracker.registerOwned("orders", "2023001", "2023001-null-null-0-10");
+        cache("orders").put("2023003-null-null-0-10", "other");
+        tracker.registerOwned("orders", "2023003", "2023003-null-null-0-10");
+        cache("order").put("2023002-9", "seller");
+
+        tracker.orderChanged(9L, "2023001", "2023002");
+
+        assertNull(cache("orders").get("2023001-null-null-0-10"));
+        assertNull(cache("order").get("2023002-9"));
+        assertNotNull(cache("orders").get("2023003-null-null-0-10"));
+    }
+
+    @Test
+    void testListingChangedDuringLoad_NotCached() {
+        ProductSnapshot renamed = new ProductSnapshot(1L, "2023001", Product.Status.AVAILABLE,
+                "山地自行车", new BigDecimal("150.00"), "图书馆");
+
+        // 登记之后、写入缓存之前商品发生变化
+        tracker.registerListing("page", Product.Status.AVAILABLE, null, ProductFilter.NONE, "newest", List.of(1L),
+                tracker.productGeneration());
+        tracker.productChanged(bike, renamed);
+        assertFalse(tracker.isCurrent("products", "page"));
+
+        // 查询期间商品发生变化，登记时发现代数已变化
+        long generation = tracker.productGeneration();
+        tracker.productChanged(renamed, bike);
+        tracker.registerListing("page", Product.Status.AVAILABLE, null, ProductFilter.NONE, "newest", List.of(1L),
+                generation);
+        assertFalse(tracker.isCurrent("products", "page"));
+
+        // 没有变化时可以写入，其他缓存不检查
+        tracker.registerListing("page", Product.Status.AVAILABLE, null, ProductFilter.NONE, "newest", List.of(1L),
+                tracker.productGeneration());
+        assertTrue(tracker.isCurrent("products", "page"));
+        assertTrue(tracker.isCurrent("product", 1L));
+        assertEquals(2L, tracker.getStats().get("staleListings"));
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.OrderDTO;
+import com.example.d_trade.dto.ProductDTO;
+import com.example.d_trade.dto.UserDTO;
+import com.example.d_trade.entity.Order;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonCacheValueCodecTest {
+
+    @Test
+    void testPageRoundTripKeepsAllFields() throws IOException {
+        OrderDTO order = order();
+        Page<OrderDTO> page = new PageImpl<>(List.of(order), PageRequest.of(2, 10, Sort.by("createTime").descending()), 21);
+
+        Object restored = JsonCacheValueCodec.encode(page).decode();
+
+        Page<?> restoredPage = assertInstanceOf(Page.class, restored);
+        assertEquals(page.getPageable(), restoredPage.getPageable());
+        assertEquals(21, restoredPage.getTotalElements());
+        // 完整时间（接口只返回日期）、金额精度和嵌套对象都应保留
+        assertEquals(order, restoredPage.getContent().get(0));
+    }
+
+    @Test
+    void testEncodedPageIsSmallerThanObjectGraph() throws IOException {
+        Page<OrderDTO> page = new PageImpl<>(List.of(order(), order(), order()), PageRequest.of(0, 10), 3);
+
+        JsonCacheValueCodec.Encoded encoded = JsonCacheValueCodec.encode(page);
+
+        assertTrue(ObjectSizeEstimator.estimate(encoded) < ObjectSizeEstimator.estimate(page));
+    }
+
+    @Test
+    void testMixedPageContentIsRejected() {
+        Page<Object> page = new PageImpl<>(List.of(order(), "其他"), PageRequest.of(0, 10), 2);
+
+        assertThrows(IOException.class, () -> JsonCacheValueCodec.encode(page));
+    }
+
+    private static OrderDTO order() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 13, 45, 30, 123_000_000);
+        UserDTO seller = new UserDTO(2L, "20210101", "张三", "三哥", "13800138001", true, User.Role.USER, time);
+        UserDTO buyer = new UserDTO(3L, "20210102", "李四", "四哥", null, true, User.Role.USER, time);
+        ProductDTO product = new ProductDTO(1L, "全新iPad Pro", new BigDecimal("3999.00"), "95新",
+                "一号宿舍楼", List.of("uploads/images/ipad1.jpg"), Product.Status.SOLD, seller, time, time);
+        return new OrderDTO(10L, product, buyer, seller, Order.Status.PENDING, time, time.plusMinutes(5));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.d_trade.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void testBucketBoundsKeepRelativeError() {
+        long[] values = {0, 1, 127, 128, 129, 1_000, 65_535, 1_000_000, 123_456_789, LatencyHistogram.MAX_TRACKABLE_NANOS};
+        for (int bits : new int[]{5, LatencyHistogram.DEFAULT_SUB_BUCKET_BITS}) {
+            long maxError = 1L << (bits - 1);
+            for (long value : values) {
+                int index = LatencyHistogram.indexOf(value, bits);
+                long highest = LatencyHistogram.highestValueOf(index, bits);
+                assertTrue(highest >= value, "桶上界不能小于记录值: " + value);
+                assertTrue(highest - value <= Math.max(1, value / maxError), "相对误差超过1/" + maxError + ": " + value);
+                assertTrue(index < LatencyHistogram.bucketCount(bits));
+            }
+        }
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1..1000微秒各一次
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.getTotalCount());
+        assertEquals(1_000L, snapshot.getMinNanos());
+        assertEquals(1_000_000L, snapshot.getMaxNanos());
+        assertNear(500_000, snapshot.valueAtPercentile(50));
+        assertNear(900_000, snapshot.valueAtPercentile(90));
+        assertNear(990_000, snapshot.valueAtPercentile(99));
+        assertNear(999_000, snapshot.valueAtPercentile(99.9));
+        assertEquals(1_000_000L, snapshot.valueAtPercentile(100));
+    }
+
+    @Test
+    void testMergeAndRoundTrip() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            fast.record(200_000);
+        }
+        slow.record(50_000_000);
+
+        // 模拟另一个实例导出后再导入
+        Map<String, Object> exported = slow.snapshot().toMap();
+        LatencyHistogram.Snapshot merged = fast.snapshot().merge(LatencyHistogram.Snapshot.fromMap(exported));
+
+        assertEquals(100, merged.getTotalCount());
+        assertEquals(200_000L, merged.getMinNanos());
+        assertEquals(50_000_000L, merged.getMaxNanos());
+        assertNear(200_000, merged.valueAtPercentile(99));
+        assertEquals(50_000_000L, merged.valueAtPercentile(99.9));
+    }
+
+    @Test
+    void testMergeRejectsDifferentPrecision() {
+        LatencyHistogram.Snapshot precise = new LatencyHistogram().snapshot();
+        LatencyHistogram.Snapshot coarse = new LatencyHistogram(5).snapshot();
+
+        assertThrows(IllegalArgumentException.class, () -> precise.merge(coarse));
+    }
+
+    @Test
+    void testEmptySnapshot() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(0, snapshot.getTotalCount());
+        assertEquals(0, snapshot.getMinNanos());
+        assertEquals(0, snapshot.valueAtPercentile(99));
+    }
+
+    @Test
+    void testCappedRangeMergesWithFullRange() {
+        long cap = 60_000_000_000L;
+        LatencyHistogram capped = new LatencyHistogram(5, cap);
+        capped.record(1_000_000);
+        capped.record(cap * 10);
+
+        LatencyHistogram.Snapshot snapshot = capped.snapshot();
+
+        // 超过上限的按上限记录，快照仍可与完整范围的快照合并
+        assertEquals(2, snapshot.getTotalCount());
+        assertTrue(snapshot.valueAtPercentile(100) >= cap);
+        assertTrue(snapshot.valueAtPercentile(100) - cap <= cap / 16);
+        assertEquals(2, snapshot.merge(new LatencyHistogram(5).snapshot()).getTotalCount());
+    }
+
+    @Test
+    void testResetClearsCounts() {
+        LatencyHistogram histogram = new LatencyHistogram(5);
+        histogram.record(5_000_000);
+        histogram.record(7_000);
+
+        // 调用测试方法
+        histogram.reset();
+        histogram.record(3_000);
+
+        // 验证结果
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.getTotalCount());
+        assertEquals(3_000L, snapshot.getMinNanos());
+        assertEquals(3_000L, snapshot.getMaxNanos());
+        assertNear(3_000, snapshot.valueAtPercentile(100));
+    }
+
+    private static void assertNear(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 64,
+                "期望约为 " + expected + "，实际为 " + actual);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.d_trade.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 推送连接注册表测试：不经过Servlet容器，连接建立前发送的事件由 SseEmitter 缓存
+ */
+public class MessageStreamRegistryTest {
+
+    private ExecutorRegistry executorRegistry;
+    private MessageStreamRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        executorRegistry = new ExecutorRegistry(List.of(new MonitoredExecutor(ExecutorRegistry.PUSH, 1, 1, 16,
+                Duration.ofSeconds(1), MonitoredExecutor.Rejection.ABORT)));
+        registry = new MessageStreamRegistry(executorRegistry, 60_000, 3_000, 3, 2, 32, 30_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executorRegistry.shutdown();
+    }
+
+    @Test
+    void testSubscribeReadsUnreadCountOnce() {
+        AtomicInteger reads = new AtomicInteger();
+
+        // 调用测试方法
+        registry.subscribe(1L, () -> {
+            reads.incrementAndGet();
+            return 4L;
+        });
+
+        // 验证结果
+        assertEquals(1, reads.get());
+        assertTrue(registry.isSubscribed(1L));
+        assertFalse(registry.isSubscribed(2L));
+        assertEquals(1, registry.getStats().get("connections"));
+    }
+
+    @Test
+    void testOldestConnectionOfUserEvicted() {
+        registry.subscribe(1L, () -> 0L);
+        registry.subscribe(1L, () -> 0L);
+
+        // 调用测试方法：每个用户最多2个连接
+        registry.subscribe(1L, () -> 0L);
+
+        // 验证结果
+        Map<String, Object> stats = registry.getStats();
+        assertEquals(2, stats.get("connections"));
+        assertEquals(3L, stats.get("opened"));
+        assertEquals(1L, stats.get("closed"));
+    }
+
+    @Test
+    void testRefusesBeyondMaxConnections() {
+        registry.subscribe(1L, () -> 0L);
+        registry.subscribe(2L, () -> 0L);
+        registry.subscribe(3L, () -> 0L);
+
+        // 验证异常：总连接数上限为3
+        assertThrows(IllegalStateException.class, () -> registry.subscribe(4L, () -> 0L));
+        assertEquals(3, registry.getStats().get("connections"));
+        assertEquals(1L, registry.getStats().get("refused"));
+    }
+
+    @Test
+    void testFailedUnreadCountReleasesConnection() {
+        // 验证异常：读取未读数失败时不保留连接
+        assertThrows(RuntimeException.class, () -> registry.subscribe(1L, () -> {
+            throw new RuntimeException("用户不存在");
+        }));
+        assertFalse(registry.isSubscribed(1L));
+        assertEquals(0, registry.getStats().get("connections"));
+    }
+
+    @Test
+    void testShutdownClosesAllConnections() {
+        registry.subscribe(1L, () -> 0L);
+        registry.subscribe(2L, () -> 0L);
+
+        // 调用测试方法
+        registry.shutdown();
+
+        // 验证结果
+        assertFalse(registry.isSubscribed(1L));
+        assertFalse(registry.isSubscribed(2L));
+    }
+}
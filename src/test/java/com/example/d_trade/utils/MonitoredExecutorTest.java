@@ -0,0 +1,127 @@
+package com.example.d_trade.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonitoredExecutorTest {
+
+    @Test
+    void testCallerRunsWhenQueueFull() throws InterruptedException {
+        MonitoredExecutor executor = executor(MonitoredExecutor.Rejection.CALLER_RUNS);
+        CountDownLatch release = occupy(executor);
+        AtomicReference<String> runner = new AtomicReference<>();
+
+        // 线程和队列都已占满，由提交任务的线程执行
+        executor.execute(() -> runner.set(Thread.currentThread().getName()));
+
+        assertEquals(Thread.currentThread().getName(), runner.get());
+        release.countDown();
+        executor.shutdown(Duration.ofSeconds(5));
+        Map<String, Object> stats = executor.getStats();
+        assertEquals(1L, stats.get("rejected"));
+        assertEquals(3L, stats.get("completed"));
+    }
+
+    @Test
+    void testDiscardDropsTask() throws InterruptedException {
+        MonitoredExecutor executor = executor(MonitoredExecutor.Rejection.DISCARD);
+        CountDownLatch release = occupy(executor);
+        AtomicInteger runs = new AtomicInteger();
+
+        executor.execute(runs::incrementAndGet);
+
+        release.countDown();
+        executor.shutdown(Duration.ofSeconds(5));
+        assertEquals(0, runs.get());
+        assertEquals(1L, executor.getStats().get("rejected"));
+        assertEquals(2L, executor.getStats().get("completed"));
+    }
+
+    @Test
+    void testAbortThrows() throws InterruptedException {
+        MonitoredExecutor executor = executor(MonitoredExecutor.Rejection.ABORT);
+        CountDownLatch release = occupy(executor);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+
+        release.countDown();
+        executor.shutdown(Duration.ofSeconds(5));
+        assertEquals(1L, executor.getStats().get("rejected"));
+    }
+
+    @Test
+    void testFailedTaskCountedAndThreadReused() throws InterruptedException {
+        MonitoredExecutor executor = executor(MonitoredExecutor.Rejection.ABORT);
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            throw new IllegalStateException("测试异常");
+        });
+        executor.execute(done::countDown);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown(Duration.ofSeconds(5));
+        Map<String, Object> stats = executor.getStats();
+        assertEquals(2L, stats.get("submitted"));
+        assertEquals(1L, stats.get("failed"));
+        assertEquals(1L, stats.get("completed"));
+        assertEquals(1, stats.get("largestPoolSize"));
+        assertEquals(2L, ((Map<?, ?>) stats.get("runTime")).get("count"));
+    }
+
+    @Test
+    void testVirtualThreadsWhenSupported() throws InterruptedException {
+        MonitoredExecutor executor = new MonitoredExecutor("virtual", 1, 1, 1, Duration.ofSeconds(1),
+                MonitoredExecutor.Rejection.ABORT, true);
+        AtomicReference<Boolean> virtual = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            virtual.set(VirtualThreads.isVirtual(Thread.currentThread()));
+            done.countDown();
+        });
+
+        // 验证结果：Java 21 以上使用虚拟线程，更低版本退回平台线程
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown(Duration.ofSeconds(5));
+        assertEquals(VirtualThreads.isSupported(), virtual.get());
+        assertEquals(VirtualThreads.isSupported(), executor.getStats().get("virtualThreads"));
+    }
+
+    /**
+     * 一个线程、队列容量为1
+     */
+    private static MonitoredExecutor executor(MonitoredExecutor.Rejection rejection) {
+        return new MonitoredExecutor("test", 1, 1, 1, Duration.ofSeconds(1), rejection);
+    }
+
+    /**
+     * 让唯一的线程阻塞并占满队列
+     * @return 放行阻塞任务的开关
+     */
+    private static CountDownLatch occupy(MonitoredExecutor executor) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.execute(() -> { });
+        assertEquals(1, executor.getStats().get("queueDepth"));
+        return release;
+    }
+}
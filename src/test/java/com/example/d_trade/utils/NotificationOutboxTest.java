@@ -0,0 +1,178 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.MessageDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 发件箱投递测试：直接使用H2数据库，不启动应用
+ */
+public class NotificationOutboxTest {
+
+    private static final LocalDateTime CREATE_TIME = LocalDateTime.of(2024, 5, 1, 8, 0, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private NotificationOutbox outbox;
+    private final List<MessageDTO> pushedMessages = new ArrayList<>();
+    private final Map<Long, Long> pushedUnreadCounts = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:outbox_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE products (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE messages (id BIGINT AUTO_INCREMENT PRIMARY KEY, type VARCHAR(50) NOT NULL, "
+                + "title VARCHAR(100) NOT NULL, content TEXT, is_read BOOLEAN NOT NULL, receiver_id BIGINT NOT NULL, "
+                + "product_id BIGINT, order_id BIGINT, create_time TIMESTAMP, "
+                + "FOREIGN KEY (receiver_id) REFERENCES users(id), FOREIGN KEY (product_id) REFERENCES products(id))");
+        jdbcTemplate.execute("CREATE TABLE notification_outbox (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "type VARCHAR(50) NOT NULL, title VARCHAR(100) NOT NULL, content TEXT, receiver_id BIGINT NOT NULL, "
+                + "product_id BIGINT, order_id BIGINT, create_time TIMESTAMP NOT NULL, failed_time TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO users (id) VALUES (1), (2)");
+        // 只有用户1建立了推送连接
+        MessageStreamRegistry messageStream = new MessageStreamRegistry(null, 60_000, 3_000, 10, 5, 32, 30_000) {
+            @Override
+            public boolean isSubscribed(Long userId) {
+                return userId == 1L;
+            }
+
+            @Override
+            public void pushMessage(Long userId, MessageDTO message) {
+                pushedMessages.add(message);
+            }
+
+            @Override
+            public void pushUnreadCount(Long userId, long unreadCount) {
+                pushedUnreadCounts.put(userId, unreadCount);
+            }
+        };
+        outbox = new NotificationOutbox(null, null, jdbcTemplate, new DataSourceTransactionManager(dataSource), null,
+                messageStream, new UnreadCountCache(jdbcTemplate, null, messageStream, 100, 60), false, 2);
+    }
+
+    @Test
+    void testDrainsInBatches() {
+        for (int i = 0; i < 3; i++) {
+            pending(1L + i % 2, "通知" + i, i == 0 ? 5L : null);
+        }
+
+        // 调用测试方法
+        int first = outbox.drain();
+        int second = outbox.drain();
+        int third = outbox.drain();
+
+        // 验证结果：按写入顺序每批最多2条，发送时间和关联ID原样写入消息表
+        assertEquals(2, first);
+        assertEquals(1, second);
+        assertEquals(0, third);
+        List<Map<String, Object>> messages = jdbcTemplate.queryForList(
+                "SELECT title, receiver_id, order_id, is_read, create_time FROM messages ORDER BY id");
+        assertEquals(List.of("通知0", "通知1", "通知2"), messages.stream().map(row -> row.get("title")).toList());
+        assertEquals(5L, ((Number) messages.get(0).get("order_id")).longValue());
+        assertNull(messages.get(1).get("order_id"));
+        assertEquals(Boolean.FALSE, messages.get(0).get("is_read"));
+        assertEquals(Timestamp.valueOf(CREATE_TIME), messages.get(2).get("create_time"));
+
+        Map<String, Object> stats = outbox.getStats();
+        assertEquals(0L, stats.get("depth"));
+        assertEquals(3L, stats.get("delivered"));
+        assertEquals(2L, stats.get("batches"));
+        assertEquals(2, stats.get("maxBatchSize"));
+    }
+
+    @Test
+    void testUndeliverableNotificationDoesNotBlockOthers() {
+        pending(1L, "正常通知", null);
+        // 接收者不存在，插入消息违反外键
+        pending(99L, "无法投递", null);
+
+        // 调用测试方法
+        int processed = outbox.drain();
+
+        // 验证结果：整批失败后逐条投递，无法投递的记录标记为失败，不再参与投递
+        assertEquals(2, processed);
+        assertEquals(List.of("正常通知"), jdbcTemplate.queryForList("SELECT title FROM messages", String.class));
+        assertEquals(List.of("无法投递"), jdbcTemplate.queryForList(
+                "SELECT title FROM notification_outbox WHERE failed_time IS NOT NULL", String.class));
+        assertEquals(0, outbox.drain());
+        Map<String, Object> stats = outbox.getStats();
+        assertEquals(0L, stats.get("depth"));
+        assertEquals(1L, stats.get("delivered"));
+        assertEquals(1L, stats.get("failed"));
+    }
+
+    @Test
+    void testDeletedProductDeliveredWithoutReference() {
+        // 关联的商品已被删除
+        jdbcTemplate.update("INSERT INTO notification_outbox (type, title, content, receiver_id, product_id, order_id, "
+                + "create_time) VALUES ('SYSTEM', '商品已删除', '内容', 2, 42, 7, ?)", Timestamp.valueOf(CREATE_TIME));
+
+        // 调用测试方法
+        int processed = outbox.drain();
+
+        // 验证结果：去掉关联后投递
+        assertEquals(1, processed);
+        Map<String, Object> message = jdbcTemplate.queryForMap("SELECT title, product_id, order_id FROM messages");
+        assertEquals("商品已删除", message.get("title"));
+        assertNull(message.get("product_id"));
+        assertNull(message.get("order_id"));
+        Map<String, Object> stats = outbox.getStats();
+        assertEquals(0L, stats.get("depth"));
+        assertEquals(1L, stats.get("delivered"));
+        assertEquals(1L, stats.get("detached"));
+        assertEquals(0L, stats.get("failed"));
+    }
+
+    @Test
+    void testPushesDeliveredMessagesToSubscribedReceivers() {
+        jdbcTemplate.update("INSERT INTO messages (type, title, content, is_read, receiver_id) "
+                + "VALUES ('SYSTEM', '已有未读', '内容', FALSE, 1)");
+        pending(1L, "推送", 7L);
+        pending(2L, "未连接", null);
+
+        // 调用测试方法
+        outbox.drain();
+
+        // 验证结果：只推送给已连接的用户，消息带数据库生成的ID，未读数包含已有的未读消息
+        assertEquals(1, pushedMessages.size());
+        MessageDTO message = pushedMessages.get(0);
+        assertEquals("推送", message.getTitle());
+        assertEquals(7L, message.getOrderId());
+        assertFalse(message.isRead());
+        Long id = jdbcTemplate.queryForObject("SELECT id FROM messages WHERE title = '推送'", Long.class);
+        assertEquals(id, message.getId());
+        assertEquals(Map.of(1L, 2L), pushedUnreadCounts);
+    }
+
+    @Test
+    void testStatsReportBacklog() {
+        pending(1L, "积压", null);
+
+        Map<String, Object> stats = outbox.getStats();
+
+        assertEquals(1L, stats.get("depth"));
+        assertTrue((Long) stats.get("oldestPendingMs") > 0);
+        assertEquals(false, stats.get("running"));
+    }
+
+    private void pending(Long receiverId, String title, Long orderId) {
+        jdbcTemplate.update("INSERT INTO notification_outbox (type, title, content, receiver_id, product_id, order_id, "
+                        + "create_time) VALUES ('SYSTEM', ?, '内容', ?, NULL, ?, ?)",
+                title, receiverId, orderId, Timestamp.valueOf(CREATE_TIME));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.ProductDTO;
+import com.example.d_trade.dto.UserDTO;
+import com.example.d_trade.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ObjectSizeEstimatorTest {
+
+    @Test
+    void testStringSizeGrowsWithLength() {
+        assertEquals(0, ObjectSizeEstimator.estimate(null));
+        long ascii = ObjectSizeEstimator.estimate("a".repeat(100));
+        long chinese = ObjectSizeEstimator.estimate("二".repeat(100));
+        assertTrue(ascii > 100);
+        // 中文按每字符2字节，相差100字节（按8字节对齐）
+        assertEquals(100, chinese - ascii, 8);
+    }
+
+    @Test
+    void testDtoIncludesNestedObjects() {
+        ProductDTO withoutDescription = product(1, "");
+        ProductDTO withDescription = product(1, "描述".repeat(500));
+
+        long difference = ObjectSizeEstimator.estimate(withDescription) - ObjectSizeEstimator.estimate(withoutDescription);
+        assertEquals(2000, difference, 16);
+    }
+
+    @Test
+    void testPageSizeScalesWithContent() {
+        long small = ObjectSizeEstimator.estimate(page(2));
+        long large = ObjectSizeEstimator.estimate(page(20));
+        assertTrue(large > small * 5, "small=" + small + ", large=" + large);
+    }
+
+    private static PageImpl<ProductDTO> page(int size) {
+        List<ProductDTO> content = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            content.add(product(i, "九成新，自提"));
+        }
+        return new PageImpl<>(content, PageRequest.of(0, size), 100);
+    }
+
+    private static ProductDTO product(long id, String description) {
+        UserDTO seller = new UserDTO();
+        seller.setUsername("张三");
+        ProductDTO dto = new ProductDTO();
+        dto.setId(id);
+        dto.setTitle("二手自行车");
+        dto.setPrice(new BigDecimal("150.00"));
+        dto.setDescription(description);
+        dto.setImagePaths(List.of("/uploads/images/1.png"));
+        dto.setStatus(Product.Status.AVAILABLE);
+        dto.setSeller(seller);
+        dto.setCreateTime(LocalDateTime.now());
+        return dto;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.ProductDTO;
+import com.example.d_trade.dto.UserDTO;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 商品详情存储基准测试：堆外商品目录 vs 只用 Caffeine 缓存 ProductDTO
+ * 对比常驻堆内存、堆外内存、Full GC耗时，以及随机读取时的耗时和GC次数
+ * 数据量较大，默认不执行，使用 mvn test -Dbenchmark=true -Dtest=OffHeapProductCatalogBenchmark 运行，
+ * 建议加 -DargLine="-Xmx2g" 固定堆大小
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class OffHeapProductCatalogBenchmark {
+
+    private static final int PRODUCTS = 200_000;
+    private static final int READS = 2_000_000;
+    private static final int SELLERS = 5_000;
+
+    @Test
+    void compareWithCaffeine() {
+        List<UserDTO> sellers = new ArrayList<>();
+        for (long id = 1; id <= SELLERS; id++) {
+            sellers.add(new UserDTO(id, "2021" + id, "user" + id, "昵称" + id, "1380013" + id, true,
+                    User.Role.USER, LocalDateTime.now()));
+        }
+
+        long baseline = settledHeap();
+        long baselineDirect = directBytes();
+
+        Cache<Long, ProductDTO> cache = Caffeine.newBuilder().maximumSize(PRODUCTS).build();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            cache.put(id, ProductDTO.fromEntity(product(id, sellers)));
+        }
+        report("Caffeine", baseline, baselineDirect, id -> cache.getIfPresent(id));
+        cache.invalidateAll();
+        cache.cleanUp();
+
+        baseline = settledHeap();
+        OffHeapProductCatalog catalog = new OffHeapProductCatalog(true, PRODUCTS);
+        for (long id = 1; id <= PRODUCTS; id++) {
+            Product product = product(id, sellers);
+            catalog.put(product, sellers.get((int) (id % SELLERS)));
+        }
+        catalog.markReady();
+        assertEquals(PRODUCTS, catalog.size());
+        report("堆外目录", baseline, baselineDirect, catalog::getProduct);
+    }
+
+    private static void report(String name, long baselineHeap, long baselineDirect, LongFunction<ProductDTO> reader) {
+        long heap = settledHeap() - baselineHeap;
+        long direct = directBytes() - baselineDirect;
+
+        long gcStart = System.nanoTime();
+        System.gc();
+        long fullGcMs = (System.nanoTime() - gcStart) / 1_000_000;
+
+        Random random = new Random(42);
+        long[] gcBefore = gcTotals();
+        long readStart = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < READS; i++) {
+            checksum += reader.apply(1 + random.nextInt(PRODUCTS)).getTitle().length();
+        }
+        long readNanos = System.nanoTime() - readStart;
+        long[] gcAfter = gcTotals();
+
+        System.out.printf("[%s] %d个商品: 常驻堆内存 %.1f MB, 堆外内存 %.1f MB, Full GC %d ms; "
+                        + "%d次随机读取 %.0f ns/次, 期间GC %d 次 %d ms (checksum=%d)%n",
+                name, PRODUCTS, heap / 1048576.0, direct / 1048576.0, fullGcMs,
+                READS, (double) readNanos / READS, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1], checksum);
+    }
+
+    private static Product product(long id, List<UserDTO> sellers) {
+        User seller = new User();
+        UserDTO sellerDto = sellers.get((int) (id % SELLERS));
+        seller.setId(sellerDto.getId());
+        seller.setStudentId(sellerDto.getStudentId());
+        seller.setUsername(sellerDto.getUsername());
+        seller.setNickname(sellerDto.getNickname());
+        seller.setRole(User.Role.USER);
+
+        Product product = new Product();
+        product.setId(id);
+        product.setTitle("二手自行车 九成新 " + id);
+        product.setPrice(BigDecimal.valueOf(id % 100_000, 2));
+        product.setDescription("毕业出售，使用一年，车况良好，送车锁和车筐，可小刀。编号" + id);
+        product.setTradeLocation("三号宿舍楼");
+        product.setImagePaths(List.of("uploads/images/" + id + "_1.jpg", "uploads/images/" + id + "_2.jpg"));
+        product.setStatus(Product.Status.AVAILABLE);
+        product.setSeller(seller);
+        product.setCreateTime(LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(id));
+        product.setUpdateTime(product.getCreateTime());
+        return product;
+    }
+
+    private static long settledHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long directBytes() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+
+    private static long[] gcTotals() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += collector.getCollectionCount();
+            time += collector.getCollectionTime();
+        }
+        return new long[]{count, time};
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.ProductDTO;
+import com.example.d_trade.dto.ProductSummaryDTO;
+import com.example.d_trade.dto.UserDTO;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapProductCatalogTest {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 5, 1, 8, 0, 0, 123_456_789);
+
+    private OffHeapProductCatalog catalog;
+    private User seller;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new OffHeapProductCatalog(true, 16);
+        catalog.markReady();
+        seller = new User();
+        seller.setId(2L);
+        seller.setStudentId("20210101");
+        seller.setUsername("张三");
+        seller.setNickname("三哥");
+        seller.setContactInfo("13800138001");
+        seller.setEnabled(true);
+        seller.setRole(User.Role.USER);
+        seller.setCreateTime(BASE_TIME);
+    }
+
+    @Test
+    void testProductRoundTrip() {
+        Product product = product(1L, 0);
+        product.setImagePaths(List.of("uploads/images/a.jpg", "uploads/images/b.jpg"));
+        product.setTradeLocation(null);
+        catalog.onProductSaved(product);
+
+        ProductDTO restored = catalog.getProduct(1L);
+
+        // 金额精度、纳秒时间、空字段和卖家信息都应保留
+        assertEquals(ProductDTO.fromEntity(product), restored);
+        assertTrue(catalog.contains(1L));
+        assertNull(catalog.getProduct(99L));
+    }
+
+    @Test
+    void testNewestPagesInCreateTimeOrder() {
+        for (long id = 1; id <= 25; id++) {
+            // 发布时间与ID顺序打乱
+            catalog.put(product(id, (id * 7) % 25), UserDTO.fromEntity(seller));
+        }
+
+        Page<ProductSummaryDTO> first = catalog.list("newest", PageRequest.of(0, 10));
+        Page<ProductSummaryDTO> last = catalog.list("newest", PageRequest.of(2, 10));
+
+        assertEquals(25, first.getTotalElements());
+        assertEquals(3, first.getTotalPages());
+        assertEquals(10, first.getContent().size());
+        assertEquals(5, last.getContent().size());
+        LocalDateTime previous = null;
+        for (int page = 0; page < 3; page++) {
+            for (ProductSummaryDTO product : catalog.list("newest", PageRequest.of(page, 10))) {
+                assertTrue(previous == null || !product.getCreateTime().isAfter(previous));
+                previous = product.getCreateTime();
+            }
+        }
+        assertEquals("三哥", first.getContent().get(0).getSeller().getNickname());
+    }
+
+    @Test
+    void testPricePagesFollowPriceUpdates() {
+        for (long id = 1; id <= 6; id++) {
+            Product product = product(id, id);
+            // 价格与ID、发布时间顺序都不同，ID 3 和 5 价格相同
+            product.setPrice(new BigDecimal(new String[]{"30.00", "5.50", "12.00", "99.90", "12.00", "0.80"}[(int) id - 1]));
+            catalog.put(product, UserDTO.fromEntity(seller));
+        }
+
+        assertEquals(List.of(6L, 2L, 3L, 5L, 1L, 4L), ids(catalog.list("price_asc", PageRequest.of(0, 10))));
+        assertEquals(List.of(3L, 5L), ids(catalog.list("price_asc", PageRequest.of(1, 2))));
+        assertEquals(List.of(4L, 1L, 5L), ids(catalog.list("price_desc", PageRequest.of(0, 3))));
+
+        // 降价后移到新位置，售出后移除，发布时间顺序不受影响
+        Product discounted = product(4L, 4);
+        discounted.setPrice(new BigDecimal("1.00"));
+        catalog.put(discounted, UserDTO.fromEntity(seller));
+        catalog.onStatusChanged(3L, Product.Status.SOLD);
+
+        assertEquals(List.of(6L, 4L, 2L, 5L, 1L), ids(catalog.list("price_asc", PageRequest.of(0, 10))));
+        assertEquals(List.of(6L, 5L, 4L, 2L, 1L), ids(catalog.list("newest", PageRequest.of(0, 10))));
+        assertTrue(catalog.list("price_desc", PageRequest.of(3, 10)).getContent().isEmpty());
+    }
+
+    @Test
+    void testRemoveKeepsIndexesConsistent() {
+        for (long id = 1; id <= 5; id++) {
+            catalog.put(product(id, id), UserDTO.fromEntity(seller));
+        }
+
+        // 删除中间的记录，最后一条记录移到空位
+        catalog.onStatusChanged(2L, Product.Status.SOLD);
+        catalog.onProductDeleted(4L);
+
+        assertEquals(3, catalog.size());
+        assertFalse(catalog.contains(2L));
+        assertFalse(catalog.contains(4L));
+        assertEquals("商品5", catalog.getProduct(5L).getTitle());
+        assertEquals(List.of(5L, 3L, 1L), ids(catalog.list("newest", PageRequest.of(0, 10))));
+    }
+
+    @Test
+    void testUpdateReplacesRecord() {
+        catalog.put(product(1L, 1), UserDTO.fromEntity(seller));
+        catalog.put(product(2L, 2), UserDTO.fromEntity(seller));
+
+        Product updated = product(1L, 3);
+        updated.setTitle("降价出售");
+        updated.setPrice(new BigDecimal("88"));
+        catalog.put(updated, UserDTO.fromEntity(seller));
+
+        assertEquals(2, catalog.size());
+        assertEquals("降价出售", catalog.getProduct(1L).getTitle());
+        assertEquals(new BigDecimal("88"), catalog.getProduct(1L).getPrice());
+        assertEquals(List.of(1L, 2L), ids(catalog.list("newest", PageRequest.of(0, 10))));
+
+        // 不再在售时移出目录
+        updated.setStatus(Product.Status.REMOVED);
+        catalog.put(updated, UserDTO.fromEntity(seller));
+        assertFalse(catalog.contains(1L));
+    }
+
+    @Test
+    void testGrowsAndCompacts() {
+        int total = 2000;
+        for (long id = 1; id <= total; id++) {
+            catalog.put(product(id, id), UserDTO.fromEntity(seller));
+        }
+        // 反复更新同一批商品产生垃圾数据，超过阈值后压缩
+        for (int round = 0; round < 3; round++) {
+            for (long id = 1; id <= total; id++) {
+                Product product = product(id, id);
+                product.setDescription("描述".repeat(100) + round);
+                catalog.put(product, UserDTO.fromEntity(seller));
+            }
+        }
+
+        Map<String, Object> stats = catalog.getStats();
+        assertEquals(total, stats.get("products"));
+        assertTrue((Long) stats.get("compactions") > 0);
+        assertTrue(catalog.getProduct(1234L).getDescription().endsWith("2"));
+        assertEquals((long) total, catalog.list("newest", PageRequest.of(0, 1)).getContent().get(0).getId());
+    }
+
+    @Test
+    void testSellerChangeIsVisible() {
+        catalog.put(product(1L, 1), UserDTO.fromEntity(seller));
+
+        seller.setNickname("新昵称");
+        catalog.onSellerChanged(seller);
+
+        assertEquals("新昵称", catalog.getProduct(1L).getSeller().getNickname());
+    }
+
+    @Test
+    void testServesOnlyDefaultListingWhenReady() {
+        Pageable pageable = PageRequest.of(0, 10);
+        assertTrue(catalog.servesListing(null, "AVAILABLE", "newest", pageable));
+        assertTrue(catalog.servesListing("", null, null, pageable));
+        assertFalse(catalog.servesListing("自行车", "AVAILABLE", null, pageable));
+        assertFalse(catalog.servesListing(null, "SOLD", null, pageable));
+        assertTrue(catalog.servesListing(null, "AVAILABLE", "price_asc", pageable));
+        assertFalse(catalog.servesListing(null, "AVAILABLE", "popular", pageable));
+
+        // 重新加载期间回退到缓存和数据库
+        catalog.clear();
+        assertFalse(catalog.servesListing(null, "AVAILABLE", null, pageable));
+        assertNull(catalog.getProduct(1L));
+    }
+
+    private Product product(long id, long minutes) {
+        Product product = new Product();
+        product.setId(id);
+        product.setTitle("商品" + id);
+        product.setPrice(new BigDecimal("19.90"));
+        product.setDescription("九成新");
+        product.setTradeLocation("图书馆");
+        product.setImagePaths(List.of("uploads/images/" + id + ".jpg"));
+        product.setStatus(Product.Status.AVAILABLE);
+        product.setSeller(seller);
+        product.setCreateTime(BASE_TIME.plusMinutes(minutes));
+        product.setUpdateTime(BASE_TIME.plusMinutes(minutes));
+        return product;
+    }
+
+    private static List<Long> ids(Page<ProductSummaryDTO> page) {
+        return page.getContent().stream().map(ProductSummaryDTO::getId).toList();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.d_trade.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PerformanceMonitorTest {
+
+    private static final String METHOD = "com.example.d_trade.service.ProductService.getProducts";
+
+    private AtomicLong now;
+    private PerformanceMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000_000_000L);
+        monitor = new PerformanceMonitor(now::get);
+    }
+
+    @Test
+    void testRecentWindowIsNotDilutedByOldData() {
+        // 10分钟前的一批快请求
+        for (int i = 0; i < 1000; i++) {
+            monitor.record(METHOD, 1_000_000, false);
+        }
+        now.addAndGet(10 * 60_000L);
+
+        // 最近一分钟变慢，并且有错误
+        for (int i = 0; i < 60; i++) {
+            monitor.record(METHOD, 80_000_000, i % 10 == 0);
+            now.addAndGet(1_000);
+        }
+
+        Map<String, Object> lastMinute = monitor.getWindowStats(PerformanceMonitor.Window.ONE_MINUTE).get(METHOD);
+        Map<String, Object> lastHour = monitor.getWindowStats(PerformanceMonitor.Window.ONE_HOUR).get(METHOD);
+        Map<String, Object> lifetime = monitor.getMethodStats().get(METHOD);
+
+        // 验证结果：最近1分钟只包含变慢后的请求
+        assertEquals(59L, lastMinute.get("totalExecutions"));
+        assertTrue((double) lastMinute.get("p50") >= 75.0);
+        assertEquals(5L, lastMinute.get("errorCount"));
+        assertEquals(1060L, lastHour.get("totalExecutions"));
+        assertTrue((double) lifetime.get("p50") < 2.0);
+        assertEquals(6L, lifetime.get("errorCount"));
+    }
+
+    @Test
+    void testExpiredSlotsAreDropped() {
+        monitor.record(METHOD, 1_000_000, false);
+        now.addAndGet(2 * 60 * 60_000L);
+
+        assertTrue(monitor.getWindowStats(PerformanceMonitor.Window.ONE_HOUR).isEmpty());
+        assertEquals(1L, monitor.getMethodStats().get(METHOD).get("totalExecutions"));
+    }
+
+    @Test
+    void testRecentStatsReportsThroughput() {
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 20; j++) {
+                monitor.record(METHOD, 2_000_000, false);
+            }
+            now.addAndGet(1_000);
+        }
+        now.addAndGet(-1);
+
+        Map<String, Object> stats = monitor.getRecentStats(10).get(METHOD);
+
+        assertEquals(200L, stats.get("totalExecutions"));
+        assertEquals(20.0, (double) stats.get("throughputPerSecond"), 0.5);
+        assertEquals(0.0, stats.get("errorRate"));
+    }
+}
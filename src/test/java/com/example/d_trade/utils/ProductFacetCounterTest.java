@@ -0,0 +1,114 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.request.ProductFilter;
+import com.example.d_trade.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductFacetCounterTest {
+
+    private ProductFacetCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = new ProductFacetCounter(
+                List.of(new BigDecimal("100"), new BigDecimal("10"), new BigDecimal("50")), 2);
+        counter.put(1L, Product.Status.AVAILABLE, new BigDecimal("5.00"), "图书馆");
+        counter.put(2L, Product.Status.AVAILABLE, new BigDecimal("10.00"), "图书馆");
+        counter.put(3L, Product.Status.AVAILABLE, new BigDecimal("49.99"), "食堂");
+        counter.put(4L, Product.Status.AVAILABLE, new BigDecimal("150"), null);
+        counter.put(5L, Product.Status.SOLD, new BigDecimal("20"), "食堂");
+        counter.markReady();
+    }
+
+    @Test
+    void testPriceBucketsAndStatuses() {
+        Map<String, Object> facets = counter.getFacets(Product.Status.AVAILABLE, ProductFilter.NONE);
+
+        // 分界点乱序传入也按升序分区间，区间包含下限
+        assertEquals(List.of(1L, 2L, 0L, 1L), bucketCounts(facets));
+        assertEquals(Map.of("min", new BigDecimal("100"), "count", 1L), priceRanges(facets).get(3));
+        assertEquals(4L, statuses(facets).get("AVAILABLE"));
+        assertEquals(1L, statuses(facets).get("SOLD"));
+        assertEquals(0L, statuses(facets).get("REMOVED"));
+        assertEquals(Boolean.TRUE, facets.get("ready"));
+    }
+
+    @Test
+    void testLocationsSortedAndLimited() {
+        counter.put(6L, Product.Status.AVAILABLE, new BigDecimal("8"), "操场");
+
+        Map<String, Object> facets = counter.getFacets(Product.Status.AVAILABLE, ProductFilter.NONE);
+
+        // 按数量倒序、同数量按名称排序，未填写地点的商品不计入，最多返回2个
+        assertEquals(List.of("图书馆", "操场"), locationNames(facets));
+        assertEquals(2L, locations(facets).get(0).get("count"));
+    }
+
+    @Test
+    void testLocationFilterNarrowsPriceRanges() {
+        Map<String, Object> facets = counter.getFacets(Product.Status.AVAILABLE, new ProductFilter(null, null, "食堂"));
+
+        assertEquals(List.of(0L, 1L, 0L, 0L), bucketCounts(facets));
+        // 交易地点计数不受自身筛选影响
+        assertEquals(2, locations(facets).size());
+    }
+
+    @Test
+    void testStatusChangeUpdateAndDelete() {
+        counter.updateStatus(3L, Product.Status.SOLD);
+        counter.put(1L, Product.Status.AVAILABLE, new BigDecimal("60"), "食堂");
+        counter.remove(4L);
+        counter.remove(99L);
+
+        Map<String, Object> facets = counter.getFacets(Product.Status.AVAILABLE, ProductFilter.NONE);
+
+        assertEquals(List.of(0L, 1L, 1L, 0L), bucketCounts(facets));
+        assertEquals(2L, statuses(facets).get("AVAILABLE"));
+        assertEquals(2L, statuses(facets).get("SOLD"));
+        assertEquals(4, counter.size());
+        assertEquals(List.of(0L, 2L, 0L, 0L),
+                bucketCounts(counter.getFacets(Product.Status.SOLD, ProductFilter.NONE)));
+    }
+
+    @Test
+    void testClearResetsReady() {
+        counter.clear();
+
+        Map<String, Object> facets = counter.getFacets(Product.Status.AVAILABLE, ProductFilter.NONE);
+
+        assertFalse(counter.isReady());
+        assertEquals(0, counter.size());
+        assertEquals(List.of(0L, 0L, 0L, 0L), bucketCounts(facets));
+        assertTrue(locations(facets).isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> priceRanges(Map<String, Object> facets) {
+        return (List<Map<String, Object>>) facets.get("priceRanges");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> locations(Map<String, Object> facets) {
+        return (List<Map<String, Object>>) facets.get("locations");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Long> statuses(Map<String, Object> facets) {
+        return (Map<String, Long>) facets.get("statuses");
+    }
+
+    private static List<Long> bucketCounts(Map<String, Object> facets) {
+        return priceRanges(facets).stream().map(range -> (Long) range.get("count")).toList();
+    }
+
+    private static List<String> locationNames(Map<String, Object> facets) {
+        return locations(facets).stream().map(location -> (String) location.get("location")).toList();
+    }
+}
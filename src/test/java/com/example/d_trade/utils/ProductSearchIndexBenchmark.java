@@ -0,0 +1,156 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.entity.Product;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 关键词查询基准测试：倒排索引 vs 数据库LIKE查询
+ * 索引一侧的耗时包括按当前页ID回表（对应 findListByIdIn），与LIKE查询返回同样的一页数据
+ * 数据量较大，默认不执行，使用 mvn test -Dbenchmark=true -Dtest=ProductSearchIndexBenchmark 运行
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ProductSearchIndexBenchmark {
+
+    private static final String[] WORDS = {
+            "二手", "自行车", "教材", "笔记本", "电脑", "耳机", "台灯", "考研", "资料", "键盘",
+            "鼠标", "显示器", "篮球", "吉他", "相机", "手机", "充电宝", "书架", "衣柜", "风扇"
+    };
+
+    private static final String[] KEYWORDS = {"自行车", "考研资料", "机械键盘", "台灯", "相机"};
+
+    private static final int ROUNDS = 20;
+
+    @ParameterizedTest
+    @ValueSource(ints = {100_000, 1_000_000})
+    void compareWithLikeQuery(int productCount) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:bench" + productCount, "sa", "")) {
+            ProductSearchIndex index = new ProductSearchIndex();
+            long loadStart = System.nanoTime();
+            populate(connection, index, productCount);
+            index.markReady();
+            System.out.printf("[%d] 数据准备耗时: %d ms%n", productCount, (System.nanoTime() - loadStart) / 1_000_000);
+
+            String likeSql = "SELECT id, title, price, status, create_time FROM products "
+                    + "WHERE title LIKE ? AND status = 'AVAILABLE' ORDER BY create_time DESC LIMIT 10";
+            String countSql = "SELECT COUNT(*) FROM products WHERE title LIKE ? AND status = 'AVAILABLE'";
+
+            for (String keyword : KEYWORDS) {
+                // 预热
+                long likeTotal = likeQuery(connection, likeSql, countSql, keyword);
+                long indexTotal = indexQuery(connection, index, keyword);
+
+                long likeNanos = 0;
+                long indexNanos = 0;
+                for (int i = 0; i < ROUNDS; i++) {
+                    long start = System.nanoTime();
+                    likeQuery(connection, likeSql, countSql, keyword);
+                    likeNanos += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    indexQuery(connection, index, keyword);
+                    indexNanos += System.nanoTime() - start;
+                }
+
+                System.out.printf("[%d] keyword=%s LIKE: %.2f ms (命中%d), 索引: %.2f ms (命中%d)%n",
+                        productCount, keyword,
+                        likeNanos / 1_000_000.0 / ROUNDS, likeTotal,
+                        indexNanos / 1_000_000.0 / ROUNDS, indexTotal);
+
+                // 索引与LIKE使用同样的标题匹配规则
+                assertEquals(likeTotal, indexTotal);
+            }
+        }
+    }
+
+    private void populate(Connection connection, ProductSearchIndex index, int productCount) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE products (id BIGINT PRIMARY KEY, title VARCHAR(100) NOT NULL, "
+                    + "description TEXT, price DECIMAL(10,2) NOT NULL, status VARCHAR(20), create_time TIMESTAMP)");
+        }
+
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.now().minusDays(365);
+        String insertSql = "INSERT INTO products (id, title, description, price, status, create_time) "
+                + "VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement insert = connection.prepareStatement(insertSql)) {
+            for (int i = 1; i <= productCount; i++) {
+                String title = WORDS[random.nextInt(WORDS.length)] + WORDS[random.nextInt(WORDS.length)]
+                        + WORDS[random.nextInt(WORDS.length)];
+                String description = "出售" + WORDS[random.nextInt(WORDS.length)] + "，成色良好，可小刀";
+                BigDecimal price = BigDecimal.valueOf(random.nextInt(100_000), 2);
+                Product.Status status = random.nextInt(10) == 0 ? Product.Status.SOLD : Product.Status.AVAILABLE;
+                LocalDateTime createTime = base.plusSeconds(i * 30L);
+
+                insert.setLong(1, i);
+                insert.setString(2, title);
+                insert.setString(3, description);
+                insert.setBigDecimal(4, price);
+                insert.setString(5, status.name());
+                insert.setTimestamp(6, Timestamp.valueOf(createTime));
+                insert.addBatch();
+                if (i % 5000 == 0) {
+                    insert.executeBatch();
+                }
+
+                index.index((long) i, title, price, status, createTime, null);
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private long indexQuery(Connection connection, ProductSearchIndex index, String keyword) throws Exception {
+        ProductSearchIndex.SearchResult result = index.search(keyword, Product.Status.AVAILABLE, "newest", 0, 10);
+        List<Long> ids = result.ids();
+        if (ids.isEmpty()) {
+            return result.total();
+        }
+        String pageSql = "SELECT id, title, price, status, create_time FROM products WHERE id IN ("
+                + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        try (PreparedStatement page = connection.prepareStatement(pageSql)) {
+            for (int i = 0; i < ids.size(); i++) {
+                page.setLong(i + 1, ids.get(i));
+            }
+            try (ResultSet rs = page.executeQuery()) {
+                while (rs.next()) {
+                    rs.getLong(1);
+                }
+            }
+        }
+        return result.total();
+    }
+
+    private long likeQuery(Connection connection, String likeSql, String countSql, String keyword) throws Exception {
+        String pattern = "%" + keyword + "%";
+        try (PreparedStatement page = connection.prepareStatement(likeSql)) {
+            page.setString(1, pattern);
+            try (ResultSet rs = page.executeQuery()) {
+                while (rs.next()) {
+                    rs.getLong(1);
+                }
+            }
+        }
+        try (PreparedStatement count = connection.prepareStatement(countSql)) {
+            count.setString(1, pattern);
+            try (ResultSet rs = count.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 商品搜索索引测试：匹配规则与标题LIKE查询一致
+ */
+public class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        LocalDateTime now = LocalDateTime.now();
+        index.index(1L, "二手自行车", new BigDecimal("150.00"), Product.Status.AVAILABLE, now, "图书馆");
+        // 包含“自行”“行车”两个片段，但不连续
+        index.index(2L, "自行 行车记录仪", new BigDecimal("80.00"), Product.Status.AVAILABLE, now.plusMinutes(1), "食堂");
+        index.index(3L, "Mechanical Keyboard", new BigDecimal("200.00"), Product.Status.AVAILABLE, now.plusMinutes(2), "食堂");
+        index.markReady();
+    }
+
+    @Test
+    void testCandidatesVerifiedAgainstTitle() {
+        // 调用测试方法
+        ProductSearchIndex.SearchResult result = index.search("自行车", Product.Status.AVAILABLE, "newest", 0, 10);
+
+        // 验证结果
+        assertEquals(List.of(1L), result.ids());
+        assertEquals(1, result.total());
+    }
+
+    @Test
+    void testMatchesIgnoreCase() {
+        ProductSearchIndex.SearchResult result = index.search("KEYBOARD", Product.Status.AVAILABLE, "newest", 0, 10);
+
+        assertEquals(List.of(3L), result.ids());
+        assertTrue(ProductSearchIndex.matches("keyboard", "Mechanical Keyboard"));
+        assertFalse(ProductSearchIndex.matches("自行车", "自行 行车记录仪"));
+    }
+
+    @Test
+    void testReindexRemovesOldTerms() {
+        // 调用测试方法
+        index.index(1L, "山地车", new BigDecimal("150.00"), Product.Status.AVAILABLE, LocalDateTime.now(), "图书馆");
+
+        // 验证结果
+        assertEquals(0, index.search("自行车", Product.Status.AVAILABLE, "newest", 0, 10).total());
+        assertEquals(List.of(1L), index.search("山地", Product.Status.AVAILABLE, "newest", 0, 10).ids());
+    }
+}
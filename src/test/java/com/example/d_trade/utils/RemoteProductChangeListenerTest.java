@@ -0,0 +1,113 @@
+package com.example.d_trade.utils;
+
+import com.example.d_trade.dto.UserDTO;
+import com.example.d_trade.dto.request.ProductFilter;
+import com.example.d_trade.entity.Product;
+import com.example.d_trade.entity.User;
+import com.example.d_trade.repository.ProductRepository;
+import com.example.d_trade.utils.CacheDependencyTracker.ProductSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RemoteProductChangeListenerTest {
+
+    private ProductRepository productRepository;
+    private OffHeapProductCatalog catalog;
+    private ProductFacetCounter counter;
+    private RemoteProductChangeListener listener;
+    private Product bike;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        catalog = new OffHeapProductCatalog(true, 16);
+        catalog.markReady();
+        counter = new ProductFacetCounter(List.of(new BigDecimal("100")), 10);
+        counter.markReady();
+        listener = new RemoteProductChangeListener(productRepository, catalog, counter, null);
+
+        User seller = new User();
+        seller.setId(2L);
+        seller.setStudentId("20210101");
+        seller.setUsername("张三");
+        seller.setEnabled(true);
+        seller.setRole(User.Role.USER);
+        bike = new Product();
+        bike.setId(1L);
+        bike.setTitle("二手自行车");
+        bike.setPrice(new BigDecimal("150.00"));
+        bike.setTradeLocation("图书馆");
+        bike.setStatus(Product.Status.AVAILABLE);
+        bike.setSeller(seller);
+        bike.setCreateTime(LocalDateTime.of(2024, 5, 1, 8, 0));
+        catalog.put(bike, UserDTO.fromEntity(seller));
+        counter.put(1L, Product.Status.AVAILABLE, bike.getPrice(), bike.getTradeLocation());
+    }
+
+    @Test
+    void testUpdateReloadsFromDatabase() {
+        ProductSnapshot before = ProductSnapshot.of(bike);
+        bike.setTitle("二手自行车（已降价）");
+        bike.setPrice(new BigDecimal("80.00"));
+        bike.setTradeLocation("食堂");
+        when(productRepository.findById(1L)).thenReturn(Optional.of(bike));
+
+        // 调用测试方法：事件中的快照已过时，以数据库中的商品为准
+        listener.applyRemote(CacheInvalidationEvent.productChanged(before, before));
+
+        // 验证结果
+        assertEquals("二手自行车（已降价）", catalog.getProduct(1L).getTitle());
+        assertEquals(new BigDecimal("80.00"), catalog.getProduct(1L).getPrice());
+        Map<String, Object> facets = counter.getFacets(Product.Status.AVAILABLE, ProductFilter.NONE);
+        assertEquals(List.of(Map.of("location", "食堂", "count", 1L)), facets.get("locations"));
+    }
+
+    @Test
+    void testSoldProductLeavesCatalog() {
+        ProductSnapshot before = ProductSnapshot.of(bike);
+        bike.setStatus(Product.Status.SOLD);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(bike));
+
+        // 调用测试方法
+        listener.applyRemote(CacheInvalidationEvent.productChanged(before, ProductSnapshot.of(bike)));
+
+        // 验证结果
+        assertNull(catalog.getProduct(1L));
+        @SuppressWarnings("unchecked")
+        Map<String, Long> statuses = (Map<String, Long>) counter
+                .getFacets(Product.Status.SOLD, ProductFilter.NONE).get("statuses");
+        assertEquals(0L, statuses.get("AVAILABLE"));
+        assertEquals(1L, statuses.get("SOLD"));
+    }
+
+    @Test
+    void testDeletedProductRemoved() {
+        when(productRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // 调用测试方法
+        listener.applyRemote(CacheInvalidationEvent.productChanged(ProductSnapshot.of(bike), null));
+
+        // 验证结果
+        assertNull(catalog.getProduct(1L));
+        assertEquals(0, counter.size());
+    }
+
+    @Test
+    void testOrderEventIgnored() {
+        // 调用测试方法
+        listener.applyRemote(CacheInvalidationEvent.orderChanged(10L, "20210102", "20210101"));
+
+        // 验证结果
+        verifyNoInteractions(productRepository);
+        assertNotNull(catalog.getProduct(1L));
+    }
+}
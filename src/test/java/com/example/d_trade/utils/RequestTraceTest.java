@@ -0,0 +1,91 @@
+package com.example.d_trade.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestTraceTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestTrace trace = RequestTrace.current();
+        if (trace != null) {
+            trace.finish(200);
+        }
+    }
+
+    @Test
+    void testBuildsSpanTreeAndDbTime() {
+        RequestTrace trace = RequestTrace.begin("GET", "/api/products");
+        assertSame(trace, RequestTrace.current());
+
+        // controller → service → 两次repository调用，其中一次嵌套了另一个repository调用
+        RequestTrace.Span controller = trace.enter("ProductController.getProducts", RequestTrace.Layer.CONTROLLER);
+        RequestTrace.Span service = trace.enter("ProductService.getProducts", RequestTrace.Layer.SERVICE);
+        RequestTrace.Span page = trace.enter("ProductRepository.findListByStatus", RequestTrace.Layer.REPOSITORY);
+        trace.exit(page, 3_000_000, false);
+        RequestTrace.Span outer = trace.enter("ProductRepository.findById", RequestTrace.Layer.REPOSITORY);
+        RequestTrace.Span inner = trace.enter("UserRepository.findById", RequestTrace.Layer.REPOSITORY);
+        trace.exit(inner, 1_000_000, false);
+        trace.exit(outer, 2_000_000, true);
+        trace.exit(service, 6_000_000, true);
+        trace.exit(controller, 7_000_000, true);
+        trace.finish(500);
+
+        // 验证结果
+        assertNull(RequestTrace.current());
+        assertEquals(5_000_000, trace.getDbNanos());
+        Map<String, Object> data = trace.toMap();
+        assertEquals(500, data.get("status"));
+        assertEquals(5, data.get("spanCount"));
+
+        List<?> roots = (List<?>) data.get("spans");
+        assertEquals(1, roots.size());
+        Map<?, ?> serviceSpan = (Map<?, ?>) ((List<?>) ((Map<?, ?>) roots.get(0)).get("children")).get(0);
+        List<?> repositorySpans = (List<?>) serviceSpan.get("children");
+        assertEquals(2, repositorySpans.size());
+        assertEquals(true, ((Map<?, ?>) repositorySpans.get(1)).get("failed"));
+        assertEquals(1, ((List<?>) ((Map<?, ?>) repositorySpans.get(1)).get("children")).size());
+
+        String serverTiming = trace.serverTiming();
+        assertTrue(serverTiming.startsWith("app;dur="));
+        assertTrue(serverTiming.contains("db;dur=5.000"));
+    }
+
+    @Test
+    void testLimitsSpanCount() {
+        RequestTrace trace = RequestTrace.begin("GET", "/api/orders");
+        for (int i = 0; i < RequestTrace.MAX_SPANS + 10; i++) {
+            RequestTrace.Span span = trace.enter("OrderRepository.findById", RequestTrace.Layer.REPOSITORY);
+            trace.exit(span, 1_000, false);
+        }
+        trace.finish(200);
+
+        Map<String, Object> data = trace.toMap();
+        assertEquals(RequestTrace.MAX_SPANS, data.get("spanCount"));
+        assertEquals(10, data.get("droppedSpans"));
+        // 丢弃的节点仍计入数据库耗时
+        assertEquals((RequestTrace.MAX_SPANS + 10) * 1_000L, trace.getDbNanos());
+    }
+
+    @Test
+    void testSlowTraceRecorderKeepsSlowest() throws InterruptedException {
+        SlowTraceRecorder recorder = new SlowTraceRecorder(2);
+        for (long sleepMillis : new long[]{1, 20, 5, 10}) {
+            RequestTrace trace = RequestTrace.begin("GET", "/api/products/" + sleepMillis);
+            Thread.sleep(sleepMillis);
+            trace.finish(200);
+            recorder.offer(trace);
+        }
+
+        List<Map<String, Object>> traces = recorder.getTraces();
+
+        assertEquals(2, traces.size());
+        assertEquals("/api/products/20", traces.get(0).get("uri"));
+        assertEquals("/api/products/10", traces.get(1).get("uri"));
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.d_trade.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 未读数缓存测试：直接使用H2数据库，不启动应用
+ */
+public class UnreadCountCacheTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private MessageStreamRegistry messageStream;
+    private UnreadCountCache unreadCounts;
+    private final Map<Long, Long> pushed = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:unread_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("CREATE TABLE messages (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "receiver_id BIGINT NOT NULL, is_read BOOLEAN NOT NULL)");
+        // 只有用户1建立了推送连接
+        messageStream = new MessageStreamRegistry(null, 60_000, 3_000, 10, 5, 32, 30_000) {
+            @Override
+            public boolean isSubscribed(Long userId) {
+                return userId == 1L;
+            }
+
+            @Override
+            public void pushUnreadCount(Long userId, long unreadCount) {
+                pushed.put(userId, unreadCount);
+            }
+        };
+        unreadCounts = new UnreadCountCache(jdbcTemplate, null, messageStream, 100, 60);
+    }
+
+    @Test
+    void testLoadsOnceThenServesFromMemory() {
+        insert(1L, false, 2);
+        insert(1L, true, 1);
+
+        // 调用测试方法
+        long first = unreadCounts.get(1L);
+        insert(1L, false, 1);
+        long second = unreadCounts.get(1L);
+
+        // 验证结果：第二次读取不查询数据库，未经调整的写入不可见
+        assertEquals(2, first);
+        assertEquals(2, second);
+        Map<String, Object> stats = unreadCounts.getStats();
+        assertEquals(1L, stats.get("loads"));
+        assertEquals(1L, stats.get("hits"));
+    }
+
+    @Test
+    void testAdjustAppliesToCachedUsersOnly() {
+        insert(2L, false, 3);
+
+        // 未缓存时调整不生效，读取时从数据库加载
+        unreadCounts.adjust(2L, 5);
+        assertEquals(3, unreadCounts.get(2L));
+
+        unreadCounts.adjust(2L, 1);
+        assertEquals(4, unreadCounts.get(2L));
+
+        // 不会减到负数
+        unreadCounts.adjust(2L, -10);
+        assertEquals(0, unreadCounts.get(2L));
+    }
+
+    @Test
+    void testReconcileCorrectsDriftAndPushes() {
+        insert(1L, false, 1);
+        insert(2L, false, 2);
+        unreadCounts.get(1L);
+        unreadCounts.get(2L);
+        // 绕过写入路径修改数据库：用户1全部已读，用户2新增一条
+        jdbcTemplate.update("UPDATE messages SET is_read = TRUE WHERE receiver_id = 1");
+        insert(2L, false, 1);
+
+        // 调用测试方法
+        int corrected = unreadCounts.reconcile();
+
+        // 验证结果：只推送给已连接的用户1
+        assertEquals(2, corrected);
+        assertEquals(0, unreadCounts.get(1L));
+        assertEquals(3, unreadCounts.get(2L));
+        assertEquals(Map.of(1L, 0L), pushed);
+        assertEquals(0, unreadCounts.reconcile());
+    }
+
+    @Test
+    void testAdjustDuringLoadDiscardsLoadedCount() {
+        insert(1L, false, 2);
+        unreadCounts = new UnreadCountCache(jdbcTemplate, null, messageStream, 100, 60) {
+            @Override
+            long load(Long userId) {
+                long count = super.load(userId);
+                // 查询之后、缓存之前投递了一条新消息
+                if ((Long) getStats().get("loads") == 1L) {
+                    insert(1L, false, 1);
+                    adjust(userId, 1);
+                }
+                return count;
+            }
+        };
+
+        // 调用测试方法
+        long first = unreadCounts.get(1L);
+        long second = unreadCounts.get(1L);
+
+        // 验证结果：第一次加载的结果不缓存，第二次重新加载
+        assertEquals(2, first);
+        assertEquals(3, second);
+        assertEquals(3, unreadCounts.get(1L));
+        Map<String, Object> stats = unreadCounts.getStats();
+        assertEquals(2L, stats.get("loads"));
+        assertEquals(1L, stats.get("staleLoads"));
+        assertEquals(0L, stats.get("adjustments"));
+    }
+
+    @Test
+    void testReconcileSkipsUsersAdjustedDuringQuery() {
+        insert(1L, false, 2);
+        unreadCounts = new UnreadCountCache(jdbcTemplate, null, messageStream, 100, 60) {
+            @Override
+            Map<Long, Long> countUnread(List<Long> userIds) {
+                Map<Long, Long> counts = super.countUnread(userIds);
+                // 查询期间收到一条新消息又标记已读，未读数回到查询前的值
+                if ((Long) getStats().get("reconciliations") == 0L) {
+                    adjust(1L, 1);
+                    adjust(1L, -1);
+                }
+                return counts;
+            }
+        };
+        unreadCounts.get(1L);
+        insert(1L, false, 1);
+
+        // 调用测试方法
+        int first = unreadCounts.reconcile();
+        int second = unreadCounts.reconcile();
+
+        // 验证结果：第一轮状态已被替换，留到下一轮修正
+        assertEquals(0, first);
+        assertEquals(1, second);
+        assertEquals(3, unreadCounts.get(1L));
+    }
+
+    @Test
+    void testUserIdLoadedOnce() {
+        AtomicInteger lookups = new AtomicInteger();
+
+        unreadCounts.userIdFor("2023001", () -> {
+            lookups.incrementAndGet();
+            return 1L;
+        });
+        Long userId = unreadCounts.userIdFor("2023001", () -> {
+            lookups.incrementAndGet();
+            return 1L;
+        });
+
+        assertEquals(1L, userId);
+        assertEquals(1, lookups.get());
+    }
+
+    private void insert(Long receiverId, boolean read, int count) {
+        for (int i = 0; i < count; i++) {
+            jdbcTemplate.update("INSERT INTO messages (receiver_id, is_read) VALUES (?, ?)", receiverId, read);
+        }
+    }
+}